@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) 2023 - Manifold Systems LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package manifold.csv.rt.parser;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import manifold.rt.api.util.ManDateTimeUtil;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures type inference while sampling a wide, mostly text CSV, the worst case for inference by parsing since nearly
+ * every probe is rejected. Compares {@link DataTypeClassifier} with probing by parsing, as {@code CsvTokenizer} did
+ * before, and measures {@link CsvTokenizer} sampling the whole file.
+ * <p/>
+ * The classifier benchmarks process every cell of the file per operation, the sampling benchmark the whole file.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 2 )
+public class CsvSamplingBenchmark
+{
+  private static final int COLUMNS = 60;
+  private static final int ROWS = 1000;
+
+  private String[][] _cells;
+  private String _csv;
+
+  @Setup
+  public void setup()
+  {
+    _cells = makeCells();
+    _csv = makeCsv( _cells );
+  }
+
+  @Benchmark
+  public void parseProbes( Blackhole bh )
+  {
+    for( String[] row: _cells )
+    {
+      for( String cell: row )
+      {
+        bh.consume( classifyByParsing( cell ) );
+      }
+    }
+  }
+
+  @Benchmark
+  public void lexicalClassifier( Blackhole bh )
+  {
+    for( String[] row: _cells )
+    {
+      for( String cell: row )
+      {
+        bh.consume( DataTypeClassifier.classify( cell ) );
+      }
+    }
+  }
+
+  @Benchmark
+  public CsvTokenizer tokenizerSampling()
+  {
+    return new CsvTokenizer( _csv );
+  }
+
+  private static String[][] makeCells()
+  {
+    String[] words = {"Springfield", "N/A", "Acme Corp.", "blue-green", "west 5th ave", "ID-4471", "unknown",
+                      "Q3 results", "see notes", "x86_64", "2nd floor", "#1 seller", "ok"};
+    Random random = new Random( 42 );
+    String[][] cells = new String[ROWS][COLUMNS];
+    for( int row = 0; row < ROWS; row++ )
+    {
+      for( int column = 0; column < COLUMNS; column++ )
+      {
+        // mostly text, a few numeric and date columns
+        switch( column % 10 )
+        {
+          case 0:
+            cells[row][column] = String.valueOf( random.nextInt( 100000 ) );
+            break;
+          case 1:
+            cells[row][column] = String.valueOf( random.nextDouble() * 1000 );
+            break;
+          case 2:
+            cells[row][column] = "2023-0" + (1 + random.nextInt( 9 )) + "-1" + random.nextInt( 10 );
+            break;
+          default:
+            cells[row][column] = words[random.nextInt( words.length )];
+        }
+      }
+    }
+    return cells;
+  }
+
+  private static String makeCsv( String[][] cells )
+  {
+    StringBuilder sb = new StringBuilder();
+    for( int column = 0; column < COLUMNS; column++ )
+    {
+      sb.append( column == 0 ? "" : "," ).append( "column" ).append( column );
+    }
+    for( String[] row: cells )
+    {
+      sb.append( '\n' );
+      for( int column = 0; column < COLUMNS; column++ )
+      {
+        sb.append( column == 0 ? "" : "," ).append( '"' ).append( row[column] ).append( '"' );
+      }
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Type inference as it was before {@link DataTypeClassifier}, rejecting by exception
+   */
+  private static Class classifyByParsing( String data )
+  {
+    if( data.chars().allMatch( Character::isLetter ) )
+    {
+      return String.class;
+    }
+    try
+    {
+      Integer.parseInt( data );
+      return Integer.class;
+    }
+    catch( NumberFormatException ignore )
+    {
+    }
+    try
+    {
+      Long.parseLong( data );
+      return Long.class;
+    }
+    catch( NumberFormatException ignore )
+    {
+    }
+    try
+    {
+      new BigInteger( data );
+      return BigInteger.class;
+    }
+    catch( NumberFormatException ignore )
+    {
+    }
+    try
+    {
+      Double.parseDouble( data );
+      return Double.class;
+    }
+    catch( NumberFormatException ignore )
+    {
+    }
+    try
+    {
+      new BigDecimal( data );
+      return BigDecimal.class;
+    }
+    catch( NumberFormatException ignore )
+    {
+    }
+    if( ManDateTimeUtil.parseDateTime( data ) != null ||
+        ManDateTimeUtil.parseDate( data ) != null ||
+        ManDateTimeUtil.parseTime( data ) != null )
+    {
+      return Object.class;
+    }
+    return String.class;
+  }
+}
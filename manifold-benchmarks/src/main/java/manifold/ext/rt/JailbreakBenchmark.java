@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2023 - Manifold Systems LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package manifold.ext.rt;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+import manifold.util.ReflectUtil;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Compares the calls code compiled with {@code @Jailbreak} makes through {@link ReflectionRuntimeMethods}, which look
+ * up the member with {@link ReflectUtil} on each call, with calling a {@link Method} or {@link Field} resolved once.
+ * The difference bounds what caching the lookup at the call site could gain. One operation calls a private method or
+ * reads a private field.
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 2 )
+public class JailbreakBenchmark
+{
+  private static final Class[] PARAM_TYPES = {int.class};
+
+  private final Secret _secret = new Secret();
+  private final Object[] _args = {1};
+  private Method _add;
+  private Field _value;
+
+  @Setup
+  public void setup()
+  {
+    _add = ReflectUtil.method( Secret.class, "add", PARAM_TYPES ).getMethod();
+    _value = ReflectUtil.field( Secret.class, "_value" ).getField();
+  }
+
+  @Benchmark
+  public Object invokeRuntimeMethods()
+  {
+    return ReflectionRuntimeMethods.invoke_Object( _secret, "add", PARAM_TYPES, _args );
+  }
+
+  @Benchmark
+  public Object invokeResolved() throws Exception
+  {
+    return _add.invoke( _secret, _args );
+  }
+
+  @Benchmark
+  public Object getFieldRuntimeMethods()
+  {
+    return ReflectionRuntimeMethods.getField_Object( _secret, "_value" );
+  }
+
+  @Benchmark
+  public Object getFieldResolved() throws Exception
+  {
+    return _value.get( _secret );
+  }
+
+  public static class Secret
+  {
+    private int _value;
+
+    private int add( int n )
+    {
+      return _value += n;
+    }
+  }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2023 - Manifold Systems LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package manifold.ext.rt;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Compares structural casts of the same few maps in a loop, making a new proxy for each cast as
+ * {@link RuntimeMethods#constructProxy(Object, Class)} does by default, with reusing the proxy kept for the map as it
+ * does with {@code -Dmanifold.ext.proxy.reuse=true}. One operation casts each map and reads a property.
+ * <p/>
+ * The cache references proxies weakly. In {@link #reusedProxy} the loop drops each proxy after using it, so an entry
+ * lasts until the next young collection. {@link #reusedProxyRetained} keeps the proxies reachable, as a caller holding on
+ * to them would, so only the lookup is measured. Run with {@code -prof gc} to compare allocation rates.
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 2 )
+public class ProxyReuseBenchmark
+{
+  @Param( {"1", "8", "1000"} )
+  private int _receivers;
+
+  private Map<String, Object>[] _maps;
+  private Object[] _retained;
+
+  @Setup
+  public void setup()
+  {
+    //noinspection unchecked
+    _maps = new Map[_receivers];
+    _retained = new Object[_receivers];
+    for( int i = 0; i < _receivers; i++ )
+    {
+      Map<String, Object> map = new HashMap<>();
+      map.put( "age", i );
+      _maps[i] = map;
+    }
+  }
+
+  @Benchmark
+  public int newProxy()
+  {
+    int sum = 0;
+    for( Map<String, Object> map: _maps )
+    {
+      sum += ((Aged)RuntimeMethods.constructProxy( map, Aged.class )).getAge();
+    }
+    return sum;
+  }
+
+  @Benchmark
+  public int reusedProxy()
+  {
+    int sum = 0;
+    for( Map<String, Object> map: _maps )
+    {
+      sum += ((Aged)RuntimeMethods.findCachedProxy( map, Aged.class )).getAge();
+    }
+    return sum;
+  }
+
+  @Benchmark
+  public int reusedProxyRetained()
+  {
+    int sum = 0;
+    for( int i = 0; i < _maps.length; i++ )
+    {
+      Aged aged = (Aged)RuntimeMethods.findCachedProxy( _maps[i], Aged.class );
+      _retained[i] = aged;
+      sum += aged.getAge();
+    }
+    return sum;
+  }
+
+  public interface Aged
+  {
+    int getAge();
+  }
+}
@@ -0,0 +1,302 @@
+/*
+ * Copyright (c) 2023 - Manifold Systems LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package manifold.util.concurrent;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Compares {@link Cache} with {@link BaselineCache}, the implementation it replaced:
+ * <ul>
+ *   <li>{@link #zipf}: one thread replaying a skewed (Zipf) trace of gets.</li>
+ *   <li>{@link #zipfWithScans}: the same trace interrupted by scans of keys requested only once.</li>
+ *   <li>{@link #concurrentHits}: four threads getting keys that are all cached.</li>
+ *   <li>{@link #stampede}: eight threads missing on the same keys with a slow loader.</li>
+ * </ul>
+ * The throughput benchmarks measure one get per operation. {@code hits} and {@code misses} count the gets served from
+ * the cache and the gets calling the loader, {@code loads} the number of times the loader ran in {@link #stampede}.
+ */
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 2 )
+public class CacheBenchmark
+{
+  private static final int CAPACITY = 1000;
+  private static final int KEY_SPACE = 100_000;
+  private static final int TRACE_LENGTH = 2_000_000;
+
+  /**
+   * A cache of either implementation, counting the loader calls
+   */
+  @State( Scope.Benchmark )
+  public static class Caches
+  {
+    @Param( {"current", "baseline"} )
+    public String _impl;
+
+    final LongAdder _loads = new LongAdder();
+    private Function<Integer, Integer> _cache;
+
+    @Setup( Level.Trial )
+    public void setup()
+    {
+      _cache = make( key -> {
+        _loads.increment();
+        return key;
+      } );
+    }
+
+    Function<Integer, Integer> make( Cache.Loader<Integer, Integer> loader )
+    {
+      if( _impl.equals( "baseline" ) )
+      {
+        BaselineCache<Integer, Integer> cache = BaselineCache.make( "baseline", CAPACITY, loader::load );
+        return cache::get;
+      }
+      Cache<Integer, Integer> cache = Cache.make( "current", CAPACITY, loader );
+      return cache::get;
+    }
+
+    Integer get( Integer key )
+    {
+      return _cache.apply( key );
+    }
+  }
+
+  /**
+   * Gets replayed in a loop
+   */
+  public abstract static class Trace
+  {
+    Integer[] _keys;
+    int _index;
+
+    Integer next()
+    {
+      Integer key = _keys[_index];
+      _index = _index + 1 == _keys.length ? 0 : _index + 1;
+      return key;
+    }
+  }
+
+  @State( Scope.Thread )
+  public static class ZipfTrace extends Trace
+  {
+    @Setup( Level.Trial )
+    public void setup()
+    {
+      _keys = makeZipfKeys( TRACE_LENGTH, 0.9, new Random( 1 ) );
+    }
+  }
+
+  @State( Scope.Thread )
+  public static class ZipfTraceWithScans extends Trace
+  {
+    @Setup( Level.Trial )
+    public void setup()
+    {
+      _keys = withScans( makeZipfKeys( TRACE_LENGTH, 0.9, new Random( 1 ) ) );
+    }
+  }
+
+  @State( Scope.Thread )
+  public static class HotKeys extends Trace
+  {
+    @Setup( Level.Trial )
+    public void setup( Caches caches )
+    {
+      _keys = new Integer[CAPACITY / 2];
+      for( int i = 0; i < _keys.length; i++ )
+      {
+        _keys[i] = i;
+        caches.get( _keys[i] );
+      }
+    }
+  }
+
+  /**
+   * Reports the hits and misses of a single thread, the hit rate is {@code hits / (hits + misses)}
+   */
+  @State( Scope.Thread )
+  @AuxCounters( AuxCounters.Type.EVENTS )
+  public static class Counts
+  {
+    private Caches _caches;
+    private long _gets;
+    private long _loads;
+
+    @Setup( Level.Iteration )
+    public void start( Caches caches )
+    {
+      _caches = caches;
+      _gets = 0;
+      _loads = caches._loads.sum();
+    }
+
+    public long hits()
+    {
+      return _gets - misses();
+    }
+
+    public long misses()
+    {
+      return _caches._loads.sum() - _loads;
+    }
+  }
+
+  @Benchmark
+  public Integer zipf( Caches caches, ZipfTrace trace, Counts counts )
+  {
+    counts._gets++;
+    return caches.get( trace.next() );
+  }
+
+  @Benchmark
+  public Integer zipfWithScans( Caches caches, ZipfTraceWithScans trace, Counts counts )
+  {
+    counts._gets++;
+    return caches.get( trace.next() );
+  }
+
+  @Benchmark
+  @Threads( 4 )
+  public Integer concurrentHits( Caches caches, HotKeys keys )
+  {
+    return caches.get( keys.next() );
+  }
+
+  /**
+   * Eight threads get the same 100 keys from a new cache, the loader taking a millisecond per key
+   */
+  @Benchmark
+  @BenchmarkMode( Mode.SingleShotTime )
+  @OutputTimeUnit( TimeUnit.MILLISECONDS )
+  @Warmup( iterations = 2 )
+  @Measurement( iterations = 10 )
+  @Threads( 8 )
+  public Integer stampede( Stampede stampede, StampedeCounts counts )
+  {
+    Integer last = null;
+    for( Integer key: stampede._keys )
+    {
+      last = stampede._cache.apply( key );
+    }
+    return last;
+  }
+
+  @State( Scope.Benchmark )
+  public static class Stampede
+  {
+    /** loader calls per thread */
+    private final ThreadLocal<long[]> _loads = ThreadLocal.withInitial( () -> new long[1] );
+    private final Integer[] _keys = new Integer[100];
+    private Function<Integer, Integer> _cache;
+
+    @Setup( Level.Iteration )
+    public void setup( Caches caches )
+    {
+      for( int i = 0; i < _keys.length; i++ )
+      {
+        _keys[i] = i;
+      }
+      _cache = caches.make( key -> {
+        _loads.get()[0]++;
+        try
+        {
+          Thread.sleep( 1 );
+        }
+        catch( InterruptedException e )
+        {
+          throw new RuntimeException( e );
+        }
+        return key;
+      } );
+    }
+  }
+
+  /**
+   * Reports the loader calls of the iteration, summed over the threads, 100 if every key is loaded once
+   */
+  @State( Scope.Thread )
+  @AuxCounters( AuxCounters.Type.EVENTS )
+  public static class StampedeCounts
+  {
+    private long[] _loads;
+
+    @Setup( Level.Iteration )
+    public void start( Stampede stampede )
+    {
+      _loads = stampede._loads.get();
+      _loads[0] = 0;
+    }
+
+    public long loads()
+    {
+      return _loads[0];
+    }
+  }
+
+  private static Integer[] makeZipfKeys( int count, double skew, Random random )
+  {
+    double[] cumulative = new double[KEY_SPACE];
+    double sum = 0;
+    for( int i = 0; i < KEY_SPACE; i++ )
+    {
+      sum += 1 / Math.pow( i + 1, skew );
+      cumulative[i] = sum;
+    }
+
+    Integer[] boxed = new Integer[KEY_SPACE];
+    for( int i = 0; i < KEY_SPACE; i++ )
+    {
+      boxed[i] = i;
+    }
+
+    Integer[] keys = new Integer[count];
+    for( int i = 0; i < count; i++ )
+    {
+      double r = random.nextDouble() * sum;
+      int index = Arrays.binarySearch( cumulative, r );
+      keys[i] = boxed[index < 0 ? Math.min( -index - 1, KEY_SPACE - 1 ) : index];
+    }
+    return keys;
+  }
+
+  /**
+   * Every so often, replaces a stretch of requests with a scan of keys requested only once
+   */
+  private static Integer[] withScans( Integer[] keys )
+  {
+    Integer[] result = keys.clone();
+    int scanKey = KEY_SPACE;
+    for( int i = 0; i < result.length; i++ )
+    {
+      if( i % 100_000 < 5_000 )
+      {
+        result[i] = scanKey++;
+      }
+    }
+    return result;
+  }
+}
@@ -16,12 +16,14 @@
 
 package manifold.rt.api.util;
 
+import java.text.ParsePosition;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.time.format.FormatStyle;
+import java.time.temporal.TemporalQuery;
 
 
 import static manifold.rt.api.util.ManStringUtil.isAlpha;
@@ -70,12 +72,10 @@ public class ManDateTimeUtil
 
     for( DateTimeFormatter formatter: DATE_TIME_FORMATTERS )
     {
-      try
-      {
-        return LocalDateTime.parse( data, formatter );
-      }
-      catch( DateTimeParseException ignore )
+      LocalDateTime result = parse( data, formatter, LocalDateTime::from );
+      if( result != null )
       {
+        return result;
       }
     }
     return null;
@@ -90,12 +90,10 @@ public class ManDateTimeUtil
 
     for( DateTimeFormatter formatter: DATE_FORMATTERS )
     {
-      try
-      {
-        return LocalDate.parse( data, formatter );
-      }
-      catch( DateTimeParseException ignore )
+      LocalDate result = parse( data, formatter, LocalDate::from );
+      if( result != null )
       {
+        return result;
       }
     }
     return null;
@@ -110,14 +108,35 @@ public class ManDateTimeUtil
 
     for( DateTimeFormatter formatter: TIME_FORMATTERS )
     {
-      try
-      {
-        return LocalTime.parse( data, formatter );
-      }
-      catch( DateTimeParseException ignore )
+      LocalTime result = parse( data, formatter, LocalTime::from );
+      if( result != null )
       {
+        return result;
       }
     }
     return null;
   }
+
+  /**
+   * Parses without throwing when the text does not match the formatter. Since values are typically probed against
+   * several formatters, e.g., to infer the type of a CSV or JSON value, rejecting by exception would dominate the cost.
+   */
+  private static <T> T parse( String data, DateTimeFormatter formatter, TemporalQuery<T> query )
+  {
+    ParsePosition pos = new ParsePosition( 0 );
+    if( formatter.parseUnresolved( data, pos ) == null || pos.getIndex() != data.length() )
+    {
+      return null;
+    }
+
+    try
+    {
+      // the text matches the format, resolving can still fail e.g., a day of month out of range
+      return formatter.parse( data, query );
+    }
+    catch( DateTimeParseException ignore )
+    {
+      return null;
+    }
+  }
 }
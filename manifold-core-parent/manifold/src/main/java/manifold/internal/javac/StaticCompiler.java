@@ -69,6 +69,8 @@ public class StaticCompiler
   private static final StaticCompiler INSTANCE = new StaticCompiler();
   private boolean _enterGuard;
   private Map<String, Boolean> _ifaceToProxies = new ConcurrentHashMap<>();
+  // the compilation having created the services file, this instance may outlive a compilation
+  private Context _proxyFactoryServicesCreated;
 
   private StaticCompiler()
   {
@@ -202,6 +204,7 @@ public class StaticCompiler
 
   private void createIProxyFactoryServicesForExtensions()
   {
+    _proxyFactoryServicesCreated = JavacPlugin.instance().getContext();
     if( _ifaceToProxies.isEmpty() )
     {
       return;
@@ -231,6 +234,30 @@ public class StaticCompiler
     _ifaceToProxies.put( fqn, false );
   }
 
+  /**
+   * @return True if a proxy factory can still be registered with {@link #addGeneratedIProxyFactory(String)}, false if
+   * the services file is already created
+   */
+  public boolean canAddGeneratedIProxyFactory()
+  {
+    return _proxyFactoryServicesCreated != JavacPlugin.instance().getContext();
+  }
+
+  /**
+   * Registers a proxy factory the compiler wrote as a class file, as opposed to one compiled from source.
+   *
+   * @return False if the factory can no longer be registered because the services file is already created
+   */
+  public boolean addGeneratedIProxyFactory( String fqn )
+  {
+    if( !canAddGeneratedIProxyFactory() )
+    {
+      return false;
+    }
+    _ifaceToProxies.put( fqn, true );
+    return true;
+  }
+
   public void surfaceGeneratedProxyFactoryClasses( Context context, CompilationUnitTree compilationUnit )
   {
     // This call surfaces the type in the compiler.  If compiling in "static" mode, this means
@@ -0,0 +1,266 @@
+/*
+ * Copyright (c) 2023 - Manifold Systems LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package manifold.internal.runtime.protocols;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.tools.JavaFileObject;
+import manifold.api.fs.IDirectory;
+import manifold.api.host.IModule;
+import manifold.api.util.fingerprint.Fingerprint;
+import manifold.internal.host.RuntimeManifoldHost;
+import manifold.util.concurrent.LocklessLazyVar;
+
+/**
+ * A directory of class files compiled at runtime, so that a type compiled from a resource file in one run of the JVM
+ * loads in another without compiling it again. Enable the cache by setting the {@code manifold.class.cache.dir} system
+ * property to a directory.
+ * <p/>
+ * A class file is cached as {@code <fqn>.class}, prefixed with the fingerprint of its generated Java source, the
+ * manifold version, the Java version, and the class path. If the resource file changes, its generated source changes
+ * and the cached class is compiled again and replaced. Anything else the source compiles against, such as another
+ * resource file it references, a Java class it extends, or an extension class, is on the class path or source path of
+ * the module. The path, size, and modification time of each jar, and of each file in a directory of those paths, are
+ * part of the fingerprint, so a change to any of them compiles the classes again. The class path is fingerprinted once
+ * per JVM.
+ */
+class ClassCache
+{
+  private static final String CACHE_DIR = "manifold.class.cache.dir";
+  private static final int MAGIC = 0x4D414E43; // "MANC"
+
+  private static final LocklessLazyVar<File> DIR =
+    LocklessLazyVar.make( () -> {
+      String dir = System.getProperty( CACHE_DIR );
+      return dir == null || dir.isEmpty() ? null : new File( dir );
+    } );
+  private static final LocklessLazyVar<String> VERSION =
+    LocklessLazyVar.make( ClassCache::makeVersion );
+  private static final LocklessLazyVar<String> CLASS_PATH =
+    LocklessLazyVar.make( () -> fingerprintClassPath( getClassPath(), DIR.get() ) );
+
+  static boolean isEnabled()
+  {
+    return DIR.get() != null;
+  }
+
+  /**
+   * @param fqn    The name of the class
+   * @param source The Java source the class is compiled from
+   * @return A fingerprint of the class' source, of the compiler, and of the class path, or null if the source or the
+   * class path can't be read
+   */
+  static Fingerprint fingerprint( String fqn, JavaFileObject source )
+  {
+    return fingerprint( fqn, source, CLASS_PATH.get() );
+  }
+
+  /**
+   * @param classPath A fingerprint of the class path, see {@link #fingerprintClassPath(List, File)}
+   */
+  static Fingerprint fingerprint( String fqn, JavaFileObject source, String classPath )
+  {
+    if( classPath == null )
+    {
+      return null;
+    }
+    try
+    {
+      return new Fingerprint( fqn )
+        .extend( VERSION.get() )
+        .extend( classPath )
+        .extend( source.getCharContent( true ).toString() );
+    }
+    catch( IOException e )
+    {
+      return null;
+    }
+  }
+
+  /**
+   * @param classPath The jars and directories of the class path and source path
+   * @param cacheDir  The cache directory, excluded if it is in a directory of the class path
+   * @return A fingerprint of the path, size, and modification time of each jar and of each file in the directories, or
+   * null if a directory can't be read
+   */
+  static String fingerprintClassPath( List<File> classPath, File cacheDir )
+  {
+    Path exclude = cacheDir == null ? null : cacheDir.getAbsoluteFile().toPath();
+    Fingerprint fingerprint = new Fingerprint();
+    for( File file: classPath )
+    {
+      fingerprint.extend( file.getPath() );
+      if( file.isDirectory() )
+      {
+        Path dir = file.getAbsoluteFile().toPath();
+        List<Path> files;
+        try( Stream<Path> paths = Files.walk( dir ) )
+        {
+          files = paths
+            .filter( path -> (exclude == null || !path.startsWith( exclude )) && Files.isRegularFile( path ) )
+            .sorted()
+            .collect( Collectors.toList() );
+        }
+        catch( IOException | UncheckedIOException e )
+        {
+          return null;
+        }
+        for( Path path: files )
+        {
+          extend( fingerprint, dir.relativize( path ).toString(), path.toFile() );
+        }
+      }
+      else
+      {
+        extend( fingerprint, "", file );
+      }
+    }
+    return Long.toHexString( fingerprint.getRawFingerprint() );
+  }
+
+  private static void extend( Fingerprint fingerprint, String path, File file )
+  {
+    fingerprint.extend( path + ';' + file.length() + ';' + file.lastModified() );
+  }
+
+  private static List<File> getClassPath()
+  {
+    Set<File> files = new LinkedHashSet<>();
+    IModule module = RuntimeManifoldHost.get().getSingleModule();
+    if( module != null )
+    {
+      addFiles( files, module.getCollectiveSourcePath() );
+      addFiles( files, module.getCollectiveJavaClassPath() );
+    }
+    return new ArrayList<>( files );
+  }
+
+  private static void addFiles( Set<File> files, List<IDirectory> dirs )
+  {
+    for( IDirectory dir: dirs )
+    {
+      files.add( dir.toJavaFile() );
+    }
+  }
+
+  /**
+   * @return The cached class file of {@code fqn} if its fingerprint is {@code fingerprint}, otherwise null
+   */
+  static byte[] get( String fqn, Fingerprint fingerprint )
+  {
+    return get( DIR.get(), fqn, fingerprint );
+  }
+
+  static byte[] get( File dir, String fqn, Fingerprint fingerprint )
+  {
+    File file = getFile( dir, fqn );
+    if( !file.isFile() )
+    {
+      return null;
+    }
+    try( DataInputStream in = new DataInputStream( Files.newInputStream( file.toPath() ) ) )
+    {
+      if( in.readInt() != MAGIC || in.readLong() != fingerprint.getRawFingerprint() )
+      {
+        // stale
+        return null;
+      }
+      byte[] bytes = new byte[in.readInt()];
+      in.readFully( bytes );
+      return bytes;
+    }
+    catch( IOException e )
+    {
+      // e.g., a truncated file, compile the class again
+      return null;
+    }
+  }
+
+  static void put( String fqn, Fingerprint fingerprint, byte[] bytes )
+  {
+    put( DIR.get(), fqn, fingerprint, bytes );
+  }
+
+  static void put( File dir, String fqn, Fingerprint fingerprint, byte[] bytes )
+  {
+    File file = getFile( dir, fqn );
+    try
+    {
+      //noinspection ResultOfMethodCallIgnored
+      dir.mkdirs();
+      // write to a temp file and move it, so another JVM sharing the directory never reads a partial file
+      File temp = File.createTempFile( fqn, ".tmp", dir );
+      try
+      {
+        try( DataOutputStream out = new DataOutputStream( Files.newOutputStream( temp.toPath() ) ) )
+        {
+          out.writeInt( MAGIC );
+          out.writeLong( fingerprint.getRawFingerprint() );
+          out.writeInt( bytes.length );
+          out.write( bytes );
+        }
+        Files.move( temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE );
+      }
+      finally
+      {
+        //noinspection ResultOfMethodCallIgnored
+        temp.delete();
+      }
+    }
+    catch( IOException e )
+    {
+      // the cache is an optimization, the class is compiled again next time
+    }
+  }
+
+  private static File getFile( File dir, String fqn )
+  {
+    return new File( dir, fqn + ".class" );
+  }
+
+  private static String makeVersion()
+  {
+    StringBuilder version = new StringBuilder()
+      .append( System.getProperty( "java.specification.version" ) ).append( ';' )
+      .append( ClassCache.class.getPackage().getImplementationVersion() );
+    try
+    {
+      // a snapshot build, or classes not in a jar, don't change version with each build
+      URL location = ClassCache.class.getProtectionDomain().getCodeSource().getLocation();
+      File file = new File( location.toURI() );
+      version.append( ';' ).append( file.getPath() ).append( ';' ).append( file.lastModified() );
+    }
+    catch( Exception e )
+    {
+      version.append( ";?" );
+    }
+    return version.toString();
+  }
+}
@@ -33,6 +33,7 @@ import javax.tools.DiagnosticCollector;
 import javax.tools.JavaFileObject;
 import manifold.api.type.ISelfCompiledFile;
 import manifold.api.type.ITypeManifold;
+import manifold.api.util.fingerprint.Fingerprint;
 import manifold.internal.host.RuntimeManifoldHost;
 import manifold.internal.javac.InMemoryClassJavaFileObject;
 import manifold.internal.javac.JavaCompileIssuesException;
@@ -307,12 +308,27 @@ public class ManClassesUrlConnection extends URLConnection
         }
         else
         {
+          Fingerprint fingerprint = ClassCache.isEnabled() ? ClassCache.fingerprint( _javaFqn, _javaSrcFile ) : null;
+          if( fingerprint != null )
+          {
+            byte[] cached = ClassCache.get( _javaFqn, fingerprint );
+            if( cached != null )
+            {
+              return cached;
+            }
+          }
+
           DiagnosticCollector<JavaFileObject> errorHandler = new DiagnosticCollector<>();
           InMemoryClassJavaFileObject cls = RuntimeManifoldHost.get().getJavaParser().compile( _javaFqn,
             Arrays.asList( "-source", "8", "-g", "-nowarn", "-Xlint:none", "-proc:none", "-parameters" ), errorHandler );
           if( cls != null )
           {
-            return cls.getBytes();
+            byte[] bytes = cls.getBytes();
+            if( fingerprint != null )
+            {
+              ClassCache.put( _javaFqn, fingerprint, bytes );
+            }
+            return bytes;
           }
           throw new JavaCompileIssuesException( _javaFqn, errorHandler );
         }
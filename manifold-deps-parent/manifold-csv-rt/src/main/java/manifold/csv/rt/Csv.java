@@ -16,10 +16,7 @@
 
 package manifold.csv.rt;
 
-import java.io.BufferedInputStream;
-import java.io.ByteArrayInputStream;
-import java.io.IOException;
-import java.io.InputStream;
+import java.io.Reader;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.time.LocalDate;
@@ -31,6 +28,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import manifold.csv.rt.parser.*;
 import manifold.json.rt.api.DataBindings;
@@ -217,15 +215,26 @@ public class Csv
 
   public static Object fromCsv( String csv, boolean withTokens )
   {
-    try( InputStream inputStream = new BufferedInputStream( new ByteArrayInputStream( csv.getBytes() ) ) )
-    {
-      CsvDataSet dataSet = CsvParser.parse( inputStream );
-      return withTokens ? transformType( dataSet ) : transformData( dataSet );
-    }
-    catch( IOException e )
-    {
-      throw new RuntimeException( e );
-    }
+    CsvDataSet dataSet = CsvParser.parse( csv );
+    return withTokens ? transformType( dataSet ) : transformData( dataSet );
+  }
+
+  /**
+   * Parse CSV from {@code reader} incrementally. Unlike {@link #fromCsv(String)} the input is not read into memory,
+   * records are parsed and converted to bindings as they are pulled from the stream. The header and types are inferred
+   * from a sample of leading records, see {@link CsvParser#stream(Reader, Boolean, int)}.
+   * <p/>
+   * The stream owns {@code reader} and must be closed, preferably using try-with-resources. Rows may be cast to the
+   * record type of a CSV type e.g., {@code (MyCsv.MyCsvItem)row}.
+   */
+  public static Stream<DataBindings> streamCsv( Reader reader )
+  {
+    CsvRecordStream records = CsvParser.stream( reader );
+    CsvHeader header = records.getHeader();
+    List<?> names = header == null
+      ? null
+      : header.getFields().stream().map( f -> f.getToken() ).collect( Collectors.toList() );
+    return records.stream().map( record -> makeBindings( names, record ) );
   }
 
   private static List<?> transformData( CsvDataSet dataSet )
@@ -254,20 +263,28 @@ public class Csv
     List<DataBindings> list = new ArrayList<>();
     for( CsvRecord record: dataSet.getRecords() )
     {
-      DataBindings bindings = new DataBindings();
-      List<CsvField> fields = record.getFields();
-      for( int fieldNum = 0; fieldNum < fields.size(); fieldNum++ )
-      {
-        CsvField field = fields.get( fieldNum );
-        Object name = names.get( fieldNum );
-        bindings.put( name instanceof CsvToken ? ((CsvToken)name).getData() : name.toString(),
-          field.getToken().getData() );
-      }
-      list.add( bindings );
+      list.add( makeBindings( names, record ) );
     }
     return list;
   }
 
+  /**
+   * @param names The header tokens or field labels, null to label fields by position
+   */
+  private static DataBindings makeBindings( List<?> names, CsvRecord record )
+  {
+    DataBindings bindings = new DataBindings();
+    List<CsvField> fields = record.getFields();
+    for( int fieldNum = 0; fieldNum < fields.size(); fieldNum++ )
+    {
+      CsvField field = fields.get( fieldNum );
+      Object name = names == null ? "Field" + (fieldNum + 1) : names.get( fieldNum );
+      bindings.put( name instanceof CsvToken ? ((CsvToken)name).getData() : name.toString(),
+        field.getToken().getData() );
+    }
+    return bindings;
+  }
+
   private static DataBindings transformType( CsvDataSet dataSet )
   {
     CsvHeader header = dataSet.getHeader();
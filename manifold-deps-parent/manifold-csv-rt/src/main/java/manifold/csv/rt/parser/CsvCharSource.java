@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2023 - Manifold Systems LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package manifold.csv.rt.parser;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Character input for {@link CsvTokenizer}. Positions are absolute offsets from the beginning of the input,
+ * they are {@code long} since streamed input may exceed 2G characters.
+ * <p/>
+ * A source backed by a {@code Reader} keeps only a window of the input in memory. Characters are read on demand and
+ * characters before the position passed to {@link #release(int)} are discarded when the window needs room, so the
+ * buffer is bounded by the larger of the buffer size and the longest record, or while sampling, the sample prefix.
+ */
+abstract class CsvCharSource
+{
+  static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+  static CsvCharSource of( CharSequence content )
+  {
+    return new Chars( content );
+  }
+
+  static CsvCharSource of( Reader reader, int bufferSize )
+  {
+    return new Buffered( reader, bufferSize );
+  }
+
+  /**
+   * @return The character at {@code pos}. The position must not be at or beyond the end of input.
+   */
+  abstract char charAt( long pos );
+
+  /**
+   * @return True if {@code pos} is at or beyond the end of input.
+   */
+  abstract boolean isEnd( long pos );
+
+  /**
+   * Indicates characters before {@code pos} are no longer needed.
+   */
+  void release( long pos )
+  {
+  }
+
+  private static class Chars extends CsvCharSource
+  {
+    private final CharSequence _content;
+    private final int _length;
+
+    Chars( CharSequence content )
+    {
+      _content = content;
+      _length = content.length();
+    }
+
+    @Override
+    char charAt( long pos )
+    {
+      return _content.charAt( (int)pos );
+    }
+
+    @Override
+    boolean isEnd( long pos )
+    {
+      return pos >= _length;
+    }
+  }
+
+  private static class Buffered extends CsvCharSource
+  {
+    private final Reader _reader;
+    private final int _bufferSize;
+    private char[] _buffer;
+    private long _start; // absolute position of _buffer[0]
+    private long _end;   // absolute position following the last char read
+    private long _released;
+    private boolean _eof;
+
+    Buffered( Reader reader, int bufferSize )
+    {
+      _reader = reader;
+      _bufferSize = Math.max( bufferSize, 16 );
+      _buffer = new char[_bufferSize];
+    }
+
+    @Override
+    char charAt( long pos )
+    {
+      if( pos < _start || !fill( pos ) )
+      {
+        throw new IndexOutOfBoundsException( "Position " + pos + " is outside the buffered input" );
+      }
+      return _buffer[(int)(pos - _start)];
+    }
+
+    @Override
+    boolean isEnd( long pos )
+    {
+      return !fill( pos );
+    }
+
+    @Override
+    void release( long pos )
+    {
+      _released = Math.max( _released, pos );
+    }
+
+    /**
+     * Reads until {@code pos} is buffered or the input is exhausted.
+     * @return True if {@code pos} is buffered
+     */
+    private boolean fill( long pos )
+    {
+      while( pos >= _end && !_eof )
+      {
+        if( _end - _start == _buffer.length )
+        {
+          makeRoom();
+        }
+        int offset = (int)(_end - _start);
+        try
+        {
+          int read = _reader.read( _buffer, offset, _buffer.length - offset );
+          if( read < 0 )
+          {
+            _eof = true;
+          }
+          else
+          {
+            _end += read;
+          }
+        }
+        catch( IOException e )
+        {
+          throw new RuntimeException( e );
+        }
+      }
+      return pos < _end;
+    }
+
+    private void makeRoom()
+    {
+      long keep = Math.max( _released, _start );
+      int retained = (int)(_end - keep);
+      int from = (int)(keep - _start);
+      if( retained > _buffer.length / 2 )
+      {
+        // the retained region is the bulk of the buffer e.g., a huge record or the sample prefix, grow it
+        char[] buffer = new char[_buffer.length * 2];
+        System.arraycopy( _buffer, from, buffer, 0, retained );
+        _buffer = buffer;
+      }
+      else if( _buffer.length > _bufferSize && retained < _bufferSize / 2 )
+      {
+        // the buffer grew while sampling or for a huge record, shrink it back
+        char[] buffer = new char[_bufferSize];
+        System.arraycopy( _buffer, from, buffer, 0, retained );
+        _buffer = buffer;
+      }
+      else
+      {
+        System.arraycopy( _buffer, from, _buffer, 0, retained );
+      }
+      _start = keep;
+    }
+  }
+}
@@ -0,0 +1,232 @@
+/*
+ * Copyright (c) 2023 - Manifold Systems LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package manifold.csv.rt.parser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Parses the records of in-memory CSV content in parallel. After sampling and parsing the header sequentially, the
+ * content is split into chunks at line breaks outside of quoted fields. Each chunk is tokenized on the fork-join pool
+ * with the sampled separator and settings, and the records are reassembled in order.
+ * <p/>
+ * Splitting relies on a quick scan of quotes, which can't anticipate every lenient quoting the tokenizer accepts. So the
+ * result of a chunk is used only if the preceding chunk ended exactly at the chunk's start, otherwise the chunk is
+ * parsed again from where the preceding chunk ended. Thus, the records are always the same as parsing sequentially.
+ */
+class CsvParallelParser
+{
+  private static final int MIN_CHUNK_SIZE = 1 << 16;
+
+  private final CharSequence _content;
+  private final CsvTokenizer _tokenizer;
+  private final ForkJoinPool _pool;
+
+  /**
+   * @param tokenizer The sampled tokenizer positioned at the first record, following the header if there is one
+   */
+  CsvParallelParser( CharSequence content, CsvTokenizer tokenizer, ForkJoinPool pool )
+  {
+    _content = content;
+    _tokenizer = tokenizer;
+    _pool = pool;
+  }
+
+  List<CsvRecord> parseRecords()
+  {
+    List<Chunk> chunks = split();
+    if( chunks.size() == 1 )
+    {
+      return parse( chunks.get( 0 ) )._records;
+    }
+
+    List<ForkJoinTask<Result>> tasks = new ArrayList<>( chunks.size() );
+    for( Chunk chunk: chunks )
+    {
+      tasks.add( _pool.submit( () -> parse( chunk ) ) );
+    }
+
+    List<CsvRecord> records = new ArrayList<>();
+    Result prev = null;
+    for( int i = 0; i < chunks.size(); i++ )
+    {
+      Chunk chunk = chunks.get( i );
+      if( prev != null && prev._eof )
+      {
+        // the remaining chunks are trailing whitespace
+        tasks.get( i ).cancel( false );
+        continue;
+      }
+
+      Result result = tasks.get( i ).join();
+      if( prev != null && (prev._endPos != chunk._pos || prev._endLine != chunk._line) )
+      {
+        // the chunk did not start at a record boundary, resume where the preceding chunk ended
+        result = parse( new Chunk( prev._endPos, prev._endLine, chunk._end ) );
+      }
+      records.addAll( result._records );
+      prev = result;
+    }
+    return records;
+  }
+
+  private Result parse( Chunk chunk )
+  {
+    CsvTokenizer tokenizer = new CsvTokenizer( _tokenizer, chunk._pos, chunk._line );
+    CsvParser parser = new CsvParser( tokenizer );
+    List<CsvRecord> records = new ArrayList<>();
+    while( tokenizer.getPos() < chunk._end )
+    {
+      CsvRecord record = parser.nextRecord();
+      if( record == null )
+      {
+        break;
+      }
+      records.add( record );
+    }
+    return new Result( records, tokenizer.getPos(), tokenizer.getLine(), parser.isEof() );
+  }
+
+  /**
+   * Splits the content at line breaks outside quoted fields, roughly evenly into a few chunks per worker thread.
+   */
+  private List<Chunk> split()
+  {
+    long start = _tokenizer.getPos();
+    int line = _tokenizer.getLine();
+    int length = _content.length();
+
+    List<Chunk> chunks = new ArrayList<>();
+    int chunkCount = (int)Math.min( _pool.getParallelism() * 4L, (length - start) / MIN_CHUNK_SIZE );
+    if( chunkCount < 2 || _pool.getParallelism() < 2 )
+    {
+      chunks.add( new Chunk( start, line, Long.MAX_VALUE ) );
+      return chunks;
+    }
+
+    long chunkSize = (length - start) / chunkCount;
+    long nextSplit = start + chunkSize;
+    long chunkStart = start;
+    int chunkLine = line;
+    char separator = _tokenizer.getSeparator();
+    boolean whitespace = _tokenizer.isWhitespaceSignificant();
+    boolean quoted = false;
+    boolean fieldStart = true;
+    for( int i = (int)Math.max( start + 1, 0 ); i < length; i++ )
+    {
+      char c = _content.charAt( i );
+      if( c == '\n' )
+      {
+        line++;
+      }
+
+      if( quoted )
+      {
+        if( c == '"' )
+        {
+          if( i + 1 < length && _content.charAt( i + 1 ) == '"' )
+          {
+            // escaped quote
+            i++;
+          }
+          else
+          {
+            quoted = false;
+          }
+        }
+      }
+      else if( c == '"' && fieldStart )
+      {
+        quoted = true;
+        fieldStart = false;
+      }
+      else if( c == separator )
+      {
+        fieldStart = true;
+      }
+      else if( c == '\n' )
+      {
+        fieldStart = true;
+        if( i >= nextSplit && !isBlankLine( i ) )
+        {
+          chunks.add( new Chunk( chunkStart, chunkLine, i ) );
+          chunkStart = i;
+          chunkLine = line;
+          nextSplit = i + chunkSize;
+        }
+      }
+      else if( c == ' ' || c == '\t' || c == '\r' )
+      {
+        fieldStart = fieldStart && !whitespace;
+      }
+      else
+      {
+        fieldStart = false;
+      }
+    }
+    chunks.add( new Chunk( chunkStart, chunkLine, Long.MAX_VALUE ) );
+    return chunks;
+  }
+
+  /**
+   * True if the line break at {@code pos} terminates an empty line. The tokenizer skips empty lines, so a record can't
+   * end there.
+   */
+  private boolean isBlankLine( int pos )
+  {
+    int prev = pos - 1;
+    if( prev >= 0 && _content.charAt( prev ) == '\r' )
+    {
+      prev--;
+    }
+    return prev < 0 || _content.charAt( prev ) == '\n' || _content.charAt( prev ) == '\r';
+  }
+
+  private static class Chunk
+  {
+    /** tokenizer state at the beginning of the chunk, the position of the line break ending the preceding record */
+    private final long _pos;
+    private final int _line;
+    /** position of the line break ending the last record of the chunk */
+    private final long _end;
+
+    Chunk( long pos, int line, long end )
+    {
+      _pos = pos;
+      _line = line;
+      _end = end;
+    }
+  }
+
+  private static class Result
+  {
+    private final List<CsvRecord> _records;
+    private final long _endPos;
+    private final int _endLine;
+    private final boolean _eof;
+
+    Result( List<CsvRecord> records, long endPos, int endLine, boolean eof )
+    {
+      _records = records;
+      _endPos = endPos;
+      _endLine = endLine;
+      _eof = eof;
+    }
+  }
+}
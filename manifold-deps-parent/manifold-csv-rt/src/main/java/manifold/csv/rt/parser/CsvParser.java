@@ -16,12 +16,12 @@
 
 package manifold.csv.rt.parser;
 
-import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.Reader;
 import java.util.ArrayList;
 import java.util.List;
-import manifold.rt.api.util.StreamUtil;
+import java.util.concurrent.ForkJoinPool;
 
 
 import static java.nio.charset.StandardCharsets.UTF_8;
@@ -29,23 +29,66 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 public class CsvParser
 {
   private final CsvTokenizer _tokenizer;
+  private boolean _eof;
 
   public static CsvDataSet parse( InputStream inputStream )
   {
-    return new CsvParser( inputStream ).parse();
+    return new CsvParser( new InputStreamReader( inputStream, UTF_8 ), null, CsvTokenizer.DEFAULT_SAMPLE_SIZE ).parse();
   }
 
-  private CsvParser( InputStream inputStream )
+  /**
+   * Parses in-memory CSV content sequentially. To parse large content in parallel, see
+   * {@link #parse(CharSequence, ForkJoinPool)}.
+   */
+  public static CsvDataSet parse( CharSequence content )
   {
-    try
-    {
-      String content = StreamUtil.getContent( new InputStreamReader( inputStream, UTF_8 ) );
-      _tokenizer = new CsvTokenizer( content );
-    }
-    catch( IOException e )
-    {
-      throw new RuntimeException( e );
-    }
+    return parse( content, null );
+  }
+
+  /**
+   * Parses in-memory CSV content. If {@code pool} is non-null, the separator, header, and types are sampled
+   * sequentially, then chunks of records are parsed in parallel on {@code pool}. The resulting records are the same as
+   * parsing sequentially.
+   *
+   * @param pool The pool for parsing in parallel, null to parse sequentially
+   */
+  public static CsvDataSet parse( CharSequence content, ForkJoinPool pool )
+  {
+    CsvParser parser = new CsvParser( new CsvTokenizer( content ) );
+    CsvHeader header = parser.parseHeader();
+    List<CsvRecord> records = pool == null
+      ? parser.parseRecords()
+      : new CsvParallelParser( content, parser._tokenizer, pool ).parseRecords();
+    return new CsvDataSet( header, records, parser._tokenizer.getTypes() );
+  }
+
+  /**
+   * Parses CSV from {@code reader} incrementally. The header and types are available immediately, records are parsed as
+   * they are pulled from the resulting {@link CsvRecordStream}, which owns {@code reader}.
+   */
+  public static CsvRecordStream stream( Reader reader )
+  {
+    return stream( reader, null, CsvTokenizer.DEFAULT_SAMPLE_SIZE );
+  }
+
+  /**
+   * @param header True if the input has a header record, false if not, null to infer it.
+   * @param sampleSize The maximum number of leading records sampled to infer the separator, header, and types.
+   */
+  public static CsvRecordStream stream( Reader reader, Boolean header, int sampleSize )
+  {
+    CsvParser parser = new CsvParser( reader, header, sampleSize );
+    return new CsvRecordStream( reader, parser, parser.parseHeader(), parser._tokenizer.getTypes() );
+  }
+
+  private CsvParser( Reader reader, Boolean header, int sampleSize )
+  {
+    this( new CsvTokenizer( reader, header, sampleSize ) );
+  }
+
+  CsvParser( CsvTokenizer tokenizer )
+  {
+    _tokenizer = tokenizer;
   }
 
   private CsvDataSet parse()
@@ -56,6 +99,23 @@ public class CsvParser
   private List<CsvRecord> parseRecords()
   {
     List<CsvRecord> records = new ArrayList<>();
+    for( CsvRecord record = nextRecord(); record != null; record = nextRecord() )
+    {
+      records.add( record );
+    }
+    return records;
+  }
+
+  /**
+   * @return The next record or null if all records have been parsed
+   */
+  CsvRecord nextRecord()
+  {
+    if( _eof )
+    {
+      return null;
+    }
+
     List<CsvField> fields = new ArrayList<>();
     while( true )
     {
@@ -63,18 +123,18 @@ public class CsvParser
       fields.add( new CsvField( token ) );
       if( token.isLastInRecord() )
       {
-        records.add( new CsvRecord( fields ) );
-        if( token.isEof() )
-        {
-          break;
-        }
-        else
-        {
-          fields = new ArrayList<>();
-        }
+        _eof = token.isEof();
+        return new CsvRecord( fields );
       }
     }
-    return records;
+  }
+
+  /**
+   * @return True if the last record has been parsed
+   */
+  boolean isEof()
+  {
+    return _eof;
   }
 
   private CsvHeader parseHeader()
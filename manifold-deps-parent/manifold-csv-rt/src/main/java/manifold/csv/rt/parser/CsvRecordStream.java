@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2023 - Manifold Systems LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package manifold.csv.rt.parser;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * An incremental alternative to {@link CsvDataSet}. Records are parsed from the input only as they are pulled from the
+ * iterator, so memory is bounded by the tokenizer's buffer rather than by the size of the input. Use
+ * {@link CsvParser#stream(Reader)} to create one.
+ * <p/>
+ * The input remains open while records are consumed, close the stream when finished, preferably using
+ * try-with-resources. The records are exhausted after a single iteration; {@link #iterator()} may be called only once.
+ */
+public class CsvRecordStream implements Iterable<CsvRecord>, AutoCloseable
+{
+  private final Reader _reader;
+  private final CsvParser _parser;
+  private final CsvHeader _header;
+  private final List<Class> _types;
+  private boolean _iterated;
+  private boolean _closed;
+
+  CsvRecordStream( Reader reader, CsvParser parser, CsvHeader header, List<Class> types )
+  {
+    _reader = reader;
+    _parser = parser;
+    _header = header;
+    _types = types;
+  }
+
+  public CsvHeader getHeader()
+  {
+    return _header;
+  }
+
+  /**
+   * @return The types inferred from the sampled records
+   */
+  public List<Class> getTypes()
+  {
+    return _types;
+  }
+
+  @Override
+  public Iterator<CsvRecord> iterator()
+  {
+    if( _iterated )
+    {
+      throw new IllegalStateException( "Record stream can only be iterated once" );
+    }
+    _iterated = true;
+
+    return new Iterator<CsvRecord>()
+    {
+      private CsvRecord _next;
+
+      @Override
+      public boolean hasNext()
+      {
+        if( _next == null && !_closed )
+        {
+          _next = _parser.nextRecord();
+          if( _next == null )
+          {
+            // release the input as soon as it is exhausted
+            close();
+          }
+        }
+        return _next != null;
+      }
+
+      @Override
+      public CsvRecord next()
+      {
+        if( !hasNext() )
+        {
+          throw new NoSuchElementException();
+        }
+        CsvRecord record = _next;
+        _next = null;
+        return record;
+      }
+    };
+  }
+
+  /**
+   * A sequential stream over the records. Closing the stream closes this record stream.
+   */
+  public Stream<CsvRecord> stream()
+  {
+    return StreamSupport.stream( Spliterators.spliteratorUnknownSize( iterator(), Spliterator.ORDERED | Spliterator.NONNULL ), false )
+      .onClose( this::close );
+  }
+
+  /**
+   * Closes the underlying input.
+   */
+  @Override
+  public void close()
+  {
+    if( _closed )
+    {
+      return;
+    }
+    _closed = true;
+
+    try
+    {
+      _reader.close();
+    }
+    catch( IOException e )
+    {
+      throw new RuntimeException( e );
+    }
+  }
+}
@@ -22,13 +22,13 @@ public class CsvToken
 
   private final Type _type;
   private final String _value;
-  private final int _offset;
+  private final long _offset;
   private final int _line;
   private final int _tokenLength;
-  private final int _separatorPos;
+  private final long _separatorPos;
   private final char _separatorChar;
 
-  public CsvToken( Type type, String value, int line, int offset, int length, int separatorPos, char separatorChar )
+  public CsvToken( Type type, String value, int line, long offset, int length, long separatorPos, char separatorChar )
   {
     _type = type;
     _value = value;
@@ -77,7 +77,16 @@ public class CsvToken
            : getValue();
   }
 
+  /**
+   * @return The offset of the token in the input, saturated at {@code Integer.MAX_VALUE} for streamed input exceeding 2G
+   * characters, see {@link #getLongOffset()}.
+   */
   public int getOffset()
+  {
+    return (int)Math.min( _offset, Integer.MAX_VALUE );
+  }
+
+  public long getLongOffset()
   {
     return _offset;
   }
@@ -94,7 +103,7 @@ public class CsvToken
 
   public int getSeparatorPos()
   {
-    return _separatorPos;
+    return (int)Math.min( _separatorPos, Integer.MAX_VALUE );
   }
 
   public char getSeparatorChar()
@@ -16,18 +16,14 @@
 
 package manifold.csv.rt.parser;
 
+import java.io.Reader;
 import java.math.BigDecimal;
 import java.math.BigInteger;
-import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
-import manifold.rt.api.util.ManDateTimeUtil;
-import manifold.rt.api.util.ManStringUtil;
 
 import static manifold.csv.rt.parser.CsvToken.Type.NotQuoted;
 import static manifold.csv.rt.parser.CsvToken.Type.Quoted;
@@ -36,8 +32,10 @@ import static manifold.csv.rt.parser.CsvToken.Type.Quoted;
 public class CsvTokenizer
 {
   private static final char[] SEPARATORS = {',', ';', ':', '|', '\t'};
+  public static final int DEFAULT_SAMPLE_SIZE = 1000;
 
-  private CharSequence _content;
+  private final CsvCharSource _source;
+  private final int _sampleSize;
   private Boolean _hasHeader;
   private char _separator;
   private boolean _indented;
@@ -45,8 +43,7 @@ public class CsvTokenizer
   private List<Class> _types;
   private boolean _sampling;
 
-  private int _length;
-  private int _pos;
+  private long _pos;
   private int _line;
   private CsvToken _prevToken;
 
@@ -57,13 +54,53 @@ public class CsvTokenizer
 
   public CsvTokenizer( CharSequence content, Boolean header )
   {
-    _content = content;
-    _length = content.length();
+    this( CsvCharSource.of( content ), header, DEFAULT_SAMPLE_SIZE );
+  }
+
+  /**
+   * Tokenizes CSV from {@code reader} incrementally. Only a window of the input is buffered, characters are discarded as
+   * tokens are consumed. Note the separator, header, and types are inferred from the first {@code sampleSize} records,
+   * which are buffered until sampling completes.
+   *
+   * @param reader The CSV input. The caller is responsible for closing it.
+   * @param header True if the input has a header record, false if not, null to infer it.
+   * @param sampleSize The maximum number of records to sample, see {@link #DEFAULT_SAMPLE_SIZE}.
+   */
+  public CsvTokenizer( Reader reader, Boolean header, int sampleSize )
+  {
+    this( CsvCharSource.of( reader, CsvCharSource.DEFAULT_BUFFER_SIZE ), header, sampleSize );
+  }
+
+  private CsvTokenizer( CsvCharSource source, Boolean header, int sampleSize )
+  {
+    _source = source;
+    _sampleSize = Math.max( sampleSize, 1 );
     _hasHeader = header;
     resetPos();
     sample();
   }
 
+  /**
+   * A tokenizer over the same in-memory content as {@code sampled}, resuming at a record boundary. The separator,
+   * header, and types are taken from {@code sampled} instead of sampling. Used to tokenize chunks of the content in
+   * parallel, see {@link CsvParallelParser}.
+   *
+   * @param pos The position of the line break terminating the preceding record, or -1 to start from the beginning
+   * @param line The line number at {@code pos}
+   */
+  CsvTokenizer( CsvTokenizer sampled, long pos, int line )
+  {
+    _source = sampled._source;
+    _sampleSize = sampled._sampleSize;
+    _hasHeader = sampled._hasHeader;
+    _separator = sampled._separator;
+    _indented = sampled._indented;
+    _whitespace = sampled._whitespace;
+    _types = sampled._types;
+    _pos = pos;
+    _line = line;
+  }
+
   private void resetPos()
   {
     _pos = -1;
@@ -78,6 +115,12 @@ public class CsvTokenizer
 
   public CsvToken nextToken()
   {
+    if( !_sampling )
+    {
+      // sampling rewinds to the beginning, otherwise tokens never look behind the end of the previous token
+      _source.release( Math.max( _pos, 0 ) );
+    }
+
     char c = nextChar();
 
     // skip whitespace
@@ -86,7 +129,7 @@ public class CsvTokenizer
       c = skipSpaces( c );
     }
 
-    int offset = _pos;
+    long offset = _pos;
     int line = _line;
     StringBuilder value = new StringBuilder();
 
@@ -109,7 +152,7 @@ public class CsvTokenizer
             c = nextChar();
             if( c != '"' )
             {
-              int end = _pos;
+              long end = _pos;
               c = skipSpaces( c );
               if( c != _separator && c != '\n' && c != '\0' )
               {
@@ -117,7 +160,7 @@ public class CsvTokenizer
                 {
                   // when sampling favor the probability that one of these chars is the actual separator
                   if( isEol() ) _line++;
-                  return _prevToken = new CsvToken( Quoted, value.toString(), line, offset, end - offset, _pos, c );
+                  return _prevToken = new CsvToken( Quoted, value.toString(), line, offset, (int)(end - offset), _pos, c );
                 }
 
                 // Assume NOT quoted because more data follows what would be a closing quote; let's be lenient and let
@@ -130,7 +173,7 @@ public class CsvTokenizer
               else
               {
                 if( isEol() ) _line++;
-                return _prevToken = new CsvToken( Quoted, value.toString(), line, offset, end - offset, _pos, c );
+                return _prevToken = new CsvToken( Quoted, value.toString(), line, offset, (int)(end - offset), _pos, c );
               }
             }
           }
@@ -147,7 +190,7 @@ public class CsvTokenizer
           }
           else // separator
           {
-            return _prevToken = new CsvToken( NotQuoted, value.toString(), line, offset, _pos - offset, _pos, c );
+            return _prevToken = new CsvToken( NotQuoted, value.toString(), line, offset, (int)(_pos - offset), _pos, c );
           }
           break;
 
@@ -159,12 +202,12 @@ public class CsvTokenizer
           }
           else
           {
-            int end = _pos == 0
-                      ? 0
-                      : _content.charAt( _pos - 1 ) == '\r'
-                        ? _pos - 1
-                        : _pos;
-            int length = end - offset;
+            long end = _pos == 0
+                       ? 0
+                       : _source.charAt( _pos - 1 ) == '\r'
+                         ? _pos - 1
+                         : _pos;
+            int length = (int)(end - offset);
             boolean emptyLine = length <= 0 && (_prevToken == null || _prevToken.isLastInRecord());
             if( !emptyLine )
             {
@@ -175,7 +218,7 @@ public class CsvTokenizer
 
         case '\0':
           //todo: if quoted, add warning about missing terminal '"'
-          return new CsvToken( quoted ? Quoted : NotQuoted, value.toString(), line, offset, _pos - offset, _pos, c );
+          return new CsvToken( quoted ? Quoted : NotQuoted, value.toString(), line, offset, (int)(_pos - offset), _pos, c );
 
         default:
           if( !skipFileIndentation( c ) )
@@ -218,7 +261,7 @@ public class CsvTokenizer
 
   private char skipToEofIfOnlyWhitespaceLeft( char c )
   {
-    int savePos = _pos;
+    long savePos = _pos;
     char saveC = c;
     while( Character.isWhitespace( c ) )
     {
@@ -256,7 +299,7 @@ public class CsvTokenizer
     boolean indented = true;
     int row = 0;
     boolean newline = true;
-    while( row < 100 )
+    while( row < Math.min( 100, _sampleSize ) )
     {
       CsvToken token = nextToken();
       if( newline )
@@ -300,7 +343,7 @@ public class CsvTokenizer
     int diffCount = 0;
     int row = 0;
     int i = 0;
-    while( row < 100 )
+    while( row < Math.min( 100, _sampleSize ) )
     {
       if( i == header.size() )
       {
@@ -364,7 +407,7 @@ public class CsvTokenizer
     List<Class> types = new ArrayList<>();
     int row = 0;
     int i = 0;
-    while( row < 1000 )
+    while( row < _sampleSize )
     {
       if( row > 0 && i == types.size() )
       {
@@ -520,152 +563,12 @@ public class CsvTokenizer
 
   private Class inferType( String data )
   {
-    Class type;
-    
     if( data.isEmpty() )
     {
       // empty data does not contribute toward type inference
-      type = null;
-    }
-    else if( !ManStringUtil.isAlpha( data ) )
-    {
-      if( isInteger( data ) )
-      {
-        type = Integer.class;
-      }
-      else if( isLong( data ) )
-      {
-        type = Long.class;
-      }
-      else if( isBigInteger( data ) )
-      {
-        type = BigInteger.class;
-      }
-      else if( isDouble( data ) )
-      {
-        type = Double.class;
-      }
-      else if( isBigDecimal( data ) )
-      {
-        type = BigDecimal.class;
-      }
-      else if( isDateTime( data ) )
-      {
-        type = LocalDateTime.class;
-      }
-      else if( isDate( data ) )
-      {
-        type = LocalDate.class;
-      }
-      else if( isTime( data ) )
-      {
-        type = LocalTime.class;
-      }
-      else
-      {
-        type = String.class;
-      }
-    }
-    else if( isBoolean( data ) )
-    {
-      type = Boolean.class;
-    }
-    else
-    {
-      type = String.class;
-    }
-
-    return type;
-  }
-
-  private boolean isDateTime( String data )
-  {
-    return null != ManDateTimeUtil.parseDateTime( data );
-  }
-
-  private boolean isDate( String data )
-  {
-    return null != ManDateTimeUtil.parseDate( data );
-  }
-
-  private boolean isTime( String data )
-  {
-    return null != ManDateTimeUtil.parseTime( data );
-  }
-
-  private boolean isInteger( String data )
-  {
-    try
-    {
-      Integer.parseInt( data );
-      return true;
-    }
-    catch( Exception e )
-    {
-      return false;
-    }
-  }
-
-  private boolean isLong( String data )
-  {
-    try
-    {
-      Long.parseLong( data );
-      return true;
-    }
-    catch( Exception e )
-    {
-      return false;
-    }
-  }
-
-  private boolean isBigInteger( String data )
-  {
-    try
-    {
-      new BigInteger( data );
-      return true;
-    }
-    catch( Exception e )
-    {
-      return false;
-    }
-  }
-
-  private boolean isDouble( String data )
-  {
-    try
-    {
-      Double.parseDouble( data );
-      return true;
-    }
-    catch( Exception e )
-    {
-      return false;
+      return null;
     }
-  }
-
-  private boolean isBigDecimal( String data )
-  {
-    try
-    {
-      new BigDecimal( data );
-      return true;
-    }
-    catch( Exception e )
-    {
-      return false;
-    }
-  }
-
-  private boolean isBoolean( String data )
-  {
-    return "true".equalsIgnoreCase( data ) ||
-           "false".equalsIgnoreCase( data ) ||
-           "yes".equalsIgnoreCase( data ) ||
-           "no".equalsIgnoreCase( data ) ||
-           "on".equalsIgnoreCase( data ) ||
-           "off".equalsIgnoreCase( data );
+    return DataTypeClassifier.classify( data );
   }
 
   private boolean inferRetainLeadingTrailingWhitespace()
@@ -692,7 +595,7 @@ public class CsvTokenizer
   {
     _whitespace = true;
     int row = 0;
-    while( row < 100 )
+    while( row < Math.min( 100, _sampleSize ) )
     {
       CsvToken token = nextToken();
       int count = countLeadingSpaces( token );
@@ -758,20 +661,20 @@ public class CsvTokenizer
     {
       return false;
     }
-    if( _content.charAt( _pos ) == '\n' )
+    if( _source.charAt( _pos ) == '\n' )
     {
       return true;
     }
-    if( _content.charAt( _pos ) == '\r' )
+    if( _source.charAt( _pos ) == '\r' )
     {
-      return _length-1 == _pos || _content.charAt( _pos+1 ) != '\n';
+      return _source.isEnd( _pos+1 ) || _source.charAt( _pos+1 ) != '\n';
     }
     return false;
   }
 
   public boolean isEof()
   {
-    return _pos == _content.length();
+    return _source.isEnd( _pos );
   }
 
   private int sampleSeparator( char separator )
@@ -780,7 +683,7 @@ public class CsvTokenizer
     int recordSize = 0;
     int count = 0;
     int row = 0;
-    while( row < 10 )
+    while( row < Math.min( 10, _sampleSize ) )
     {
       count++;
       CsvToken token = nextToken();
@@ -838,26 +741,44 @@ public class CsvTokenizer
 
   private char _rawNextChar()
   {
-    if( _pos < _length )
+    if( !_source.isEnd( _pos ) )
     {
       _pos++;
     }
 
-    if( _pos == _length )
+    if( _source.isEnd( _pos ) )
     {
       return '\0'; // EOF
     }
 
-    if( _pos > _length )
-    {
-      throw new IllegalStateException( "position > length" );
-    }
-
-    return _content.charAt( _pos );
+    return _source.charAt( _pos );
   }
 
   public List<Class> getTypes()
   {
     return _types;
   }
+
+  char getSeparator()
+  {
+    return _separator;
+  }
+
+  boolean isWhitespaceSignificant()
+  {
+    return _whitespace;
+  }
+
+  /**
+   * @return The position of the last character consumed, -1 if none
+   */
+  long getPos()
+  {
+    return _pos;
+  }
+
+  int getLine()
+  {
+    return _line;
+  }
 }
@@ -0,0 +1,409 @@
+/*
+ * Copyright (c) 2023 - Manifold Systems LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package manifold.csv.rt.parser;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+import manifold.rt.api.util.ManDateTimeUtil;
+
+/**
+ * Determines the narrowest type of a sampled CSV value. Numeric types are decided lexically from a single pass over the
+ * characters, which is equivalent to probing with {@code Integer.parseInt()}, {@code Long.parseLong()},
+ * {@code new BigInteger()}, and {@code Double.parseDouble()} in that order, but without throwing and catching an
+ * exception for each rejected value. Values that can't be a date or time, for instance having no digits, bypass the
+ * date/time formatters, which also reject by exception.
+ * <p/>
+ * Values having non-ASCII characters are rare in numeric columns, but {@code Character.digit()} accepts non-ASCII
+ * digits, so these values are probed by parsing as before.
+ */
+class DataTypeClassifier
+{
+  private DataTypeClassifier()
+  {
+  }
+
+  /**
+   * @param data A non-empty value
+   */
+  static Class classify( String data )
+  {
+    int length = data.length();
+    boolean alpha = true;
+    boolean ascii = true;
+    boolean digit = false;
+    boolean separator = false;
+    for( int i = 0; i < length; i++ )
+    {
+      char c = data.charAt( i );
+      if( c >= 0x80 )
+      {
+        ascii = false;
+        alpha = alpha && Character.isLetter( c );
+      }
+      else if( c >= '0' && c <= '9' )
+      {
+        digit = true;
+        alpha = false;
+      }
+      else if( (c | 0x20) < 'a' || (c | 0x20) > 'z' )
+      {
+        alpha = false;
+        separator = separator || c == '-' || c == '/' || c == ':' || c == '.' || c == ',' || c == ' ';
+      }
+    }
+
+    if( alpha )
+    {
+      return isBoolean( data ) ? Boolean.class : String.class;
+    }
+
+    if( !ascii )
+    {
+      return classifyByParsing( data );
+    }
+
+    Class type = classifyInteger( data );
+    if( type != null )
+    {
+      return type;
+    }
+    if( isDouble( data ) )
+    {
+      return Double.class;
+    }
+    // note BigDecimal accepts no ASCII value rejected by Double.parseDouble()
+
+    if( digit && separator )
+    {
+      // dates and times always have numeric fields delimited by at least one of these
+      type = classifyTemporal( data );
+      if( type != null )
+      {
+        return type;
+      }
+    }
+    return String.class;
+  }
+
+  /**
+   * Integer, Long, or BigInteger according to the magnitude of a value matching {@code [+-]?[0-9]+}, otherwise null.
+   */
+  private static Class classifyInteger( String data )
+  {
+    int length = data.length();
+    int i = 0;
+    boolean negative = false;
+    char first = data.charAt( 0 );
+    if( first == '-' || first == '+' )
+    {
+      negative = first == '-';
+      if( length == 1 )
+      {
+        return null;
+      }
+      i++;
+    }
+
+    // accumulate negatively like Long.parseLong() so that Long.MIN_VALUE fits
+    long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+    long multmin = limit / 10;
+    long result = 0;
+    boolean overflow = false;
+    for( ; i < length; i++ )
+    {
+      int d = data.charAt( i ) - '0';
+      if( d < 0 || d > 9 )
+      {
+        return null;
+      }
+      if( !overflow )
+      {
+        if( result < multmin || result * 10 < limit + d )
+        {
+          overflow = true;
+        }
+        else
+        {
+          result = result * 10 - d;
+        }
+      }
+    }
+
+    if( overflow )
+    {
+      return BigInteger.class;
+    }
+    long value = negative ? result : -result;
+    return value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE ? Integer.class : Long.class;
+  }
+
+  /**
+   * Matches the grammar of {@code Double.parseDouble()}: surrounding whitespace, an optional sign, then NaN, Infinity,
+   * a hexadecimal significand with a binary exponent, or a decimal significand with an optional exponent, and an
+   * optional float/double suffix.
+   */
+  private static boolean isDouble( String data )
+  {
+    int start = 0;
+    int end = data.length();
+    while( start < end && data.charAt( start ) <= ' ' )
+    {
+      start++;
+    }
+    while( end > start && data.charAt( end - 1 ) <= ' ' )
+    {
+      end--;
+    }
+
+    int i = start;
+    if( i < end && (data.charAt( i ) == '+' || data.charAt( i ) == '-') )
+    {
+      i++;
+    }
+    if( i == end )
+    {
+      return false;
+    }
+
+    char c = data.charAt( i );
+    if( c == 'N' )
+    {
+      return end - i == 3 && data.startsWith( "NaN", i );
+    }
+    if( c == 'I' )
+    {
+      return end - i == 8 && data.startsWith( "Infinity", i );
+    }
+    if( c == '0' && i + 1 < end && (data.charAt( i + 1 ) | 0x20) == 'x' )
+    {
+      return isHexDouble( data, i + 2, end );
+    }
+
+    int digits = 0;
+    boolean point = false;
+    for( ; i < end; i++ )
+    {
+      c = data.charAt( i );
+      if( c >= '0' && c <= '9' )
+      {
+        digits++;
+      }
+      else if( c == '.' && !point )
+      {
+        point = true;
+      }
+      else
+      {
+        break;
+      }
+    }
+    if( digits == 0 )
+    {
+      return false;
+    }
+
+    if( i < end && (data.charAt( i ) | 0x20) == 'e' )
+    {
+      i = skipExponent( data, i + 1, end );
+      if( i < 0 )
+      {
+        return false;
+      }
+    }
+    return isEndWithOptionalSuffix( data, i, end );
+  }
+
+  private static boolean isHexDouble( String data, int i, int end )
+  {
+    int digits = 0;
+    boolean point = false;
+    for( ; i < end; i++ )
+    {
+      char c = data.charAt( i );
+      if( Character.digit( c, 16 ) >= 0 )
+      {
+        digits++;
+      }
+      else if( c == '.' && !point )
+      {
+        point = true;
+      }
+      else
+      {
+        break;
+      }
+    }
+    if( digits == 0 || i == end || (data.charAt( i ) | 0x20) != 'p' )
+    {
+      return false;
+    }
+    i = skipExponent( data, i + 1, end );
+    return i >= 0 && isEndWithOptionalSuffix( data, i, end );
+  }
+
+  /**
+   * @return The position following the exponent's digits, or -1 if the exponent has no digits
+   */
+  private static int skipExponent( String data, int i, int end )
+  {
+    if( i < end && (data.charAt( i ) == '+' || data.charAt( i ) == '-') )
+    {
+      i++;
+    }
+    int start = i;
+    while( i < end && data.charAt( i ) >= '0' && data.charAt( i ) <= '9' )
+    {
+      i++;
+    }
+    return i == start ? -1 : i;
+  }
+
+  private static boolean isEndWithOptionalSuffix( String data, int i, int end )
+  {
+    if( i < end )
+    {
+      char c = (char)(data.charAt( i ) | 0x20);
+      if( c == 'f' || c == 'd' )
+      {
+        i++;
+      }
+    }
+    return i == end;
+  }
+
+  private static Class classifyTemporal( String data )
+  {
+    if( null != ManDateTimeUtil.parseDateTime( data ) )
+    {
+      return LocalDateTime.class;
+    }
+    if( null != ManDateTimeUtil.parseDate( data ) )
+    {
+      return LocalDate.class;
+    }
+    if( null != ManDateTimeUtil.parseTime( data ) )
+    {
+      return LocalTime.class;
+    }
+    return null;
+  }
+
+  private static Class classifyByParsing( String data )
+  {
+    if( isInteger( data ) )
+    {
+      return Integer.class;
+    }
+    if( isLong( data ) )
+    {
+      return Long.class;
+    }
+    if( isBigInteger( data ) )
+    {
+      return BigInteger.class;
+    }
+    if( isParsableDouble( data ) )
+    {
+      return Double.class;
+    }
+    if( isBigDecimal( data ) )
+    {
+      return BigDecimal.class;
+    }
+    Class type = classifyTemporal( data );
+    return type == null ? String.class : type;
+  }
+
+  private static boolean isInteger( String data )
+  {
+    try
+    {
+      Integer.parseInt( data );
+      return true;
+    }
+    catch( Exception e )
+    {
+      return false;
+    }
+  }
+
+  private static boolean isLong( String data )
+  {
+    try
+    {
+      Long.parseLong( data );
+      return true;
+    }
+    catch( Exception e )
+    {
+      return false;
+    }
+  }
+
+  private static boolean isBigInteger( String data )
+  {
+    try
+    {
+      new BigInteger( data );
+      return true;
+    }
+    catch( Exception e )
+    {
+      return false;
+    }
+  }
+
+  private static boolean isParsableDouble( String data )
+  {
+    try
+    {
+      Double.parseDouble( data );
+      return true;
+    }
+    catch( Exception e )
+    {
+      return false;
+    }
+  }
+
+  private static boolean isBigDecimal( String data )
+  {
+    try
+    {
+      new BigDecimal( data );
+      return true;
+    }
+    catch( Exception e )
+    {
+      return false;
+    }
+  }
+
+  private static boolean isBoolean( String data )
+  {
+    return "true".equalsIgnoreCase( data ) ||
+           "false".equalsIgnoreCase( data ) ||
+           "yes".equalsIgnoreCase( data ) ||
+           "no".equalsIgnoreCase( data ) ||
+           "on".equalsIgnoreCase( data ) ||
+           "off".equalsIgnoreCase( data );
+  }
+}
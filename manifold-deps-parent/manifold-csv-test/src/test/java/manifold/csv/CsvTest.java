@@ -34,11 +34,17 @@ import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import manifold.csv.rt.Csv;
+import manifold.json.rt.api.DataBindings;
 
 import org.junit.Test;
 
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 
 public class CsvTest
@@ -102,4 +108,22 @@ public class CsvTest
       assertEquals(data[i][2], item.getCake());
     }
   }
+
+  @Test
+  public void testStreamCsv()
+  {
+    Nnndss nnndss = Nnndss.fromSource();
+    Iterator<NnndssItem> expected = nnndss.iterator();
+    try( Stream<DataBindings> rows = Csv.streamCsv( new InputStreamReader( CsvTest.class.getResourceAsStream( "/abc/csv/Nnndss.csv" ) ) ) )
+    {
+      rows.forEach( row -> {
+        NnndssItem item = (NnndssItem)row;
+        NnndssItem expectedItem = expected.next();
+        assertEquals( expectedItem.getReporting_Area(), item.getReporting_Area() );
+        assertEquals( expectedItem.getInvasive_pneumococcal_disease__age___5___Confirmed__Current_week(),
+          item.getInvasive_pneumococcal_disease__age___5___Confirmed__Current_week() );
+      } );
+    }
+    assertFalse( expected.hasNext() );
+  }
 }
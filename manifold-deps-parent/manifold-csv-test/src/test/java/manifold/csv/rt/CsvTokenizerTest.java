@@ -18,6 +18,7 @@ package manifold.csv.rt;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.StringReader;
 import java.time.LocalDate;
 
 import manifold.csv.rt.parser.CsvToken;
@@ -189,4 +190,41 @@ public class CsvTokenizerTest
                   String.class, LocalDate.class, Integer.class, String.class, String.class},
       tokenizer.getTypes().toArray( new Class[0] ) );
   }
+
+  @Test
+  public void testStreamingMatchesInMemory() throws IOException
+  {
+    String[] files = {"Nnndss.csv", "PRECIP_HLY_sample.csv", "SampleCSVFile_2kb.csv", "TechCrunchcontinentalUSA.csv",
+                      "empty.csv", "empty_leading_linebreak.csv", "insurance_sample_tab.csv", "leading_whitespace.csv",
+                      "trailing_whitespace.csv"};
+    for( String file: files )
+    {
+      String content = new String( StreamUtil.getContent( CsvTokenizerTest.class.getResourceAsStream( "/sample/csv/" + file ) ) );
+      // repeat the larger files so the input well exceeds the streaming buffer
+      StringBuilder sb = new StringBuilder( content );
+      while( content.length() > 1000 && sb.length() < 1_000_000 )
+      {
+        sb.append( '\n' ).append( content );
+      }
+      content = sb.toString();
+
+      CsvTokenizer inMemory = new CsvTokenizer( content );
+      CsvTokenizer streaming = new CsvTokenizer( new StringReader( content ), null, CsvTokenizer.DEFAULT_SAMPLE_SIZE );
+      assertEquals( file, inMemory.hasHeader(), streaming.hasHeader() );
+      assertEquals( file, inMemory.getTypes(), streaming.getTypes() );
+      while( true )
+      {
+        CsvToken expected = inMemory.nextToken();
+        CsvToken token = streaming.nextToken();
+        assertEquals( file, expected.getValue(), token.getValue() );
+        assertEquals( file, expected.getLine(), token.getLine() );
+        assertEquals( file, expected.getOffset(), token.getOffset() );
+        assertEquals( file, expected.getSeparatorChar(), token.getSeparatorChar() );
+        if( expected.isEof() )
+        {
+          break;
+        }
+      }
+    }
+  }
 }
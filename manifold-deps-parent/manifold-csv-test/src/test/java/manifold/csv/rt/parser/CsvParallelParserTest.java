@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2023 - Manifold Systems LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package manifold.csv.rt.parser;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+
+import static org.junit.Assert.assertEquals;
+
+public class CsvParallelParserTest
+{
+  @Test
+  public void testParallelMatchesSequential()
+  {
+    ForkJoinPool pool = new ForkJoinPool( 4 );
+    try
+    {
+      for( String lineBreak: new String[]{"\n", "\r\n"} )
+      {
+        for( boolean header: new boolean[]{true, false} )
+        {
+          String content = makeCsv( lineBreak, header );
+          assertSameRecords( CsvParser.parse( content, null ), CsvParser.parse( content, pool ) );
+        }
+      }
+    }
+    finally
+    {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void testTrailingWhitespace()
+  {
+    ForkJoinPool pool = new ForkJoinPool( 4 );
+    try
+    {
+      StringBuilder sb = new StringBuilder( makeCsv( "\n", true ) );
+      for( int i = 0; i < 200_000; i++ )
+      {
+        sb.append( i % 2 == 0 ? "\n" : " " );
+      }
+      String content = sb.toString();
+      assertSameRecords( CsvParser.parse( content, null ), CsvParser.parse( content, pool ) );
+    }
+    finally
+    {
+      pool.shutdown();
+    }
+  }
+
+  private void assertSameRecords( CsvDataSet expected, CsvDataSet actual )
+  {
+    assertEquals( expected.getTypes(), actual.getTypes() );
+    List<CsvRecord> expectedRecords = expected.getRecords();
+    List<CsvRecord> actualRecords = actual.getRecords();
+    assertEquals( expectedRecords.size(), actualRecords.size() );
+    for( int i = 0; i < expectedRecords.size(); i++ )
+    {
+      List<CsvField> expectedFields = expectedRecords.get( i ).getFields();
+      List<CsvField> actualFields = actualRecords.get( i ).getFields();
+      assertEquals( expectedFields.size(), actualFields.size() );
+      for( int f = 0; f < expectedFields.size(); f++ )
+      {
+        CsvToken expectedToken = expectedFields.get( f ).getToken();
+        CsvToken actualToken = actualFields.get( f ).getToken();
+        assertEquals( expectedToken.getValue(), actualToken.getValue() );
+        assertEquals( expectedToken.getLine(), actualToken.getLine() );
+        assertEquals( expectedToken.getOffset(), actualToken.getOffset() );
+        assertEquals( expectedToken.getSeparatorChar(), actualToken.getSeparatorChar() );
+      }
+    }
+  }
+
+  private String makeCsv( String lineBreak, boolean header )
+  {
+    // quoted fields with line breaks and separators, quotes inside unquoted fields, and blank lines are all hazards for
+    // splitting at record boundaries
+    String[] text = {"plain", "\"quoted, with separator\"", "\"multi" + lineBreak + "line" + lineBreak + "value\"",
+                     "27\" monitor", "\"escaped \"\" quote\"", "\"\"", "\"lenient\" quote", "\"" + lineBreak + "\""};
+    Random random = new Random( 7 );
+    StringBuilder sb = new StringBuilder();
+    if( header )
+    {
+      sb.append( "id,name,amount,note" ).append( lineBreak );
+    }
+    for( int row = 0; sb.length() < 2_000_000; row++ )
+    {
+      sb.append( row ).append( ',' )
+        .append( text[random.nextInt( text.length )] ).append( ',' )
+        .append( random.nextInt( 1000 ) / 10.0 ).append( ',' )
+        .append( text[random.nextInt( text.length )] ).append( lineBreak );
+      if( random.nextInt( 50 ) == 0 )
+      {
+        sb.append( lineBreak );
+      }
+    }
+    return sb.toString();
+  }
+}
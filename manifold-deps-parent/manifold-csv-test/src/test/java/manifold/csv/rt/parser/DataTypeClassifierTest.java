@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2023 - Manifold Systems LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package manifold.csv.rt.parser;
+
+import java.math.BigInteger;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+import org.junit.Test;
+
+
+import static org.junit.Assert.assertEquals;
+
+public class DataTypeClassifierTest
+{
+  @Test
+  public void testIntegers()
+  {
+    assertType( Integer.class, "123", "+7", "-0", "00012", "-2147483648", "2147483647" );
+    assertType( Long.class, "2147483648", "-2147483649", "9223372036854775807", "-9223372036854775808" );
+    assertType( BigInteger.class, "9223372036854775808", "-9223372036854775809", "123456789012345678901234567890" );
+  }
+
+  @Test
+  public void testDoubles()
+  {
+    assertType( Double.class, "1.5", ".5", "1.", "-0.0", "1e10", "1E-3", "+2.5e+7", "1.5f", "2d", "3D",
+      " 12", "12 ", "-Infinity", "-NaN", "0x1p3", "0X1.8P-2", "0x.8p1d" );
+  }
+
+  @Test
+  public void testNonNumeric()
+  {
+    assertType( String.class, "abc", "NaN", "Infinity", "12abc", "1e", "1e+", "1.2.3", "--5", "+", "-", ".", "0x1.8",
+      "0x", "1.5ff", "1_000", "A123B", "hello world" );
+    assertType( Boolean.class, "true", "FALSE", "Yes", "no", "on", "OFF" );
+  }
+
+  @Test
+  public void testTemporal()
+  {
+    assertType( LocalDate.class, "2007-12-03" );
+    assertType( LocalDateTime.class, "2007-12-03T10:15:30" );
+    assertType( LocalTime.class, "10:15:30" );
+  }
+
+  @Test
+  public void testNonAscii()
+  {
+    // Arabic-Indic digits are accepted by Integer.parseInt()
+    assertType( Integer.class, "١٢٣" );
+    assertType( String.class, "café", "12°" );
+  }
+
+  private void assertType( Class expected, String... values )
+  {
+    for( String value: values )
+    {
+      assertEquals( value, expected, DataTypeClassifier.classify( value ) );
+    }
+  }
+}
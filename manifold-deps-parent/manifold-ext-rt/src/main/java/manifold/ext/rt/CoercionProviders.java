@@ -28,9 +28,15 @@ public class CoercionProviders
     LocklessLazyVar.make( () -> {
       Set<ICoercionProvider> registered = new HashSet<>();
       ServiceUtil.loadRegisteredServices( registered, ICoercionProvider.class, CoercionProviders.class.getClassLoader() );
-      return registered;
+      // order by class name so the first provider to handle a coercion is the same from run to run
+      List<ICoercionProvider> sorted = new ArrayList<>( registered );
+      sorted.sort( Comparator.comparing( e -> e.getClass().getName() ) );
+      return Collections.unmodifiableSet( new LinkedHashSet<>( sorted ) );
     } );
 
+  /**
+   * @return The registered coercion providers, ordered by class name
+   */
   public static Set<ICoercionProvider> get()
   {
     return _coercionProviders.get();
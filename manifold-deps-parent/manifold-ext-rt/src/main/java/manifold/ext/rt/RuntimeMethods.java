@@ -16,6 +16,9 @@
 
 package manifold.ext.rt;
 
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
 import java.lang.reflect.*;
 import java.math.BigDecimal;
 import java.math.BigInteger;
@@ -29,14 +32,36 @@ import manifold.rt.api.Bindings;
 
 import manifold.rt.api.util.ManClassUtil;
 import manifold.ext.rt.api.*;
+import manifold.ext.rt.proxy.StructuralProxyGenerator;
 import manifold.rt.api.util.ServiceUtil;
 import manifold.util.ReflectUtil;
 import manifold.util.ReflectUtil.FakeProxy;
+import manifold.util.concurrent.ClassLocal;
+import manifold.util.concurrent.ConcurrentWeakHashMap;
 import manifold.util.concurrent.LocklessLazyVar;
 
 public class RuntimeMethods
 {
-  private static Map<Class, Map<Class, IProxyFactory<?,?>>> PROXY_CACHE = new ConcurrentHashMap<>();
+  /**
+   * Proxy factories by interface, then by root class. A factory references both classes, so it is attached to the class
+   * whose loader can see the other class, usually the interface, see {@link #getProxyFactoryRef(Class, Class)}. This
+   * way a factory doesn't keep a class loader reachable after its classes are otherwise unreachable, e.g., after a
+   * redeploy, even if the other class is from a parent loader or the JDK. Without {@code ClassValue}, on Android before
+   * API level 34, the factories are held in a weak-keyed map instead, see {@link ClassLocal}.
+   */
+  private static final ClassLocal<ConcurrentWeakHashMap<Class<?>, ProxyFactoryRef>> PROXY_CACHE =
+    new ClassLocal<>( iface -> new ConcurrentWeakHashMap<>() );
+  /**
+   * Proxy factories by root class, then by interface, for an interface whose loader can't see the root class. Looked up
+   * for every root class missing from {@link #PROXY_CACHE}, so a map has a single segment, it usually stays empty.
+   */
+  private static final ClassLocal<ConcurrentWeakHashMap<Class<?>, ProxyFactoryRef>> PROXY_CACHE_BY_ROOT =
+    new ClassLocal<>( rootClass -> new ConcurrentWeakHashMap<>( 1, 0.75f, 1 ) );
+  /**
+   * Coercions by raw target type. An entry is attached to the target class and doesn't reference the classes of the
+   * values coerced, so it doesn't keep a class loader reachable.
+   */
+  private static final ClassLocal<Coercion> COERCION_CACHE = new ClassLocal<>( Coercion::new );
   private static final LocklessLazyVar<Set<IProxyFactory>> _registeredProxyFactories =
     LocklessLazyVar.make( () -> {
       Set<IProxyFactory> registered = new HashSet<>();
@@ -56,13 +81,147 @@ public class RuntimeMethods
       return registered.isEmpty() ? null : registered.iterator().next();
     } );
 
+  /**
+   * If true, a structural cast reuses the proxy from a preceding cast of the same value to the same interface, see
+   * {@link #findCachedProxy(Object, Class)}. This is only beneficial when the same values are cast
+   * repeatedly e.g., in a loop, otherwise the lookup is a small added cost. Off by default.
+   */
+  private static final boolean REUSE_PROXIES = Boolean.getBoolean( "manifold.ext.proxy.reuse" );
+  /**
+   * If true, without a Manifold runtime host structural proxies are generated to call the root class directly where
+   * possible, see {@link StructuralProxyGenerator}. Otherwise, all calls are dispatched reflectively. On by default.
+   */
+  private static final boolean GENERATE_PROXIES =
+    Boolean.parseBoolean( System.getProperty( "manifold.ext.proxy.generate", "true" ) );
+  /** Proxies made by {@link #findCachedProxy(Object, Class)} by interface, then by the identity of the root */
+  private static final ClassLocal<ProxiesByRoot> PROXIES_BY_ROOT = new ClassLocal<>( iface -> new ProxiesByRoot() );
+
   @SuppressWarnings({"UnusedDeclaration", "WeakerAccess"})
   public static Object constructProxy( Object root, Class iface )
   {
-    // return findCachedProxy( root, iface ); // this is only beneficial when structural invocation happens in a loop, otherwise too costly
+    if( REUSE_PROXIES )
+    {
+      return findCachedProxy( root, iface );
+    }
     return createNewProxy( root, iface );
   }
 
+  /**
+   * Finds the proxy made for {@code root} and {@code iface}, or makes a new one and keeps it for the root. The roots and
+   * proxies are referenced weakly, so the cache doesn't keep them or their class loaders reachable.
+   */
+  static Object findCachedProxy( Object root, Class iface )
+  {
+    if( root == null )
+    {
+      return null;
+    }
+
+    ProxiesByRoot proxies = PROXIES_BY_ROOT.get( iface );
+    Object proxy = proxies.get( root );
+    if( proxy == null )
+    {
+      proxy = createNewProxy( root, iface );
+      if( proxy != root )
+      {
+        proxies.put( root, proxy );
+      }
+    }
+    return proxy;
+  }
+
+  /**
+   * Proxies of an interface by the identity of their roots. A proxy references its root, so it is referenced weakly to
+   * let the root's entry clear.
+   */
+  private static class ProxiesByRoot
+  {
+    private final ConcurrentHashMap<RootKey, WeakReference<Object>> _proxies = new ConcurrentHashMap<>();
+    private final ReferenceQueue<Object> _clearedRoots = new ReferenceQueue<>();
+
+    Object get( Object root )
+    {
+      WeakReference<Object> proxy = _proxies.get( new LookupRootKey( root ) );
+      return proxy == null ? null : proxy.get();
+    }
+
+    void put( Object root, Object proxy )
+    {
+      for( Reference<?> cleared; (cleared = _clearedRoots.poll()) != null; )
+      {
+        _proxies.remove( cleared );
+      }
+      _proxies.put( new WeakRootKey( root, _clearedRoots ), new WeakReference<>( proxy ) );
+    }
+  }
+
+  /**
+   * Compares roots by identity
+   */
+  private interface RootKey
+  {
+    Object getRoot();
+  }
+
+  private static class LookupRootKey implements RootKey
+  {
+    private final Object _root;
+
+    LookupRootKey( Object root )
+    {
+      _root = root;
+    }
+
+    @Override
+    public Object getRoot()
+    {
+      return _root;
+    }
+
+    @Override
+    public int hashCode()
+    {
+      return System.identityHashCode( _root );
+    }
+
+    @Override
+    public boolean equals( Object obj )
+    {
+      return obj instanceof RootKey && ((RootKey)obj).getRoot() == _root;
+    }
+  }
+
+  private static class WeakRootKey extends WeakReference<Object> implements RootKey
+  {
+    private final int _hash;
+
+    WeakRootKey( Object root, ReferenceQueue<Object> queue )
+    {
+      super( root, queue );
+      _hash = System.identityHashCode( root );
+    }
+
+    @Override
+    public Object getRoot()
+    {
+      return get();
+    }
+
+    @Override
+    public int hashCode()
+    {
+      return _hash;
+    }
+
+    @Override
+    public boolean equals( Object obj )
+    {
+      Object root;
+      // a cleared key is only equal to itself
+      return obj == this || obj instanceof RootKey && (root = get()) != null && ((RootKey)obj).getRoot() == root;
+    }
+  }
+
   public static Object coerceFromBindingsValue( Object value, Type t )
   {
 //## would like to do this to limit proxies to just structural calls, however since we support default interface methods
@@ -84,9 +243,9 @@ public class RuntimeMethods
    */
   public static Object coerce( Object value, Type t )
   {
-    Class<?> type = t instanceof ParameterizedType ? (Class<?>)((ParameterizedType)t).getRawType() : (Class)t;
     if( value == null )
     {
+      Class<?> type = t instanceof ParameterizedType ? (Class<?>)((ParameterizedType)t).getRawType() : (Class)t;
       if( type.isPrimitive() )
       {
         return defaultPrimitiveValue( type );
@@ -104,13 +263,9 @@ public class RuntimeMethods
       return value;
     }
 
-    if( type.isPrimitive() )
-    {
-      type = ManClassUtil.box( type );
-    }
-
-    Class<?> valueClass = value.getClass();
-    if( valueClass == type || type.isAssignableFrom( valueClass ) )
+    Coercion coercion = getCoercion( t );
+    Class<?> type = coercion._type;
+    if( type.isInstance( value ) )
     {
       return value;
     }
@@ -127,60 +282,116 @@ public class RuntimeMethods
       return null;
     }
 
-    Object boxedValue = coerceBoxed( value, type );
-    if( boxedValue != null )
+    switch( coercion._kind )
     {
-      return boxedValue;
+      case Boxed:
+        Object boxedValue = coerceBoxed( value, type );
+        return boxedValue == null ? value : boxedValue;
+
+      case BigInteger:
+        if( value instanceof Number )
+        {
+          return BigInteger.valueOf( ((Number)value).longValue() );
+        }
+        if( value instanceof Boolean )
+        {
+          return ((Boolean)value) ? BigInteger.ONE : BigInteger.ZERO;
+        }
+        return new BigInteger( value.toString() );
+
+      case BigDecimal:
+        if( value instanceof Boolean )
+        {
+          return ((Boolean)value) ? BigDecimal.ONE : BigDecimal.ZERO;
+        }
+        return new BigDecimal( value.toString() );
+
+      case String:
+        return String.valueOf( value );
+
+      case Enum:
+        String name = String.valueOf( value );
+        //noinspection unchecked
+        return Enum.valueOf( (Class<Enum>)type, name );
+
+      case Array:
+        if( !value.getClass().isArray() )
+        {
+          // let the ClassCastException happen
+          return value;
+        }
+        int length = Array.getLength( value );
+        Class<?> componentType = type.getComponentType();
+        Object array = Array.newInstance( componentType, length );
+        for( int i = 0; i < length; i++ )
+        {
+          Array.set( array, i, coerce( Array.get( value, i ), componentType ) );
+        }
+        return array;
+
+      default:
+        // let the ClassCastException happen
+        return value;
     }
+  }
+
+  private static Coercion getCoercion( Type t )
+  {
+    Class<?> type = t instanceof ParameterizedType ? (Class<?>)((ParameterizedType)t).getRawType() : (Class)t;
+    return COERCION_CACHE.get( type );
+  }
+
+  /**
+   * The parts of {@link #coerce(Object, Type)} that depend only on the target type, decided once per type. Coercion
+   * providers are still called for each value since they may depend on the value itself.
+   */
+  private static class Coercion
+  {
+    enum Kind {Boxed, BigInteger, BigDecimal, String, Enum, Array, None}
 
-    if( type == BigInteger.class )
+    /** the raw target type, boxed if primitive */
+    private final Class<?> _type;
+    private final Kind _kind;
+
+    Coercion( Class<?> type )
     {
-      if( value instanceof Number )
-      {
-        return BigInteger.valueOf( ((Number)value).longValue() );
-      }
-      if( value instanceof Boolean )
+      if( type.isPrimitive() )
       {
-        return ((Boolean)value) ? BigInteger.ONE : BigInteger.ZERO;
+        type = ManClassUtil.box( type );
       }
-      return new BigInteger( value.toString() );
+      _type = type;
+      _kind = kindOf( type );
     }
 
-    if( type == BigDecimal.class )
+    private static Kind kindOf( Class<?> type )
     {
-      if( value instanceof Boolean )
+      if( type == Boolean.class || type == Byte.class || type == Character.class || type == Short.class ||
+        type == Integer.class || type == Long.class || type == Float.class || type == Double.class )
       {
-        return ((Boolean)value) ? BigDecimal.ONE : BigDecimal.ZERO;
+        return Kind.Boxed;
       }
-      return new BigDecimal( value.toString() );
-    }
-
-    if( type == String.class )
-    {
-      return String.valueOf( value );
-    }
-
-    if( type.isEnum() )
-    {
-      String name = String.valueOf( value );
-      //noinspection unchecked
-      return Enum.valueOf( (Class<Enum>)type, name );
-    }
-
-    if( type.isArray() && valueClass.isArray() )
-    {
-      int length = Array.getLength( value );
-      Class<?> componentType = type.getComponentType();
-      Object array = Array.newInstance( componentType, length );
-      for( int i = 0; i < length; i++ )
+      if( type == BigInteger.class )
+      {
+        return Kind.BigInteger;
+      }
+      if( type == BigDecimal.class )
+      {
+        return Kind.BigDecimal;
+      }
+      if( type == String.class )
       {
-        Array.set( array, i, coerce( Array.get( value, i ), componentType ) );
+        return Kind.String;
       }
-      return array;
+      if( type.isEnum() )
+      {
+        return Kind.Enum;
+      }
+      if( type.isArray() )
+      {
+        return Kind.Array;
+      }
+      return Kind.None;
     }
-
-    // let the ClassCastException happen
-    return value;
   }
 
   private static Object defaultPrimitiveValue( Class<?> type )
@@ -376,17 +587,7 @@ public class RuntimeMethods
       return root;
     }
 
-    Map<Class, IProxyFactory<?,?>> proxyByClass = PROXY_CACHE.get( iface );
-    if( proxyByClass == null )
-    {
-      PROXY_CACHE.put( iface, proxyByClass = new ConcurrentHashMap<>() );
-    }
-    IProxyFactory proxyFactory = proxyByClass.get( rootClass );
-    if( proxyFactory == null )
-    {
-      proxyFactory = createProxy( iface, rootClass );
-      proxyByClass.put( rootClass, proxyFactory );
-    }
+    IProxyFactory proxyFactory = getProxyFactoryRef( iface, rootClass ).get( iface, rootClass );
     try
     {
       // in Java 9+ in modular mode the proxy class belongs to the owner's module,
@@ -401,6 +602,103 @@ public class RuntimeMethods
     }
   }
 
+  private static ProxyFactoryRef getProxyFactoryRef( Class<?> iface, Class<?> rootClass )
+  {
+    ConcurrentWeakHashMap<Class<?>, ProxyFactoryRef> byRoot = PROXY_CACHE.get( iface );
+    ProxyFactoryRef ref = byRoot.get( rootClass );
+    if( ref != null )
+    {
+      return ref;
+    }
+    ConcurrentWeakHashMap<Class<?>, ProxyFactoryRef> byIface = PROXY_CACHE_BY_ROOT.get( rootClass );
+    ref = byIface.get( iface );
+    if( ref != null )
+    {
+      return ref;
+    }
+
+    if( isVisible( rootClass, iface.getClassLoader() ) )
+    {
+      // the common case, the root class is from the interface's loader, a parent of it, or the JDK
+      return putIfAbsent( byRoot, rootClass, new ProxyFactoryRef( false ) );
+    }
+    if( isVisible( iface, rootClass.getClassLoader() ) )
+    {
+      return putIfAbsent( byIface, iface, new ProxyFactoryRef( false ) );
+    }
+    // unrelated loaders, neither class may keep the other reachable, so the factory is held weakly
+    return putIfAbsent( byRoot, rootClass, new ProxyFactoryRef( true ) );
+  }
+
+  private static ProxyFactoryRef putIfAbsent( ConcurrentWeakHashMap<Class<?>, ProxyFactoryRef> map, Class<?> key,
+                                              ProxyFactoryRef ref )
+  {
+    ProxyFactoryRef existing = map.putIfAbsent( key, ref );
+    return existing == null ? ref : existing;
+  }
+
+  /**
+   * @return True if {@code cls} is from {@code loader} or one of its parents, so {@code loader} keeps it reachable
+   */
+  private static boolean isVisible( Class<?> cls, ClassLoader loader )
+  {
+    ClassLoader clsLoader = cls.getClassLoader();
+    if( clsLoader == null )
+    {
+      return true;
+    }
+    for( ClassLoader l = loader; l != null; l = l.getParent() )
+    {
+      if( l == clsLoader )
+      {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Holds the proxy factory for an interface and root class. The factory is created at most once, other threads
+   * needing it in the meantime wait for it instead of generating a proxy class of their own. If {@code weak}, the
+   * factory is held with a weak reference and created again once it is collected.
+   */
+  private static class ProxyFactoryRef
+  {
+    private final boolean _weak;
+    /** the factory, or if {@link #_weak}, a weak reference to it */
+    private volatile Object _factory;
+
+    ProxyFactoryRef( boolean weak )
+    {
+      _weak = weak;
+    }
+
+    IProxyFactory get( Class<?> iface, Class<?> rootClass )
+    {
+      IProxyFactory factory = factory();
+      if( factory == null )
+      {
+        synchronized( this )
+        {
+          factory = factory();
+          if( factory == null )
+          {
+            factory = createProxy( iface, rootClass );
+            _factory = _weak ? new WeakReference<>( factory ) : factory;
+          }
+        }
+      }
+      return factory;
+    }
+
+    private IProxyFactory factory()
+    {
+      Object factory = _factory;
+      //noinspection unchecked
+      return factory instanceof WeakReference ? ((WeakReference<IProxyFactory>)factory).get() : (IProxyFactory)factory;
+    }
+  }
+
   private static IProxyFactory createProxy( Class iface, Class rootClass )
   {
     IProxyFactory proxyFactory = maybeSelfProxyClass( rootClass, iface );
@@ -431,6 +729,14 @@ public class RuntimeMethods
           ? ListProxy.invoke( (List)target, proxy, method, args)
           : ReflectUtil.structuralCallByProxy( method, proxy, target, args ) );
     }
+    if( GENERATE_PROXIES )
+    {
+      IProxyFactory proxyFactory = StructuralProxyGenerator.makeProxyFactory( rootClass, intface );
+      if( proxyFactory != null )
+      {
+        return proxyFactory;
+      }
+    }
     return (target, iface) -> manifold.ext.rt.proxy.Proxy.newProxyInstance( intface.getClassLoader(), new Class[]{iface},
       (proxy, method, args) -> ReflectUtil.structuralCallByProxy( method, proxy, target, args ) );
   }
@@ -471,12 +777,21 @@ public class RuntimeMethods
       .filter( e -> maybeMakeProxyFactory( rootClass, iface, e.getClass(), c -> e ) != null )
       .findFirst().orElse(
         _registeredProxyFactories_gen.get().stream()
-          .filter( e -> maybeMakeProxyFactory( rootClass, iface, e.getClass(), c -> e ) != null )
+          // a proxy generated for a structural cast is only for the exact root class and interface of the cast
+          .filter( e -> maybeMakeProxyFactory( rootClass, iface, e.getClass(), c -> e,
+            e instanceof StructuralProxyGenerator.Pregenerated ) != null )
           .findFirst().orElse( null ) );
   }
 
   private static IProxyFactory maybeMakeProxyFactory( Class<?> rootClass, Class<?> ifaceClass, Class factoryClass,
                                                       Function<Class<?>, IProxyFactory> proxyFactoryMaker )
+  {
+    return maybeMakeProxyFactory( rootClass, ifaceClass, factoryClass, proxyFactoryMaker, false );
+  }
+
+  private static IProxyFactory maybeMakeProxyFactory( Class<?> rootClass, Class<?> ifaceClass, Class factoryClass,
+                                                      Function<Class<?>, IProxyFactory> proxyFactoryMaker,
+                                                      boolean exact )
   {
     Type type = Arrays.stream( factoryClass.getGenericInterfaces() )
       .filter( e -> e.getTypeName().startsWith( IProxyFactory.class.getTypeName() ) )
@@ -488,7 +803,7 @@ public class RuntimeMethods
       {
         typeArg1 = ((ParameterizedType)typeArg1).getRawType();
       }
-      if( !((Class<?>)typeArg1).isAssignableFrom( rootClass ) )
+      if( exact ? typeArg1 != rootClass : !((Class<?>)typeArg1).isAssignableFrom( rootClass ) )
       {
         return null;
       }
@@ -498,7 +813,7 @@ public class RuntimeMethods
       {
         typeArg2 = ((ParameterizedType)typeArg2).getRawType();
       }
-      if( ((Class<?>)typeArg2).isAssignableFrom( ifaceClass ) )
+      if( exact ? typeArg2 == ifaceClass : ((Class<?>)typeArg2).isAssignableFrom( ifaceClass ) )
       {
         return proxyFactoryMaker.apply( factoryClass );
       }
@@ -18,8 +18,12 @@ package manifold.ext.rt.extensions.java.util.Map;
 
 import java.lang.reflect.Method;
 import java.lang.reflect.Type;
+import java.lang.reflect.ParameterizedType;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
 import manifold.ext.rt.ForwardingExtensionMethod;
 import manifold.ext.rt.api.IBindingsBacked;
@@ -29,7 +33,9 @@ import manifold.ext.rt.RuntimeMethods;
 import manifold.ext.rt.api.Extension;
 import manifold.ext.rt.api.ICallHandler;
 import manifold.ext.rt.api.This;
+import manifold.rt.api.util.ManClassUtil;
 import manifold.util.ReflectUtil;
+import manifold.util.concurrent.ClassLocal;
 
 /**
  * Interface extension for java.util.Map to add ICallHandler support.
@@ -42,7 +48,12 @@ public abstract class MapStructExt implements ICallHandler
   {
     assert paramTypes.length == args.length;
 
-    Object result = invoke( bindings, proxy, name, actualName, returnType, returnType, paramTypes, args );
+    AccessorPlan plan = getPlan( iface, name, actualName, returnType, paramTypes );
+    Object result = plan == null ? UNHANDLED : plan.invoke( bindings, proxy, args );
+    if( result == UNHANDLED )
+    {
+      result = invoke( bindings, proxy, name, actualName, returnType, returnType, paramTypes, args );
+    }
     if( result == ICallHandler.UNHANDLED )
     {
       String fn = actualName != null ? actualName : name;
@@ -55,22 +66,21 @@ public abstract class MapStructExt implements ICallHandler
   {
     assert method.getParameterCount() == (args == null ? 0 : args.length);
 
-    String methodName = method.getName();
-    Object result;
-    if( method.isDefault() && method.isAnnotationPresent( ForwardingExtensionMethod.class ) )
+    AccessorPlan plan = METHOD_PLANS.get( method.getDeclaringClass() ).computeIfAbsent( method, AccessorPlan::make );
+    if( plan._kind == Kind.Forward )
     {
       return ReflectUtil.invokeDefault( proxy, method, args );
     }
 
-    String actualName = null;
-    if( methodName.startsWith( "get" ) || methodName.startsWith( "is" ) || methodName.startsWith( "set" ) ||
-      methodName.startsWith( "with" ) )
+    Object result = plan.invoke( bindings, proxy, args );
+    if( result == UNHANDLED )
     {
-      actualName = getActualName( method );
+      result = invoke( bindings, proxy, method.getName(), plan._actualName, method.getReturnType(),
+        method.getGenericReturnType(), method.getParameterTypes(), args );
     }
-    result = invoke( bindings, proxy, method.getName(), actualName, method.getReturnType(), method.getGenericReturnType(), method.getParameterTypes(), args );
     if( result == UNHANDLED )
     {
+      String methodName = method.getName();
       if( method.isDefault() )
       {
         result = ReflectUtil.invokeDefault( proxy, method, args );
@@ -148,36 +158,46 @@ public abstract class MapStructExt implements ICallHandler
 
   private static Object getValue( Map bindings, String name, String actualName, String prefix )
   {
-    int getLen = prefix.length();
-    if( name.length() > getLen && name.startsWith( prefix ) )
+    String[] keys = propertyKeys( name, prefix, true );
+    if( keys != null )
+    {
+      return actualName != null ? bindings.get( actualName ) : getValue( bindings, keys[0], keys[1] );
+    }
+    return ICallHandler.UNHANDLED;
+  }
+
+  private static Object getValue( Map bindings, String key, String altKey )
+  {
+    Object value = bindings.get( key );
+    if( value != null || bindings.containsKey( key ) )
+    {
+      return value;
+    }
+    return bindings.get( altKey );
+  }
+
+  /**
+   * @return The keys a property accessor method named {@code name} maps to if it has the {@code prefix} followed by
+   * an upper case character or an underscore, otherwise null. The first key retains the case of the name, the second
+   * is tried if the bindings don't have the first.
+   */
+  private static String[] propertyKeys( String name, String prefix, boolean nonAlphabetic )
+  {
+    int len = prefix.length();
+    if( name.length() > len && name.startsWith( prefix ) )
     {
-      char c = name.charAt( getLen );
-      if( c == '_' && name.length() > getLen + 1 )
+      char c = name.charAt( len );
+      if( c == '_' && name.length() > len + 1 )
       {
-        getLen++;
-        c = Character.toUpperCase( name.charAt( getLen ) );
+        len++;
+        c = Character.toUpperCase( name.charAt( len ) );
       }
-      if( Character.isUpperCase( c ) || !Character.isAlphabetic( c ) )
+      if( Character.isUpperCase( c ) || nonAlphabetic && !Character.isAlphabetic( c ) )
       {
-        if( actualName != null )
-        {
-          return bindings.get( actualName );
-        }
-
-        String key = name.substring( getLen );
-        if( bindings.containsKey( key ) )
-        {
-          return bindings.get( key );
-        }
-        key = Character.toLowerCase( c ) + name.substring( 1 );
-        if( bindings.containsKey( key ) )
-        {
-          return bindings.get( key );
-        }
-        return null;
+        return new String[] {name.substring( len ), Character.toLowerCase( c ) + name.substring( 1 )};
       }
     }
-    return ICallHandler.UNHANDLED;
+    return null;
   }
 
   private static Object setValue( Map bindings, String name, String actualName, Class<?>[] paramTypes, Object[] args )
@@ -191,55 +211,36 @@ public abstract class MapStructExt implements ICallHandler
   }
   private static Object setValue( Map bindings, String prefix, String name, String actualName, Class<?>[] paramTypes, Object[] args )
   {
-    int setLen = prefix.length();
-    if( paramTypes.length == 1 && name.length() > setLen && name.startsWith( prefix ) )
+    String[] keys;
+    if( paramTypes.length == 1 && (keys = propertyKeys( name, prefix, false )) != null )
     {
-      char c = name.charAt( setLen );
-      if( c == '_' && name.length() > setLen + 1 )
+      if( actualName != null )
       {
-        setLen++;
-        c = Character.toUpperCase( name.charAt( setLen ) );
+        setValue( bindings, actualName, null, args[0] );
       }
-      String key;
-      if( Character.isUpperCase( c ) )
+      else
       {
-        if( actualName != null )
-        {
-          key = actualName;
-        }
-        else
-        {
-          String upperKey = name.substring( setLen );
-          if( bindings.containsKey( upperKey ) )
-          {
-            key = upperKey;
-          }
-          else
-          {
-            String lowerKey = Character.toLowerCase( c ) + name.substring( 1 );
-            if( bindings.containsKey( lowerKey ) )
-            {
-              key = lowerKey;
-            }
-            else
-            {
-              key = upperKey;
-            }
-          }
-        }
-        Object arg = args[0];
-        if( bindings instanceof Bindings )
-        {
-          arg = RuntimeMethods.coerceToBindingValue( arg );
-        }
-        //noinspection unchecked
-        bindings.put( key, arg );
-        return null;
+        setValue( bindings, keys[0], keys[1], args[0] );
       }
+      return null;
     }
     return ICallHandler.UNHANDLED;
   }
 
+  private static void setValue( Map bindings, String key, String altKey, Object arg )
+  {
+    if( altKey != null && !bindings.containsKey( key ) && bindings.containsKey( altKey ) )
+    {
+      key = altKey;
+    }
+    if( bindings instanceof Bindings )
+    {
+      arg = RuntimeMethods.coerceToBindingValue( arg );
+    }
+    //noinspection unchecked
+    bindings.put( key, arg );
+  }
+
   private static Object invoke( Map bindings, String name, Object[] args )
   {
     Object value = bindings.get( name );
@@ -257,6 +258,160 @@ public abstract class MapStructExt implements ICallHandler
     return actualNameAnno == null ? null : actualNameAnno.value();
   }
 
+  /**
+   * Plans are kept with the interface declaring the method so they don't keep the interface's class loader reachable
+   */
+  private static final ClassLocal<Map<Method, AccessorPlan>> METHOD_PLANS =
+    new ClassLocal<>( iface -> new ConcurrentHashMap<>() );
+  private static final ClassLocal<Map<String, AccessorPlan>> CALL_PLANS =
+    new ClassLocal<>( iface -> new ConcurrentHashMap<>() );
+
+  /**
+   * @return The plan for a call from a generated proxy, or null if the plan for {@code name} is for another overload
+   */
+  private static AccessorPlan getPlan( Class<?> iface, String name, String actualName, Class<?> returnType,
+                                       Class<?>[] paramTypes )
+  {
+    AccessorPlan plan = CALL_PLANS.get( iface )
+      .computeIfAbsent( name, k -> AccessorPlan.make( name, actualName, returnType, returnType, paramTypes ) );
+    return plan._returnType == returnType && plan._paramCount == paramTypes.length &&
+           Objects.equals( plan._actualName, actualName ) ? plan : null;
+  }
+
+  private enum Kind
+  {
+    /** a default method forwarding to an extension method */
+    Forward,
+    /** getBindings() */
+    Bindings,
+    Getter,
+    Setter,
+    /** anything else, dispatched by name */
+    Other
+  }
+
+  /**
+   * How a structural interface method maps to a {@code Map}, resolved once per method: the kind of accessor, the
+   * bindings keys, and the return type for coercion. So the string analysis of the method name and the annotation
+   * lookups are not repeated per call.
+   */
+  private static final class AccessorPlan
+  {
+    private final Kind _kind;
+    private final String _actualName;
+    private final String _key;
+    private final String _altKey;
+    private final Class<?> _returnType;
+    private final Type _genericReturnType;
+    /** for a getter, the boxed return type if a value of this type needs no coercion, otherwise null */
+    private final Class<?> _valueType;
+    private final int _paramCount;
+
+    private AccessorPlan( Kind kind, String actualName, String[] keys, Class<?> returnType, Type genericReturnType,
+                          int paramCount )
+    {
+      _kind = kind;
+      _actualName = actualName;
+      _key = actualName != null ? actualName : keys == null ? null : keys[0];
+      _altKey = actualName != null || keys == null ? null : keys[1];
+      _returnType = returnType;
+      _genericReturnType = genericReturnType;
+      _valueType = kind == Kind.Getter &&
+                   (genericReturnType instanceof Class || genericReturnType instanceof ParameterizedType)
+                   ? returnType.isPrimitive() ? ManClassUtil.box( returnType ) : returnType
+                   : null;
+      _paramCount = paramCount;
+    }
+
+    private static AccessorPlan make( Method method )
+    {
+      if( method.isDefault() && method.isAnnotationPresent( ForwardingExtensionMethod.class ) )
+      {
+        return new AccessorPlan( Kind.Forward, null, null, method.getReturnType(), method.getGenericReturnType(),
+          method.getParameterCount() );
+      }
+
+      String name = method.getName();
+      String actualName = null;
+      if( name.startsWith( "get" ) || name.startsWith( "is" ) || name.startsWith( "set" ) || name.startsWith( "with" ) )
+      {
+        actualName = getActualName( method );
+      }
+      return make( name, actualName, method.getReturnType(), method.getGenericReturnType(), method.getParameterTypes() );
+    }
+
+    private static AccessorPlan make( String name, String actualName, Class<?> returnType, Type genericReturnType,
+                                      Class<?>[] paramTypes )
+    {
+      Kind kind = Kind.Other;
+      String[] keys = null;
+      if( name.equals( "getBindings" ) && paramTypes.length == 0 )
+      {
+        kind = Kind.Bindings;
+      }
+      else if( returnType != void.class && paramTypes.length == 0 )
+      {
+        keys = propertyKeys( name, "get", true );
+        if( keys == null )
+        {
+          keys = propertyKeys( name, "is", true );
+        }
+        kind = keys == null ? Kind.Other : Kind.Getter;
+      }
+      else if( paramTypes.length == 1 )
+      {
+        keys = propertyKeys( name, "set", false );
+        if( keys == null )
+        {
+          keys = propertyKeys( name, "with", false );
+        }
+        kind = keys == null ? Kind.Other : Kind.Setter;
+      }
+      return new AccessorPlan( kind, actualName, keys, returnType, genericReturnType, paramTypes.length );
+    }
+
+    /**
+     * @return The result of the call, or UNHANDLED if the call is not a property access
+     */
+    private Object invoke( Map bindings, Object proxy, Object[] args )
+    {
+      switch( _kind )
+      {
+        case Bindings:
+          if( proxy instanceof IBindingsBacked )
+          {
+            return bindings;
+          }
+          break;
+        case Getter:
+          return coerce( _altKey == null ? bindings.get( _key ) : getValue( bindings, _key, _altKey ), _genericReturnType );
+        case Setter:
+          if( _returnType == void.class )
+          {
+            setValue( bindings, _key, _altKey, args[0] );
+            return null;
+          }
+          if( _returnType.isAssignableFrom( proxy.getClass() ) )
+          {
+            setValue( bindings, _key, _altKey, args[0] );
+            return RuntimeMethods.coerceFromBindingsValue( bindings, _returnType );
+          }
+          break;
+      }
+      return UNHANDLED;
+    }
+
+    private Object coerce( Object value, Type type )
+    {
+      if( _valueType != null && _valueType.isInstance( value ) && !(value instanceof List) )
+      {
+        // same as RuntimeMethods#coerce(), no need to coerce a value already of the return type
+        return value;
+      }
+      return RuntimeMethods.coerceFromBindingsValue( value, type );
+    }
+  }
+
   private static String _toString( Map bindings )
   {
     return bindings.toString();
@@ -1434,7 +1434,7 @@ public class ProxyGenerator {
    * package separator, the representation used in the class file
    * format (see JVMS section 4.2).
    */
-  private static String dotToSlash(String name) {
+  static String dotToSlash(String name) {
     return name.replace('.', '/');
   }
 
@@ -1442,8 +1442,8 @@ public class ProxyGenerator {
    * Return the "method descriptor" string for a method with the given
    * parameter types and return type.  See JVMS section 4.3.3.
    */
-  private static String getMethodDescriptor(Class<?>[] parameterTypes,
-                                            Class<?> returnType)
+  static String getMethodDescriptor(Class<?>[] parameterTypes,
+                                    Class<?> returnType)
   {
     return getParameterDescriptors(parameterTypes) +
       ((returnType == void.class) ? "V" : getFieldType(returnType));
@@ -1470,7 +1470,7 @@ public class ProxyGenerator {
    * a field descriptor, a parameter descriptor, or a return descriptor
    * other than "void".  See JVMS section 4.3.2.
    */
-  private static String getFieldType(Class<?> type) {
+  static String getFieldType(Class<?> type) {
     if (type.isPrimitive()) {
       return ProxyGenerator.PrimitiveTypeInfo.get(type).baseTypeString;
     } else if (type.isArray()) {
@@ -1524,7 +1524,7 @@ public class ProxyGenerator {
    * this abstract notion of a "word" in section 3.4, but that definition
    * was removed for the second edition.
    */
-  private static int getWordsPerType(Class<?> type) {
+  static int getWordsPerType(Class<?> type) {
     if (type == long.class || type == double.class) {
       return 2;
     } else {
@@ -1703,7 +1703,7 @@ public class ProxyGenerator {
    * See JVMS section 4.4 for more information about the constant pool
    * of a class file.
    */
-  private static class ConstantPool {
+  static class ConstantPool {
 
     /**
      * list of constant pool entries, in constant pool index order.
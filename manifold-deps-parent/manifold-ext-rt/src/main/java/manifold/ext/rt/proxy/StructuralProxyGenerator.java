@@ -0,0 +1,699 @@
+/*
+ * Copyright (c) 2023 - Manifold Systems LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package manifold.ext.rt.proxy;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import manifold.ext.rt.api.IProxyFactory;
+import manifold.ext.rt.api.IProxyFactory_gen;
+import manifold.util.JreUtil;
+import manifold.util.ManExceptionUtil;
+import manifold.util.ReflectUtil;
+
+import static manifold.ext.rt.proxy.ProxyGenerator.dotToSlash;
+import static manifold.ext.rt.proxy.ProxyGenerator.getMethodDescriptor;
+
+/**
+ * Generates structural proxy classes calling the methods of a root class directly:
+ * <pre>
+ *   public final class Proxy implements Iface {
+ *     private final Root _root;
+ *     public Proxy( Object root ) { _root = (Root)root; }
+ *     public R method( P p ) { return _root.method( p ); }
+ *   }
+ * </pre>
+ * At runtime, {@link #makeProxyFactory} generates a proxy for use when there is no Manifold runtime host to compile one
+ * from source. The proxy is defined in the class loader and package of the structural interface. Each method of the
+ * interface and {@code equals}, {@code hashCode}, and {@code toString} call the method {@link ReflectUtil#findBestMethod}
+ * finds on the root class, as does the reflective proxy. A default method having no counterpart on the root class is
+ * inherited. If a call can't be made directly, e.g. a method requiring a conversion or handled by a field, or if the
+ * types are not accessible from the interface's class loader, no proxy is generated and {@link #makeProxyFactory}
+ * returns null.
+ * <p/>
+ * The compiler uses {@link #generateProxyClass} and {@link #generateFactoryClass} to write proxies for structural casts
+ * along with the classes it compiles.
+ */
+public class StructuralProxyGenerator
+{
+  private static final String PROXY_CLASS_NAME_PREFIX = "$ManStructProxy";
+  private static final String ROOT_FIELD = "_root";
+  private static final String OBJECT = "java/lang/Object";
+  private static final AtomicLong NEXT_UNIQUE_NUMBER = new AtomicLong();
+
+  // see JVMS chapter 6
+  private static final int ALOAD_0 = 0x2a;
+  private static final int ALOAD_1 = 0x2b;
+  private static final int ILOAD = 0x15;
+  private static final int LLOAD = 0x16;
+  private static final int FLOAD = 0x17;
+  private static final int DLOAD = 0x18;
+  private static final int ALOAD = 0x19;
+  private static final int IRETURN = 0xac;
+  private static final int LRETURN = 0xad;
+  private static final int FRETURN = 0xae;
+  private static final int DRETURN = 0xaf;
+  private static final int ARETURN = 0xb0;
+  private static final int RETURN = 0xb1;
+  private static final int POP = 0x57;
+  private static final int POP2 = 0x58;
+  private static final int DUP = 0x59;
+  private static final int GETFIELD = 0xb4;
+  private static final int PUTFIELD = 0xb5;
+  private static final int INVOKEVIRTUAL = 0xb6;
+  private static final int INVOKESPECIAL = 0xb7;
+  private static final int NEW = 0xbb;
+  private static final int CHECKCAST = 0xc0;
+  private static final int WIDE = 0xc4;
+
+  private final String _className;
+  private final ProxyGenerator.ConstantPool _cp;
+  private final List<MethodInfo> _methods;
+
+  /**
+   * Implemented by factories {@link #generateFactoryClass} generates. A factory is for exactly the root class and
+   * interface it was generated for, a subclass of the root class may call other methods or be a {@code Map} or
+   * {@code List}.
+   */
+  public interface Pregenerated
+  {
+  }
+
+  /**
+   * A method of a proxy calling a method of the same name on the root.
+   */
+  public static class Call
+  {
+    private final String _name;
+    private final String _descriptor;
+    private final String _targetDescriptor;
+    private final String _returnCast;
+
+    /**
+     * @param name             The name of the method
+     * @param descriptor       The descriptor of the proxy method
+     * @param targetDescriptor The descriptor of the root method, its parameters must accept the proxy method's
+     * @param returnCast       The name of the type to cast the result to, or null if no cast
+     */
+    public Call( String name, String descriptor, String targetDescriptor, String returnCast )
+    {
+      _name = name;
+      _descriptor = descriptor;
+      _targetDescriptor = targetDescriptor;
+      _returnCast = returnCast;
+    }
+  }
+
+  /**
+   * @return A factory making proxies of {@code iface} calling methods of {@code rootClass} directly, or null if such a
+   * proxy can't be made
+   */
+  public static IProxyFactory<Object, Object> makeProxyFactory( Class<?> rootClass, Class<?> iface )
+  {
+    ClassLoader loader = iface.getClassLoader();
+    if( loader == null || !isAccessible( rootClass, iface ) || !isVisible( rootClass, loader ) )
+    {
+      return null;
+    }
+
+    List<Call> calls = findCalls( rootClass, iface );
+    if( calls == null )
+    {
+      return null;
+    }
+
+    try
+    {
+      String pkg = packageName( iface );
+      String className = (pkg.isEmpty() ? "" : pkg + '.') +
+        PROXY_CLASS_NAME_PREFIX + NEXT_UNIQUE_NUMBER.getAndIncrement();
+      byte[] bytes = generateProxyClass( className, rootClass.getName(), iface.getName(), calls );
+      Class<?> proxyClass = (Class<?>)ReflectUtil.method( loader, "defineClass",
+        String.class, byte[].class, int.class, int.class ).invoke( className, bytes, 0, bytes.length );
+      // not a MethodHandle, D8 does not accept invokeExact call sites for Android APIs before version 8 (API level 26)
+      Constructor<?> constructor = proxyClass.getConstructor( Object.class );
+      return ( target, unused ) -> {
+        try
+        {
+          return constructor.newInstance( target );
+        }
+        catch( InvocationTargetException ite )
+        {
+          throw ManExceptionUtil.unchecked( ite.getCause() );
+        }
+        catch( Exception e )
+        {
+          throw ManExceptionUtil.unchecked( e );
+        }
+      };
+    }
+    catch( Throwable t )
+    {
+      // e.g., the class loader does not allow classes to be defined in the interface's package, or there is no
+      // bytecode to define as on Android
+      return null;
+    }
+  }
+
+  /**
+   * Generates a proxy class having a constructor taking the root as an {@code Object}.
+   *
+   * @param className     The binary name of the proxy class
+   * @param rootClassName The binary name of the root class
+   * @param ifaceName     The binary name of the structural interface
+   * @param calls         The methods of the proxy
+   * @return The class file
+   */
+  public static byte[] generateProxyClass( String className, String rootClassName, String ifaceName, List<Call> calls )
+  {
+    try
+    {
+      return new StructuralProxyGenerator( className ).generateProxy( rootClassName, ifaceName, calls );
+    }
+    catch( IOException e )
+    {
+      throw new RuntimeException( e );
+    }
+  }
+
+  /**
+   * Generates an {@link IProxyFactory_gen} implementation making proxies generated with {@link #generateProxyClass}.
+   * The factory is also {@link Pregenerated}.
+   *
+   * @param className      The binary name of the factory class
+   * @param proxyClassName The binary name of the proxy class
+   * @param rootClassName  The binary name of the root class
+   * @param ifaceName      The binary name of the structural interface
+   * @return The class file
+   */
+  public static byte[] generateFactoryClass( String className, String proxyClassName, String rootClassName,
+                                             String ifaceName )
+  {
+    try
+    {
+      return new StructuralProxyGenerator( className ).generateFactory( proxyClassName, rootClassName, ifaceName );
+    }
+    catch( IOException e )
+    {
+      throw new RuntimeException( e );
+    }
+  }
+
+  private StructuralProxyGenerator( String className )
+  {
+    _className = dotToSlash( className );
+    _cp = new ProxyGenerator.ConstantPool();
+    _methods = new ArrayList<>();
+  }
+
+  /**
+   * Pairs each method to implement with the root class method it calls.
+   *
+   * @return The calls or null if a method can't be called directly
+   */
+  private static List<Call> findCalls( Class<?> rootClass, Class<?> iface )
+  {
+    List<Method> methods = new ArrayList<>();
+    try
+    {
+      // Object's methods come first, as with ProxyGenerator
+      methods.add( Object.class.getMethod( "hashCode" ) );
+      methods.add( Object.class.getMethod( "equals", Object.class ) );
+      methods.add( Object.class.getMethod( "toString" ) );
+    }
+    catch( NoSuchMethodException e )
+    {
+      throw new RuntimeException( e );
+    }
+    for( Method m: iface.getMethods() )
+    {
+      if( !Modifier.isStatic( m.getModifiers() ) )
+      {
+        methods.add( m );
+      }
+    }
+
+    ClassLoader loader = iface.getClassLoader();
+    Map<String, Call> calls = new LinkedHashMap<>();
+    for( Method m: methods )
+    {
+      String descriptor = getMethodDescriptor( m.getParameterTypes(), m.getReturnType() );
+      String key = m.getName() + descriptor;
+      if( calls.containsKey( key ) )
+      {
+        continue;
+      }
+
+      Method target = ReflectUtil.findBestMethod( m, rootClass );
+      if( target == null )
+      {
+        if( m.isDefault() )
+        {
+          // the proxy inherits the default method
+          continue;
+        }
+        return null;
+      }
+      if( !isDirectCall( m, target, loader ) )
+      {
+        return null;
+      }
+
+      Class<?> returnType = m.getReturnType();
+      String returnCast = returnType.isPrimitive() || returnType.isAssignableFrom( target.getReturnType() )
+        ? null
+        // e.g., a type variable erased to Object, the reflective proxy casts here too
+        : returnType.getName();
+      calls.put( key, new Call( m.getName(), descriptor,
+        getMethodDescriptor( target.getParameterTypes(), target.getReturnType() ), returnCast ) );
+    }
+    return new ArrayList<>( calls.values() );
+  }
+
+  /**
+   * True if {@code target} can be called with the arguments of {@code m} as they are, and its return value converts to
+   * the return type of {@code m} with at most a cast.
+   */
+  private static boolean isDirectCall( Method m, Method target, ClassLoader loader )
+  {
+    if( Modifier.isStatic( target.getModifiers() ) || !Modifier.isPublic( target.getModifiers() ) )
+    {
+      return false;
+    }
+
+    Class<?>[] params = m.getParameterTypes();
+    Class<?>[] targetParams = target.getParameterTypes();
+    for( int i = 0; i < params.length; i++ )
+    {
+      Class<?> param = params[i];
+      Class<?> targetParam = targetParams[i];
+      if( param.isPrimitive() || targetParam.isPrimitive()
+          ? param != targetParam
+          : !targetParam.isAssignableFrom( param ) )
+      {
+        return false;
+      }
+      if( !isVisible( targetParam, loader ) )
+      {
+        return false;
+      }
+    }
+
+    Class<?> returnType = m.getReturnType();
+    Class<?> targetReturnType = target.getReturnType();
+    if( returnType != void.class &&
+        (returnType.isPrimitive() || targetReturnType.isPrimitive()) && returnType != targetReturnType )
+    {
+      return false;
+    }
+    return isVisible( targetReturnType, loader );
+  }
+
+  private static boolean isAccessible( Class<?> rootClass, Class<?> iface )
+  {
+    if( rootClass.getClassLoader() == iface.getClassLoader() &&
+        packageName( rootClass ).equals( packageName( iface ) ) )
+    {
+      // the proxy is in the same package as the root class
+      return true;
+    }
+
+    if( !Modifier.isPublic( rootClass.getModifiers() ) )
+    {
+      return false;
+    }
+
+    if( JreUtil.isJava8() )
+    {
+      return true;
+    }
+
+    // the root class' package must be exported to the proxy's module, the interface's module
+    Object rootModule = ReflectUtil.method( Class.class, "getModule" ).invoke( rootClass );
+    Object ifaceModule = ReflectUtil.method( Class.class, "getModule" ).invoke( iface );
+    return (boolean)ReflectUtil.method( rootModule, "isExported", String.class, ifaceModule.getClass() )
+      .invoke( packageName( rootClass ), ifaceModule );
+  }
+
+  private static String packageName( Class<?> cls )
+  {
+    String name = cls.getName();
+    int lastDot = name.lastIndexOf( '.' );
+    return lastDot < 0 ? "" : name.substring( 0, lastDot );
+  }
+
+  /**
+   * True if {@code type} resolves to the same class from {@code loader}, so that the proxy links with the same types.
+   */
+  private static boolean isVisible( Class<?> type, ClassLoader loader )
+  {
+    while( type.isArray() )
+    {
+      type = type.getComponentType();
+    }
+    if( type.isPrimitive() )
+    {
+      return true;
+    }
+    try
+    {
+      return Class.forName( type.getName(), false, loader ) == type;
+    }
+    catch( ClassNotFoundException | LinkageError e )
+    {
+      return false;
+    }
+  }
+
+  private byte[] generateProxy( String rootClassName, String ifaceName, List<Call> calls ) throws IOException
+  {
+    String rootClass = dotToSlash( rootClassName );
+    String rootFieldType = 'L' + rootClass + ';';
+
+    _methods.add( generateProxyConstructor( rootClass, rootFieldType ) );
+    for( Call call: calls )
+    {
+      _methods.add( generateMethod( call, rootClass, rootFieldType ) );
+    }
+
+    // reserve the remaining constant pool entries before writing it
+    _cp.getUtf8( ROOT_FIELD );
+    _cp.getUtf8( rootFieldType );
+    return writeClassFile( new String[] {dotToSlash( ifaceName )}, null, out -> {
+      // the root field, see JVMS section 4.5
+      out.writeShort( 1 );
+      out.writeShort( Modifier.PRIVATE | Modifier.FINAL );
+      out.writeShort( _cp.getUtf8( ROOT_FIELD ) );
+      out.writeShort( _cp.getUtf8( rootFieldType ) );
+      out.writeShort( 0 );
+    } );
+  }
+
+  private byte[] generateFactory( String proxyClassName, String rootClassName, String ifaceName ) throws IOException
+  {
+    String proxyClass = dotToSlash( proxyClassName );
+    String factoryIface = dotToSlash( IProxyFactory_gen.class.getName() );
+    String markerIface = dotToSlash( Pregenerated.class.getName() );
+
+    MethodInfo constructor = new MethodInfo( "<init>", "()V", 1, 1 );
+    constructor._code.writeByte( ALOAD_0 );
+    constructor._code.writeByte( INVOKESPECIAL );
+    constructor._code.writeShort( _cp.getMethodRef( OBJECT, "<init>", "()V" ) );
+    constructor._code.writeByte( RETURN );
+    _methods.add( constructor );
+
+    // the erasure of IProxyFactory#proxy(T, Class<I>)
+    MethodInfo proxy = new MethodInfo( "proxy", "(Ljava/lang/Object;Ljava/lang/Class;)Ljava/lang/Object;", 3, 3 );
+    proxy._code.writeByte( NEW );
+    proxy._code.writeShort( _cp.getClass( proxyClass ) );
+    proxy._code.writeByte( DUP );
+    proxy._code.writeByte( ALOAD_1 );
+    proxy._code.writeByte( INVOKESPECIAL );
+    proxy._code.writeShort( _cp.getMethodRef( proxyClass, "<init>", "(Ljava/lang/Object;)V" ) );
+    proxy._code.writeByte( ARETURN );
+    _methods.add( proxy );
+
+    // the type arguments of IProxyFactory_gen, used to match the factory with a root class and interface
+    String signature = "Ljava/lang/Object;L" + factoryIface +
+      "<L" + dotToSlash( rootClassName ) + ";L" + dotToSlash( ifaceName ) + ";>;L" + markerIface + ';';
+    return writeClassFile( new String[] {factoryIface, markerIface}, signature, out -> out.writeShort( 0 ) );
+  }
+
+  private interface FieldsWriter
+  {
+    void write( DataOutputStream out ) throws IOException;
+  }
+
+  private byte[] writeClassFile( String[] ifaces, String signature, FieldsWriter fields ) throws IOException
+  {
+    // reserve the remaining constant pool entries before writing it
+    _cp.getClass( _className );
+    _cp.getClass( OBJECT );
+    for( String iface: ifaces )
+    {
+      _cp.getClass( iface );
+    }
+    _cp.getUtf8( "Code" );
+    if( signature != null )
+    {
+      _cp.getUtf8( "Signature" );
+      _cp.getUtf8( signature );
+    }
+    _cp.setReadOnly();
+
+    // see JVMS section 4.1
+    ByteArrayOutputStream bout = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream( bout );
+    out.writeInt( 0xCAFEBABE );
+    // 1.5-era class file version, as with ProxyGenerator, so no stack map frames are needed
+    out.writeShort( 0 );
+    out.writeShort( 49 );
+    _cp.write( out );
+    out.writeShort( Modifier.PUBLIC | Modifier.FINAL | 0x20 /*ACC_SUPER*/ );
+    out.writeShort( _cp.getClass( _className ) );
+    out.writeShort( _cp.getClass( OBJECT ) );
+    out.writeShort( ifaces.length );
+    for( String iface: ifaces )
+    {
+      out.writeShort( _cp.getClass( iface ) );
+    }
+
+    fields.write( out );
+
+    out.writeShort( _methods.size() );
+    for( MethodInfo method: _methods )
+    {
+      method.write( out );
+    }
+
+    if( signature == null )
+    {
+      out.writeShort( 0 );
+    }
+    else
+    {
+      // see JVMS section 4.7.9
+      out.writeShort( 1 );
+      out.writeShort( _cp.getUtf8( "Signature" ) );
+      out.writeInt( 2 );
+      out.writeShort( _cp.getUtf8( signature ) );
+    }
+    return bout.toByteArray();
+  }
+
+  private MethodInfo generateProxyConstructor( String rootClass, String rootFieldType ) throws IOException
+  {
+    MethodInfo method = new MethodInfo( "<init>", "(Ljava/lang/Object;)V", 2, 2 );
+    DataOutputStream code = method._code;
+    code.writeByte( ALOAD_0 );
+    code.writeByte( INVOKESPECIAL );
+    code.writeShort( _cp.getMethodRef( OBJECT, "<init>", "()V" ) );
+    code.writeByte( ALOAD_0 );
+    code.writeByte( ALOAD_1 );
+    code.writeByte( CHECKCAST );
+    code.writeShort( _cp.getClass( rootClass ) );
+    code.writeByte( PUTFIELD );
+    code.writeShort( _cp.getFieldRef( _className, ROOT_FIELD, rootFieldType ) );
+    code.writeByte( RETURN );
+    return method;
+  }
+
+  private MethodInfo generateMethod( Call call, String rootClass, String rootFieldType ) throws IOException
+  {
+    List<String> params = parseParameters( call._descriptor );
+    int paramWords = 0;
+    for( String param: params )
+    {
+      paramWords += words( param );
+    }
+    String returnType = returnType( call._descriptor );
+    String targetReturnType = returnType( call._targetDescriptor );
+
+    MethodInfo method = new MethodInfo( call._name, call._descriptor,
+      Math.max( 1 + paramWords, words( targetReturnType ) ), 1 + paramWords );
+    DataOutputStream code = method._code;
+    code.writeByte( ALOAD_0 );
+    code.writeByte( GETFIELD );
+    code.writeShort( _cp.getFieldRef( _className, ROOT_FIELD, rootFieldType ) );
+    int slot = 1;
+    for( String param: params )
+    {
+      codeLoad( code, loadOpcode( param ), slot );
+      slot += words( param );
+    }
+    // the root class is the owner, the declaring class may not be accessible
+    code.writeByte( INVOKEVIRTUAL );
+    code.writeShort( _cp.getMethodRef( rootClass, call._name, call._targetDescriptor ) );
+
+    if( returnType.equals( "V" ) )
+    {
+      int returnWords = words( targetReturnType );
+      if( returnWords > 0 )
+      {
+        code.writeByte( returnWords == 2 ? POP2 : POP );
+      }
+      code.writeByte( RETURN );
+    }
+    else
+    {
+      if( call._returnCast != null )
+      {
+        code.writeByte( CHECKCAST );
+        code.writeShort( _cp.getClass( dotToSlash( call._returnCast ) ) );
+      }
+      code.writeByte( returnOpcode( returnType ) );
+    }
+    return method;
+  }
+
+  private static List<String> parseParameters( String descriptor )
+  {
+    List<String> params = new ArrayList<>();
+    int i = 1;
+    while( descriptor.charAt( i ) != ')' )
+    {
+      int start = i;
+      while( descriptor.charAt( i ) == '[' )
+      {
+        i++;
+      }
+      i = descriptor.charAt( i ) == 'L' ? descriptor.indexOf( ';', i ) + 1 : i + 1;
+      params.add( descriptor.substring( start, i ) );
+    }
+    return params;
+  }
+
+  private static String returnType( String descriptor )
+  {
+    return descriptor.substring( descriptor.indexOf( ')' ) + 1 );
+  }
+
+  private static int words( String type )
+  {
+    switch( type )
+    {
+      case "V":
+        return 0;
+      case "J":
+      case "D":
+        return 2;
+      default:
+        return 1;
+    }
+  }
+
+  private static void codeLoad( DataOutputStream code, int opcode, int slot ) throws IOException
+  {
+    if( slot <= 0xff )
+    {
+      code.writeByte( opcode );
+      code.writeByte( slot );
+    }
+    else
+    {
+      code.writeByte( WIDE );
+      code.writeByte( opcode );
+      code.writeShort( slot );
+    }
+  }
+
+  private static int loadOpcode( String type )
+  {
+    switch( type.charAt( 0 ) )
+    {
+      case 'J':
+        return LLOAD;
+      case 'F':
+        return FLOAD;
+      case 'D':
+        return DLOAD;
+      case 'L':
+      case '[':
+        return ALOAD;
+      default:
+        return ILOAD;
+    }
+  }
+
+  private static int returnOpcode( String type )
+  {
+    switch( type.charAt( 0 ) )
+    {
+      case 'J':
+        return LRETURN;
+      case 'F':
+        return FRETURN;
+      case 'D':
+        return DRETURN;
+      case 'L':
+      case '[':
+        return ARETURN;
+      default:
+        return IRETURN;
+    }
+  }
+
+  private class MethodInfo
+  {
+    private final String _name;
+    private final String _descriptor;
+    private final int _maxStack;
+    private final int _maxLocals;
+    private final ByteArrayOutputStream _bytes;
+    private final DataOutputStream _code;
+
+    private MethodInfo( String name, String descriptor, int maxStack, int maxLocals )
+    {
+      _name = name;
+      _descriptor = descriptor;
+      _maxStack = maxStack;
+      _maxLocals = maxLocals;
+      _bytes = new ByteArrayOutputStream();
+      _code = new DataOutputStream( _bytes );
+      _cp.getUtf8( name );
+      _cp.getUtf8( descriptor );
+    }
+
+    private void write( DataOutputStream out ) throws IOException
+    {
+      // see JVMS sections 4.6 and 4.7.3
+      out.writeShort( Modifier.PUBLIC );
+      out.writeShort( _cp.getUtf8( _name ) );
+      out.writeShort( _cp.getUtf8( _descriptor ) );
+      out.writeShort( 1 );
+      out.writeShort( _cp.getUtf8( "Code" ) );
+      out.writeInt( 12 + _bytes.size() );
+      out.writeShort( _maxStack );
+      out.writeShort( _maxLocals );
+      out.writeInt( _bytes.size() );
+      _bytes.writeTo( out );
+      // no exception table, no attributes
+      out.writeShort( 0 );
+      out.writeShort( 0 );
+    }
+  }
+}
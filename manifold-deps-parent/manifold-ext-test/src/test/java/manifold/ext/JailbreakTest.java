@@ -193,4 +193,40 @@ public class JailbreakTest extends TestCase
     HashMap.Entry<String, String> entry = new HashMap.SimpleEntry<>( "k", "v" );
     assertSame( entry, s.innerClassParam( entry ) );
   }
-}
\ No newline at end of file
+
+  public void testOverloadsAndStatics()
+  {
+    @Jailbreak Sample s = new Sample();
+    @Jailbreak Sample staticSample = null;
+    for( int i = 0; i < 3; i++ )
+    {
+      assertEquals( "int", s.overloaded( i ) );
+      assertEquals( "String", s.overloaded( "hi" ) );
+      assertEquals( 2 * i, staticSample.staticSum( i, i ) );
+    }
+  }
+
+  public void testAssignFinalField()
+  {
+    @Jailbreak Sample s = new Sample();
+    assertEquals( "initial", s._finalField );
+    s._finalField = "changed";
+    assertEquals( "changed", s._finalField );
+  }
+
+  public void testExceptionFromJailbreakMethod()
+  {
+    @Jailbreak Sample s = new Sample();
+    try
+    {
+      s.throwChecked();
+      fail();
+    }
+    catch( Exception e )
+    {
+      // the exception thrown from the method, not wrapped in InvocationTargetException
+      assertTrue( e instanceof java.io.IOException );
+      assertEquals( "checked", e.getMessage() );
+    }
+  }
+}
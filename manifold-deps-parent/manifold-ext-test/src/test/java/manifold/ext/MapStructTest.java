@@ -1,10 +1,12 @@
 package manifold.ext;
 
+import java.lang.reflect.Proxy;
 import java.util.HashMap;
 import java.util.function.Function;
 import junit.framework.TestCase;
 import manifold.IMyStruct;
 import manifold.ext.rt.api.Structural;
+import manifold.ext.rt.extensions.java.util.Map.MapStructExt;
 
 /**
  */
@@ -59,6 +61,44 @@ public class MapStructTest extends TestCase
     assertEquals( 1.0, mapStuff.get_Double() );
   }
 
+  public void testMethodDispatch()
+  {
+    // the path used by proxies made without a manifold runtime host, see MapStructExt#invoke(Map, Object, Method, Object[])
+    HashMap<String, Object> map = new HashMap<>();
+    IThing thing = (IThing)Proxy.newProxyInstance( IThing.class.getClassLoader(), new Class[] {IThing.class},
+      (proxy, method, args) -> MapStructExt.invoke( map, proxy, method, args ) );
+    for( int i = 0; i < 2; i++ )
+    {
+      // twice to use the cached dispatch
+      map.clear();
+      assertEquals( 0, thing.getCount() );
+      assertNull( thing.getColor() );
+      thing.setCount( 3 );
+      assertEquals( 3, map.get( "Count" ) );
+      assertEquals( 3, thing.getCount() );
+      map.put( "Count", 4L );
+      assertEquals( 4, thing.getCount() );
+      map.put( "Color", "red" );
+      assertEquals( "red", thing.getColor() );
+      thing.setColor( "blue" );
+      assertEquals( "blue", map.get( "Color" ) );
+      assertEquals( "thing", thing.describe() );
+      assertEquals( map.toString(), thing.toString() );
+    }
+  }
+
+  public interface IThing
+  {
+    int getCount();
+    void setCount( int count );
+    String getColor();
+    void setColor( String color );
+    default String describe()
+    {
+      return "thing";
+    }
+  }
+
 //## only works with compile-time manifold, todo: make this test module compile-time manifold
 //  public void testOverrideDefaultMethod()
 //  {
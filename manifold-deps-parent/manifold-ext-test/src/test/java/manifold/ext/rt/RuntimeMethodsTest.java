@@ -0,0 +1,349 @@
+/*
+ * Copyright (c) 2023 - Manifold Systems LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package manifold.ext.rt;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.ref.WeakReference;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import manifold.ext.rt.api.IProxyFactory;
+import manifold.ext.rt.api.Structural;
+import manifold.rt.api.util.StreamUtil;
+
+import org.junit.Test;
+
+
+import static org.junit.Assert.*;
+
+public class RuntimeMethodsTest
+{
+  @SuppressWarnings( "unused" )
+  private Map<String, Integer> _parameterized;
+
+  @Test
+  public void testIdentity()
+  {
+    String s = "hi";
+    assertSame( s, RuntimeMethods.coerce( s, String.class ) );
+    assertSame( s, RuntimeMethods.coerce( s, CharSequence.class ) );
+    assertSame( s, RuntimeMethods.coerce( s, Object.class ) );
+    Integer i = 1000;
+    assertSame( i, RuntimeMethods.coerce( i, int.class ) );
+    assertSame( i, RuntimeMethods.coerce( i, Number.class ) );
+    List<String> list = new ArrayList<>();
+    assertSame( list, RuntimeMethods.coerce( list, List.class ) );
+  }
+
+  @Test
+  public void testParameterizedType() throws Exception
+  {
+    Map<String, Object> map = new HashMap<>();
+    assertSame( map, RuntimeMethods.coerce( map,
+      RuntimeMethodsTest.class.getDeclaredField( "_parameterized" ).getGenericType() ) );
+  }
+
+  @Test
+  public void testNull()
+  {
+    assertEquals( 0, RuntimeMethods.coerce( null, int.class ) );
+    assertEquals( false, RuntimeMethods.coerce( null, boolean.class ) );
+    assertNull( RuntimeMethods.coerce( null, Integer.class ) );
+  }
+
+  @Test
+  public void testSameClassDifferentValues()
+  {
+    // the coercion is decided per class, the result must still depend on the value
+    for( int i = 0; i < 3; i++ )
+    {
+      assertEquals( 1, RuntimeMethods.coerce( "1", int.class ) );
+      assertEquals( 2, RuntimeMethods.coerce( "2", Integer.class ) );
+      assertNull( RuntimeMethods.coerce( "", Integer.class ) );
+      assertEquals( "", RuntimeMethods.coerce( "", String.class ) );
+      assertEquals( 3L, RuntimeMethods.coerce( 3, long.class ) );
+      assertEquals( 1.5d, RuntimeMethods.coerce( 1.5f, double.class ) );
+      assertEquals( true, RuntimeMethods.coerce( 1, boolean.class ) );
+      assertEquals( 'x', RuntimeMethods.coerce( "xyz", char.class ) );
+    }
+  }
+
+  @Test
+  public void testBuiltInConversions()
+  {
+    assertEquals( BigInteger.valueOf( 42 ), RuntimeMethods.coerce( 42, BigInteger.class ) );
+    assertEquals( BigInteger.ONE, RuntimeMethods.coerce( true, BigInteger.class ) );
+    assertEquals( new BigInteger( "123456789012345678901234567890" ),
+      RuntimeMethods.coerce( "123456789012345678901234567890", BigInteger.class ) );
+    assertEquals( new BigDecimal( "1.25" ), RuntimeMethods.coerce( "1.25", BigDecimal.class ) );
+    assertEquals( BigDecimal.ZERO, RuntimeMethods.coerce( false, BigDecimal.class ) );
+    assertEquals( "7", RuntimeMethods.coerce( 7, String.class ) );
+    assertEquals( RetentionPolicy.RUNTIME, RuntimeMethods.coerce( "RUNTIME", RetentionPolicy.class ) );
+    assertArrayEquals( new int[]{1, 2, 3}, (int[])RuntimeMethods.coerce( new Object[]{"1", 2L, 3.0}, int[].class ) );
+    assertArrayEquals( new String[]{"1", "2"}, (String[])RuntimeMethods.coerce( new Integer[]{1, 2}, String[].class ) );
+  }
+
+  @Test
+  public void testUnconvertible()
+  {
+    // no coercion, the caller's cast fails
+    Object value = Collections.singletonMap( "a", 1 );
+    assertSame( value, RuntimeMethods.coerce( value, Runnable.class ) );
+    Object[] array = new Object[0];
+    assertSame( array, RuntimeMethods.coerce( array, Runnable.class ) );
+  }
+
+  @Test
+  public void testProviderOrder()
+  {
+    List<String> names = new ArrayList<>();
+    CoercionProviders.get().forEach( e -> names.add( e.getClass().getName() ) );
+    List<String> sorted = new ArrayList<>( names );
+    Collections.sort( sorted );
+    assertEquals( sorted, names );
+  }
+
+  @Test
+  public void testProxyFactoryCreatedOnce() throws Exception
+  {
+    Thread[] threads = new Thread[8];
+    Object[] proxies = new Object[threads.length];
+    CountDownLatch start = new CountDownLatch( 1 );
+    for( int i = 0; i < threads.length; i++ )
+    {
+      int index = i;
+      threads[i] = new Thread( new Runnable()
+      {
+        @Override
+        public void run()
+        {
+          proxies[index] = construct( start, index );
+        }
+      } );
+      threads[i].start();
+    }
+    start.countDown();
+    for( Thread thread: threads )
+    {
+      thread.join();
+    }
+
+    assertEquals( 1, WidgetProxyFactory.CREATED.get() );
+    for( int i = 0; i < proxies.length; i++ )
+    {
+      assertEquals( i, ((Sized)proxies[i]).size() );
+    }
+  }
+
+  @Test
+  public void testFindCachedProxy()
+  {
+    Widget widget = new Widget( 3 );
+    Object proxy = RuntimeMethods.findCachedProxy( widget, Sized.class );
+    assertEquals( 3, ((Sized)proxy).size() );
+    assertSame( proxy, RuntimeMethods.findCachedProxy( widget, Sized.class ) );
+
+    Widget other = new Widget( 3 );
+    assertNotSame( proxy, RuntimeMethods.findCachedProxy( other, Sized.class ) );
+
+    assertSame( widget, RuntimeMethods.findCachedProxy( widget, Object.class ) );
+    assertNull( RuntimeMethods.findCachedProxy( null, Sized.class ) );
+  }
+
+  @Test
+  public void testFindCachedProxyManyRoots()
+  {
+    Widget[] widgets = new Widget[1000];
+    Object[] proxies = new Object[widgets.length];
+    for( int i = 0; i < widgets.length; i++ )
+    {
+      widgets[i] = new Widget( i );
+      proxies[i] = RuntimeMethods.findCachedProxy( widgets[i], Sized.class );
+    }
+    for( int i = 0; i < widgets.length; i++ )
+    {
+      assertSame( proxies[i], RuntimeMethods.findCachedProxy( widgets[i], Sized.class ) );
+      assertEquals( i, ((Sized)proxies[i]).size() );
+    }
+  }
+
+  @Test
+  public void testFindCachedProxyReleasesRoot() throws Exception
+  {
+    WeakReference<Widget> root = castCached();
+    for( int i = 0; i < 50 && root.get() != null; i++ )
+    {
+      System.gc();
+      Thread.sleep( 20 );
+    }
+    assertNull( root.get() );
+  }
+
+  private static WeakReference<Widget> castCached()
+  {
+    Widget widget = new Widget( 4 );
+    assertEquals( 4, ((Sized)RuntimeMethods.findCachedProxy( widget, Sized.class )).size() );
+    return new WeakReference<>( widget );
+  }
+
+  @Test
+  public void testProxyCacheReleasesInterfaceLoader() throws Exception
+  {
+    // the root class is from the parent loader, the interface and its proxy factory from a discarded loader
+    WeakReference<ClassLoader> loader = castWithDiscardedLoader();
+    for( int i = 0; i < 50 && loader.get() != null; i++ )
+    {
+      System.gc();
+      Thread.sleep( 20 );
+    }
+    assertNull( loader.get() );
+  }
+
+  private static WeakReference<ClassLoader> castWithDiscardedLoader() throws Exception
+  {
+    ClassLoader loader = new ChildFirstLoader( RuntimeMethodsTest.class.getClassLoader(),
+      Sized.class.getName(), WidgetProxyFactory.class.getName() );
+    Class<?> iface = Class.forName( Sized.class.getName(), true, loader );
+    assertNotSame( Sized.class, iface );
+    Object proxy = RuntimeMethods.constructProxy( new Widget( 5 ), iface );
+    assertSame( loader, proxy.getClass().getClassLoader() );
+    assertEquals( 5, iface.getMethod( "size" ).invoke( proxy ) );
+    return new WeakReference<>( loader );
+  }
+
+  private static Object construct( CountDownLatch start, int index )
+  {
+    try
+    {
+      start.await();
+    }
+    catch( InterruptedException e )
+    {
+      throw new RuntimeException( e );
+    }
+    return RuntimeMethods.constructProxy( new Widget( index ), Sized.class );
+  }
+
+  @Structural( factoryClass = WidgetProxyFactory.class )
+  public interface Sized
+  {
+    int size();
+  }
+
+  public static class Widget
+  {
+    private final int _size;
+
+    Widget( int size )
+    {
+      _size = size;
+    }
+
+    public int getSize()
+    {
+      return _size;
+    }
+  }
+
+  public static class WidgetProxyFactory implements IProxyFactory<Widget, Sized>
+  {
+    static final AtomicInteger CREATED = new AtomicInteger();
+
+    public WidgetProxyFactory() throws InterruptedException
+    {
+      CREATED.incrementAndGet();
+      // widen the window for concurrent creation
+      Thread.sleep( 50 );
+    }
+
+    @Override
+    public Sized proxy( Widget target, Class<Sized> iface )
+    {
+      return new Sized()
+      {
+        @Override
+        public int size()
+        {
+          return target.getSize();
+        }
+      };
+    }
+  }
+
+  /**
+   * Defines the classes named with the given prefixes itself, instead of delegating to the parent loader
+   */
+  private static class ChildFirstLoader extends ClassLoader
+  {
+    private final String[] _prefixes;
+
+    ChildFirstLoader( ClassLoader parent, String... prefixes )
+    {
+      super( parent );
+      _prefixes = prefixes;
+    }
+
+    @Override
+    protected Class<?> loadClass( String name, boolean resolve ) throws ClassNotFoundException
+    {
+      synchronized( getClassLoadingLock( name ) )
+      {
+        for( String prefix: _prefixes )
+        {
+          if( name.startsWith( prefix ) )
+          {
+            Class<?> cls = findLoadedClass( name );
+            if( cls == null )
+            {
+              cls = findClass( name );
+            }
+            return cls;
+          }
+        }
+        return super.loadClass( name, resolve );
+      }
+    }
+
+    @Override
+    protected Class<?> findClass( String name ) throws ClassNotFoundException
+    {
+      try( InputStream in = getParent().getResourceAsStream( name.replace( '.', '/' ) + ".class" ) )
+      {
+        if( in == null )
+        {
+          throw new ClassNotFoundException( name );
+        }
+        byte[] bytes = StreamUtil.getContent( in );
+        return defineClass( name, bytes, 0, bytes.length );
+      }
+      catch( IOException e )
+      {
+        throw new ClassNotFoundException( name, e );
+      }
+    }
+  }
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright (c) 2023 - Manifold Systems LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package manifold.ext.rt.proxy;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import manifold.ext.rt.RuntimeMethods;
+import manifold.ext.rt.api.IProxyFactory;
+import manifold.ext.rt.api.Structural;
+
+import org.junit.Test;
+
+
+import static org.junit.Assert.*;
+
+public class StructuralProxyGeneratorTest
+{
+  @Test
+  public void testDirectCalls() throws Exception
+  {
+    Account account = new Account();
+    Ledger ledger = makeProxy( Account.class, Ledger.class, account );
+    assertFalse( Proxy.isProxyClass( ledger.getClass() ) );
+
+    ledger.deposit( 5L, 2.5d );
+    ledger.deposit( 7L, 0.5d );
+    assertEquals( 12L, ledger.total() );
+    assertEquals( 3.0d, ledger.weight(), 0 );
+    assertEquals( 'A', ledger.code( 0 ) );
+    ledger.reset();
+    assertEquals( 0L, ledger.total() );
+    assertEquals( "ok", ledger.label( "ok" ) );
+    assertEquals( 1, ledger.entries().size() );
+
+    // Object's methods call the root
+    assertEquals( account.toString(), ledger.toString() );
+    assertEquals( account.hashCode(), ledger.hashCode() );
+    assertTrue( ledger.equals( account ) );
+
+    // a default method the root does not implement is inherited
+    assertEquals( "default", ledger.describe() );
+  }
+
+  @Test
+  public void testExceptionsPassThrough() throws Exception
+  {
+    Ledger ledger = makeProxy( Account.class, Ledger.class, new Account() );
+    try
+    {
+      ledger.close();
+      fail();
+    }
+    catch( IOException e )
+    {
+      assertEquals( "closed", e.getMessage() );
+    }
+  }
+
+  @Test
+  public void testNotGeneratedWithoutDirectCall()
+  {
+    // Account has no sum(int, int)
+    assertNull( StructuralProxyGenerator.makeProxyFactory( Account.class, Summer.class ) );
+    // int to long requires a conversion
+    assertNull( StructuralProxyGenerator.makeProxyFactory( Account.class, Widening.class ) );
+  }
+
+  @Test
+  public void testAnonymousRoot()
+  {
+    // anonymous classes use proxies made without the runtime host
+    Object root = new Object()
+    {
+      public String label( String s )
+      {
+        return s + "!";
+      }
+    };
+    Labeled labeled = (Labeled)RuntimeMethods.constructProxy( root, Labeled.class );
+    assertFalse( Proxy.isProxyClass( labeled.getClass() ) );
+    assertEquals( "hi!", labeled.label( "hi" ) );
+  }
+
+  @SuppressWarnings( "unchecked" )
+  private static <T> T makeProxy( Class<?> rootClass, Class<T> iface, Object root )
+  {
+    IProxyFactory<Object, Object> factory = StructuralProxyGenerator.makeProxyFactory( rootClass, iface );
+    assertNotNull( factory );
+    return (T)factory.proxy( root, (Class)iface );
+  }
+
+  public interface Labeled
+  {
+    String label( String s );
+  }
+
+  @Structural
+  public interface Ledger extends Labeled
+  {
+    void deposit( long amount, double weight );
+    long total();
+    double weight();
+    char code( int index );
+    void reset();
+    List<String> entries();
+    void close() throws IOException;
+
+    default String describe()
+    {
+      return "default";
+    }
+  }
+
+  @Structural
+  public interface Summer
+  {
+    int sum( int a, int b );
+  }
+
+  @Structural
+  public interface Widening
+  {
+    int total();
+  }
+
+  public static class Account
+  {
+    private long _total;
+    private double _weight;
+
+    public void deposit( long amount, double weight )
+    {
+      _total += amount;
+      _weight += weight;
+    }
+
+    public long total()
+    {
+      return _total;
+    }
+
+    public double weight()
+    {
+      return _weight;
+    }
+
+    public char code( int index )
+    {
+      return "ABC".charAt( index );
+    }
+
+    public void reset()
+    {
+      _total = 0;
+    }
+
+    public String label( CharSequence s )
+    {
+      return s.toString();
+    }
+
+    public ArrayList<String> entries()
+    {
+      ArrayList<String> entries = new ArrayList<>();
+      entries.add( "entry" );
+      return entries;
+    }
+
+    public void close() throws IOException
+    {
+      throw new IOException( "closed" );
+    }
+
+    @Override
+    public boolean equals( Object o )
+    {
+      return o == this || o instanceof Ledger;
+    }
+
+    @Override
+    public int hashCode()
+    {
+      return 42;
+    }
+
+    @Override
+    public String toString()
+    {
+      return "Account: " + _total;
+    }
+  }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2023 - Manifold Systems LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package manifold.ext.rt.proxy;
+
+import manifold.ext.rt.RuntimeMethods;
+import manifold.ext.rt.api.IProxyFactory;
+import manifold.ext.rt.api.Structural;
+
+import org.junit.Test;
+
+
+import static org.junit.Assert.*;
+
+public class StructuralProxyPregeneratorTest
+{
+  @Test
+  public void testCastUsesPregeneratedProxy()
+  {
+    Clicker clicker = new Clicker();
+    Counter counter = (Counter)clicker;
+    assertEquals( 1, counter.next() );
+    assertEquals( 2, counter.next() );
+    assertEquals( "clicker", counter.name() );
+
+    // the cast registered a factory for Clicker to Counter
+    IProxyFactory factory = RuntimeMethods.maybeSelfProxyClass( Clicker.class, Counter.class );
+    assertTrue( factory instanceof StructuralProxyGenerator.Pregenerated );
+
+    Counter proxy = (Counter)RuntimeMethods.constructProxy( clicker, Counter.class );
+    assertFalse( Proxy.isProxyClass( proxy.getClass() ) );
+    assertTrue( proxy.getClass().getName().contains( "structuralproxy_" ) );
+    assertEquals( 3, proxy.next() );
+    assertEquals( clicker.toString(), proxy.toString() );
+  }
+
+  @Test
+  public void testPregeneratedProxyOnlyForRootClass()
+  {
+    Counter counter = (Counter)new Clicker();
+    assertEquals( 1, counter.next() );
+
+    // a subclass may call other methods, its proxy is made at runtime
+    assertNull( RuntimeMethods.maybeSelfProxyClass( SubClicker.class, Counter.class ) );
+    Counter subCounter = (Counter)(Clicker)new SubClicker();
+    assertEquals( 10, subCounter.next() );
+  }
+
+  @Test
+  public void testNoPregeneratedProxyWithoutDirectCall()
+  {
+    // next() returns long, the call requires a conversion
+    Counter counter = (Counter)new LongClicker();
+    assertEquals( 1, counter.next() );
+    assertNull( RuntimeMethods.maybeSelfProxyClass( LongClicker.class, Counter.class ) );
+  }
+
+  @Structural
+  public interface Counter
+  {
+    int next();
+
+    String name();
+  }
+
+  public static class Clicker
+  {
+    private int _count;
+
+    public int next()
+    {
+      return ++_count;
+    }
+
+    public String name()
+    {
+      return "clicker";
+    }
+  }
+
+  public static class SubClicker extends Clicker
+  {
+    @Override
+    public int next()
+    {
+      return 10;
+    }
+  }
+
+  public static class LongClicker
+  {
+    private long _count;
+
+    public long next()
+    {
+      return ++_count;
+    }
+
+    public String name()
+    {
+      return "long";
+    }
+  }
+}
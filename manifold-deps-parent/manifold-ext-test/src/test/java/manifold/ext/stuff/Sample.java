@@ -13,6 +13,7 @@ public class Sample
   private float _floatField;
   private double _doubleField;
   private String _stringField;
+  private final String _finalField = String.valueOf( "initial" );
 
   private String classParam( String param )
   {
@@ -38,4 +39,24 @@ public class Sample
   {
     return param;
   }
+
+  private String overloaded( int param )
+  {
+    return "int";
+  }
+
+  private String overloaded( String param )
+  {
+    return "String";
+  }
+
+  private static int staticSum( int a, int b )
+  {
+    return a + b;
+  }
+
+  private void throwChecked() throws java.io.IOException
+  {
+    throw new java.io.IOException( "checked" );
+  }
 }
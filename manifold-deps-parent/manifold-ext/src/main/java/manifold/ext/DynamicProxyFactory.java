@@ -25,6 +25,9 @@ import com.sun.tools.javac.tree.JCTree;
 import com.sun.tools.javac.util.List;
 import com.sun.tools.javac.util.Name;
 import com.sun.tools.javac.util.Names;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Constructor;
 import java.util.Map;
 import javax.lang.model.type.NoType;
@@ -64,11 +67,21 @@ public class DynamicProxyFactory implements IDynamicProxyFactory
 
   public static class Factory implements IProxyFactory
   {
-    private final Constructor _constructor;
+    private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType( Object.class, Object.class );
+
+    /** the proxy constructor, adapted to (Object)Object so it can be invoked exactly without reflection */
+    private final MethodHandle _constructor;
 
     public Factory( Constructor constructor )
     {
-      _constructor = constructor;
+      try
+      {
+        _constructor = MethodHandles.lookup().unreflectConstructor( constructor ).asType( CONSTRUCTOR_TYPE );
+      }
+      catch( IllegalAccessException e )
+      {
+        throw ManExceptionUtil.unchecked( e );
+      }
     }
 
     @Override
@@ -76,9 +89,9 @@ public class DynamicProxyFactory implements IDynamicProxyFactory
     {
       try
       {
-        return _constructor.newInstance( target );
+        return (Object)_constructor.invokeExact( target );
       }
-      catch( Exception e )
+      catch( Throwable e )
       {
         throw ManExceptionUtil.unchecked( e );
       }
@@ -56,12 +56,18 @@ public class ExtensionManifold extends JavaTypeManifold<Model> implements ITypeP
   @SuppressWarnings("WeakerAccess")
   public static final String EXTENSIONS_PACKAGE = "extensions";
   private static final Set<String> FILE_EXTENSIONS = new HashSet<>( Arrays.asList( "java", "class" ) );
+  private final StructuralProxyPregenerator _structuralProxyPregenerator = new StructuralProxyPregenerator();
 
   public void init( IModule module )
   {
     init( module, ( fqn, files ) -> new Model( fqn, files, this ) );
   }
 
+  StructuralProxyPregenerator getStructuralProxyPregenerator()
+  {
+    return _structuralProxyPregenerator;
+  }
+
   @Override
   public boolean handlesFileExtension( String fileExtension )
   {
@@ -1190,6 +1190,8 @@ public class ExtensionTransformer extends TreeTranslator
 
     if( TypesUtil.isStructuralInterface( _tp.getTypes(), tree.type.tsym ) )
     {
+      _sp.getStructuralProxyPregenerator().pregenerate( _tp, tree.getExpression().type, tree.type );
+
       Type objectType = _tp.getSymtab().objectType;
       tree.expr = makeCast( tree.getExpression(), objectType );
       tree.type = objectType;
@@ -0,0 +1,400 @@
+/*
+ * Copyright (c) 2023 - Manifold Systems LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package manifold.ext;
+
+import com.sun.tools.javac.code.Symbol;
+import com.sun.tools.javac.code.Symbol.ClassSymbol;
+import com.sun.tools.javac.code.Symbol.MethodSymbol;
+import com.sun.tools.javac.code.Symtab;
+import com.sun.tools.javac.code.Type;
+import com.sun.tools.javac.code.Types;
+import com.sun.tools.javac.processing.JavacProcessingEnvironment;
+import com.sun.tools.javac.tree.JCTree;
+import com.sun.tools.javac.util.Context;
+import com.sun.tools.javac.util.Names;
+import manifold.ext.rt.ExtensionMethod;
+import manifold.ext.rt.proxy.StructuralProxyGenerator;
+import manifold.ext.rt.proxy.StructuralProxyGenerator.Call;
+import manifold.internal.javac.IDynamicJdk;
+import manifold.internal.javac.JavacPlugin;
+import manifold.internal.javac.StaticCompiler;
+import manifold.internal.javac.TypeProcessor;
+import manifold.util.concurrent.ConcurrentHashSet;
+
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.sun.tools.javac.code.Flags.*;
+import static com.sun.tools.javac.code.TypeTag.*;
+
+/**
+ * Writes a structural proxy and an {@link manifold.ext.rt.api.IProxyFactory_gen} for a structural cast along with the
+ * classes being compiled. At runtime {@link manifold.ext.rt.RuntimeMethods} finds the registered factory and skips
+ * generating or compiling a proxy when the class of the cast object is exactly the root class.
+ * <p/>
+ * A proxy is written only if each method of the structural interface calls a public method of the root class directly,
+ * as a proxy generated at runtime would. Otherwise, e.g. a method requiring a conversion, a field, or an extension
+ * method, nothing is written, and the proxy is made at runtime as before. The root class must be a class accessible
+ * from the package of the cast, and neither a {@code Map} nor a {@code List}, which have their own proxies.
+ * <p/>
+ * Set the {@code manifold.ext.proxy.pregenerate} system property to {@code false} to disable.
+ */
+class StructuralProxyPregenerator
+{
+  private static final boolean PREGENERATE =
+    Boolean.parseBoolean( System.getProperty( "manifold.ext.proxy.pregenerate", "true" ) );
+
+  private final Set<String> _generated = new ConcurrentHashSet<>();
+
+  /**
+   * @param rootType The static type of the cast expression
+   * @param iface    The structural interface of the cast
+   */
+  void pregenerate( TypeProcessor tp, Type rootType, Type iface )
+  {
+    JavacPlugin javacPlugin = JavacPlugin.instance();
+    if( !PREGENERATE || javacPlugin == null || !javacPlugin.isStaticCompile() )
+    {
+      // not compiling with the plugin e.g., compiling a proxy at runtime
+      return;
+    }
+
+    StaticCompiler compiler = StaticCompiler.instance();
+    if( !compiler.canAddGeneratedIProxyFactory() )
+    {
+      // the services file is already written, an unregistered factory would never be used
+      return;
+    }
+
+    Types types = tp.getTypes();
+    Symbol.PackageSymbol pkg = ((JCTree.JCCompilationUnit)tp.getCompilationUnit()).packge;
+    if( !isProxyable( tp, rootType, iface, pkg ) )
+    {
+      return;
+    }
+
+    ClassSymbol rootSym = (ClassSymbol)types.erasure( rootType ).tsym;
+    ClassSymbol ifaceSym = (ClassSymbol)iface.tsym;
+    String pkgName = pkg.getQualifiedName().toString();
+    String factoryName = (pkgName.isEmpty() ? "" : pkgName + '.') + "structuralproxy_" +
+      rootSym.flatName().toString().replace( '.', '_' ).replace( '$', '_' ) + "_To_" +
+      ifaceSym.flatName().toString().replace( '.', '_' ).replace( '$', '_' );
+    if( !_generated.add( factoryName ) )
+    {
+      return;
+    }
+
+    List<Call> calls = findCalls( tp, rootSym, ifaceSym );
+    if( calls == null )
+    {
+      return;
+    }
+
+    String proxyName = factoryName + "$Proxy";
+    String rootName = rootSym.flatName().toString();
+    String ifaceName = ifaceSym.flatName().toString();
+    Context ctx = tp.getContext();
+    if( writeClassFile( ctx, proxyName,
+          StructuralProxyGenerator.generateProxyClass( proxyName, rootName, ifaceName, calls ) ) &&
+        writeClassFile( ctx, factoryName,
+          StructuralProxyGenerator.generateFactoryClass( factoryName, proxyName, rootName, ifaceName ) ) )
+    {
+      compiler.addGeneratedIProxyFactory( factoryName );
+    }
+  }
+
+  private boolean isProxyable( TypeProcessor tp, Type rootType, Type iface, Symbol.PackageSymbol pkg )
+  {
+    Types types = tp.getTypes();
+    if( !(rootType instanceof Type.ClassType) || !(iface.tsym instanceof ClassSymbol) )
+    {
+      return false;
+    }
+    Type root = types.erasure( rootType );
+    ClassSymbol rootSym = (ClassSymbol)root.tsym;
+    if( rootSym.isInterface() || rootSym.isLocal() || rootSym == tp.getSymtab().objectType.tsym ||
+      rootSym.isSubClass( iface.tsym, types ) ||
+      isSubClass( tp, rootSym, "java.util.Map" ) || isSubClass( tp, rootSym, "java.util.List" ) )
+    {
+      return false;
+    }
+    return isAccessible( rootSym, pkg ) && isAccessible( iface.tsym, pkg );
+  }
+
+  private boolean isSubClass( TypeProcessor tp, ClassSymbol rootSym, String fqn )
+  {
+    ClassSymbol sym = IDynamicJdk.instance().getTypeElement( tp.getContext(), tp.getCompilationUnit(), fqn );
+    return sym != null && rootSym.isSubClass( sym, tp.getTypes() );
+  }
+
+  /**
+   * Nominal subtyping of erased types, as the JVM verifies it. Note {@link Types#isSubtype} includes structural
+   * assignability.
+   */
+  private boolean isSubtype( Types types, Symtab symtab, Type t, Type s )
+  {
+    if( types.isSameType( t, s ) )
+    {
+      return true;
+    }
+    if( t.isPrimitive() || s.isPrimitive() )
+    {
+      return false;
+    }
+    if( t.hasTag( ARRAY ) )
+    {
+      if( s.hasTag( ARRAY ) )
+      {
+        Type tElem = ((Type.ArrayType)t).elemtype;
+        Type sElem = ((Type.ArrayType)s).elemtype;
+        return !tElem.isPrimitive() && !sElem.isPrimitive() && isSubtype( types, symtab, tElem, sElem );
+      }
+      return s.tsym == symtab.objectType.tsym;
+    }
+    return t.hasTag( CLASS ) && s.hasTag( CLASS ) && t.tsym.isSubClass( s.tsym, types );
+  }
+
+  private boolean isAccessible( Symbol.TypeSymbol sym, Symbol.PackageSymbol pkg )
+  {
+    // in the class file a protected nested class is public and a private one is package-private
+    return (sym.flags() & (PUBLIC | PROTECTED)) != 0 || sym.packge() == pkg;
+  }
+
+  /**
+   * Pairs each method of the structural interface, and {@code equals}, {@code hashCode}, and {@code toString}, with the
+   * root class method a proxy generated at runtime calls.
+   *
+   * @return The calls or null if a method can't be called directly
+   */
+  private List<Call> findCalls( TypeProcessor tp, ClassSymbol rootSym, ClassSymbol ifaceSym )
+  {
+    Types types = tp.getTypes();
+    Symtab symtab = tp.getSymtab();
+    Names names = Names.instance( tp.getContext() );
+    List<MethodSymbol> methods = new ArrayList<>();
+    for( String name: new String[] {"hashCode", "equals", "toString"} )
+    {
+      for( Symbol m: IDynamicJdk.instance().getMembersByName( (ClassSymbol)symtab.objectType.tsym,
+        names.fromString( name ) ) )
+      {
+        methods.add( (MethodSymbol)m );
+      }
+    }
+    for( Type t: types.closure( ifaceSym.type ) )
+    {
+      if( t.tsym != symtab.objectType.tsym )
+      {
+        for( Symbol m: IDynamicJdk.instance().getMembers( (ClassSymbol)t.tsym ) )
+        {
+          if( m instanceof MethodSymbol && (m.flags() & (STATIC | PRIVATE | SYNTHETIC)) == 0 &&
+            !isExtensionMethod( m ) )
+          {
+            methods.add( (MethodSymbol)m );
+          }
+        }
+      }
+    }
+
+    Map<String, Call> calls = new LinkedHashMap<>();
+    for( MethodSymbol m: methods )
+    {
+      String descriptor = descriptor( types, m );
+      if( descriptor == null )
+      {
+        return null;
+      }
+      String key = m.name + descriptor;
+      if( calls.containsKey( key ) )
+      {
+        continue;
+      }
+
+      MethodSymbol target = findTarget( types, symtab, rootSym, m );
+      if( target == null )
+      {
+        if( (m.flags() & DEFAULT) != 0 )
+        {
+          // the proxy inherits the default method
+          continue;
+        }
+        return null;
+      }
+      String targetDescriptor = descriptor( types, target );
+      if( targetDescriptor == null || (target.flags() & STATIC) != 0 ||
+        !isReturnCompatible( types, symtab, types.erasure( m.type ).getReturnType(),
+          types.erasure( target.type ).getReturnType() ) )
+      {
+        return null;
+      }
+      calls.put( key, new Call( m.name.toString(), descriptor, targetDescriptor, null ) );
+    }
+    return new ArrayList<>( calls.values() );
+  }
+
+  /**
+   * Finds the public method of the root class having the name of the interface method and parameters accepting its
+   * arguments without conversion. The method having the same parameters is preferred, otherwise the method must be the
+   * only one accepting the arguments.
+   */
+  private MethodSymbol findTarget( Types types, Symtab symtab, ClassSymbol rootSym, MethodSymbol m )
+  {
+    List<Type> params = types.erasure( m.type ).getParameterTypes();
+    Map<String, MethodSymbol> byParams = new LinkedHashMap<>();
+    for( Type t: types.closure( rootSym.type ) )
+    {
+      for( Symbol member: IDynamicJdk.instance().getMembersByName( (ClassSymbol)t.tsym, m.name ) )
+      {
+        if( !(member instanceof MethodSymbol) || (member.flags() & PUBLIC) == 0 || isExtensionMethod( member ) ||
+          // static methods of interfaces are not inherited
+          (t.tsym != rootSym && t.tsym.isInterface() && (member.flags() & STATIC) != 0) )
+        {
+          continue;
+        }
+        // the most derived method overrides the others having the same parameters
+        byParams.putIfAbsent( types.erasure( member.type ).getParameterTypes().toString(), (MethodSymbol)member );
+      }
+    }
+
+    MethodSymbol exact = byParams.get( params.toString() );
+    if( exact != null )
+    {
+      return exact;
+    }
+    MethodSymbol match = null;
+    for( MethodSymbol candidate: byParams.values() )
+    {
+      List<Type> candidateParams = types.erasure( candidate.type ).getParameterTypes();
+      if( candidateParams.size() != params.size() )
+      {
+        continue;
+      }
+      boolean accepts = true;
+      for( int i = 0; i < params.size() && accepts; i++ )
+      {
+        Type param = params.get( i );
+        Type candidateParam = candidateParams.get( i );
+        accepts = isSubtype( types, symtab, param, candidateParam );
+      }
+      if( accepts )
+      {
+        if( match != null )
+        {
+          // ambiguous, leave it to the runtime
+          return null;
+        }
+        match = candidate;
+      }
+    }
+    return match;
+  }
+
+  private boolean isReturnCompatible( Types types, Symtab symtab, Type returnType, Type targetReturnType )
+  {
+    if( returnType.hasTag( VOID ) || targetReturnType.hasTag( VOID ) )
+    {
+      return types.isSameType( returnType, targetReturnType );
+    }
+    return isSubtype( types, symtab, targetReturnType, returnType );
+  }
+
+  private boolean isExtensionMethod( Symbol m )
+  {
+    return m.getAnnotationMirrors().stream()
+      .anyMatch( anno -> anno.type.toString().equals( ExtensionMethod.class.getName() ) );
+  }
+
+  private String descriptor( Types types, MethodSymbol m )
+  {
+    Type.MethodType type = (Type.MethodType)types.erasure( m.type );
+    StringBuilder sb = new StringBuilder( "(" );
+    for( Type param: type.getParameterTypes() )
+    {
+      if( !appendDescriptor( sb, param ) )
+      {
+        return null;
+      }
+    }
+    sb.append( ')' );
+    return appendDescriptor( sb, type.getReturnType() ) ? sb.toString() : null;
+  }
+
+  private boolean appendDescriptor( StringBuilder sb, Type type )
+  {
+    switch( type.getTag() )
+    {
+      case BYTE:
+        sb.append( 'B' );
+        return true;
+      case CHAR:
+        sb.append( 'C' );
+        return true;
+      case SHORT:
+        sb.append( 'S' );
+        return true;
+      case INT:
+        sb.append( 'I' );
+        return true;
+      case LONG:
+        sb.append( 'J' );
+        return true;
+      case FLOAT:
+        sb.append( 'F' );
+        return true;
+      case DOUBLE:
+        sb.append( 'D' );
+        return true;
+      case BOOLEAN:
+        sb.append( 'Z' );
+        return true;
+      case VOID:
+        sb.append( 'V' );
+        return true;
+      case ARRAY:
+        sb.append( '[' );
+        return appendDescriptor( sb, ((Type.ArrayType)type).elemtype );
+      case CLASS:
+        sb.append( 'L' ).append( ((ClassSymbol)type.tsym).flatName().toString().replace( '.', '/' ) ).append( ';' );
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  private boolean writeClassFile( Context ctx, String name, byte[] bytes )
+  {
+    try
+    {
+      JavaFileObject file = JavacProcessingEnvironment.instance( ctx ).getFiler().createClassFile( name );
+      try( OutputStream out = file.openOutputStream() )
+      {
+        out.write( bytes );
+      }
+      return true;
+    }
+    catch( IOException e )
+    {
+      // the proxy is made at runtime instead
+      return false;
+    }
+  }
+}
@@ -16,6 +16,7 @@
 
 package manifold.js.rt;
 
+import java.util.concurrent.atomic.AtomicInteger;
 import manifold.js.rt.parser.Parser;
 import manifold.js.rt.parser.TemplateParser;
 import manifold.js.rt.parser.TemplateTokenizer;
@@ -25,23 +26,32 @@ import manifold.js.rt.parser.tree.Node;
 import manifold.js.rt.parser.tree.template.JSTNode;
 import org.mozilla.javascript.Context;
 import org.mozilla.javascript.Function;
+import org.mozilla.javascript.Script;
 import org.mozilla.javascript.Scriptable;
 import org.mozilla.javascript.ScriptableObject;
 
 public class JsRuntime
 {
+  /**
+   * @return The Rhino Context of the current thread, entered with manifold's settings if the thread has none
+   */
+  public static Context getContext()
+  {
+    return SharedScope.context();
+  }
+
   @SuppressWarnings("unused")
   public static <T> T invoke( ScriptableObject scope, String func, Object... args )
   {
     //noinspection unchecked
-    return (T)ScriptableObject.callMethod( scope, func, args );
+    return (T)ScriptableObject.callMethod( SharedScope.context(), scope, func, args );
   }
 
   @SuppressWarnings("unused")
   public static <T> T invokeStatic( ScriptableObject scope, String className, String func, Object... args )
   {
     //noinspection unchecked
-    return (T)ScriptableObject.callMethod( (Scriptable)scope.get( className, scope ), func, args );
+    return (T)ScriptableObject.callMethod( SharedScope.context(), (Scriptable)scope.get( className, scope ), func, args );
   }
 
   @SuppressWarnings("unused")
@@ -75,15 +85,14 @@ public class JsRuntime
     Parser parser = new Parser( new Tokenizer( content, url ) );
     Node programNode = parser.parse();
     ClassNode classNode = programNode.getFirstChild( ClassNode.class );
-    String script = classNode.genCode();
-    Context.getCurrentContext().evaluateString( scope, script, fqn, 1, null );
+    compile( classNode.genCode(), fqn ).exec( SharedScope.context(), scope );
     return scope;
   }
 
   @SuppressWarnings("unused")
   public static ScriptableObject initInstance( ScriptableObject scope, String name, Object... args )
   {
-    return (ScriptableObject)Context.getCurrentContext().newObject( scope, name, args );
+    return (ScriptableObject)SharedScope.context().newObject( scope, name, args );
   }
 
 
@@ -96,7 +105,7 @@ public class JsRuntime
     {
       Function renderToString = (Function)scope.get( func, scope );
       //noinspection unchecked
-      return (T)renderToString.call( Context.getCurrentContext(), scope, scope, args );
+      return (T)renderToString.call( SharedScope.context(), scope, scope, args );
     }
     catch( Exception e )
     {
@@ -108,45 +117,55 @@ public class JsRuntime
   public static ScriptableObject initProg( String fqn, String source, String url )
   {
     ScriptableObject scope = SharedScope.newStaticScope();
-    Parser parser = new Parser( new Tokenizer( source, url ) );
-    Node programNode = parser.parse();
-    Context.getCurrentContext().evaluateString( scope, programNode.genCode(), fqn, 1, null );
+    compile( new Parser( new Tokenizer( source, url ) ).parse().genCode(), fqn )
+      .exec( SharedScope.context(), scope );
     return scope;
   }
 
-  private static ThreadLocal<Integer> _programCounter = ThreadLocal.withInitial( () -> 0 );
+  private static final AtomicInteger _programCounter = new AtomicInteger();
 
   @SuppressWarnings("unused")
   public static ScriptableObject initDirect( String source, String url )
   {
     ScriptableObject scope = SharedScope.newStaticScope();
-    Parser parser = new Parser( new Tokenizer( source, url ) );
-    Node programNode = parser.parse();
-    Context.getCurrentContext().evaluateString( scope, programNode.genCode(), "direct_" + _programCounter.get(), 1, null );
-    _programCounter.set( _programCounter.get() + 1 );
+    compile( new Parser( new Tokenizer( source, url ) ).parse().genCode(), "direct_" + _programCounter.getAndIncrement() )
+      .exec( SharedScope.context(), scope );
     return scope;
   }
 
   @SuppressWarnings("unused")
   public static Object evaluate( String source, String url )
+  {
+    return evaluate( compileEvaluate( source, url ) );
+  }
+
+  /**
+   * Compiles a fragment for {@link #evaluate(Script)}. The generated class holds the script in a static field, so it is
+   * compiled once and lives as long as the class.
+   */
+  @SuppressWarnings("unused")
+  public static Script compileEvaluate( String source, String url )
+  {
+    return compile( new Parser( new Tokenizer( source, url ) ).parse().genCode(), "evaluate_js" );
+  }
+
+  @SuppressWarnings("unused")
+  public static Object evaluate( Script script )
   {
     ScriptableObject scope = SharedScope.newStaticScope();
-    Parser parser = new Parser( new Tokenizer( source, url ) );
-    Node programNode = parser.parse();
-    return Context.getCurrentContext().evaluateString( scope, programNode.genCode(), "evaluate_js", 1, null );
+    return script.exec( SharedScope.context(), scope );
   }
 
   //// JavascriptTemplate
 
-  private static ThreadLocal<Integer> _Templatecounter = ThreadLocal.withInitial( () -> 0 );
+  private static final AtomicInteger _Templatecounter = new AtomicInteger();
 
   @SuppressWarnings("unused")
   public static ScriptableObject initEngine( JSTNode templateNode )
   {
     ScriptableObject scope = SharedScope.newStaticScope();
-    String name = "template_" + _Templatecounter.get();
-    _Templatecounter.set( _Templatecounter.get() + 1 );
-    Context.getCurrentContext().evaluateString( scope, templateNode.genCode(), name, 1, null );
+    compile( templateNode.genCode(), "template_" + _Templatecounter.getAndIncrement() )
+      .exec( SharedScope.context(), scope );
     return scope;
   }
 
@@ -157,4 +176,9 @@ public class JsRuntime
       new TemplateTokenizer( fqn, source, url, true ) );
     return (JSTNode)parser.parse();
   }
+
+  private static Script compile( String code, String sourceName )
+  {
+    return SharedScope.context().compileString( code, sourceName, 1, null );
+  }
 }
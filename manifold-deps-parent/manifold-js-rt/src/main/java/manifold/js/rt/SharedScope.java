@@ -17,16 +17,58 @@
 package manifold.js.rt;
 
 import org.mozilla.javascript.Context;
+import org.mozilla.javascript.ContextFactory;
 import org.mozilla.javascript.ScriptableObject;
 
 class SharedScope
 {
-  private static final ThreadLocal<ScriptableObject> SHARED_SCOPE =
-    ThreadLocal.withInitial( () -> Context.enter().initStandardObjects() );
+  /**
+   * Rhino optimization level for compiled scripts, -1 interprets, 0-9 compile to bytecode. Defaults to Rhino's default.
+   */
+  static final String OPTIMIZATION_LEVEL_PROPERTY = "manifold.js.optimization.level";
+
+  private static final ContextFactory CONTEXT_FACTORY = new ContextFactory()
+  {
+    @Override
+    protected Context makeContext()
+    {
+      Context cx = super.makeContext();
+      String level = System.getProperty( OPTIMIZATION_LEVEL_PROPERTY );
+      if( level != null )
+      {
+        cx.setOptimizationLevel( Integer.parseInt( level.trim() ) );
+      }
+      return cx;
+    }
+  };
+
+  // standard objects are sealed so all threads can share them, see Rhino's "Sharing Scopes"
+  private static final ScriptableObject SHARED_SCOPE = initSharedScope();
 
-  private static ScriptableObject get()
+  private static ScriptableObject initSharedScope()
+  {
+    CONTEXT_FACTORY.enterContext();
+    try
+    {
+      return Context.getCurrentContext().initStandardObjects( null, true );
+    }
+    finally
+    {
+      Context.exit();
+    }
+  }
+
+  /**
+   * The Context of the current thread. If the thread has none, one is entered and stays with the thread.
+   */
+  static Context context()
   {
-    return SHARED_SCOPE.get();
+    Context cx = Context.getCurrentContext();
+    if( cx == null )
+    {
+      cx = CONTEXT_FACTORY.enterContext();
+    }
+    return cx;
   }
 
   /**
@@ -36,9 +78,8 @@ class SharedScope
    */
   static ScriptableObject newStaticScope()
   {
-    ScriptableObject sharedGlobalScope = SharedScope.get();
-    ScriptableObject programScope = (ScriptableObject)Context.getCurrentContext().newObject( sharedGlobalScope );
-    programScope.setPrototype( sharedGlobalScope );
+    ScriptableObject programScope = (ScriptableObject)context().newObject( SHARED_SCOPE );
+    programScope.setPrototype( SHARED_SCOPE );
     programScope.setParentScope( null );
     return programScope;
   }
@@ -0,0 +1,55 @@
+package manifold.js.demo;
+
+import demo.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import manifold.js.rt.JsRuntime;
+import org.junit.Test;
+import org.mozilla.javascript.Script;
+
+import static org.junit.Assert.assertEquals;
+
+public class JsRuntimeThreadsTest {
+
+  @Test
+  public void testClassesFromManyThreads() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool( 8 );
+    try {
+      List<Future<String>> results = new ArrayList<>();
+      for( int i = 0; i < 32; i++ ) {
+        String last = "Blow" + i;
+        results.add( executor.submit( () -> Person.staticFunction() + " " + new Person( "Joe", last ).displayName() ) );
+      }
+      for( int i = 0; i < results.size(); i++ ) {
+        assertEquals( "hello Joe Blow" + i, results.get( i ).get() );
+      }
+    }
+    finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void testEvaluateFromNewThread() throws Exception {
+    assertEquals( 3, ((Number)JsRuntime.evaluate( "1 + 2", "file:/test.js" )).intValue() );
+    Object[] result = new Object[1];
+    Thread thread = new Thread( () -> result[0] = JsRuntime.evaluate( "1 + 2", "file:/test.js" ) );
+    thread.start();
+    thread.join();
+    assertEquals( 3, ((Number)result[0]).intValue() );
+  }
+
+  @Test
+  public void testCompiledFragmentFromNewThread() throws Exception {
+    Script script = JsRuntime.compileEvaluate( "var x = 1; x + 2", "file:/test.js" );
+    assertEquals( 3, ((Number)JsRuntime.evaluate( script )).intValue() );
+    Object[] result = new Object[1];
+    Thread thread = new Thread( () -> result[0] = JsRuntime.evaluate( script ) );
+    thread.start();
+    thread.join();
+    assertEquals( 3, ((Number)result[0]).intValue() );
+  }
+}
@@ -41,6 +41,7 @@ import manifold.rt.api.SourcePosition;
 import manifold.js.rt.JsRuntime;
 import manifold.js.rt.parser.tree.*;
 import manifold.rt.api.util.ManEscapeUtil;
+import org.mozilla.javascript.Script;
 import org.mozilla.javascript.ScriptableObject;
 
 
@@ -73,12 +74,16 @@ public class JavascriptProgram
         .initializer( JsRuntime.class.getSimpleName() + ".initDirect(\"" + ManEscapeUtil.escapeForJava(
           ((FileFragmentImpl)file).getContent() ) + "\", \"" + url + "\")" ) );
 
+      clazz.addField( new SrcField( "SCRIPT", Script.class )
+        .modifiers( Modifier.STATIC | Modifier.FINAL )
+        .initializer( JsRuntime.class.getSimpleName() + ".compileEvaluate(\"" + ManEscapeUtil.escapeForJava(
+          ((FileFragmentImpl)file).getContent() ) + "\", \"" + url + "\")" ) );
+
       AbstractSrcMethod<SrcMethod> srcMethod = new SrcMethod()
         .name( "fragmentValue" )
         .modifiers( Modifier.STATIC | Modifier.PUBLIC )
         .returns( Object.class.getSimpleName() );
-      srcMethod.body( "return " + JsRuntime.class.getSimpleName() + ".evaluate(\"" + ManEscapeUtil.escapeForJava(
-        ((FileFragmentImpl)file).getContent() ) + "\", \"" + url + "\");" );
+      srcMethod.body( "return " + JsRuntime.class.getSimpleName() + ".evaluate(SCRIPT);" );
       clazz.addMethod( srcMethod );
 
     }
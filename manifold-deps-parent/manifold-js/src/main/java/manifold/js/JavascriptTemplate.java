@@ -30,7 +30,6 @@ import manifold.js.rt.JsRuntime;
 import manifold.js.rt.parser.tree.template.JSTNode;
 import manifold.js.rt.parser.tree.template.RawStringNode;
 import manifold.rt.api.util.ManEscapeUtil;
-import org.mozilla.javascript.Context;
 import org.mozilla.javascript.Function;
 import org.mozilla.javascript.ScriptableObject;
 
@@ -95,7 +94,7 @@ public class JavascriptTemplate
       argsWithStrings[argsWithStrings.length - 1] = rawStrings;
 
       Function renderToString = (Function)scope.get( "renderToString", scope );
-      return (String)renderToString.call( Context.getCurrentContext(), scope, scope, argsWithStrings );
+      return (String)renderToString.call( JsRuntime.getContext(), scope, scope, argsWithStrings );
     }
     catch( Exception e )
     {
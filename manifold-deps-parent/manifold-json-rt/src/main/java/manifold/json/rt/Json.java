@@ -19,13 +19,16 @@ package manifold.json.rt;
 import manifold.ext.rt.api.IBindingsBacked;
 import manifold.ext.rt.api.IListBacked;
 import manifold.json.rt.api.IJsonParser;
+import manifold.json.rt.parser.JsonReader;
 import manifold.rt.api.util.ManEscapeUtil;
 import manifold.rt.api.util.Pair;
 import manifold.util.concurrent.LocklessLazyVar;
 
 import manifold.rt.api.ScriptException;
+import java.io.Reader;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.stream.Stream;
 
 public class Json
 {
@@ -302,4 +305,17 @@ public class Json
       throw new RuntimeException( e );
     }
   }
+
+  /**
+   * Parse JSON from {@code reader} incrementally. If the input is an array, its elements are streamed, otherwise the
+   * top-level values are streamed, as with NDJSON. Each value is parsed as it is pulled from the stream, see
+   * {@link JsonReader}.
+   * <p/>
+   * The stream owns {@code reader} and must be closed, preferably using try-with-resources. Elements may be cast to a
+   * JSON type e.g., {@code (Person)element}.
+   */
+  public static <E> Stream<E> streamJson( Reader reader )
+  {
+    return JsonReader.streamElements( reader );
+  }
 }
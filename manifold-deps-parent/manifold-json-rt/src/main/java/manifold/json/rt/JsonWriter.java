@@ -0,0 +1,431 @@
+/*
+ * Copyright (c) 2023 - Manifold Systems LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package manifold.json.rt;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Map;
+
+import manifold.rt.api.util.Pair;
+
+/**
+ * Writes JSON values directly to an {@link OutputStream} in UTF-8. A value may be a {@code Bindings} or other
+ * {@code Map}, an {@code Iterable}, a JSON bindings or list backed instance, or a simple value, as with
+ * {@link Json#toJson(Object)}. Output is encoded into a buffer, which is reused and written to the stream as it fills,
+ * so no intermediate {@code String} or {@code StringBuilder} is made of the value.
+ * <p/>
+ * By default the layout is the same as {@link Json#toJson(Object)}. In compact mode, there is no whitespace between
+ * tokens, which is preferred for sending JSON over the wire. Multiple values are separated by line breaks, as with
+ * NDJSON.
+ * <p/>
+ * Not thread-safe.
+ */
+public class JsonWriter implements Closeable, Flushable
+{
+  public static final int DEFAULT_BUFFER_SIZE = 8 * 1024;
+
+  private static final byte[] HEX = "0123456789abcdef".getBytes( StandardCharsets.US_ASCII );
+  private static final byte[] NULL = bytes( "null" );
+  private static final byte[] TRUE = bytes( "true" );
+  private static final byte[] FALSE = bytes( "false" );
+  /** Escape sequences for ASCII characters, null if a character is written as is */
+  private static final byte[][] ESCAPES = makeEscapes();
+
+  private final OutputStream _out;
+  private final boolean _compact;
+  private final byte[] _buf;
+  private int _count;
+  private byte _lastFlushed;
+  private boolean _empty;
+
+  public JsonWriter( OutputStream out )
+  {
+    this( out, false );
+  }
+
+  /**
+   * @param compact If true, writes no whitespace between tokens
+   */
+  public JsonWriter( OutputStream out, boolean compact )
+  {
+    this( out, compact, DEFAULT_BUFFER_SIZE );
+  }
+
+  public JsonWriter( OutputStream out, boolean compact, int bufferSize )
+  {
+    _out = out;
+    _compact = compact;
+    // room for the longest number or escape
+    _buf = new byte[Math.max( bufferSize, 32 )];
+    _empty = true;
+  }
+
+  /**
+   * Writes a JSON value. If this writer has already written a value, a line break precedes it.
+   *
+   * @return This writer
+   */
+  public JsonWriter write( Object value ) throws IOException
+  {
+    if( !_empty )
+    {
+      writeByte( '\n' );
+    }
+    _empty = false;
+    writeValue( unwrap( value ), 0, true );
+    return this;
+  }
+
+  @Override
+  public void flush() throws IOException
+  {
+    flushBuffer();
+    _out.flush();
+  }
+
+  @Override
+  public void close() throws IOException
+  {
+    try
+    {
+      flushBuffer();
+    }
+    finally
+    {
+      _out.close();
+    }
+  }
+
+  private void writeValue( Object value, int indent, boolean topLevel ) throws IOException
+  {
+    if( value instanceof Map )
+    {
+      writeObject( (Map)value, indent );
+    }
+    else if( value instanceof Iterable )
+    {
+      writeList( (Iterable)value, indent );
+    }
+    else
+    {
+      if( !topLevel && !_compact )
+      {
+        writeIndent( indent );
+      }
+      writeSimpleValue( value );
+    }
+  }
+
+  // the layout follows Json#toJson(Map, StringBuilder, int)
+  private void writeObject( Map map, int indent ) throws IOException
+  {
+    if( _compact )
+    {
+      writeByte( '{' );
+      boolean first = true;
+      for( Object entry: map.entrySet() )
+      {
+        if( !first )
+        {
+          writeByte( ',' );
+        }
+        first = false;
+        writeString( String.valueOf( ((Map.Entry)entry).getKey() ) );
+        writeByte( ':' );
+        writeValue( unwrap( ((Map.Entry)entry).getValue() ), 0, true );
+      }
+      writeByte( '}' );
+      return;
+    }
+
+    if( lastByte() == '\n' )
+    {
+      writeIndent( indent );
+    }
+    writeByte( '{' );
+    writeByte( '\n' );
+    for( Iterator iter = map.entrySet().iterator(); iter.hasNext(); )
+    {
+      Map.Entry entry = (Map.Entry)iter.next();
+      writeIndent( indent + 2 );
+      writeString( String.valueOf( entry.getKey() ) );
+      writeByte( ':' );
+      writeByte( ' ' );
+      writeValue( unwrap( entry.getValue() ), indent + 2, true );
+      writeCommaNewLine( iter.hasNext() );
+    }
+    writeIndent( indent );
+    writeByte( '}' );
+  }
+
+  // the layout follows Json#listToJson(StringBuilder, int, Iterable)
+  private void writeList( Iterable list, int indent ) throws IOException
+  {
+    writeByte( '[' );
+    boolean first = true;
+    for( Iterator iter = list.iterator(); iter.hasNext(); )
+    {
+      Object value = unwrap( iter.next() );
+      if( _compact )
+      {
+        if( !first )
+        {
+          writeByte( ',' );
+        }
+        writeValue( value, 0, true );
+      }
+      else
+      {
+        if( first )
+        {
+          writeByte( '\n' );
+        }
+        writeValue( value, indent + 2, false );
+        writeCommaNewLine( iter.hasNext() );
+      }
+      first = false;
+    }
+    if( !_compact )
+    {
+      writeIndent( indent );
+    }
+    writeByte( ']' );
+  }
+
+  private void writeCommaNewLine( boolean comma ) throws IOException
+  {
+    if( comma )
+    {
+      writeByte( ',' );
+    }
+    writeByte( '\n' );
+  }
+
+  // the values follow Json#appendValue(StringBuilder, Object)
+  private void writeSimpleValue( Object value ) throws IOException
+  {
+    if( value instanceof String )
+    {
+      writeString( (String)value );
+    }
+    else if( value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte )
+    {
+      writeLong( ((Number)value).longValue() );
+    }
+    else if( value instanceof Boolean )
+    {
+      writeBytes( (Boolean)value ? TRUE : FALSE );
+    }
+    else if( value instanceof Double || value instanceof Float || value instanceof Character )
+    {
+      writeRaw( value.toString() );
+    }
+    else if( value == null )
+    {
+      writeBytes( NULL );
+    }
+    else
+    {
+      throw new IllegalStateException( "Unsupported expando type: " + value.getClass() );
+    }
+  }
+
+  private void writeString( String s ) throws IOException
+  {
+    byte[] buf = _buf;
+    writeByte( '"' );
+    for( int i = 0, length = s.length(); i < length; i++ )
+    {
+      if( _count + 6 > buf.length )
+      {
+        flushBuffer();
+      }
+      char c = s.charAt( i );
+      if( c < 128 )
+      {
+        byte[] escape = ESCAPES[c];
+        if( escape == null )
+        {
+          buf[_count++] = (byte)c;
+        }
+        else
+        {
+          System.arraycopy( escape, 0, buf, _count, escape.length );
+          _count += escape.length;
+        }
+      }
+      else
+      {
+        // same as ManEscapeUtil#escapeForJavaStringLiteral(), non-ASCII characters are escaped
+        writeUnicodeEscape( buf, c );
+      }
+    }
+    writeByte( '"' );
+  }
+
+  private void writeUnicodeEscape( byte[] buf, char c )
+  {
+    int count = _count;
+    buf[count++] = '\\';
+    buf[count++] = 'u';
+    buf[count++] = HEX[(c >> 12) & 0xF];
+    buf[count++] = HEX[(c >> 8) & 0xF];
+    buf[count++] = HEX[(c >> 4) & 0xF];
+    buf[count++] = HEX[c & 0xF];
+    _count = count;
+  }
+
+  private void writeLong( long value ) throws IOException
+  {
+    if( value == Long.MIN_VALUE )
+    {
+      writeRaw( Long.toString( value ) );
+      return;
+    }
+    if( _count + 20 > _buf.length )
+    {
+      flushBuffer();
+    }
+    if( value < 0 )
+    {
+      _buf[_count++] = '-';
+      value = -value;
+    }
+    int digits = 1;
+    for( long n = value / 10; n != 0; n /= 10 )
+    {
+      digits++;
+    }
+    int pos = _count + digits;
+    _count = pos;
+    do
+    {
+      _buf[--pos] = (byte)('0' + value % 10);
+      value /= 10;
+    } while( value != 0 );
+  }
+
+  private void writeRaw( String s ) throws IOException
+  {
+    writeBytes( s.getBytes( StandardCharsets.UTF_8 ) );
+  }
+
+  private void writeIndent( int indent ) throws IOException
+  {
+    for( int i = 0; i < indent; i++ )
+    {
+      writeByte( ' ' );
+    }
+  }
+
+  private void writeBytes( byte[] bytes ) throws IOException
+  {
+    if( _count + bytes.length > _buf.length )
+    {
+      flushBuffer();
+      if( bytes.length > _buf.length )
+      {
+        _out.write( bytes );
+        _lastFlushed = bytes[bytes.length - 1];
+        return;
+      }
+    }
+    System.arraycopy( bytes, 0, _buf, _count, bytes.length );
+    _count += bytes.length;
+  }
+
+  private void writeByte( char c ) throws IOException
+  {
+    if( _count == _buf.length )
+    {
+      flushBuffer();
+    }
+    _buf[_count++] = (byte)c;
+  }
+
+  private byte lastByte()
+  {
+    return _count > 0 ? _buf[_count - 1] : _lastFlushed;
+  }
+
+  private void flushBuffer() throws IOException
+  {
+    if( _count > 0 )
+    {
+      _out.write( _buf, 0, _count );
+      _lastFlushed = _buf[_count - 1];
+      _count = 0;
+    }
+  }
+
+  private static Object unwrap( Object value )
+  {
+    value = Json.toBindings( value );
+    if( value instanceof Pair )
+    {
+      value = Json.toBindings( ((Pair)value).getSecond() );
+    }
+    return value;
+  }
+
+  private static byte[][] makeEscapes()
+  {
+    byte[][] escapes = new byte[128][];
+    for( char c = 0; c < 128; c++ )
+    {
+      switch( c )
+      {
+        case '\b':
+          escapes[c] = bytes( "\\b" );
+          break;
+        case '\f':
+          escapes[c] = bytes( "\\f" );
+          break;
+        case '\n':
+          escapes[c] = bytes( "\\n" );
+          break;
+        case '\r':
+          escapes[c] = bytes( "\\r" );
+          break;
+        case '\t':
+          escapes[c] = bytes( "\\t" );
+          break;
+        case '"':
+          escapes[c] = bytes( "\\\"" );
+          break;
+        case '\\':
+          escapes[c] = bytes( "\\\\" );
+          break;
+        default:
+          if( c < ' ' || c > '~' )
+          {
+            escapes[c] = bytes( String.format( "\\u%04x", (int)c ) );
+          }
+      }
+    }
+    return escapes;
+  }
+
+  private static byte[] bytes( String s )
+  {
+    return s.getBytes( StandardCharsets.US_ASCII );
+  }
+}
@@ -17,8 +17,10 @@
 package manifold.json.rt.api;
 
 import manifold.json.rt.Json;
+import manifold.json.rt.JsonWriter;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import manifold.rt.api.Bindings;
 
 /**
@@ -53,6 +55,11 @@ public class Writer
   }
   public void toJson( Appendable target )
   {
+    if( target instanceof StringBuilder )
+    {
+      Json.toJson( (StringBuilder)target, 0, _value );
+      return;
+    }
     try
     {
       target.append( Json.toJson( _value ) );
@@ -63,6 +70,24 @@ public class Writer
     }
   }
 
+  /**
+   * Serializes this instance as JSON to {@code target} in UTF-8, without first making a String of it. The stream is
+   * not closed.
+   *
+   * @param compact If true, writes no whitespace between tokens, otherwise the layout is the same as {@link #toJson()}
+   */
+  public void toJson( OutputStream target, boolean compact )
+  {
+    try
+    {
+      new JsonWriter( target, compact ).write( _value ).flush();
+    }
+    catch( IOException e )
+    {
+      throw new RuntimeException( e );
+    }
+  }
+
   /**
    * Serializes this instance to a YAML formatted String
    *
@@ -17,12 +17,13 @@
 package manifold.json.rt.extensions.java.net.URL;
 
 import java.net.*;
-import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import manifold.ext.rt.api.Jailbreak;
 import manifold.json.rt.Json;
+import manifold.json.rt.JsonWriter;
 import manifold.json.rt.api.IJsonBindingsTranslator;
 import manifold.json.rt.extensions.manifold.rt.api.Bindings.ManBindingsExt;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -41,6 +42,10 @@ import manifold.rt.api.util.StreamUtil;
 @Extension
 public class ManUrlExt
 {
+  private static final int BODY_BUFFER_SIZE = 64 * 1024;
+  private static final int WRITER_BUFFER_SIZE = 1024;
+  private static final ThreadLocal<RequestBody> REQUEST_BODY = ThreadLocal.withInitial( RequestBody::new );
+
   static
   {
     @Jailbreak HttpURLConnection cls = null;
@@ -175,15 +180,48 @@ public class ManUrlExt
     }
   }
 
+  /**
+   * Sends the value as compact JSON with a Content-Length. The value is serialized once, into a buffer reused by the
+   * thread, so the body is not built as a String first.
+   */
   private static void sendJsonValue( Object jsonValue, HttpURLConnection conn ) throws IOException
   {
-    String json = Json.toJson( jsonValue );
-    byte[] bytes = json.getBytes( StandardCharsets.UTF_8 );
-    conn.setFixedLengthStreamingMode( bytes.length );
-    conn.setDoOutput( true );
-    try( OutputStream out = conn.getOutputStream() )
+    RequestBody body = REQUEST_BODY.get();
+    try
     {
-      out.write( bytes );
+      // a value that fails to serialize fails here, before anything is sent
+      new JsonWriter( body, true, WRITER_BUFFER_SIZE ).write( jsonValue ).flush();
+
+      conn.setFixedLengthStreamingMode( body.size() );
+      conn.setDoOutput( true );
+      try( OutputStream out = conn.getOutputStream() )
+      {
+        body.writeTo( out );
+      }
+    }
+    finally
+    {
+      body.release();
+    }
+  }
+
+  /**
+   * A request body buffer, kept for the thread's next request unless the body outgrew {@link #BODY_BUFFER_SIZE}
+   */
+  private static class RequestBody extends ByteArrayOutputStream
+  {
+    RequestBody()
+    {
+      super( WRITER_BUFFER_SIZE );
+    }
+
+    void release()
+    {
+      if( buf.length > BODY_BUFFER_SIZE )
+      {
+        buf = new byte[WRITER_BUFFER_SIZE];
+      }
+      reset();
     }
   }
 
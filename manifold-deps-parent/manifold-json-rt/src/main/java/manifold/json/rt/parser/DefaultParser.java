@@ -16,7 +16,6 @@
 
 package manifold.json.rt.parser;
 
-import java.io.StringReader;
 import java.util.List;
 import manifold.rt.api.ScriptException;
 
@@ -35,7 +34,7 @@ public class DefaultParser implements IJsonParser
   @Override
   public Object parseJson( String jsonText, boolean withBigNumbers, boolean withTokens ) throws ScriptException
   {
-    SimpleParserImpl parser = new SimpleParserImpl( new Tokenizer( new StringReader( jsonText ) ), withBigNumbers );
+    SimpleParserImpl parser = new SimpleParserImpl( new Tokenizer( jsonText ), withBigNumbers );
     Object result = parser.parse( withTokens );
     List<String> errors = parser.getErrors();
     if( errors.size() != 0 )
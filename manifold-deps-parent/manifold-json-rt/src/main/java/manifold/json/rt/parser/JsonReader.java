@@ -0,0 +1,408 @@
+/*
+ * Copyright (c) 2023 - Manifold Systems LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package manifold.json.rt.parser;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import manifold.rt.api.ScriptException;
+import manifold.rt.api.util.StreamUtil;
+
+/**
+ * A pull parser for streaming JSON. Instead of building the complete {@code Bindings}/{@code List} tree for the input,
+ * the reader produces a {@link JsonEvent} for each call to {@link #next()}, reading only as much of the input as
+ * necessary. Any value can be materialized individually with {@link #readValue()}, which makes it practical to process
+ * large arrays or NDJSON (newline delimited JSON) in constant memory:
+ * <pre><code>
+ *   try( JsonReader reader = new JsonReader( inputStream ) ) {
+ *     reader.next(); // START_ARRAY
+ *     while( reader.hasNextValue() ) {
+ *       Person person = (Person)reader.readValue();
+ *       ...
+ *     }
+ *   }
+ * </code></pre>
+ * Or more simply with {@link #streamElements(Reader)}.
+ * <p/>
+ * The top level of the input may consist of any number of values, as with NDJSON. Malformed input results in a
+ * {@code RuntimeException} wrapping a {@link ScriptException}.
+ */
+public class JsonReader implements AutoCloseable
+{
+  private final Reader _reader;
+  private final Tokenizer _tokenizer;
+  private final boolean _useBig;
+  private Token _token;
+
+  private boolean[] _objectStack; // true for an object, false for an array
+  private int _depth;
+  private boolean _afterValue; // a value is complete in the current object/array, expecting ',' or the end
+  private boolean _afterComma; // expecting the next member/element
+  private boolean _afterName;  // expecting the value of a member
+
+  private JsonEvent _event;
+  private String _fieldName;
+  private Object _value;
+
+  public JsonReader( InputStream inputStream )
+  {
+    this( StreamUtil.getInputStreamReader( inputStream ), false );
+  }
+
+  public JsonReader( Reader reader )
+  {
+    this( reader, false );
+  }
+
+  /**
+   * @param withBigNumbers Parse decimal numbers as BigDecimals and integers as BigIntegers, otherwise they are Double
+   *                       and Integer or Long.
+   */
+  public JsonReader( Reader reader, boolean withBigNumbers )
+  {
+    _reader = reader;
+    _tokenizer = new Tokenizer( reader instanceof BufferedReader || reader instanceof StringReader
+                                ? reader
+                                : new BufferedReader( reader ) );
+    _useBig = withBigNumbers;
+    _objectStack = new boolean[16];
+    advance();
+  }
+
+  /**
+   * Streams the elements of a top-level array, or if the input does not begin with an array, the top-level values, as
+   * with NDJSON. Each element is materialized as it is pulled from the stream, as a {@code Bindings}, {@code List}, or
+   * simple value. Elements may be cast to a JSON interface e.g., {@code (Person)element}. Closing the stream closes
+   * {@code reader}.
+   */
+  public static <E> Stream<E> streamElements( Reader reader )
+  {
+    JsonReader jsonReader = new JsonReader( reader );
+    if( jsonReader._token.getType() == TokenType.LSQUARE )
+    {
+      jsonReader.next();
+    }
+    return StreamSupport.stream( Spliterators.spliteratorUnknownSize( jsonReader.<E>values(), Spliterator.ORDERED ), false )
+      .onClose( jsonReader::close );
+  }
+
+  /**
+   * Advances to the next event.
+   *
+   * @return The next event or null at the end of input
+   */
+  public JsonEvent next()
+  {
+    if( _afterName || _depth == 0 )
+    {
+      if( !_afterName && _token.getType() == TokenType.EOF )
+      {
+        return _event = null;
+      }
+      return _event = startValue();
+    }
+
+    if( _objectStack[_depth - 1] )
+    {
+      if( _token.getType() == TokenType.RCURLY && !_afterComma )
+      {
+        return _event = endContainer();
+      }
+      if( _afterValue )
+      {
+        throw error( "',' or '}'" );
+      }
+      _fieldName = expect( TokenType.STRING, "a string" ).getString();
+      expect( TokenType.COLON, ":" );
+      _afterName = true;
+      _afterComma = false;
+      return _event = JsonEvent.FIELD_NAME;
+    }
+
+    if( _token.getType() == TokenType.RSQUARE && !_afterComma )
+    {
+      return _event = endContainer();
+    }
+    if( _afterValue )
+    {
+      throw error( "',' or ']'" );
+    }
+    return _event = startValue();
+  }
+
+  /**
+   * @return True if the reader is positioned at a value: following a {@link JsonEvent#FIELD_NAME}, at an element of an
+   * array, or at a top-level value.
+   */
+  public boolean hasNextValue()
+  {
+    if( _afterName )
+    {
+      return true;
+    }
+    if( _depth == 0 )
+    {
+      return _token.getType() != TokenType.EOF;
+    }
+    return !_objectStack[_depth - 1] && !_afterValue &&
+           _token.getType() != TokenType.RSQUARE && _token.getType() != TokenType.EOF;
+  }
+
+  /**
+   * Materializes the value at the current position, see {@link #hasNextValue()}. An object is read as a
+   * {@code Bindings}, an array as a {@code List}, otherwise the value is a String, Number, Boolean, or null. The
+   * reader is positioned following the value.
+   */
+  public Object readValue()
+  {
+    checkValuePosition();
+    Token token = _token;
+    if( token.getType() == TokenType.LCURLY || token.getType() == TokenType.LSQUARE )
+    {
+      SimpleParserImpl parser = new SimpleParserImpl( _tokenizer, token, _useBig );
+      _value = parser.parse();
+      List<String> errors = parser.getErrors();
+      if( !errors.isEmpty() )
+      {
+        throw new RuntimeException( new ScriptException( "Found errors:\n" + String.join( "\n", errors ) ) );
+      }
+      _token = parser.getToken();
+    }
+    else
+    {
+      _value = scalarValue( token );
+      advance();
+    }
+    _event = JsonEvent.VALUE;
+    endValue();
+    return _value;
+  }
+
+  /**
+   * Skips the value at the current position without materializing it, see {@link #hasNextValue()}.
+   */
+  public void skipValue()
+  {
+    if( !hasNextValue() )
+    {
+      throw new IllegalStateException( "Not positioned at a value" );
+    }
+    // start the value directly, next() would read a member's value as the next field name
+    _event = startValue();
+    int depth = 0;
+    for( JsonEvent event = _event; ; event = next() )
+    {
+      if( event == JsonEvent.START_OBJECT || event == JsonEvent.START_ARRAY )
+      {
+        depth++;
+      }
+      else if( event == JsonEvent.END_OBJECT || event == JsonEvent.END_ARRAY )
+      {
+        depth--;
+      }
+      if( depth == 0 )
+      {
+        break;
+      }
+    }
+  }
+
+  /**
+   * Iterates the values at the current level: the remaining elements of the array last started, or the remaining
+   * top-level values. Each value is materialized as it is pulled, see {@link #readValue()}. Iteration ends before the
+   * array's {@link JsonEvent#END_ARRAY}.
+   */
+  public <E> Iterator<E> values()
+  {
+    return new Iterator<E>()
+    {
+      @Override
+      public boolean hasNext()
+      {
+        return hasNextValue();
+      }
+
+      @Override
+      public E next()
+      {
+        if( !hasNextValue() )
+        {
+          throw new NoSuchElementException();
+        }
+        //noinspection unchecked
+        return (E)readValue();
+      }
+    };
+  }
+
+  /**
+   * @return The last event produced
+   */
+  public JsonEvent getEvent()
+  {
+    return _event;
+  }
+
+  /**
+   * @return The name of the member from the last {@link JsonEvent#FIELD_NAME} event
+   */
+  public String getFieldName()
+  {
+    return _fieldName;
+  }
+
+  /**
+   * @return The value from the last {@link JsonEvent#VALUE} event
+   */
+  public Object getValue()
+  {
+    return _value;
+  }
+
+  /**
+   * @return The number of objects and arrays enclosing the current position
+   */
+  public int getDepth()
+  {
+    return _depth;
+  }
+
+  @Override
+  public void close()
+  {
+    try
+    {
+      _reader.close();
+    }
+    catch( IOException e )
+    {
+      throw new RuntimeException( e );
+    }
+  }
+
+  private JsonEvent startValue()
+  {
+    _afterName = false;
+    _afterComma = false;
+    Token token = _token;
+    switch( token.getType() )
+    {
+      case LCURLY:
+        advance();
+        push( true );
+        return JsonEvent.START_OBJECT;
+      case LSQUARE:
+        advance();
+        push( false );
+        return JsonEvent.START_ARRAY;
+      default:
+        _value = scalarValue( token );
+        advance();
+        endValue();
+        return JsonEvent.VALUE;
+    }
+  }
+
+  private JsonEvent endContainer()
+  {
+    boolean object = _objectStack[--_depth];
+    advance();
+    endValue();
+    return object ? JsonEvent.END_OBJECT : JsonEvent.END_ARRAY;
+  }
+
+  private void endValue()
+  {
+    _afterValue = true;
+    if( _depth > 0 && _token.getType() == TokenType.COMMA )
+    {
+      advance();
+      _afterValue = false;
+      _afterComma = true;
+    }
+  }
+
+  private void push( boolean object )
+  {
+    if( _depth == _objectStack.length )
+    {
+      _objectStack = Arrays.copyOf( _objectStack, _depth * 2 );
+    }
+    _objectStack[_depth++] = object;
+    _afterValue = false;
+    _afterComma = false;
+  }
+
+  private void checkValuePosition()
+  {
+    if( !hasNextValue() )
+    {
+      throw new IllegalStateException( "Not positioned at a value" );
+    }
+    _afterName = false;
+    _afterComma = false;
+  }
+
+  private Object scalarValue( Token token )
+  {
+    switch( token.getType() )
+    {
+      case INTEGER:
+      case DOUBLE:
+      case STRING:
+      case TRUE:
+      case FALSE:
+      case NULL:
+        return SimpleParserImpl.scalarValue( token, _useBig );
+      default:
+        throw error( "a value" );
+    }
+  }
+
+  private Token expect( TokenType type, String s )
+  {
+    Token token = _token;
+    if( token.getType() != type )
+    {
+      throw error( "'" + s + "'" );
+    }
+    advance();
+    return token;
+  }
+
+  private RuntimeException error( String expecting )
+  {
+    return new RuntimeException( new ScriptException(
+      "[" + _token.getLineNumber() + ":" + _token.getColumn() + "] expecting " + expecting + ", found '" + _token.getString() + "'" ) );
+  }
+
+  private void advance()
+  {
+    _token = _tokenizer.next();
+  }
+}
@@ -62,6 +62,26 @@ final class SimpleParserImpl
     advance();
   }
 
+  /**
+   * Parses a value starting with {@code token}, which is already consumed from {@code tokenizer}. Used by
+   * {@link JsonReader} to materialize a value in the midst of streaming.
+   */
+  SimpleParserImpl( Tokenizer tokenizer, Token token, boolean useBig )
+  {
+    _tokenizer = tokenizer;
+    _useBig = useBig;
+    _errors = new ArrayList<>();
+    _token = token;
+  }
+
+  /**
+   * @return The token following the parsed value
+   */
+  Token getToken()
+  {
+    return _token;
+  }
+
   // jsonText = value.
   Object parse()
   {
@@ -150,63 +170,79 @@ final class SimpleParserImpl
         val = parseArray();
         break;
       case INTEGER:
-        if( _useBig )
+      case DOUBLE:
+      case STRING:
+      case TRUE:
+      case FALSE:
+      case NULL:
+        val = scalarValue( _token, _useBig );
+        advance();
+        break;
+      default:
+        val = null;
+        addError();
+    }
+    return val;
+  }
+
+  /**
+   * @return The value of a number, string, true, false, or null token
+   */
+  static Object scalarValue( Token token, boolean useBig )
+  {
+    switch( token.getType() )
+    {
+      case INTEGER:
+        if( token.hasLongValue() )
         {
-          val = new BigInteger( _token.getString() );
+          long value = token.getLongValue();
+          if( useBig )
+          {
+            return BigInteger.valueOf( value );
+          }
+          if( (int)value == value )
+          {
+            return (int)value;
+          }
+          return value;
         }
-        else
+        if( useBig )
         {
+          return new BigInteger( token.getString() );
+        }
+        try
+        {
+          return Integer.parseInt( token.getString() );
+        }
+        catch( NumberFormatException e0 )
+        {
+          // we have an overflow, the tokenizer guarantees the format is correct
           try
           {
-            val = Integer.parseInt( _token.getString() );
+            return Long.parseLong( token.getString() );
           }
-          catch( NumberFormatException e0 )
+          catch( NumberFormatException e1 )
           {
-            // we have an overflow, the tokenizer guarantees the format is correct
-            try
-            {
-              val = Long.parseLong( _token.getString() );
-            }
-            catch( NumberFormatException e1 )
-            {
-              val = 0;
-            }
+            return 0;
           }
         }
-        advance();
-        break;
       case DOUBLE:
-        if( _useBig )
+        if( useBig )
         {
-          val = new BigDecimal( _token.getString() );
+          return new BigDecimal( token.getString() );
         }
-        else
-        {
-          val = Double.parseDouble( _token.getString() );
-        }
-        advance();
-        break;
+        return Double.parseDouble( token.getString() );
       case STRING:
-        val = _token.getString();
-        advance();
-        break;
+        return token.getString();
       case TRUE:
-        val = true;
-        advance();
-        break;
+        return true;
       case FALSE:
-        val = false;
-        advance();
-        break;
+        return false;
       case NULL:
-        val = null;
-        advance();
-        break;
+        return null;
       default:
-        val = null;
-        addError();
+        throw new IllegalArgumentException( "Not a scalar token: " + token );
     }
-    return val;
   }
   
   private void addError()
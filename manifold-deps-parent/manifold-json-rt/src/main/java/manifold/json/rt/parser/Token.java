@@ -25,11 +25,18 @@ public final class Token
   static final Map<String, TokenType> Constants = initializeConstants();
 
   private final TokenType _type;
-  private final String _string;
+  private String _string;
   private final int _offset;
   private final int _line;
   private final int _column;
 
+  // for a token from Tokenizer(String) the line and column are computed from _pos on demand
+  private final Tokenizer.Source _source;
+  private final int _pos;
+  // for an integer token from Tokenizer(String) the string is sliced on demand, _end >= 0
+  private final int _end;
+  private final long _value;
+
   public Token( TokenType type, String string, int offset, int line, int column )
   {
     _type = type;
@@ -37,6 +44,44 @@ public final class Token
     _offset = offset;
     _line = line;
     _column = column;
+    _source = null;
+    _pos = -1;
+    _end = -1;
+    _value = 0;
+  }
+
+  /**
+   * A token from {@link Tokenizer#Tokenizer(String)}
+   *
+   * @param pos The index of the character determining the token's line and column
+   */
+  Token( TokenType type, String string, int offset, int pos, Tokenizer.Source source )
+  {
+    _type = type;
+    _string = string;
+    _offset = offset;
+    _line = 0;
+    _column = 0;
+    _source = source;
+    _pos = pos;
+    _end = -1;
+    _value = 0;
+  }
+
+  /**
+   * An integer token from {@link Tokenizer#Tokenizer(String)} having a value within the range of a long
+   */
+  Token( long value, int pos, int end, Tokenizer.Source source )
+  {
+    _type = TokenType.INTEGER;
+    _string = null;
+    _offset = pos + 1;
+    _line = 0;
+    _column = 0;
+    _source = source;
+    _pos = pos;
+    _end = end;
+    _value = value;
   }
 
   private static Map<String, TokenType> initializeConstants()
@@ -50,7 +95,12 @@ public final class Token
 
   public String getString()
   {
-    return _string;
+    String string = _string;
+    if( string == null )
+    {
+      _string = string = _source.slice( _pos, _end );
+    }
+    return string;
   }
 
   public TokenType getType()
@@ -65,18 +115,31 @@ public final class Token
 
   public int getLineNumber()
   {
-    return _line;
+    return _source == null ? _line : _source.line( _pos );
   }
 
   public int getColumn()
   {
-    return _column;
+    return _source == null ? _column : _source.column( _pos );
+  }
+
+  /**
+   * @return True if this is an integer token with a value already computed, see {@link #getLongValue()}
+   */
+  boolean hasLongValue()
+  {
+    return _end >= 0;
+  }
+
+  long getLongValue()
+  {
+    return _value;
   }
 
   @Override
   public String toString()
   {
-    return _string + " : " + _type;
+    return getString() + " : " + _type;
   }
 
   boolean isValueType()
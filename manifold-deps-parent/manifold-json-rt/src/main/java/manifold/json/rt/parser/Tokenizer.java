@@ -18,7 +18,14 @@ package manifold.json.rt.parser;
 
 import java.io.IOException;
 import java.io.Reader;
+import java.util.Arrays;
 
+/**
+ * Tokenizes JSON from a {@link Reader} one character at a time, or from a String with {@link #Tokenizer(String)}. The
+ * latter is the fast path for in-memory JSON: it scans the text by index, slices strings having no escapes directly
+ * from the text, computes the values of integers while scanning, and computes line and column numbers only if a token
+ * is asked for them. Both produce the same tokens.
+ */
 final class Tokenizer
 {
   private Reader _source;
@@ -27,17 +34,38 @@ final class Tokenizer
   private int _column;
   private int _offset;
 
+  private final String _text;
+  private final int _length;
+  private final Source _textSource;
+  private int _pos;
+
   Tokenizer( Reader source )
   {
     _source = source;
+    _text = null;
+    _length = 0;
+    _textSource = null;
     _offset = 0;
     _line = 1;
     _column = 0;
     nextChar();
   }
 
+  Tokenizer( String text )
+  {
+    _text = text;
+    _length = text.length();
+    _textSource = new Source( text );
+    _pos = 0;
+  }
+
   Token next()
   {
+    if( _text != null )
+    {
+      return nextInText();
+    }
+
     Token T;
     eatWhiteSpace();
     switch( _ch )
@@ -200,11 +228,7 @@ final class Tokenizer
             {
               if( isHexDigit( _ch ) )
               {
-                u = u * 16 + _ch - '0';
-                if( _ch >= 'A' )
-                { // handle hex numbers: 'A' = 65, '0' = 48. 'A'-'0' = 17, 17 - 7 = 10
-                  u = u - 7;
-                }
+                u = u * 16 + Character.digit( _ch, 16 );
               }
               else
               {
@@ -370,6 +394,262 @@ final class Tokenizer
     return T;
   }
 
+  private Token nextInText()
+  {
+    String text = _text;
+    int pos = _pos;
+    char c = charAt( pos );
+    while( c == ' ' || c == '\n' || c == '\r' || c == '\t' )
+    {
+      c = charAt( ++pos );
+    }
+
+    switch( c )
+    {
+      case '"':
+      case '\'':
+        return consumeStringInText( pos, c );
+      case '-':
+      case '0':
+      case '1':
+      case '2':
+      case '3':
+      case '4':
+      case '5':
+      case '6':
+      case '7':
+      case '8':
+      case '9':
+        return consumeNumberInText( pos );
+      case '{':
+        return punctuation( TokenType.LCURLY, "{", pos );
+      case '}':
+        return punctuation( TokenType.RCURLY, "}", pos );
+      case '[':
+        return punctuation( TokenType.LSQUARE, "[", pos );
+      case ']':
+        return punctuation( TokenType.RSQUARE, "]", pos );
+      case ',':
+        return punctuation( TokenType.COMMA, ",", pos );
+      case ':':
+        return punctuation( TokenType.COLON, ":", pos );
+      case '\0':
+        _pos = pos;
+        return new Token( TokenType.EOF, "EOF", pos + 1, pos, _textSource );
+      default:
+        if( isLetter( c ) )
+        {
+          return consumeConstantInText( pos );
+        }
+        return punctuation( TokenType.ERROR, String.valueOf( c ), pos );
+    }
+  }
+
+  private Token punctuation( TokenType type, String string, int pos )
+  {
+    _pos = pos + 1;
+    return new Token( type, string, pos + 1, pos, _textSource );
+  }
+
+  /**
+   * Same as {@link #consumeString(char)}, but slices the string from the text if it has no escapes
+   */
+  private Token consumeStringInText( int start, char quote )
+  {
+    String text = _text;
+    int i = start + 1;
+    char c = charAt( i );
+    while( c != quote && c != '\\' && c != '\0' )
+    {
+      c = charAt( ++i );
+    }
+    if( c == quote )
+    {
+      _pos = i + 1;
+      return new Token( TokenType.STRING, text.substring( start + 1, i ), start + 1, start, _textSource );
+    }
+
+    StringBuilder sb = new StringBuilder( i - start + 16 ).append( text, start + 1, i );
+    while( c != quote && c != '\0' )
+    {
+      if( c == '\\' )
+      {
+        c = charAt( ++i );
+        switch( c )
+        {
+          case '"':
+          case '\\':
+          case '/':
+            sb.append( c );
+            break;
+          case 'b':
+            sb.append( '\b' );
+            break;
+          case 'f':
+            sb.append( '\f' );
+            break;
+          case 'n':
+            sb.append( '\n' );
+            break;
+          case 'r':
+            sb.append( '\r' );
+            break;
+          case 't':
+            sb.append( '\t' );
+            break;
+          case 'u':
+            int u = 0;
+            for( int n = 0; n < 4; n++ )
+            {
+              c = charAt( ++i );
+              if( !isHexDigit( c ) )
+              {
+                return errorInText( sb.toString(), i, i + 1 );
+              }
+              u = u * 16 + Character.digit( c, 16 );
+            }
+            sb.append( (char)u );
+            break;
+          default:
+            return errorInText( sb.toString(), i, i + 1 );
+        }
+      }
+      else
+      {
+        sb.append( c );
+      }
+      c = charAt( ++i );
+    }
+    if( c == quote )
+    {
+      _pos = i + 1;
+      return new Token( TokenType.STRING, sb.toString(), start + 1, start, _textSource );
+    }
+    return errorInText( sb.toString(), i, i + 1 );
+  }
+
+  /**
+   * Same as {@link #consumeNumber()}, but computes the value of an integer instead of making a string of it
+   */
+  private Token consumeNumberInText( int start )
+  {
+    int i = start;
+    boolean negative = charAt( i ) == '-';
+    if( negative )
+    {
+      i++;
+    }
+
+    long value = 0;
+    int digitsStart = i;
+    char c = charAt( i );
+    if( c == '0' )
+    {
+      c = charAt( ++i );
+    }
+    else
+    {
+      while( isDigit( c ) )
+      {
+        value = value * 10 + (c - '0');
+        c = charAt( ++i );
+      }
+      if( i == digitsStart )
+      {
+        return errorInText( _text.substring( start, i ), i, i );
+      }
+    }
+    int digits = i - digitsStart;
+
+    boolean isDouble = false;
+    if( c == '.' )
+    {
+      isDouble = true;
+      i = skipDigits( i + 1 );
+      if( i < 0 )
+      {
+        return errorInText( _text.substring( start, -i ), -i, -i );
+      }
+      c = charAt( i );
+    }
+    if( c == 'E' || c == 'e' )
+    {
+      isDouble = true;
+      c = charAt( ++i );
+      if( c == '-' || c == '+' )
+      {
+        i++;
+      }
+      i = skipDigits( i );
+      if( i < 0 )
+      {
+        return errorInText( _text.substring( start, -i ), -i, -i );
+      }
+    }
+
+    _pos = i;
+    if( isDouble )
+    {
+      return new Token( TokenType.DOUBLE, _text.substring( start, i ), start + 1, start, _textSource );
+    }
+    if( digits <= 18 )
+    {
+      // no overflow
+      return new Token( negative ? -value : value, start, i, _textSource );
+    }
+    return new Token( TokenType.INTEGER, _text.substring( start, i ), start + 1, start, _textSource );
+  }
+
+  /**
+   * @return The index following one or more digits starting at {@code i}, otherwise the negated index of the non-digit
+   */
+  private int skipDigits( int i )
+  {
+    if( !isDigit( charAt( i ) ) )
+    {
+      return -i;
+    }
+    do
+    {
+      i++;
+    } while( isDigit( charAt( i ) ) );
+    return i;
+  }
+
+  private Token consumeConstantInText( int start )
+  {
+    int i = start;
+    do
+    {
+      i++;
+    } while( isLetter( charAt( i ) ) );
+    _pos = i;
+    String str = _text.substring( start, i );
+    TokenType type = Token.Constants.get( str );
+    // the offset follows the constant, same as consumeConstant()
+    return new Token( type == null ? TokenType.ERROR : type, str, i + 1, start, _textSource );
+  }
+
+  /**
+   * @param pos  The position of the error
+   * @param next The position from which to resume tokenizing
+   */
+  private Token errorInText( String string, int pos, int next )
+  {
+    _pos = next;
+    return new Token( TokenType.ERROR, string, pos + 1, pos, _textSource );
+  }
+
+  private char charAt( int i )
+  {
+    return i < _length ? _text.charAt( i ) : '\0';
+  }
+
+  private boolean isLetter( char ch )
+  {
+    return ch >= 'a' && ch <= 'z' || ch >= 'A' && ch <= 'Z';
+  }
+
   private void eatWhiteSpace()
   {
     while( moreChars() && (_ch == '\t' || _ch == '\n' || _ch == '\r' || _ch == ' ') )
@@ -411,4 +691,81 @@ final class Tokenizer
   {
     return _ch != '\0';
   }
+
+  /**
+   * The text of a {@link Tokenizer#Tokenizer(String)}, from which tokens compute their line and column numbers on
+   * demand. The positions of line breaks are indexed the first time.
+   */
+  static final class Source
+  {
+    private final String _text;
+    private volatile int[] _lineBreaks;
+
+    private Source( String text )
+    {
+      _text = text;
+    }
+
+    String slice( int start, int end )
+    {
+      return _text.substring( start, end );
+    }
+
+    /**
+     * @return The line number at the character at {@code pos}, the same as tokenizing from a Reader
+     */
+    int line( int pos )
+    {
+      pos = clip( pos );
+      int index = Arrays.binarySearch( getLineBreaks(), pos );
+      return 1 + (index >= 0 ? index + 1 : -index - 1);
+    }
+
+    /**
+     * @return The column number at the character at {@code pos}, the same as tokenizing from a Reader
+     */
+    int column( int pos )
+    {
+      if( _text.isEmpty() )
+      {
+        return 0;
+      }
+      pos = clip( pos );
+      int[] lineBreaks = getLineBreaks();
+      int index = Arrays.binarySearch( lineBreaks, pos );
+      if( index >= 0 )
+      {
+        // a line break is column 0 of the next line
+        return 0;
+      }
+      index = -index - 1;
+      return pos - (index == 0 ? -1 : lineBreaks[index - 1]);
+    }
+
+    private int clip( int pos )
+    {
+      // at the end of the text the position is that of the last character
+      return Math.min( pos, _text.length() - 1 );
+    }
+
+    private int[] getLineBreaks()
+    {
+      int[] lineBreaks = _lineBreaks;
+      if( lineBreaks == null )
+      {
+        lineBreaks = new int[16];
+        int count = 0;
+        for( int i = _text.indexOf( '\n' ); i >= 0; i = _text.indexOf( '\n', i + 1 ) )
+        {
+          if( count == lineBreaks.length )
+          {
+            lineBreaks = Arrays.copyOf( lineBreaks, count * 2 );
+          }
+          lineBreaks[count++] = i;
+        }
+        _lineBreaks = lineBreaks = Arrays.copyOf( lineBreaks, count );
+      }
+      return lineBreaks;
+    }
+  }
 }
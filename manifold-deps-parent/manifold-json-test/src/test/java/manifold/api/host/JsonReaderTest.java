@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2023 - Manifold Systems LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package manifold.api.host;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import junit.framework.TestCase;
+
+import abc.TopLevelArray;
+import manifold.json.rt.Json;
+import manifold.json.rt.parser.JsonEvent;
+import manifold.json.rt.parser.JsonReader;
+import manifold.rt.api.Bindings;
+
+import static manifold.json.rt.parser.JsonEvent.*;
+
+public class JsonReaderTest extends TestCase
+{
+  public void testEvents()
+  {
+    JsonReader reader = new JsonReader( new StringReader(
+      "{\"name\": \"Scott\", \"tags\": [1, 2.5, true, null], \"empty\": {}, \"none\": []}" ) );
+    List<Object> events = new ArrayList<>();
+    for( JsonEvent event = reader.next(); event != null; event = reader.next() )
+    {
+      events.add( event );
+      if( event == FIELD_NAME )
+      {
+        events.add( reader.getFieldName() );
+      }
+      else if( event == VALUE )
+      {
+        events.add( reader.getValue() );
+      }
+    }
+    assertEquals( Arrays.asList(
+      START_OBJECT,
+      FIELD_NAME, "name", VALUE, "Scott",
+      FIELD_NAME, "tags", START_ARRAY, VALUE, 1, VALUE, 2.5, VALUE, true, VALUE, null, END_ARRAY,
+      FIELD_NAME, "empty", START_OBJECT, END_OBJECT,
+      FIELD_NAME, "none", START_ARRAY, END_ARRAY,
+      END_OBJECT ), events );
+    assertEquals( 0, reader.getDepth() );
+  }
+
+  public void testReadValue()
+  {
+    JsonReader reader = new JsonReader( new StringReader( "{\"a\": {\"b\": [1, 2]}, \"c\": 3}" ) );
+    assertEquals( START_OBJECT, reader.next() );
+    assertEquals( FIELD_NAME, reader.next() );
+    Bindings a = (Bindings)reader.readValue();
+    assertEquals( Arrays.asList( 1, 2 ), a.get( "b" ) );
+    assertEquals( FIELD_NAME, reader.next() );
+    assertEquals( "c", reader.getFieldName() );
+    assertEquals( 3, reader.readValue() );
+    assertEquals( END_OBJECT, reader.next() );
+    assertNull( reader.next() );
+  }
+
+  public void testSkipValue()
+  {
+    JsonReader reader = new JsonReader( new StringReader( "[{\"x\": [1, {\"y\": 2}]}, \"keep\", [[]]]" ) );
+    assertEquals( START_ARRAY, reader.next() );
+    reader.skipValue();
+    assertEquals( "keep", reader.readValue() );
+    reader.skipValue();
+    assertFalse( reader.hasNextValue() );
+    assertEquals( END_ARRAY, reader.next() );
+    assertNull( reader.next() );
+  }
+
+  public void testSkipMemberValues()
+  {
+    JsonReader reader = new JsonReader( new StringReader(
+      "{\"a\": 1, \"b\": {\"c\": [1, {\"d\": {}}], \"e\": \"x\"}, \"f\": [], \"g\": \"keep\", \"h\": null}" ) );
+    assertEquals( START_OBJECT, reader.next() );
+    assertEquals( FIELD_NAME, reader.next() );
+    assertEquals( "a", reader.getFieldName() );
+    reader.skipValue();
+    assertEquals( FIELD_NAME, reader.next() );
+    assertEquals( "b", reader.getFieldName() );
+    reader.skipValue();
+    assertEquals( 1, reader.getDepth() );
+    assertEquals( FIELD_NAME, reader.next() );
+    assertEquals( "f", reader.getFieldName() );
+    reader.skipValue();
+    assertEquals( FIELD_NAME, reader.next() );
+    assertEquals( "g", reader.getFieldName() );
+    assertEquals( "keep", reader.readValue() );
+    assertEquals( FIELD_NAME, reader.next() );
+    reader.skipValue();
+    assertFalse( reader.hasNextValue() );
+    assertEquals( END_OBJECT, reader.next() );
+    assertNull( reader.next() );
+  }
+
+  public void testStreamTopLevelArray()
+  {
+    String json = "[{\"foo\": \"hi\"}, {\"foo\": \"bye\"}]";
+    try( Stream<TopLevelArray.TopLevelArrayItem> items = JsonReader.streamElements( new StringReader( json ) ) )
+    {
+      assertEquals( Arrays.asList( "hi", "bye" ),
+        items.map( item -> item.getFoo() ).collect( Collectors.toList() ) );
+    }
+  }
+
+  public void testStreamNdjson()
+  {
+    String json = "{\"foo\": \"hi\"}\n{\"foo\": \"bye\"}\n42\n\"str\"\n";
+    try( Stream<Object> values = Json.streamJson( new StringReader( json ) ) )
+    {
+      List<Object> list = values.collect( Collectors.toList() );
+      assertEquals( 4, list.size() );
+      assertEquals( "bye", ((Bindings)list.get( 1 )).get( "foo" ) );
+      assertEquals( 42, list.get( 2 ) );
+      assertEquals( "str", list.get( 3 ) );
+    }
+  }
+
+  public void testBigNumbers()
+  {
+    JsonReader reader = new JsonReader( new StringReader( "[12345678901234567890, 1.5]" ), true );
+    reader.next();
+    assertEquals( new java.math.BigInteger( "12345678901234567890" ), reader.readValue() );
+    assertEquals( new java.math.BigDecimal( "1.5" ), reader.readValue() );
+  }
+
+  public void testErrors()
+  {
+    assertError( "{\"a\" 1}" );
+    assertError( "{\"a\": 1 \"b\": 2}" );
+    assertError( "[1 2]" );
+    assertError( "[1, }" );
+    assertError( "{1: 2}" );
+    assertError( "[1," );
+  }
+
+  private void assertError( String json )
+  {
+    JsonReader reader = new JsonReader( new StringReader( json ) );
+    try
+    {
+      //noinspection StatementWithEmptyBody
+      while( reader.next() != null );
+      fail( "expected an error: " + json );
+    }
+    catch( RuntimeException e )
+    {
+      assertTrue( e.getCause() instanceof manifold.rt.api.ScriptException );
+    }
+  }
+}
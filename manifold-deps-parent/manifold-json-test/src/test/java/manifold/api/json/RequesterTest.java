@@ -16,6 +16,11 @@
 
 package manifold.api.json;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import manifold.json.rt.Json;
 import manifold.json.rt.api.Requester;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
@@ -25,6 +30,7 @@ import abc.Dummy;
 import spark.Spark;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
 
 public class RequesterTest
 {
@@ -79,4 +85,81 @@ public class RequesterTest
     Object queryString = req.getOne( "testGet_QueryString?firstParam=firstValue", Dummy.create(), Requester.Format.Text );
     assertEquals( "firstParam=firstValue&foo=bar&abc=8", queryString );
   }
+
+  @Test
+  public void httpPostRequestBody()
+  {
+    Requester<Dummy> req = Dummy.request( "http://localhost:4567/" );
+    Dummy dummy = Dummy.create();
+    dummy.getBindings().put( "name", "caf\u00e9 \"quoted\"" );
+    dummy.getBindings().put( "list", Arrays.asList( 1, 2.5, true, null ) );
+    Object body = req.postOne( "testPost_Body", dummy, Requester.Format.Text );
+    assertEquals( "{\"name\":\"caf\\u00e9 \\\"quoted\\\"\",\"list\":[1,2.5,true,null]}", body );
+  }
+
+  @Test
+  public void httpPostRequestLargeBody()
+  {
+    // larger than the request buffer, still sent with a Content-Length
+    Requester<Dummy> req = Dummy.request( "http://localhost:4567/" );
+    Dummy dummy = Dummy.create();
+    List<Object> items = new ArrayList<>();
+    for( int i = 0; i < 20000; i++ )
+    {
+      items.add( "item " + i );
+    }
+    dummy.getBindings().put( "items", items );
+    Object body = req.postOne( "testPost_Body", dummy, Requester.Format.Text );
+    assertEquals( dummy.getBindings(), Json.fromJson( (String)body ) );
+    Object contentLength = req.postOne( "testPost_ContentLength", dummy, Requester.Format.Text );
+    assertEquals( String.valueOf( ((String)body).length() ), contentLength );
+  }
+
+  @Test
+  public void httpPostRequestBodyNotSentOnError()
+  {
+    Requester<Dummy> req = Dummy.request( "http://localhost:4567/" );
+
+    Dummy small = Dummy.create();
+    small.getBindings().put( "name", "hi" );
+    small.getBindings().put( "unsupported", new Object() );
+    postUnsupported( req, small );
+
+    // fails beyond the request buffer
+    Dummy large = Dummy.create();
+    List<Object> items = new ArrayList<>();
+    for( int i = 0; i < 20000; i++ )
+    {
+      items.add( "item " + i );
+    }
+    items.add( new Object() );
+    large.getBindings().put( "items", items );
+    postUnsupported( req, large );
+
+    assertEquals( 0, TestServer.BODIES_RECEIVED.get() );
+    Object count = req.postOne( "testPost_Count", Dummy.create(), Requester.Format.Text );
+    assertEquals( "1", count );
+  }
+
+  private void postUnsupported( Requester<Dummy> req, Dummy dummy )
+  {
+    try
+    {
+      req.postOne( "testPost_Count", dummy, Requester.Format.Text );
+      fail();
+    }
+    catch( RuntimeException e )
+    {
+      assertEquals( IllegalStateException.class, rootCause( e ).getClass() );
+    }
+  }
+
+  private static Throwable rootCause( Throwable t )
+  {
+    while( t.getCause() != null )
+    {
+      t = t.getCause();
+    }
+    return t;
+  }
 }
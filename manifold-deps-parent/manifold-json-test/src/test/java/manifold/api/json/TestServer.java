@@ -16,12 +16,16 @@
 
 package manifold.api.json;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 import spark.Spark;
 import static spark.Spark.*;
 
 import abc.ResponseError;
 
 public class TestServer {
+  static final AtomicInteger BODIES_RECEIVED = new AtomicInteger();
+
   public static void main(String[] args) {
     port(4567);
 
@@ -31,6 +35,18 @@ public class TestServer {
     // return the Query String of the POST request
     post("/testPost_QueryString", (req, res) -> req.raw().getQueryString() );
 
+    // return the body of the POST request
+    post("/testPost_Body", (req, res) -> req.body() );
+
+    // return the Content-Length of the POST request, -1 if the body is chunked
+    post("/testPost_ContentLength", (req, res) -> req.body().length() == req.contentLength() ? req.contentLength() : -1 );
+
+    // count the complete bodies received
+    post("/testPost_Count", (req, res) -> {
+      req.body();
+      return BODIES_RECEIVED.incrementAndGet();
+    });
+
     // Error response for IllegalStateException
     exception(IllegalArgumentException.class, (e, req, res) -> {
       res.status(400);
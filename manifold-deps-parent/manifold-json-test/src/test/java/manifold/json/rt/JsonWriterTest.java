@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2023 - Manifold Systems LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package manifold.json.rt;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import manifold.json.rt.api.DataBindings;
+import manifold.rt.api.Bindings;
+import org.junit.Test;
+
+
+import static org.junit.Assert.assertEquals;
+
+public class JsonWriterTest
+{
+  @Test
+  public void testSameLayoutAsToJson() throws IOException
+  {
+    for( Object value: makeValues() )
+    {
+      assertEquals( Json.toJson( value ), write( false, 16, value ) );
+      assertEquals( Json.toJson( value ), write( false, JsonWriter.DEFAULT_BUFFER_SIZE, value ) );
+    }
+  }
+
+  @Test
+  public void testCompact() throws IOException
+  {
+    Bindings bindings = makeBindings();
+    String json = write( true, 16, bindings );
+    assertEquals( "{\"name\":\"Scott \\\"the man\\\"\\n\\u00e9\",\"age\":-42,\"big\":9223372036854775807," +
+                  "\"min\":-9223372036854775808,\"ratio\":0.5,\"ok\":true,\"none\":null," +
+                  "\"list\":[1,[],[2,3],{}],\"nested\":{\"empty\":{}}}", json );
+    assertEquals( bindings, Json.fromJson( json ) );
+  }
+
+  @Test
+  public void testMultipleValues() throws IOException
+  {
+    assertEquals( "{\"a\":1}\n[2]\n\"three\"",
+      write( true, JsonWriter.DEFAULT_BUFFER_SIZE, Collections.singletonMap( "a", 1 ), Collections.singletonList( 2 ), "three" ) );
+  }
+
+  private String write( boolean compact, int bufferSize, Object... values ) throws IOException
+  {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try( JsonWriter writer = new JsonWriter( out, compact, bufferSize ) )
+    {
+      for( Object value: values )
+      {
+        writer.write( value );
+      }
+    }
+    return new String( out.toByteArray(), StandardCharsets.UTF_8 );
+  }
+
+  private List<Object> makeValues()
+  {
+    List<Object> values = new ArrayList<>();
+    values.add( makeBindings() );
+    values.add( Arrays.asList( makeBindings(), Arrays.asList( 1, Arrays.asList( 2, 3 ) ), "x", new ArrayList<>() ) );
+    values.add( "just a string with \\ and \t" );
+    values.add( 3.25 );
+    values.add( null );
+    values.add( new DataBindings() );
+    StringBuilder sb = new StringBuilder();
+    for( int i = 0; i < 1000; i++ )
+    {
+      sb.append( "long € text " ).append( i );
+    }
+    values.add( Collections.singletonMap( "long", sb.toString() ) );
+    return values;
+  }
+
+  private Bindings makeBindings()
+  {
+    Bindings bindings = new DataBindings();
+    bindings.put( "name", "Scott \"the man\"\né" );
+    bindings.put( "age", -42 );
+    bindings.put( "big", Long.MAX_VALUE );
+    bindings.put( "min", Long.MIN_VALUE );
+    bindings.put( "ratio", 0.5 );
+    bindings.put( "ok", true );
+    bindings.put( "none", null );
+    bindings.put( "list", Arrays.asList( 1, new ArrayList<>(), Arrays.asList( 2, 3 ), new DataBindings() ) );
+    Bindings nested = new DataBindings();
+    nested.put( "empty", new DataBindings() );
+    bindings.put( "nested", nested );
+    return bindings;
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2023 - Manifold Systems LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package manifold.json.rt.parser;
+
+import java.io.StringReader;
+import java.util.Random;
+
+import org.junit.Test;
+
+
+import static org.junit.Assert.assertEquals;
+
+public class TokenizerTest
+{
+  private static final String[] SAMPLES = {
+    "",
+    "   ",
+    "{\"name\": \"Scott\", \"age\": 42, \"tags\": [1, -2, 0, 3.5, -0.25e-3, 1E10, true, false, null]}",
+    "{\n  \"a\" : {\n    \"b\" : [ 1,\n 2 ]\n  }\n}\n",
+    "[9223372036854775807, -9223372036854775808, 123456789012345678, 1234567890123456789, 99999999999999999999]",
+    "['single', \"esc \\\" \\\\ \\/ \\b \\f \\n \\r \\t \\u00e9 \\u00E9 \\u20ac\", \"\"]",
+    "\"bad escape \\q here\"",
+    "\"bad unicode \\u12x4\"",
+    "\"unterminated",
+    "\"ends with backslash\\",
+    "[-, -x, 1., 1.x, 1e, 1e+, 1e-x, 01]",
+    "[truex, nul, True, undefined, @, #]",
+    "{\"a\"\r\n:\r\n1}\r\n",
+    "\n\n[\n]\n\n",
+    "[1,\u0000 2]",
+    "{\"k\":\"v\"}x"
+  };
+
+  @Test
+  public void testSamples()
+  {
+    for( String sample: SAMPLES )
+    {
+      assertSameTokens( sample );
+    }
+  }
+
+  @Test
+  public void testRandom()
+  {
+    String alphabet = "{}[],:\"'\\/-+.0123456789eEtrufalsnbx \n\r\t";
+    Random random = new Random( 3 );
+    for( int n = 0; n < 2000; n++ )
+    {
+      StringBuilder sb = new StringBuilder();
+      int length = random.nextInt( 40 );
+      for( int i = 0; i < length; i++ )
+      {
+        sb.append( alphabet.charAt( random.nextInt( alphabet.length() ) ) );
+      }
+      assertSameTokens( sb.toString() );
+    }
+  }
+
+  @Test
+  public void testValues()
+  {
+    assertEquals( 42, SimpleParserImpl.scalarValue( new Tokenizer( "42" ).next(), false ) );
+    assertEquals( -3000000000L, SimpleParserImpl.scalarValue( new Tokenizer( "-3000000000" ).next(), false ) );
+    assertEquals( new java.math.BigInteger( "7" ), SimpleParserImpl.scalarValue( new Tokenizer( "7" ).next(), true ) );
+    assertEquals( "\u00e9\u20ac", new Tokenizer( "\"\\u00e9\\u20AC\"" ).next().getString() );
+    assertEquals( "\u00e9\u20ac", new Tokenizer( new StringReader( "\"\\u00e9\\u20AC\"" ) ).next().getString() );
+  }
+
+  /**
+   * Tokenizing from a String must produce the same tokens, positions included, as tokenizing from a Reader
+   */
+  private void assertSameTokens( String json )
+  {
+    Tokenizer expected = new Tokenizer( new StringReader( json ) );
+    Tokenizer actual = new Tokenizer( json );
+    for( int i = 0; ; i++ )
+    {
+      Token expectedToken = expected.next();
+      Token actualToken = actual.next();
+      String message = json + " : token " + i;
+      assertEquals( message, expectedToken.getType(), actualToken.getType() );
+      assertEquals( message, expectedToken.getString(), actualToken.getString() );
+      assertEquals( message, expectedToken.getOffset(), actualToken.getOffset() );
+      assertEquals( message, expectedToken.getLineNumber(), actualToken.getLineNumber() );
+      assertEquals( message, expectedToken.getColumn(), actualToken.getColumn() );
+      if( expectedToken.getType() == TokenType.EOF )
+      {
+        break;
+      }
+    }
+  }
+}
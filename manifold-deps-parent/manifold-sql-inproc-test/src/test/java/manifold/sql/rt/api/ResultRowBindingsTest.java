@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2023 - Manifold Systems LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package manifold.sql.rt.api;
+
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class ResultRowBindingsTest
+{
+  private static final ResultRowBindings.Schema SCHEMA =
+    new ResultRowBindings.Schema( new String[]{"id", "name", "id", "rate"} );
+
+  private static ResultRowBindings row( Object... columnValues )
+  {
+    ResultRowBindings row = new ResultRowBindings( SCHEMA );
+    for( int i = 0; i < columnValues.length; i++ )
+    {
+      row.setColumnValue( i, columnValues[i] );
+    }
+    return row;
+  }
+
+  @Test
+  public void testColumnAccess()
+  {
+    ResultRowBindings row = row( 1, "a", 2, null );
+    assertEquals( 3, row.size() );
+    // a repeated label maps to one slot, the last column provides the value
+    assertEquals( 2, row.get( "id" ) );
+    assertEquals( "a", row.get( "name" ) );
+    assertNull( row.get( "rate" ) );
+    assertTrue( row.containsKey( "rate" ) );
+    assertNull( row.get( "missing" ) );
+    assertFalse( row.containsKey( "missing" ) );
+
+    // columns not yet set are absent, not null
+    ResultRowBindings partial = new ResultRowBindings( SCHEMA );
+    partial.setColumnValue( 1, "b" );
+    assertEquals( 1, partial.size() );
+    assertFalse( partial.containsKey( "id" ) );
+    assertEquals( Collections.singletonMap( "name", "b" ), partial );
+  }
+
+  @Test
+  public void testPutRemove()
+  {
+    ResultRowBindings row = row( 1, "a", 1, 2.5 );
+    ResultRowBindings other = row( 7, "b", 7, 3.5 );
+
+    assertEquals( "a", row.put( "name", "x" ) );
+    assertEquals( 1, row.remove( "id" ) );
+    assertNull( row.remove( "id" ) );
+    assertFalse( row.containsKey( "id" ) );
+    assertEquals( 2, row.size() );
+    assertNull( row.put( "id", 9 ) );
+    assertEquals( 3, row.size() );
+
+    // keys outside the schema
+    assertNull( row.put( "generated", 42L ) );
+    assertEquals( 42L, row.get( "generated" ) );
+    assertEquals( 4, row.size() );
+    assertEquals( 42L, row.remove( "generated" ) );
+
+    // rows share the schema, not their values
+    assertEquals( "b", other.get( "name" ) );
+    assertEquals( 7, other.get( "id" ) );
+    assertFalse( other.containsKey( "generated" ) );
+    assertEquals( 3, other.size() );
+
+    try
+    {
+      row.put( "", 1 );
+      fail();
+    }
+    catch( IllegalArgumentException ignore )
+    {
+    }
+  }
+
+  @Test
+  public void testIterationOrder()
+  {
+    ResultRowBindings row = row( 1, "a", 1, 2.5 );
+    row.put( "z", "last" );
+    row.put( "y", "after z" );
+    assertEquals( Arrays.asList( "id", "name", "rate", "z", "y" ), new ArrayList<>( row.keySet() ) );
+
+    LinkedHashMap<String, Object> expected = new LinkedHashMap<>();
+    expected.put( "id", 1 );
+    expected.put( "name", "a" );
+    expected.put( "rate", 2.5 );
+    expected.put( "z", "last" );
+    expected.put( "y", "after z" );
+    assertEquals( expected, row );
+    assertEquals( expected.hashCode(), row.hashCode() );
+    assertEquals( new ArrayList<>( expected.entrySet() ), new ArrayList<>( row.entrySet() ) );
+
+    // removing during iteration skips the slot, re-adding restores the schema position
+    Iterator<String> it = row.keySet().iterator();
+    it.next();
+    it.next();
+    it.remove();
+    assertEquals( Arrays.asList( "id", "rate", "z", "y" ), new ArrayList<>( row.keySet() ) );
+    row.put( "name", "b" );
+    assertEquals( Arrays.asList( "id", "name", "rate", "z", "y" ), new ArrayList<>( row.keySet() ) );
+  }
+}
@@ -22,6 +22,10 @@ import manifold.sql.schema.h2.base.H2DdlServerTest;
 import org.junit.*;
 
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 import static org.junit.Assert.*;
 
@@ -88,4 +92,44 @@ public class CrudTest extends H2DdlServerTest
     Country fetchHi = Country.fetch( txScope, countryId );
     assertNull( fetchHi );
   }
+
+  @Test
+  public void testBatchedCreateUpdateDelete() throws SQLException
+  {
+    TxScope txScope = H2Sakila.newScope();
+    List<Country> countries = new ArrayList<>();
+    for( int i = 0; i < 50; i++ )
+    {
+      countries.add( Country.create( txScope, "country" + i ) );
+    }
+    txScope.commit();
+    // test that each country_id was assigned after the batched insert
+    Set<Long> ids = new HashSet<>();
+    for( int i = 0; i < countries.size(); i++ )
+    {
+      Country country = countries.get( i );
+      assertTrue( ids.add( country.getCountryId() ) );
+      assertEquals( "country" + i, Country.fetch( txScope, country.getCountryId() ).getCountry() );
+    }
+
+    for( Country country : countries )
+    {
+      country.setCountry( country.getCountry() + "_updated" );
+    }
+    txScope.commit();
+    for( int i = 0; i < countries.size(); i++ )
+    {
+      assertEquals( "country" + i + "_updated", Country.fetch( txScope, countries.get( i ).getCountryId() ).getCountry() );
+    }
+
+    for( Country country : countries )
+    {
+      country.delete();
+    }
+    txScope.commit();
+    for( long id : ids )
+    {
+      assertNull( Country.fetch( txScope, id ) );
+    }
+  }
 }
@@ -19,6 +19,7 @@ package manifold.sql.schema.h2;
 import manifold.ext.rt.api.auto;
 import manifold.sql.schema.h2.base.H2SalesTest;
 import manifold.sql.queries.Foo;
+import manifold.sql.rt.api.StreamingResult;
 import org.junit.*;
 
 import manifold.sql.schema.simple.h2.H2Sales.*;
@@ -74,6 +75,52 @@ public class ScratchTest extends H2SalesTest
     assertEquals( expected, actual.toString() );
   }
 
+  @Test
+  public void testStreamQueryWithParameters()
+  {
+    auto query = "[.sql/] Select * From purchase_order Where customer_id = :c_id";
+    String expected =
+      "1,2,2023-11-10\n" +
+      "3,2,2023-09-08\n";
+
+    StringBuilder actual = new StringBuilder();
+    try( StreamingResult<PurchaseOrder> result = query.stream( 2L ) )
+    {
+      for( PurchaseOrder po : result )
+      {
+        actual.append( po.getId() ).append( "," ).append( po.fetchCustomerRef().getId() ).append( "," ).append( po.getOrderDate() ).append( "\n" );
+      }
+    }
+    assertEquals( expected, actual.toString() );
+
+    try( StreamingResult<PurchaseOrder> result = query.stream( 2L ) )
+    {
+      assertEquals( 2, result.stream().count() );
+      assertThrows( IllegalStateException.class, result::iterator );
+    }
+  }
+
+  @Test
+  public void testStreamQueryWithFetchSize()
+  {
+    auto query = "[.sql/] Select * From purchase_order Where customer_id = :c_id";
+    String expected =
+      "1,2,2023-11-10\n" +
+      "3,2,2023-09-08\n";
+
+    StringBuilder actual = new StringBuilder();
+    try( StreamingResult<PurchaseOrder> result = query.stream( 1, 2L ) )
+    {
+      for( PurchaseOrder po : result )
+      {
+        actual.append( po.getId() ).append( "," ).append( po.fetchCustomerRef().getId() ).append( "," ).append( po.getOrderDate() ).append( "\n" );
+      }
+    }
+    assertEquals( expected, actual.toString() );
+
+    assertThrows( IllegalArgumentException.class, () -> query.stream( -1, 2L ) );
+  }
+
   @Test
   public void testStringJoinQueryWithParameters()
   {
@@ -26,4 +26,40 @@ public interface CrudProvider
   <T extends Entity> List<T> readMany( QueryContext<T> ctx );
   <T extends Entity> void update( Connection c, UpdateContext<T> ctx );
   <T extends Entity> void delete( Connection c, UpdateContext<T> ctx );
+
+  /**
+   * Inserts the entities in order. Implementations may execute the inserts together as a JDBC batch. The default
+   * implementation calls {@link #create(Connection, UpdateContext)} for each entity.
+   */
+  default <T extends Entity> void createAll( Connection c, List<UpdateContext<T>> ctxs )
+  {
+    for( UpdateContext<T> ctx : ctxs )
+    {
+      create( c, ctx );
+    }
+  }
+
+  /**
+   * Updates the entities in order. Implementations may execute the updates together as a JDBC batch. The default
+   * implementation calls {@link #update(Connection, UpdateContext)} for each entity.
+   */
+  default <T extends Entity> void updateAll( Connection c, List<UpdateContext<T>> ctxs )
+  {
+    for( UpdateContext<T> ctx : ctxs )
+    {
+      update( c, ctx );
+    }
+  }
+
+  /**
+   * Deletes the entities in order. Implementations may execute the deletes together as a JDBC batch. The default
+   * implementation calls {@link #delete(Connection, UpdateContext)} for each entity.
+   */
+  default <T extends Entity> void deleteAll( Connection c, List<UpdateContext<T>> ctxs )
+  {
+    for( UpdateContext<T> ctx : ctxs )
+    {
+      delete( c, ctx );
+    }
+  }
 }
@@ -17,13 +17,10 @@
 package manifold.sql.rt.api;
 
 import manifold.ext.rt.api.IBindingsBacked;
-import manifold.json.rt.api.DataBindings;
 import manifold.rt.api.Bindings;
-import manifold.sql.rt.util.DbUtil;
 import manifold.util.ManExceptionUtil;
 
 import java.sql.ResultSet;
-import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.util.*;
 import java.util.function.Function;
@@ -36,6 +33,7 @@ import static manifold.sql.rt.api.TxKind.Update;
  *
  * @param <R> the formal type of the result set. For instance, a SQL schema table type such as {@code Customer}, or a
  * {@code Row} of a SQL query type derived from .sql resource file or inlined .sql resource.
+ * @see StreamingResult
  */
 public class Result<R extends IBindingsBacked> implements Iterable<R>
 {
@@ -53,33 +51,14 @@ public class Result<R extends IBindingsBacked> implements Iterable<R>
     rip( allCols, resultSet, rowBindings -> rowBindings, makeRow );
   }
 
-  private <B extends Bindings> void rip( Map<String, ColumnInfo> allCols, ResultSet resultSet, Function<DataBindings, B> makeBindings, Function<B, R> makeRow )
+  private <B extends Bindings> void rip( Map<String, ColumnInfo> allCols, ResultSet resultSet, Function<Bindings, B> makeBindings, Function<B, R> makeRow )
   {
     try
     {
-      ValueAccessorProvider accProvider = Dependencies.instance().getValueAccessorProvider();
-      ResultSetMetaData metaData = resultSet.getMetaData();
-      int columnCount = metaData.getColumnCount();
-      ValueAccessor[] accessors = buildAccessors( allCols, accProvider, metaData, columnCount );
+      ResultRowReader<B, R> reader = new ResultRowReader<>( allCols, resultSet, makeBindings, makeRow );
       for( boolean isOnRow = resultSet.next(); isOnRow; isOnRow = resultSet.next() )
       {
-        DataBindings row = new DataBindings();
-        for( int i = 1; i <= columnCount; i++ )
-        {
-          String column = DbUtil.handleAnonQueryColumn( metaData.getColumnLabel( i ), i );
-          Object value = accessors[i-1].getRowValue( resultSet, new ResultColumn( metaData, i ) );
-          row.put( column, value );
-        }
-        R resultRow = makeRow.apply( makeBindings.apply( row ) );
-        if( resultRow instanceof Entity )
-        {
-          TxBindings bindings = ((Entity)resultRow).getBindings();
-          if( bindings instanceof OperableTxBindings )
-          {
-            ((OperableTxBindings)bindings).setOwner( (Entity)resultRow );
-          }
-        }
-        _results.add( resultRow );
+        _results.add( reader.readRow() );
       }
     }
     catch( SQLException e )
@@ -88,35 +67,6 @@ public class Result<R extends IBindingsBacked> implements Iterable<R>
     }
   }
 
-  private static ValueAccessor[] buildAccessors( Map<String, ColumnInfo> allCols, ValueAccessorProvider accProvider, ResultSetMetaData metaData, int columnCount ) throws SQLException
-  {
-    ValueAccessor[] accessors = new ValueAccessor[columnCount];
-    for( int i = 0; i < columnCount; i++ )
-    {
-      Integer jdbcType = null;
-      if( allCols != null )
-      {
-        // prefer the schema table's declared type for the queried column,
-        // it is essential that the type is assignable to the corresponding property return / param types
-        String colName = metaData.getColumnName( i+1 );
-        if( colName != null )
-        {
-          ColumnInfo columnInfo = allCols.get( colName );
-          // can be null e.g., sqlite's "last_insert_rowid()" bullshit
-          jdbcType = columnInfo == null ? null : columnInfo.getJdbcType();
-        }
-      }
-
-      if( jdbcType == null )
-      {
-        jdbcType = metaData.getColumnType( i+1 );
-      }
-
-      accessors[i] = accProvider.get( jdbcType );
-    }
-    return accessors;
-  }
-
   @Override
   public Iterator<R> iterator()
   {
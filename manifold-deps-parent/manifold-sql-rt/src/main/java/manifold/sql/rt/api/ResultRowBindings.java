@@ -0,0 +1,374 @@
+/*
+ * Copyright (c) 2023 - Manifold Systems LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package manifold.sql.rt.api;
+
+import manifold.ext.rt.api.IBindingsBacked;
+import manifold.json.rt.api.DataBindings;
+import manifold.rt.api.Bindings;
+
+import java.util.*;
+
+/**
+ * Compact bindings for a row of a query result. Column names and their positions are held in a {@link Schema} shared by
+ * all rows of the same result, each row stores only its values in an {@code Object[]}.
+ * <p/>
+ * The bindings remain fully mutable since they serve as the persisted state of an entity. Keys outside the schema, such as
+ * generated keys held during a commit, are stored in a separate map created on demand.
+ */
+class ResultRowBindings extends AbstractMap<String, Object> implements Bindings
+{
+  /** Marks a schema column that has no mapping in this row, distinguishes removed values from null values */
+  private static final Object ABSENT = new Object();
+
+  private final Schema _schema;
+  private final Object[] _values;
+  private int _size;
+  private Map<String, Object> _extra;
+  private Bindings _metadata;
+  private Set<Entry<String, Object>> _entrySet;
+
+  ResultRowBindings( Schema schema )
+  {
+    _schema = schema;
+    _values = new Object[schema.size()];
+    Arrays.fill( _values, ABSENT );
+  }
+
+  /**
+   * Fast path for populating a row from a result set, bypasses key checks and lookups.
+   */
+  void setColumnValue( int column, Object value )
+  {
+    int slot = _schema._columnToSlot[column];
+    if( _values[slot] == ABSENT )
+    {
+      _size++;
+    }
+    _values[slot] = value;
+  }
+
+  @Override
+  public Bindings getMetadata()
+  {
+    if( _metadata == null )
+    {
+      _metadata = new DataBindings();
+    }
+    return _metadata;
+  }
+
+  @Override
+  public int size()
+  {
+    return _size + (_extra == null ? 0 : _extra.size());
+  }
+
+  @Override
+  public boolean isEmpty()
+  {
+    return size() == 0;
+  }
+
+  @Override
+  public boolean containsKey( Object key )
+  {
+    checkKey( key );
+    int slot = _schema.slot( (String)key );
+    if( slot >= 0 )
+    {
+      return _values[slot] != ABSENT;
+    }
+    return _extra != null && _extra.containsKey( key );
+  }
+
+  @Override
+  public Object get( Object key )
+  {
+    checkKey( key );
+    int slot = _schema.slot( (String)key );
+    if( slot >= 0 )
+    {
+      Object value = _values[slot];
+      return value == ABSENT ? null : value;
+    }
+    return _extra == null ? null : _extra.get( key );
+  }
+
+  @Override
+  public Object put( String key, Object value )
+  {
+    if( value instanceof IBindingsBacked )
+    {
+      throw new IllegalArgumentException( "Non-raw bindings: " + value );
+    }
+    checkKey( key );
+    int slot = _schema.slot( key );
+    if( slot >= 0 )
+    {
+      Object old = _values[slot];
+      _values[slot] = value;
+      if( old == ABSENT )
+      {
+        _size++;
+        return null;
+      }
+      return old;
+    }
+    if( _extra == null )
+    {
+      _extra = new LinkedHashMap<>();
+    }
+    return _extra.put( key, value );
+  }
+
+  @Override
+  public Object remove( Object key )
+  {
+    checkKey( key );
+    int slot = _schema.slot( (String)key );
+    if( slot >= 0 )
+    {
+      return removeSlot( slot );
+    }
+    return _extra == null ? null : _extra.remove( key );
+  }
+
+  private Object removeSlot( int slot )
+  {
+    Object old = _values[slot];
+    if( old == ABSENT )
+    {
+      return null;
+    }
+    _values[slot] = ABSENT;
+    _size--;
+    return old;
+  }
+
+  @Override
+  public void clear()
+  {
+    Arrays.fill( _values, ABSENT );
+    _size = 0;
+    _extra = null;
+  }
+
+  @Override
+  public Set<Entry<String, Object>> entrySet()
+  {
+    return _entrySet == null ? _entrySet = new EntrySet() : _entrySet;
+  }
+
+  private void checkKey( Object key )
+  {
+    if( key == null )
+    {
+      throw new NullPointerException( "key can not be null" );
+    }
+    if( !(key instanceof String) )
+    {
+      throw new ClassCastException( "key should be a String" );
+    }
+    if( key.equals( "" ) )
+    {
+      throw new IllegalArgumentException( "key can not be empty" );
+    }
+  }
+
+  private class EntrySet extends AbstractSet<Entry<String, Object>>
+  {
+    @Override
+    public int size()
+    {
+      return ResultRowBindings.this.size();
+    }
+
+    @Override
+    public void clear()
+    {
+      ResultRowBindings.this.clear();
+    }
+
+    @Override
+    public Iterator<Entry<String, Object>> iterator()
+    {
+      return new Iterator<Entry<String, Object>>()
+      {
+        private int _nextSlot = advance( 0 );
+        private int _lastSlot = -1;
+        private Iterator<Entry<String, Object>> _extraIterator;
+
+        private int advance( int slot )
+        {
+          while( slot < _values.length && _values[slot] == ABSENT )
+          {
+            slot++;
+          }
+          return slot;
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+          if( _nextSlot < _values.length )
+          {
+            return true;
+          }
+          if( _extraIterator == null )
+          {
+            if( _extra == null )
+            {
+              return false;
+            }
+            _extraIterator = _extra.entrySet().iterator();
+          }
+          return _extraIterator.hasNext();
+        }
+
+        @Override
+        public Entry<String, Object> next()
+        {
+          if( !hasNext() )
+          {
+            throw new NoSuchElementException();
+          }
+          if( _nextSlot < _values.length )
+          {
+            _lastSlot = _nextSlot;
+            _nextSlot = advance( _nextSlot + 1 );
+            return new SlotEntry( _lastSlot );
+          }
+          _lastSlot = -1;
+          return _extraIterator.next();
+        }
+
+        @Override
+        public void remove()
+        {
+          if( _lastSlot >= 0 )
+          {
+            removeSlot( _lastSlot );
+            _lastSlot = -1;
+          }
+          else if( _extraIterator != null )
+          {
+            _extraIterator.remove();
+          }
+          else
+          {
+            throw new IllegalStateException();
+          }
+        }
+      };
+    }
+  }
+
+  private class SlotEntry implements Entry<String, Object>
+  {
+    private final int _slot;
+
+    SlotEntry( int slot )
+    {
+      _slot = slot;
+    }
+
+    @Override
+    public String getKey()
+    {
+      return _schema._names[_slot];
+    }
+
+    @Override
+    public Object getValue()
+    {
+      Object value = _values[_slot];
+      return value == ABSENT ? null : value;
+    }
+
+    @Override
+    public Object setValue( Object value )
+    {
+      return put( getKey(), value );
+    }
+
+    @Override
+    public boolean equals( Object o )
+    {
+      if( !(o instanceof Entry) ) return false;
+      Entry<?, ?> that = (Entry<?, ?>)o;
+      return Objects.equals( getKey(), that.getKey() ) && Objects.equals( getValue(), that.getValue() );
+    }
+
+    @Override
+    public int hashCode()
+    {
+      return Objects.hashCode( getKey() ) ^ Objects.hashCode( getValue() );
+    }
+
+    @Override
+    public String toString()
+    {
+      return getKey() + "=" + getValue();
+    }
+  }
+
+  /**
+   * The column layout of a query result, computed once per result and shared by all its rows.
+   */
+  static class Schema
+  {
+    private final String[] _names;
+    private final Map<String, Integer> _slotByName;
+    private final int[] _columnToSlot;
+
+    /**
+     * @param columnNames The result set's column labels in column order. A label occurring more than once maps to a
+     *                    single slot at its first position, the last column having the label provides the value. This
+     *                    mirrors the behavior of putting the columns into a {@code LinkedHashMap} in order.
+     */
+    Schema( String[] columnNames )
+    {
+      _columnToSlot = new int[columnNames.length];
+      _slotByName = new HashMap<>();
+      List<String> names = new ArrayList<>( columnNames.length );
+      for( int i = 0; i < columnNames.length; i++ )
+      {
+        String name = columnNames[i];
+        Integer slot = _slotByName.get( name );
+        if( slot == null )
+        {
+          slot = names.size();
+          names.add( name );
+          _slotByName.put( name, slot );
+        }
+        _columnToSlot[i] = slot;
+      }
+      _names = names.toArray( new String[0] );
+    }
+
+    int size()
+    {
+      return _names.length;
+    }
+
+    int slot( String name )
+    {
+      Integer slot = _slotByName.get( name );
+      return slot == null ? -1 : slot;
+    }
+  }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2023 - Manifold Systems LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package manifold.sql.rt.api;
+
+import manifold.ext.rt.api.IBindingsBacked;
+import manifold.rt.api.Bindings;
+import manifold.sql.rt.util.DbUtil;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Reads rows from a {@code ResultSet} one at a time. Column names, metadata, and value accessors are resolved once on
+ * construction, the current row of the result set is converted to a row object on each call to {@link #readRow()}. Rows
+ * share a single {@link ResultRowBindings.Schema}, each row stores only its column values.
+ * <p/>
+ * Shared by {@link Result}, which reads all rows eagerly, and {@link StreamingResult}, which reads rows as they are pulled.
+ */
+class ResultRowReader<B extends Bindings, R extends IBindingsBacked>
+{
+  private final ResultSet _resultSet;
+  private final ValueAccessor[] _accessors;
+  private final ResultColumn[] _columns;
+  private final ResultRowBindings.Schema _schema;
+  private final Function<Bindings, B> _makeBindings;
+  private final Function<B, R> _makeRow;
+
+  ResultRowReader( Map<String, ColumnInfo> allCols, ResultSet resultSet, Function<Bindings, B> makeBindings, Function<B, R> makeRow ) throws SQLException
+  {
+    _resultSet = resultSet;
+    ResultSetMetaData metaData = resultSet.getMetaData();
+    int columnCount = metaData.getColumnCount();
+    _accessors = buildAccessors( allCols, Dependencies.instance().getValueAccessorProvider(), metaData, columnCount );
+    _columns = new ResultColumn[columnCount];
+    String[] names = new String[columnCount];
+    for( int i = 0; i < columnCount; i++ )
+    {
+      _columns[i] = new ResultColumn( metaData, i+1 );
+      names[i] = DbUtil.handleAnonQueryColumn( metaData.getColumnLabel( i+1 ), i+1 );
+    }
+    _schema = new ResultRowBindings.Schema( names );
+    _makeBindings = makeBindings;
+    _makeRow = makeRow;
+  }
+
+  /**
+   * Reads the row the result set is currently positioned on. The caller is responsible for advancing the result set.
+   */
+  R readRow() throws SQLException
+  {
+    ResultRowBindings row = new ResultRowBindings( _schema );
+    for( int i = 0; i < _accessors.length; i++ )
+    {
+      row.setColumnValue( i, _accessors[i].getRowValue( _resultSet, _columns[i] ) );
+    }
+    R resultRow = _makeRow.apply( _makeBindings.apply( row ) );
+    if( resultRow instanceof Entity )
+    {
+      TxBindings bindings = ((Entity)resultRow).getBindings();
+      if( bindings instanceof OperableTxBindings )
+      {
+        ((OperableTxBindings)bindings).setOwner( (Entity)resultRow );
+      }
+    }
+    return resultRow;
+  }
+
+  private static ValueAccessor[] buildAccessors( Map<String, ColumnInfo> allCols, ValueAccessorProvider accProvider, ResultSetMetaData metaData, int columnCount ) throws SQLException
+  {
+    ValueAccessor[] accessors = new ValueAccessor[columnCount];
+    for( int i = 0; i < columnCount; i++ )
+    {
+      Integer jdbcType = null;
+      if( allCols != null )
+      {
+        // prefer the schema table's declared type for the queried column,
+        // it is essential that the type is assignable to the corresponding property return / param types
+        String colName = metaData.getColumnName( i+1 );
+        if( colName != null )
+        {
+          ColumnInfo columnInfo = allCols.get( colName );
+          // can be null e.g., sqlite's "last_insert_rowid()" bullshit
+          jdbcType = columnInfo == null ? null : columnInfo.getJdbcType();
+        }
+      }
+
+      if( jdbcType == null )
+      {
+        jdbcType = metaData.getColumnType( i+1 );
+      }
+
+      accessors[i] = accProvider.get( jdbcType );
+    }
+    return accessors;
+  }
+}
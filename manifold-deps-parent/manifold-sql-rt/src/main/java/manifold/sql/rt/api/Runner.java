@@ -26,6 +26,11 @@ import java.util.function.Function;
 
 public class Runner<T extends ResultRow>
 {
+  /**
+   * The JDBC fetch size used by {@link #stream()}. Limits the number of rows the driver buffers per round trip.
+   */
+  public static final int DEFAULT_FETCH_SIZE = 1000;
+
   private final QueryContext<T> _ctx;
   private final String _sqlQuery;
 
@@ -47,6 +52,106 @@ public class Runner<T extends ResultRow>
     return runQueryWithConnection( c -> runQueryOne( c ) );
   }
 
+  /**
+   * Executes the query and returns a cursor-backed result that reads rows as they are pulled, using
+   * {@link #DEFAULT_FETCH_SIZE} as the JDBC fetch size. The returned result must be closed.
+   */
+  @SuppressWarnings( "unused" )
+  public StreamingResult<T> stream()
+  {
+    return stream( DEFAULT_FETCH_SIZE );
+  }
+
+  /**
+   * Executes the query and returns a cursor-backed result that reads rows as they are pulled. The returned result keeps
+   * the statement and result set open, and if the query does not run in an active tx scope, also the connection. It
+   * must be closed.
+   *
+   * @param fetchSize The JDBC fetch size hint, the number of rows the driver buffers per round trip. Zero to use the
+   *                  driver's default.
+   */
+  @SuppressWarnings( "unused" )
+  public StreamingResult<T> stream( int fetchSize )
+  {
+    if( fetchSize < 0 )
+    {
+      throw new IllegalArgumentException( "Fetch size must be >= 0: " + fetchSize );
+    }
+
+    OperableTxScope txScope = (OperableTxScope)_ctx.getTxScope();
+    Connection activeConnection = txScope.getActiveConnection();
+    if( activeConnection != null )
+    {
+      try
+      {
+        TxScope.SqlChangeCtx ctx = txScope.newSqlChangeCtx( activeConnection );
+        ctx.doCrud();
+        return runStreamingQuery( activeConnection, false, fetchSize );
+      }
+      catch( Exception e )
+      {
+        throw ManExceptionUtil.unchecked( e );
+      }
+    }
+
+    ConnectionProvider cp = Dependencies.instance().getConnectionProvider();
+    Connection c = cp.getConnection( _ctx.getConfigName(), _ctx.getQueryClass() );
+    try
+    {
+      return runStreamingQuery( c, true, fetchSize );
+    }
+    catch( Exception e )
+    {
+      try
+      {
+        c.close();
+      }
+      catch( SQLException ce )
+      {
+        e.addSuppressed( ce );
+      }
+      throw ManExceptionUtil.unchecked( e );
+    }
+  }
+
+  private StreamingResult<T> runStreamingQuery( Connection c, boolean ownsConnection, int fetchSize ) throws SQLException
+  {
+    boolean restoreAutoCommit = false;
+    if( ownsConnection && fetchSize > 0 && c.getAutoCommit() )
+    {
+      // some drivers (e.g., postgres) only honor the fetch size with a cursor, which requires a transaction
+      c.setAutoCommit( false );
+      restoreAutoCommit = true;
+    }
+
+    PreparedStatement ps = c.prepareStatement( _sqlQuery, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY );
+    try
+    {
+      ps.setFetchSize( fetchSize );
+      setParameters( ps );
+      ResultSet resultSet = ps.executeQuery();
+      try
+      {
+        return new StreamingResult<>( _ctx, ownsConnection ? c : null, restoreAutoCommit, ps, resultSet );
+      }
+      catch( SQLException e )
+      {
+        resultSet.close();
+        throw e;
+      }
+    }
+    catch( SQLException e )
+    {
+      ps.close();
+      if( restoreAutoCommit )
+      {
+        c.rollback();
+        c.setAutoCommit( true );
+      }
+      throw e;
+    }
+  }
+
   private <RT> RT runQueryWithConnection( Function<Connection, RT> query )
   {
     OperableTxScope txScope = (OperableTxScope)_ctx.getTxScope();
@@ -0,0 +1,217 @@
+/*
+ * Copyright (c) 2023 - Manifold Systems LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package manifold.sql.rt.api;
+
+import manifold.util.ManExceptionUtil;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static manifold.sql.rt.api.TxKind.Update;
+
+/**
+ * A cursor-backed alternative to {@link Result}. Rows are read from the underlying {@code ResultSet} only as they are
+ * pulled from the iterator, so memory is bounded by the JDBC fetch size rather than by the size of the query result.
+ * <p/>
+ * Since the statement, result set, and possibly the connection remain open while rows are consumed, a streaming result
+ * must be closed, preferably using try-with-resources:
+ * <pre><code>
+ *   try( StreamingResult&lt;Row&gt; rows = MyQuery.stream() ) {
+ *     for( Row row : rows ) {
+ *       ...
+ *     }
+ *   }
+ * </code></pre>
+ * The result is exhausted after a single iteration; {@link #iterator()} may be called only once.
+ *
+ * @param <R> the formal type of the result set. For instance, a SQL schema table type such as {@code Customer}, or a
+ * {@code Row} of a SQL query type derived from .sql resource file or inlined .sql resource.
+ */
+public class StreamingResult<R extends ResultRow> implements Iterable<R>, AutoCloseable
+{
+  private final Connection _ownedConnection;
+  private final boolean _restoreAutoCommit;
+  private final Statement _statement;
+  private final ResultSet _resultSet;
+  private final ResultRowReader<TxBindings, R> _reader;
+  private boolean _iterated;
+  private boolean _closed;
+
+  /**
+   * @param ctx The query context
+   * @param ownedConnection If non-null, the connection is closed along with this result. Null if the connection belongs
+   *                        to an active tx scope.
+   * @param restoreAutoCommit True if auto-commit was disabled on {@code ownedConnection} to enable cursor-based fetching
+   *                          and must be restored on close.
+   * @param statement The statement producing {@code resultSet}, closed along with this result
+   * @param resultSet The open result set
+   */
+  StreamingResult( QueryContext<R> ctx, Connection ownedConnection, boolean restoreAutoCommit,
+                   Statement statement, ResultSet resultSet ) throws SQLException
+  {
+    _ownedConnection = ownedConnection;
+    _restoreAutoCommit = restoreAutoCommit;
+    _statement = statement;
+    _resultSet = resultSet;
+    _reader = new ResultRowReader<>( ctx.getAllCols(), resultSet,
+      rowBindings -> new BasicTxBindings( ctx.getTxScope(), Update, rowBindings ), ctx.getRowMaker() );
+  }
+
+  @Override
+  public Iterator<R> iterator()
+  {
+    if( _iterated )
+    {
+      throw new IllegalStateException( "Streaming result can only be iterated once" );
+    }
+    _iterated = true;
+
+    return new Iterator<R>()
+    {
+      private Boolean _hasNext;
+
+      @Override
+      public boolean hasNext()
+      {
+        if( _hasNext == null )
+        {
+          try
+          {
+            _hasNext = !_closed && _resultSet.next();
+          }
+          catch( SQLException e )
+          {
+            close();
+            throw ManExceptionUtil.unchecked( e );
+          }
+          if( !_hasNext )
+          {
+            // release resources as soon as the cursor is exhausted
+            close();
+          }
+        }
+        return _hasNext;
+      }
+
+      @Override
+      public R next()
+      {
+        if( !hasNext() )
+        {
+          throw new NoSuchElementException();
+        }
+        _hasNext = null;
+        try
+        {
+          return _reader.readRow();
+        }
+        catch( SQLException e )
+        {
+          close();
+          throw ManExceptionUtil.unchecked( e );
+        }
+      }
+    };
+  }
+
+  /**
+   * A sequential stream over the rows. Closing the stream closes this result.
+   */
+  @SuppressWarnings( "unused" )
+  public Stream<R> stream()
+  {
+    return StreamSupport.stream( Spliterators.spliteratorUnknownSize( iterator(), Spliterator.ORDERED | Spliterator.NONNULL ), false )
+      .onClose( this::close );
+  }
+
+  /**
+   * Closes the result set, the statement, and the connection if it is not owned by an active tx scope.
+   */
+  @Override
+  public void close()
+  {
+    if( _closed )
+    {
+      return;
+    }
+    _closed = true;
+
+    SQLException failure = null;
+    try
+    {
+      _resultSet.close();
+    }
+    catch( SQLException e )
+    {
+      failure = e;
+    }
+    try
+    {
+      _statement.close();
+    }
+    catch( SQLException e )
+    {
+      failure = addSuppressed( failure, e );
+    }
+    if( _ownedConnection != null )
+    {
+      try
+      {
+        if( _restoreAutoCommit )
+        {
+          // nothing was changed, end the read-only transaction used for the cursor
+          _ownedConnection.rollback();
+          _ownedConnection.setAutoCommit( true );
+        }
+      }
+      catch( SQLException e )
+      {
+        failure = addSuppressed( failure, e );
+      }
+      try
+      {
+        _ownedConnection.close();
+      }
+      catch( SQLException e )
+      {
+        failure = addSuppressed( failure, e );
+      }
+    }
+    if( failure != null )
+    {
+      throw ManExceptionUtil.unchecked( failure );
+    }
+  }
+
+  private static SQLException addSuppressed( SQLException failure, SQLException e )
+  {
+    if( failure == null )
+    {
+      return e;
+    }
+    failure.addSuppressed( e );
+    return failure;
+  }
+}
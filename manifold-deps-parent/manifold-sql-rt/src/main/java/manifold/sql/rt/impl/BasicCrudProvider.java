@@ -20,7 +20,6 @@ import manifold.ext.rt.api.IBindingsBacked;
 import manifold.json.rt.api.DataBindings;
 import manifold.rt.api.Bindings;
 import manifold.sql.rt.api.*;
-import manifold.sql.rt.util.DbUtil;
 import manifold.sql.rt.util.DriverInfo;
 import manifold.util.ManExceptionUtil;
 import org.slf4j.Logger;
@@ -44,12 +43,12 @@ public class BasicCrudProvider implements CrudProvider
   {
     try
     {
-      Set<String> skipParams = new HashSet<>();
-      String sql = makeInsertStmt( c.getMetaData(), ctx, skipParams );
+      StatementParams params = makeInsertParams( c.getMetaData(), ctx );
+      CrudStatement stmt = params.statement( c, ctx.getConfigName(), CrudStatement.Kind.Insert, ctx.getDdlTableName() );
       int[] reflectedColumnCount = {0};
-      try( PreparedStatement ps = prepareStatement( c, ctx, sql, reflectedColumnCount ) )
+      try( PreparedStatement ps = prepareStatement( c, ctx, stmt.getSql(), reflectedColumnCount ) )
       {
-        setInsertParameters( ctx, ps, skipParams );
+        params.setParameters( stmt, ps );
         executeAndFetchRow( c, ctx, ps, reflectedColumnCount[0] > 0 );
       }
     }
@@ -140,24 +139,6 @@ public class BasicCrudProvider implements CrudProvider
     return reflectedColumnNames;
   }
 
-  private <T extends Entity> void setInsertParameters( UpdateContext<T> ctx, PreparedStatement ps, Set<String> skipParams ) throws SQLException
-  {
-    int i = 0;
-    ValueAccessorProvider accProvider = Dependencies.instance().getValueAccessorProvider();
-    for( Map.Entry<String, Object> entry: ctx.getTable().getBindings().entrySet() )
-    {
-      if( skipParams.contains( entry.getKey() ) )
-      {
-        continue;
-      }
-      int jdbcType = ctx.getAllCols().get( entry.getKey() ).getJdbcType();
-      ValueAccessor accessor = accProvider.get( jdbcType );
-      Object value = entry.getValue();
-      value = patchFk( value, entry.getKey(), ctx.getBindings() );
-      accessor.setParameter( ps, ++i, value );
-    }
-  }
-
   private static Object patchFk( Object value, String colName, OperableTxBindings bindings )
   {
     // We assign a Pair<Entity, String> to an fk column when the entity is not yet inserted.
@@ -183,40 +164,22 @@ public class BasicCrudProvider implements CrudProvider
     return value;
   }
 
-  private <T extends Entity> String makeInsertStmt( DatabaseMetaData metaData, UpdateContext<T> ctx, Set<String> skipParams ) throws SQLException
+  private <T extends Entity> StatementParams makeInsertParams( DatabaseMetaData metaData, UpdateContext<T> ctx )
   {
-    StringBuilder sql = new StringBuilder();
-    sql.append( "INSERT INTO " ).append( DbUtil.enquoteIdentifier( ctx.getDdlTableName(), metaData ) ).append( "(" );
-    int i = 0;
     Set<Map.Entry<String, Object>> entries = ctx.getTable().getBindings().entrySet();
-    for( Map.Entry<String, Object> entry: entries )
-    {
-      String colName = entry.getKey();
-      if( i++ > 0 )
-      {
-        sql.append( ", " );
-      }
-      sql.append( DbUtil.enquoteIdentifier( colName, metaData ) );
-    }
-    sql.append( ")" ).append( " VALUES (" );
+    StatementParams params = new StatementParams( entries.size() );
     ValueAccessorProvider accProvider = Dependencies.instance().getValueAccessorProvider();
-    i = 0;
     for( Map.Entry<String, Object> entry: entries )
     {
-      if( i++ > 0 )
-      {
-        sql.append( "," );
-      }
-      ValueAccessor accessor = accProvider.get( ctx.getAllCols().get( entry.getKey() ).getJdbcType() );
-      String expr = accessor.getParameterExpression( metaData, entry.getValue(), ctx.getAllCols().get( entry.getKey() ) );
-      sql.append( expr );
-      if( !expr.contains( "?" ) )
-      {
-        skipParams.add( entry.getKey() );
-      }
+      String colName = entry.getKey();
+      ColumnInfo columnInfo = ctx.getAllCols().get( colName );
+      ValueAccessor accessor = accProvider.get( columnInfo.getJdbcType() );
+      Object value = entry.getValue();
+      String expr = accessor.getParameterExpression( metaData, value, columnInfo );
+      params.add( colName, expr, accessor, patchFk( value, colName, ctx.getBindings() ) );
     }
-    sql.append( ")" );
-    return sql.toString();
+    params.setCount();
+    return params;
   }
 
   @SuppressWarnings( "unused" )
@@ -225,11 +188,11 @@ public class BasicCrudProvider implements CrudProvider
     return runQueryWithConnection( ctx, c -> {
       try
       {
-        Set<String> skipParams = new HashSet<>();
-        String sql = makeReadStatement( c.getMetaData(), ctx, skipParams );
-        try( PreparedStatement ps = c.prepareStatement( sql ) )
+        StatementParams params = makeReadParams( c.getMetaData(), ctx );
+        CrudStatement stmt = params.statement( c, ctx.getConfigName(), CrudStatement.Kind.Read, ctx.getDdlTableName() );
+        try( PreparedStatement ps = c.prepareStatement( stmt.getSql() ) )
         {
-          setQueryParameters( ctx, ps, skipParams );
+          params.setParameters( stmt, ps );
           try( ResultSet resultSet = ps.executeQuery() )
           {
             Result<T> ts = new Result<>( ctx, resultSet );
@@ -261,11 +224,11 @@ public class BasicCrudProvider implements CrudProvider
     return runQueryWithConnection( ctx, c -> {
       try
       {
-        Set<String> skipParams = new HashSet<>();
-        String sql = makeReadStatement( c.getMetaData(), ctx, skipParams );
-        try( PreparedStatement ps = c.prepareStatement( sql ) )
+        StatementParams params = makeReadParams( c.getMetaData(), ctx );
+        CrudStatement stmt = params.statement( c, ctx.getConfigName(), CrudStatement.Kind.Read, ctx.getDdlTableName() );
+        try( PreparedStatement ps = c.prepareStatement( stmt.getSql() ) )
         {
-          setQueryParameters( ctx, ps, skipParams );
+          params.setParameters( stmt, ps );
           try( ResultSet resultSet = ps.executeQuery() )
           {
             Result<T> ts = new Result<>( ctx, resultSet );
@@ -315,29 +278,19 @@ public class BasicCrudProvider implements CrudProvider
     }
   }
 
-  private <T extends Entity> String makeReadStatement( DatabaseMetaData metaData, QueryContext<T> ctx, Set<String> skipParams ) throws SQLException
+  private <T extends Entity> StatementParams makeReadParams( DatabaseMetaData metaData, QueryContext<T> ctx )
   {
     ValueAccessorProvider accProvider = Dependencies.instance().getValueAccessorProvider();
-    StringBuilder sql = new StringBuilder();
-    sql.append( "SELECT * FROM " ).append( DbUtil.enquoteIdentifier(ctx.getDdlTableName(), metaData) ).append( " WHERE " );
+    StatementParams params = new StatementParams( ctx.getParams().size() );
     int i = 0;
     for( Map.Entry<String, Object> entry : ctx.getParams().entrySet() )
     {
-      if( i > 0 )
-      {
-        sql.append( " AND " );
-      }
-      ColumnInfo paramInfo = ctx.getParamInfo()[i];
+      ColumnInfo paramInfo = ctx.getParamInfo()[i++];
       ValueAccessor accessor = accProvider.get( paramInfo.getJdbcType() );
       String expr = accessor.getParameterExpression( metaData, entry.getValue(), paramInfo );
-      sql.append( DbUtil.enquoteIdentifier( entry.getKey(), metaData ) ).append( " = " ).append( expr );
-      i++;
-      if( !expr.contains( "?" ) )
-      {
-        skipParams.add( entry.getKey() );
-      }
+      params.add( entry.getKey(), expr, accessor, entry.getValue() );
     }
-    return sql.toString();
+    return params;
   }
 
   @SuppressWarnings( "unused" )
@@ -345,80 +298,12 @@ public class BasicCrudProvider implements CrudProvider
   {
     try
     {
-      StringBuilder sql = new StringBuilder();
-      sql.append( "UPDATE " ).append( DbUtil.enquoteIdentifier(ctx.getDdlTableName(), c.getMetaData()) ).append( " SET\n" );
-      int i = 0;
-      Map<String, Object> changeEntries = ctx.getBindings().uncommittedChangesEntrySet();
-      if( changeEntries.isEmpty() )
-      {
-        throw new SQLException( "Expecting changed entries." );
-      }
-      Set<String> skipParams = new HashSet<>();
-      ValueAccessorProvider accProvider = Dependencies.instance().getValueAccessorProvider();
-      for( Map.Entry<String, Object> entry : changeEntries.entrySet() )
-      {
-        if( i > 0 )
-        {
-          sql.append( ",\n" );
-        }
-        String colName = entry.getKey();
-        ValueAccessor accessor = accProvider.get( ctx.getAllCols().get( colName ).getJdbcType() );
-        String expr = accessor.getParameterExpression( c.getMetaData(), entry.getValue(), ctx.getAllCols().get( colName ) );
-        String qcolName = DbUtil.enquoteIdentifier( colName, c.getMetaData() );
-        sql.append( "$qcolName = " ).append( expr );
-        i++;
-        if( !expr.contains( "?" ) )
-        {
-          skipParams.add( entry.getKey() );
-        }
-      }
-      sql.append( "\nWHERE " );
-
-      Set<String> allColNames = ctx.getAllCols().keySet();
-
-      Set<String> whereColumns;
-      if( !ctx.getPkCols().isEmpty() )
-      {
-        whereColumns = ctx.getPkCols();
-      }
-      else if( !ctx.getUkCols().isEmpty() )
-      {
-        whereColumns = ctx.getUkCols();
-      }
-      else
-      {
-        whereColumns = allColNames;
-      }
-      if( !whereColumns.isEmpty() )
-      {
-        i = 0;
-        for( String whereCol: whereColumns )
-        {
-          if( i++ > 0 )
-          {
-            sql.append( ", " );
-          }
-          ColumnInfo columnInfo = ctx.getAllCols().get( whereCol );
-          ValueAccessor accessor = accProvider.get( columnInfo.getJdbcType() );
-          String expr = accessor.getParameterExpression(
-            c.getMetaData(), ctx.getBindings().getPersistedStateValue( whereCol ), columnInfo );
-          String qwhereCol = DbUtil.enquoteIdentifier( whereCol, c.getMetaData() );
-          sql.append( "$qwhereCol = " ).append( expr );
-          if( !expr.contains( "?" ) )
-          {
-            skipParams.add( whereCol );
-          }
-        }
-      }
-      else
-      {
-        throw new SQLException( "Expecting primary key, unique key, or provided columns for WHERE clause." );
-      }
-
+      StatementParams params = makeUpdateParams( c.getMetaData(), ctx );
+      CrudStatement stmt = params.statement( c, ctx.getConfigName(), CrudStatement.Kind.Update, ctx.getDdlTableName() );
       int[] reflectedColumnCount = {0};
-      try( PreparedStatement ps = prepareStatement( c, ctx, sql.toString(), reflectedColumnCount ) )
+      try( PreparedStatement ps = prepareStatement( c, ctx, stmt.getSql(), reflectedColumnCount ) )
       {
-        setUpdateParameters( ctx, whereColumns, ps, skipParams );
+        params.setParameters( stmt, ps );
         executeAndFetchRow( c, ctx, ps, reflectedColumnCount[0] > 0 );
       }
     }
@@ -428,66 +313,70 @@ public class BasicCrudProvider implements CrudProvider
     }
   }
 
-  private <T extends Entity> void setUpdateParameters( UpdateContext<T> ctx, Set<String> whereColumns, PreparedStatement ps, Set<String> skipParams ) throws SQLException
+  private static <T extends Entity> StatementParams makeUpdateParams( DatabaseMetaData metaData, UpdateContext<T> ctx ) throws SQLException
   {
     Map<String, Object> changeEntries = ctx.getBindings().uncommittedChangesEntrySet();
     if( changeEntries.isEmpty() )
     {
       throw new SQLException( "Expecting changed entries." );
     }
+    Set<String> whereColumns = whereColumns( ctx );
+
+    StatementParams params = new StatementParams( changeEntries.size() + whereColumns.size() );
     ValueAccessorProvider accProvider = Dependencies.instance().getValueAccessorProvider();
-    int i = 0;
     for( Map.Entry<String, Object> entry : changeEntries.entrySet() )
     {
-      if( skipParams.contains( entry.getKey() ) )
-      {
-        continue;
-      }
-      ValueAccessor accessor = accProvider.get( ctx.getAllCols().get( entry.getKey() ).getJdbcType() );
-      Object value = entry.getValue();
-      accessor.setParameter( ps, ++i, value );
+      String colName = entry.getKey();
+      ColumnInfo columnInfo = ctx.getAllCols().get( colName );
+      ValueAccessor accessor = accProvider.get( columnInfo.getJdbcType() );
+      String expr = accessor.getParameterExpression( metaData, entry.getValue(), columnInfo );
+      params.add( colName, expr, accessor, entry.getValue() );
+    }
+    params.setCount();
+    addWhereParams( metaData, ctx, whereColumns, params );
+    return params;
+  }
+
+  private static <T extends Entity> StatementParams makeDeleteParams( DatabaseMetaData metaData, UpdateContext<T> ctx ) throws SQLException
+  {
+    Set<String> whereColumns = whereColumns( ctx );
+    StatementParams params = new StatementParams( whereColumns.size() );
+    addWhereParams( metaData, ctx, whereColumns, params );
+    return params;
+  }
+
+  private static <T extends Entity> Set<String> whereColumns( UpdateContext<T> ctx ) throws SQLException
+  {
+    Set<String> whereColumns;
+    if( !ctx.getPkCols().isEmpty() )
+    {
+      whereColumns = ctx.getPkCols();
     }
-    if( !whereColumns.isEmpty() )
+    else if( !ctx.getUkCols().isEmpty() )
     {
-      for( String whereColumn : whereColumns )
-      {
-        if( skipParams.contains( whereColumn ) )
-        {
-          continue;
-        }
-
-        ValueAccessor accessor = accProvider.get( ctx.getAllCols().get( whereColumn ).getJdbcType() );
-        Object value = ctx.getBindings().getPersistedStateValue( whereColumn );
-        accessor.setParameter( ps, ++i, value );
-      }
+      whereColumns = ctx.getUkCols();
     }
     else
+    {
+      whereColumns = ctx.getAllCols().keySet();
+    }
+    if( whereColumns.isEmpty() )
     {
       throw new SQLException( "Expecting primary key, unique key, or provided columns for WHERE clause." );
     }
-
+    return whereColumns;
   }
 
-  private <T extends Entity> void setDeleteParameters( UpdateContext<T> ctx, Set<String> whereColumns, PreparedStatement ps, Set<String> skipParams ) throws SQLException
+  private static <T extends Entity> void addWhereParams( DatabaseMetaData metaData, UpdateContext<T> ctx, Set<String> whereColumns, StatementParams params )
   {
-    int i = 0;
-    if( !whereColumns.isEmpty() )
-    {
-      ValueAccessorProvider accProvider = Dependencies.instance().getValueAccessorProvider();
-      for( String whereColumn : whereColumns )
-      {
-        ValueAccessor accessor = accProvider.get( ctx.getAllCols().get( whereColumn ).getJdbcType() );
-        Object value = ctx.getBindings().getPersistedStateValue( whereColumn );
-        if( skipParams.contains( whereColumn ) )
-        {
-          continue;
-        }
-        accessor.setParameter( ps, ++i, value );
-      }
-    }
-    else
+    ValueAccessorProvider accProvider = Dependencies.instance().getValueAccessorProvider();
+    for( String whereCol: whereColumns )
     {
-      throw new SQLException( "Expecting primary key, unique key, or provided columns for WHERE clause." );
+      ColumnInfo columnInfo = ctx.getAllCols().get( whereCol );
+      ValueAccessor accessor = accProvider.get( columnInfo.getJdbcType() );
+      Object value = ctx.getBindings().getPersistedStateValue( whereCol );
+      String expr = accessor.getParameterExpression( metaData, value, columnInfo );
+      params.add( whereCol, expr, accessor, value );
     }
   }
 
@@ -551,6 +440,11 @@ public class BasicCrudProvider implements CrudProvider
       }
     }
 
+    holdReflectedRow( c, ctx, reflectedRow );
+  }
+
+  private <T extends Entity> void holdReflectedRow( Connection c, UpdateContext<T> ctx, Bindings reflectedRow ) throws SQLException
+  {
     if( isReflectedRowEmpty( reflectedRow ) && ctx.getPkCols().isEmpty() )
     {
       // no pk means there's no way to fetch the inserted row
@@ -641,11 +535,11 @@ public class BasicCrudProvider implements CrudProvider
     }
 
     QueryContext<T> queryContext = new QueryContext<>( ctx.getTxScope(), null, ctx.getDdlTableName(), null, ci, params, ctx.getConfigName(), null );
-    Set<String> skipParams = new HashSet<>();
-    String sql = makeReadStatement( c.getMetaData(), queryContext, skipParams );
-    try( PreparedStatement ps = c.prepareStatement( sql ) )
+    StatementParams readParams = makeReadParams( c.getMetaData(), queryContext );
+    CrudStatement stmt = readParams.statement( c, ctx.getConfigName(), CrudStatement.Kind.Read, ctx.getDdlTableName() );
+    try( PreparedStatement ps = c.prepareStatement( stmt.getSql() ) )
     {
-      setQueryParameters( queryContext, ps, skipParams );
+      readParams.setParameters( stmt, ps );
       try( ResultSet resultSet = ps.executeQuery() )
       {
         Result<IBindingsBacked> resultRow = new Result<>( ctx.getAllCols(), resultSet, rowBindings -> () -> rowBindings );
@@ -671,82 +565,233 @@ public class BasicCrudProvider implements CrudProvider
   }
 
   public <T extends Entity> void delete( Connection c, UpdateContext<T> ctx )
-  {  
+  {
     try
     {
-      StringBuilder sql = new StringBuilder();
-      sql.append( "DELETE FROM " ).append( DbUtil.enquoteIdentifier( ctx.getDdlTableName(), c.getMetaData()) ).append( " WHERE\n" );
+      StatementParams params = makeDeleteParams( c.getMetaData(), ctx );
+
+      CrudStatement stmt = params.statement( c, ctx.getConfigName(), CrudStatement.Kind.Delete, ctx.getDdlTableName() );
+      try( PreparedStatement ps = c.prepareStatement( stmt.getSql() ) )
+      {
+        params.setParameters( stmt, ps );
+        int result = ps.executeUpdate();
+        if( result != 1 )
+        {
+          throw new SQLException( "Expecting a single row result for Delete, got " + result );
+        }
+      }
+    }
+    catch( SQLException e )
+    {
+      throw ManExceptionUtil.unchecked( e );
+    }
+  }
+
+  @Override
+  public <T extends Entity> void createAll( Connection c, List<UpdateContext<T>> ctxs )
+  {
+    executeAll( c, ctxs, CrudStatement.Kind.Insert );
+  }
 
-      Set<String> allColNames = ctx.getAllCols().keySet();
+  @Override
+  public <T extends Entity> void updateAll( Connection c, List<UpdateContext<T>> ctxs )
+  {
+    executeAll( c, ctxs, CrudStatement.Kind.Update );
+  }
 
-      Set<String> whereColumns;
-      if( !ctx.getPkCols().isEmpty() )
+  @Override
+  public <T extends Entity> void deleteAll( Connection c, List<UpdateContext<T>> ctxs )
+  {
+    executeAll( c, ctxs, CrudStatement.Kind.Delete );
+  }
+
+  /**
+   * Executes the operations with JDBC batching where possible. Consecutive entities having the same statement text form
+   * a batch. Inserts and updates are batched only if the driver reflects generated keys for all rows of a batch, see
+   * {@link DriverInfo#supportsBatchGeneratedKeys()}, otherwise they execute one at a time.
+   */
+  private <T extends Entity> void executeAll( Connection c, List<UpdateContext<T>> ctxs, CrudStatement.Kind kind )
+  {
+    try
+    {
+      DatabaseMetaData metaData = c.getMetaData();
+      if( ctxs.size() < 2 || !isBatchable( metaData, kind ) )
       {
-        whereColumns = ctx.getPkCols();
+        for( UpdateContext<T> ctx : ctxs )
+        {
+          switch( kind )
+          {
+            case Insert: create( c, ctx ); break;
+            case Update: update( c, ctx ); break;
+            case Delete: delete( c, ctx ); break;
+            default: throw new IllegalStateException( "Unexpected kind: " + kind );
+          }
+        }
+        return;
       }
-      else if( !ctx.getUkCols().isEmpty() )
+
+      List<StatementParams> batchParams = new ArrayList<>();
+      CrudStatement batchStmt = null;
+      int batchStart = 0;
+      for( int i = 0; i < ctxs.size(); i++ )
       {
-        whereColumns = ctx.getUkCols();
+        UpdateContext<T> ctx = ctxs.get( i );
+        StatementParams params;
+        switch( kind )
+        {
+          case Insert: params = makeInsertParams( metaData, ctx ); break;
+          case Update: params = makeUpdateParams( metaData, ctx ); break;
+          case Delete: params = makeDeleteParams( metaData, ctx ); break;
+          default: throw new IllegalStateException( "Unexpected kind: " + kind );
+        }
+        CrudStatement stmt = params.statement( c, ctx.getConfigName(), kind, ctx.getDdlTableName() );
+        if( batchStmt != null && !batchStmt.getSql().equals( stmt.getSql() ) )
+        {
+          executeBatch( c, kind, batchStmt, ctxs.subList( batchStart, i ), batchParams );
+          batchParams = new ArrayList<>();
+          batchStart = i;
+        }
+        batchStmt = stmt;
+        batchParams.add( params );
       }
-      else
+      executeBatch( c, kind, batchStmt, ctxs.subList( batchStart, ctxs.size() ), batchParams );
+    }
+    catch( SQLException e )
+    {
+      throw ManExceptionUtil.unchecked( e );
+    }
+  }
+
+  private static boolean isBatchable( DatabaseMetaData metaData, CrudStatement.Kind kind ) throws SQLException
+  {
+    if( !metaData.supportsBatchUpdates() )
+    {
+      return false;
+    }
+    return kind == CrudStatement.Kind.Delete || DriverInfo.lookup( metaData ).supportsBatchGeneratedKeys();
+  }
+
+  private <T extends Entity> void executeBatch( Connection c, CrudStatement.Kind kind, CrudStatement stmt,
+                                                List<UpdateContext<T>> ctxs, List<StatementParams> params ) throws SQLException
+  {
+    if( kind == CrudStatement.Kind.Delete )
+    {
+      try( PreparedStatement ps = c.prepareStatement( stmt.getSql() ) )
       {
-        whereColumns = allColNames;
+        addBatch( stmt, ps, params );
+        checkBatchResult( ps.executeBatch(), "Delete" );
       }
-      Set<String> skipParams = new HashSet<>();
-      if( !whereColumns.isEmpty() )
+      return;
+    }
+
+    UpdateContext<T> first = ctxs.get( 0 );
+    int[] reflectedColumnCount = {0};
+    try( PreparedStatement ps = prepareStatement( c, first, stmt.getSql(), reflectedColumnCount ) )
+    {
+      addBatch( stmt, ps, params );
+      checkBatchResult( ps.executeBatch(), "Update/Insert" );
+
+      List<Bindings> reflectedRows = new ArrayList<>();
+      if( reflectedColumnCount[0] > 0 )
       {
-        ValueAccessorProvider accProvider = Dependencies.instance().getValueAccessorProvider();
-        int i = 0;
-        for( String whereCol: whereColumns )
+        try( ResultSet resultSet = ps.getGeneratedKeys() )
         {
-          if( i++ > 0 )
-          {
-            sql.append( " AND " );
-          }
-          ValueAccessor accessor = accProvider.get( ctx.getAllCols().get( whereCol ).getJdbcType() );
-          String expr = accessor.getParameterExpression(
-            c.getMetaData(), ctx.getBindings().getPersistedStateValue( whereCol ), ctx.getAllCols().get( whereCol ) );
-          String qwhereCol = DbUtil.enquoteIdentifier( whereCol, c.getMetaData() );
-          sql.append( "$qwhereCol = " ).append( expr );
-          if( !expr.contains( "?" ) )
+          for( IBindingsBacked row : new Result<>( first.getAllCols(), resultSet, rowBindings -> () -> rowBindings ) )
           {
-            skipParams.add( whereCol );
+            reflectedRows.add( row.getBindings() );
           }
         }
-      }
-      else
-      {
-        throw new SQLException( "Expecting primary key, unique key, or provided columns for WHERE clause." );
+        catch( SQLFeatureNotSupportedException e )
+        {
+          LOGGER.warn( "getGeneratedKeys() is not supported, attempting to fetch updated rows.", e );
+        }
       }
 
-      try( PreparedStatement ps = c.prepareStatement( sql.toString() ) )
+      // if the driver did not reflect exactly one row per statement, the rows can't be matched, fetch them individually
+      boolean matched = reflectedRows.size() == ctxs.size();
+      for( int i = 0; i < ctxs.size(); i++ )
       {
-        setDeleteParameters( ctx, whereColumns, ps, skipParams );
-        int result = ps.executeUpdate();
-        if( result != 1 )
-        {
-          throw new SQLException( "Expecting a single row result for Delete, got " + result );
-        }
+        holdReflectedRow( c, ctxs.get( i ), matched ? reflectedRows.get( i ) : DataBindings.EMPTY_BINDINGS );
       }
     }
-    catch( SQLException e )
+  }
+
+  private static void addBatch( CrudStatement stmt, PreparedStatement ps, List<StatementParams> params ) throws SQLException
+  {
+    for( StatementParams p : params )
     {
-      throw ManExceptionUtil.unchecked( e );
+      p.setParameters( stmt, ps );
+      ps.addBatch();
     }
   }
 
-  private <T extends Entity> void setQueryParameters( QueryContext<T> ctx, PreparedStatement ps, Set<String> skipParams ) throws SQLException
+  private static void checkBatchResult( int[] results, String operation ) throws SQLException
   {
-    int i = 0;
-    ValueAccessorProvider accProvider = Dependencies.instance().getValueAccessorProvider();
-    for( Map.Entry<String, Object> entry : ctx.getParams().entrySet() )
+    for( int result : results )
     {
-      if( skipParams.contains( entry.getKey() ) )
+      if( result != 1 && result != Statement.SUCCESS_NO_INFO )
       {
-        continue;
+        throw new SQLException( "Expecting a single row result for " + operation + ", got " + result );
       }
-      ValueAccessor accessor = accProvider.get( ctx.getParamInfo()[i].getJdbcType() );
-      accessor.setParameter( ps, ++i, entry.getValue() );
     }
   }
+
+  /**
+   * The columns, parameter expressions, and values of a CRUD statement in parameter order. The columns and expressions
+   * key the statement's cached SQL text, see {@link CrudStatement}.
+   */
+  private static class StatementParams
+  {
+    private final String[] _columns;
+    private final String[] _exprs;
+    private final ValueAccessor[] _accessors;
+    private final Object[] _values;
+    private int _size;
+    private int _setCount;
+
+    StatementParams( int capacity )
+    {
+      _columns = new String[capacity];
+      _exprs = new String[capacity];
+      _accessors = new ValueAccessor[capacity];
+      _values = new Object[capacity];
+    }
+
+    void add( String column, String expr, ValueAccessor accessor, Object value )
+    {
+      _columns[_size] = column;
+      _exprs[_size] = expr;
+      _accessors[_size] = accessor;
+      _values[_size] = value;
+      _size++;
+    }
+
+    /** Marks the columns added so far as assigned columns, the remaining columns are WHERE clause columns */
+    void setCount()
+    {
+      _setCount = _size;
+    }
+
+    CrudStatement statement( Connection c, String configName, CrudStatement.Kind kind, String table ) throws SQLException
+    {
+      if( _size != _columns.length )
+      {
+        throw new IllegalStateException( "Expecting " + _columns.length + " columns, found " + _size );
+      }
+      return CrudStatement.get( c, configName, kind, table, _columns, _exprs, _setCount );
+    }
+
+    void setParameters( CrudStatement stmt, PreparedStatement ps ) throws SQLException
+    {
+      int pos = 0;
+      for( int i = 0; i < _size; i++ )
+      {
+        if( !stmt.isSkipParam( i ) )
+        {
+          _accessors[i].setParameter( ps, ++pos, _values[i] );
+        }
+      }
+    }
+  }
+
 }
@@ -337,10 +337,12 @@ class BasicTxScope implements OperableTxScope
   private void doCrud( Connection c ) throws SQLException
   {
     Set<Entity> visited = new HashSet<>();
+    PendingCrud pending = new PendingCrud( c );
     for( Entity row : _rows )
     {
-      doCrud( c, row, new LinkedHashMap<>(), visited );
+      doCrud( c, row, new LinkedHashMap<>(), visited, pending );
     }
+    pending.flush();
   }
 
   private void executeBatchRunners( Connection c ) throws SQLException
@@ -417,7 +419,7 @@ class BasicTxScope implements OperableTxScope
     }
   }
 
-  private void doCrud( Connection c, Entity row, Map<Entity, Set<FkDep>> unresolvedDeps, Set<Entity> visited ) throws SQLException
+  private void doCrud( Connection c, Entity row, Map<Entity, Set<FkDep>> unresolvedDeps, Set<Entity> visited, PendingCrud pending ) throws SQLException
   {
     if( visited.contains( row ) )
     {
@@ -431,9 +433,7 @@ class BasicTxScope implements OperableTxScope
     }
     _processedRows.add( row );
 
-    doFkDependenciesFirst( c, row, unresolvedDeps, visited );
-
-    CrudProvider crud = Dependencies.instance().getCrudProvider();
+    doFkDependenciesFirst( c, row, unresolvedDeps, visited, pending );
 
     TableInfo ti = row.tableInfo();
     UpdateContext<Entity> ctx = new UpdateContext<>( this, row, ti.getDdlTableName(), _dbConfig.getName(),
@@ -441,21 +441,28 @@ class BasicTxScope implements OperableTxScope
 
     if( row.getBindings().isForInsert() )
     {
-      crud.create( c, ctx );
+      pending.add( CrudKind.Create, ctx );
     }
     else if( row.getBindings().isForUpdate() )
     {
-      crud.update( c, ctx );
+      pending.add( CrudKind.Update, ctx );
     }
     else if( row.getBindings().isForDelete() )
     {
-      crud.delete( c, ctx );
+      pending.add( CrudKind.Delete, ctx );
     }
     else
     {
       throw new SQLException( "Unexpected bindings kind, neither of insert/update/delete" );
     }
-    patchUnresolvedFkDeps( c, ctx, crud, unresolvedDeps.get( row ) );
+
+    Set<FkDep> unresolved = unresolvedDeps.get( row );
+    if( unresolved != null )
+    {
+      // patching needs the row's generated pk
+      pending.flush();
+      patchUnresolvedFkDeps( c, ctx, Dependencies.instance().getCrudProvider(), unresolved );
+    }
   }
 
   /**
@@ -496,7 +503,7 @@ class BasicTxScope implements OperableTxScope
     }
   }
 
-  private void doFkDependenciesFirst( Connection c, Entity row, Map<Entity, Set<FkDep>> unresolvedDeps, Set<Entity> visited ) throws SQLException
+  private void doFkDependenciesFirst( Connection c, Entity row, Map<Entity, Set<FkDep>> unresolvedDeps, Set<Entity> visited, PendingCrud pending ) throws SQLException
   {
     for( Map.Entry<String, Object> entry : row.getBindings().entrySet() )
     {
@@ -507,7 +514,12 @@ class BasicTxScope implements OperableTxScope
         Entity pkEntity = ref.getRef();
         FkDep fkDep = new FkDep( row, entry.getKey(), pkEntity, ref.getKeyColName() );
 
-        doCrud( c, pkEntity, unresolvedDeps, visited );
+        doCrud( c, pkEntity, unresolvedDeps, visited, pending );
+        if( pending.contains( pkEntity ) )
+        {
+          // the pk is generated when pkEntity's operation executes
+          pending.flush();
+        }
 
         // patch fk
         Object pkId = ((OperableTxBindings)pkEntity.getBindings()).getHeldValue( fkDep.pkName );
@@ -550,6 +562,88 @@ class BasicTxScope implements OperableTxScope
     }
   }
 
+  private enum CrudKind {Create, Update, Delete}
+
+  /**
+   * Entity CRUD operations collected during {@link #doCrud(Connection)}. Consecutive operations of the same kind on the
+   * same table form a run, which executes via {@link CrudProvider#createAll}, {@link CrudProvider#updateAll}, or
+   * {@link CrudProvider#deleteAll} allowing the provider to use JDBC batching. Runs execute in the order they are added,
+   * so the statement order is the same as if each operation executed immediately. Pending runs are flushed whenever
+   * an operation depends on the outcome of a pending one, such as a generated pk referenced by an fk.
+   */
+  private static class PendingCrud
+  {
+    private final Connection _c;
+    private final List<Run> _runs;
+    private final Set<Entity> _rows;
+
+    PendingCrud( Connection c )
+    {
+      _c = c;
+      _runs = new ArrayList<>();
+      _rows = new HashSet<>();
+    }
+
+    void add( CrudKind kind, UpdateContext<Entity> ctx )
+    {
+      Run last = _runs.isEmpty() ? null : _runs.get( _runs.size() - 1 );
+      if( last == null || last._kind != kind || !last._table.equals( ctx.getDdlTableName() ) )
+      {
+        last = new Run( kind, ctx.getDdlTableName() );
+        _runs.add( last );
+      }
+      last._ctxs.add( ctx );
+      _rows.add( ctx.getTable() );
+    }
+
+    boolean contains( Entity row )
+    {
+      return _rows.contains( row );
+    }
+
+    void flush()
+    {
+      if( _runs.isEmpty() )
+      {
+        return;
+      }
+
+      CrudProvider crud = Dependencies.instance().getCrudProvider();
+      List<Run> runs = new ArrayList<>( _runs );
+      _runs.clear();
+      _rows.clear();
+      for( Run run : runs )
+      {
+        switch( run._kind )
+        {
+          case Create:
+            crud.createAll( _c, run._ctxs );
+            break;
+          case Update:
+            crud.updateAll( _c, run._ctxs );
+            break;
+          case Delete:
+            crud.deleteAll( _c, run._ctxs );
+            break;
+        }
+      }
+    }
+
+    private static class Run
+    {
+      private final CrudKind _kind;
+      private final String _table;
+      private final List<UpdateContext<Entity>> _ctxs;
+
+      Run( CrudKind kind, String table )
+      {
+        _kind = kind;
+        _table = table;
+        _ctxs = new ArrayList<>();
+      }
+    }
+  }
+
   private class MySqlChangeCtx implements SqlChangeCtx
   {
     private final Connection _c;
@@ -0,0 +1,231 @@
+/*
+ * Copyright (c) 2023 - Manifold Systems LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package manifold.sql.rt.impl;
+
+import manifold.sql.rt.util.DbUtil;
+import manifold.util.ManExceptionUtil;
+import manifold.util.concurrent.Cache;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * SQL text generated by {@link BasicCrudProvider} for a CRUD operation. Statements are cached by operation, identifier
+ * quote string, table, columns, and parameter expressions, so once warmed up the same statement text is reused without
+ * building strings or consulting {@code DatabaseMetaData}.
+ * <p/>
+ * Note, parameter expressions are part of the key because some value accessors supply value-dependent expressions e.g.,
+ * bit literals for Postgres. For most types the expression is a plain {@code ?}.
+ */
+class CrudStatement
+{
+  enum Kind {Insert, Read, Update, Delete}
+
+  private static final Cache<Key, CrudStatement> STATEMENTS =
+    Cache.make( "CRUD Statement Cache", 1000, CrudStatement::make );
+
+  /** identifier quote strings by dbconfig name, avoids a metadata call per statement */
+  private static final Map<String, String> QUOTE_STRINGS = new ConcurrentHashMap<>();
+
+  private final String _sql;
+  private final boolean[] _skipParam;
+
+  private CrudStatement( String sql, boolean[] skipParam )
+  {
+    _sql = sql;
+    _skipParam = skipParam;
+  }
+
+  /**
+   * @param columns The columns of the statement. For {@link Kind#Insert} the inserted columns, for {@link Kind#Update}
+   *                the updated columns followed by the WHERE clause columns, otherwise the WHERE clause columns.
+   * @param exprs The parameter expression for each column, see {@link manifold.sql.rt.api.ValueAccessor#getParameterExpression}.
+   * @param setCount The number of leading columns that are assigned as opposed to compared in the WHERE clause.
+   */
+  static CrudStatement get( Connection c, String configName, Kind kind, String table, String[] columns, String[] exprs, int setCount ) throws SQLException
+  {
+    return STATEMENTS.get( new Key( kind, quoteString( c, configName ), table, columns, exprs, setCount ) );
+  }
+
+  String getSql()
+  {
+    return _sql;
+  }
+
+  /**
+   * True if the parameter expression for the column at {@code index} has no {@code ?} and therefore no parameter to set.
+   */
+  boolean isSkipParam( int index )
+  {
+    return _skipParam[index];
+  }
+
+  private static String quoteString( Connection c, String configName ) throws SQLException
+  {
+    if( configName == null )
+    {
+      return c.getMetaData().getIdentifierQuoteString();
+    }
+
+    String quoteStr = QUOTE_STRINGS.get( configName );
+    if( quoteStr == null )
+    {
+      quoteStr = c.getMetaData().getIdentifierQuoteString();
+      QUOTE_STRINGS.put( configName, quoteStr );
+    }
+    return quoteStr;
+  }
+
+  private static CrudStatement make( Key key )
+  {
+    try
+    {
+      return new CrudStatement( makeSql( key ), makeSkipParams( key ) );
+    }
+    catch( SQLException e )
+    {
+      throw ManExceptionUtil.unchecked( e );
+    }
+  }
+
+  private static boolean[] makeSkipParams( Key key )
+  {
+    boolean[] skipParam = new boolean[key._exprs.length];
+    for( int i = 0; i < skipParam.length; i++ )
+    {
+      skipParam[i] = !key._exprs[i].contains( "?" );
+    }
+    return skipParam;
+  }
+
+  private static String makeSql( Key key ) throws SQLException
+  {
+    String table = DbUtil.enquoteIdentifier( key._table, key._quoteStr );
+    StringBuilder sql = new StringBuilder();
+    switch( key._kind )
+    {
+      case Insert:
+        sql.append( "INSERT INTO " ).append( table ).append( "(" );
+        for( int i = 0; i < key._columns.length; i++ )
+        {
+          if( i > 0 )
+          {
+            sql.append( ", " );
+          }
+          sql.append( DbUtil.enquoteIdentifier( key._columns[i], key._quoteStr ) );
+        }
+        sql.append( ")" ).append( " VALUES (" );
+        for( int i = 0; i < key._exprs.length; i++ )
+        {
+          if( i > 0 )
+          {
+            sql.append( "," );
+          }
+          sql.append( key._exprs[i] );
+        }
+        sql.append( ")" );
+        break;
+
+      case Read:
+        sql.append( "SELECT * FROM " ).append( table ).append( " WHERE " );
+        appendWhere( key, sql );
+        break;
+
+      case Update:
+        sql.append( "UPDATE " ).append( table ).append( " SET\n" );
+        for( int i = 0; i < key._setCount; i++ )
+        {
+          if( i > 0 )
+          {
+            sql.append( ",\n" );
+          }
+          sql.append( DbUtil.enquoteIdentifier( key._columns[i], key._quoteStr ) ).append( " = " ).append( key._exprs[i] );
+        }
+        sql.append( "\nWHERE " );
+        appendWhere( key, sql );
+        break;
+
+      case Delete:
+        sql.append( "DELETE FROM " ).append( table ).append( " WHERE\n" );
+        appendWhere( key, sql );
+        break;
+
+      default:
+        throw new IllegalStateException( "Unexpected kind: " + key._kind );
+    }
+    return sql.toString();
+  }
+
+  private static void appendWhere( Key key, StringBuilder sql ) throws SQLException
+  {
+    for( int i = key._setCount; i < key._columns.length; i++ )
+    {
+      if( i > key._setCount )
+      {
+        sql.append( " AND " );
+      }
+      sql.append( DbUtil.enquoteIdentifier( key._columns[i], key._quoteStr ) ).append( " = " ).append( key._exprs[i] );
+    }
+  }
+
+  private static class Key
+  {
+    private final Kind _kind;
+    private final String _quoteStr;
+    private final String _table;
+    private final String[] _columns;
+    private final String[] _exprs;
+    private final int _setCount;
+    private final int _hash;
+
+    Key( Kind kind, String quoteStr, String table, String[] columns, String[] exprs, int setCount )
+    {
+      _kind = kind;
+      _quoteStr = quoteStr;
+      _table = table;
+      _columns = columns;
+      _exprs = exprs;
+      _setCount = setCount;
+      _hash = Objects.hash( kind, quoteStr, table, Arrays.hashCode( columns ), Arrays.hashCode( exprs ), setCount );
+    }
+
+    @Override
+    public boolean equals( Object o )
+    {
+      if( this == o ) return true;
+      if( !(o instanceof Key) ) return false;
+      Key key = (Key)o;
+      return _hash == key._hash &&
+        _setCount == key._setCount &&
+        _kind == key._kind &&
+        _quoteStr.equals( key._quoteStr ) &&
+        _table.equals( key._table ) &&
+        Arrays.equals( _columns, key._columns ) &&
+        Arrays.equals( _exprs, key._exprs );
+    }
+
+    @Override
+    public int hashCode()
+    {
+      return _hash;
+    }
+  }
+}
@@ -33,7 +33,15 @@ public class DbUtil
     // `foo` is a MySql identifier
     // ...
 
-    String quoteStr = metaData.getIdentifierQuoteString();
+    return enquoteIdentifier( id, metaData.getIdentifierQuoteString() );
+  }
+
+  /**
+   * Same as {@link #enquoteIdentifier(String, DatabaseMetaData)}, but with the identifier quote string already obtained
+   * via {@link DatabaseMetaData#getIdentifierQuoteString()}.
+   */
+  public static String enquoteIdentifier( String id, String quoteStr ) throws SQLException
+  {
     if( quoteStr.equals( " " ) )
     {
       // db does not support quoted identifiers
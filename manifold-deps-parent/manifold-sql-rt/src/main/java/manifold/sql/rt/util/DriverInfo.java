@@ -28,28 +28,30 @@ import java.util.Set;
 
 public enum DriverInfo
 {
-  DuckDB( "DuckDB", false, true ),
-  H2( "H2", false, false ),
-  MySQL( "MySQL", false, true ),
-  Oracle( "Oracle", true, false ),
-  Postgres( "PostgreSQL", false, false ),
-  SQLite( "SQLite", false, true ),
-  SqlServer( "SQL Server", true, false ),
-  UNTESTED( null, false, false ),
-  ERRANT( null, false, false );
+  DuckDB( "DuckDB", false, true, false ),
+  H2( "H2", false, false, true ),
+  MySQL( "MySQL", false, true, true ),
+  Oracle( "Oracle", true, false, false ),
+  Postgres( "PostgreSQL", false, false, true ),
+  SQLite( "SQLite", false, true, false ),
+  SqlServer( "SQL Server", true, false, false ),
+  UNTESTED( null, false, false, false ),
+  ERRANT( null, false, false, false );
 
   public static final Logger LOGGER = LoggerFactory.getLogger( DriverInfo.class );
 
   private final String _productName;
   private final boolean _requiresQueryExecForTableName;
   private final boolean _flakyParameterMetadata;
+  private final boolean _batchGeneratedKeys;
   private final Map<String, Set<String>> _driversInUse;
 
-  DriverInfo( String productName, boolean requiresQueryExecForTableName, boolean flakyParameterMetadata )
+  DriverInfo( String productName, boolean requiresQueryExecForTableName, boolean flakyParameterMetadata, boolean batchGeneratedKeys )
   {
     _productName = productName;
     _requiresQueryExecForTableName = requiresQueryExecForTableName;
     _flakyParameterMetadata = flakyParameterMetadata;
+    _batchGeneratedKeys = batchGeneratedKeys;
     _driversInUse = new LinkedHashMap<>();
   }
 
@@ -104,6 +106,17 @@ public enum DriverInfo
     return _flakyParameterMetadata;
   }
 
+  /**
+   * True if {@code getGeneratedKeys()} after {@code executeBatch()} returns a row for each statement of the batch, in batch
+   * order. Inserts and updates are batched only with these drivers, otherwise the rows could not be reflected reliably.
+   * <p/>
+   * Supporters: {@link #H2}, {@link #MySQL}, {@link #Postgres}
+   */
+  public boolean supportsBatchGeneratedKeys()
+  {
+    return _batchGeneratedKeys;
+  }
+
   public static DriverInfo lookup( DatabaseMetaData metadata ) throws SQLException
   {
     DriverInfo driver = lookup( metadata.getDriverName() );
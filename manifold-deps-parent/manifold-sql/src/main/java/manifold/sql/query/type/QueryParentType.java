@@ -147,9 +147,16 @@ class QueryParentType extends SqlParentType
   {
     addFetchMethods( srcClass, rowType, "fetch", "Iterable<$rowType>" );
     addFetchMethods( srcClass, rowType, "fetchOne", rowType );
+    addFetchMethods( srcClass, rowType, "stream", "StreamingResult<$rowType>" );
+    // stream(int fetchSize, ...) overloads
+    addFetchMethods( srcClass, rowType, "stream", "StreamingResult<$rowType>", true );
+  }
+  private void addFetchMethods( SrcLinkedClass srcClass, String rowType, String methodName, String returnType )
+  {
+    addFetchMethods( srcClass, rowType, methodName, returnType, false );
   }
   private void addFetchMethods( SrcLinkedClass srcClass, @SuppressWarnings( "unused" ) String rowType,
-                                String methodName, @SuppressWarnings( "unused" ) String returnType )
+                                String methodName, @SuppressWarnings( "unused" ) String returnType, boolean fetchSize )
   {
     //noinspection unused
     String configName = _model.getScope().getDbconfig().getName();
@@ -158,6 +165,10 @@ class QueryParentType extends SqlParentType
       .name( methodName )
       .modifiers( isFragment() ? Flags.DEFAULT : Modifier.STATIC )
       .returns( new SrcType( returnType ) );
+    if( fetchSize )
+    {
+      method.addParam( "fetchSize", int.class );
+    }
     addRequiredParameters( method );
     StringBuilder sb = new StringBuilder();
     sb.append( "return $methodName(Dependencies.instance().getDefaultTxScopeProvider().defaultScope($configName.class)" );
@@ -172,15 +183,19 @@ class QueryParentType extends SqlParentType
       .modifiers( isFragment() ? Flags.DEFAULT : Modifier.STATIC )
       .addParam( "txScope", TxScope.class )
       .returns( new SrcType( returnType ) );
+    if( fetchSize )
+    {
+      method.addParam( "fetchSize", int.class );
+    }
     addRequiredParameters( method );
     sb = new StringBuilder();
     sb.append( "DataBindings paramBindings = new DataBindings();\n" );
     int i = 0;
     for( SrcParameter param : method.getParameters() )
     {
-      if( i++ == 0 )
+      if( i++ < (fetchSize ? 2 : 1) )
       {
-        // skip txScope param
+        // skip txScope and fetchSize params
         continue;
       }
       //noinspection unused
@@ -205,7 +220,7 @@ class QueryParentType extends SqlParentType
     sb.append(
       " ),\n" +
       "      \"$query\"\n" +
-      "    ).$methodName();" );
+      "    ).$methodName(" + (fetchSize ? "fetchSize" : "") + ");" );
     method.body( sb.toString() );
     srcClass.addMethod( method );
   }
@@ -502,6 +517,7 @@ class QueryParentType extends SqlParentType
     srcClass.addImport( Query.class );
     srcClass.addImport( ResultRow.class );
     srcClass.addImport( Runner.class );
+    srcClass.addImport( StreamingResult.class );
     srcClass.addImport( Bindings.class );
     srcClass.addImport( TxScope.class );
     srcClass.addImport( Dependencies.class );
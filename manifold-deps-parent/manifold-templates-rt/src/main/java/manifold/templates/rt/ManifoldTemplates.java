@@ -22,7 +22,11 @@ import manifold.templates.rt.runtime.ILayout;
 public class ManifoldTemplates
 {
   private static HashMap<String, ILayout> DEFAULT_LAYOUT_MAP;
-  private static TraceCallback TRACER = (c, t) -> {}; // NO-OP tracer by default
+  private static final TraceCallback NO_TRACE = (c, t) -> {};
+  private static TraceCallback TRACER = NO_TRACE; // NO-OP tracer by default
+  private static volatile TemplateMetrics METRICS;
+  // templates read render time only if tracing or metrics are on
+  private static volatile boolean TIMED;
 
   static
   {
@@ -51,9 +55,54 @@ public class ManifoldTemplates
     traceWith( (template, timeToRender) -> System.out.println( " - Template " + template.getName() + " rendered in " + timeToRender + "ms" ) );
   }
 
+  /**
+   * @param tracer Called with the render time of each template, null turns tracing off
+   */
   public static void traceWith( TraceCallback tracer )
   {
-    TRACER = tracer;
+    TRACER = tracer == null ? NO_TRACE : tracer;
+    updateTimed();
+  }
+
+  /**
+   * Start recording render counts and latencies per template. Metrics are recorded only by templates compiled with
+   * timing, which is the default (see the {@code manifold.templates.timing} compiler property).
+   *
+   * @return The metrics, recording starts over if already enabled
+   */
+  public static TemplateMetrics enableMetrics()
+  {
+    TemplateMetrics metrics = new TemplateMetrics();
+    METRICS = metrics;
+    updateTimed();
+    return metrics;
+  }
+
+  public static void disableMetrics()
+  {
+    METRICS = null;
+    updateTimed();
+  }
+
+  /**
+   * @return The metrics if enabled, otherwise null
+   */
+  public static TemplateMetrics getMetrics()
+  {
+    return METRICS;
+  }
+
+  /**
+   * @return True if templates should time rendering for a tracer or metrics
+   */
+  public static boolean isTimed()
+  {
+    return TIMED;
+  }
+
+  private static void updateTimed()
+  {
+    TIMED = TRACER != NO_TRACE || METRICS != null;
   }
 
   public static ILayout getDefaultLayout( String packageName )
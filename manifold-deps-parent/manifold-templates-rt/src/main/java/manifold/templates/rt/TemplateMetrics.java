@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2023 - Manifold Systems LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package manifold.templates.rt;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-template render counts and latency histograms, see {@link ManifoldTemplates#enableMetrics()}.
+ * <p>
+ * Latencies are counted in power-of-two microsecond buckets: bucket 0 counts renders under 1µs, bucket {@code i}
+ * counts renders from 2<sup>i-1</sup>µs up to 2<sup>i</sup>µs, the last bucket counts everything slower.
+ */
+public class TemplateMetrics
+{
+  public static final int BUCKETS = 32;
+
+  private final Map<Class<?>, Stats> _stats = new ConcurrentHashMap<>();
+
+  TemplateMetrics()
+  {
+  }
+
+  public void record( Class<?> template, long nanos )
+  {
+    Stats stats = _stats.get( template );
+    if( stats == null )
+    {
+      stats = _stats.computeIfAbsent( template, k -> new Stats() );
+    }
+    stats.record( nanos );
+  }
+
+  /**
+   * @return The templates rendered since metrics were enabled
+   */
+  public Set<Class<?>> getTemplates()
+  {
+    return Collections.unmodifiableSet( _stats.keySet() );
+  }
+
+  /**
+   * @return The metrics of {@code template} or null if it has not rendered since metrics were enabled
+   */
+  public Stats get( Class<?> template )
+  {
+    return _stats.get( template );
+  }
+
+  public void reset()
+  {
+    _stats.clear();
+  }
+
+  /**
+   * @return The exclusive upper bound in nanoseconds of latency bucket {@code bucket}
+   */
+  public static long getBucketLimitNanos( int bucket )
+  {
+    return bucket == BUCKETS - 1 ? Long.MAX_VALUE : (1L << bucket) * 1000;
+  }
+
+  static int bucket( long nanos )
+  {
+    long micros = nanos / 1000;
+    return Math.min( BUCKETS - 1, 64 - Long.numberOfLeadingZeros( micros ) );
+  }
+
+  public static class Stats
+  {
+    private final LongAdder _count = new LongAdder();
+    private final LongAdder _totalNanos = new LongAdder();
+    /** an adder per bucket, so concurrent renders of similar latency don't contend on one counter */
+    private final LongAdder[] _histogram = new LongAdder[BUCKETS];
+
+    private Stats()
+    {
+      for( int i = 0; i < BUCKETS; i++ )
+      {
+        _histogram[i] = new LongAdder();
+      }
+    }
+
+    private void record( long nanos )
+    {
+      _count.increment();
+      _totalNanos.add( nanos );
+      _histogram[bucket( nanos )].increment();
+    }
+
+    public long getCount()
+    {
+      return _count.sum();
+    }
+
+    public long getTotalNanos()
+    {
+      return _totalNanos.sum();
+    }
+
+    /**
+     * @return A snapshot of the latency histogram, indexed by bucket
+     */
+    public long[] getHistogram()
+    {
+      long[] histogram = new long[BUCKETS];
+      for( int i = 0; i < BUCKETS; i++ )
+      {
+        histogram[i] = _histogram[i].sum();
+      }
+      return histogram;
+    }
+  }
+}
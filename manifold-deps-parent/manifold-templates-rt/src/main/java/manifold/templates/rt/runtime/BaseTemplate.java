@@ -20,9 +20,10 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import manifold.templates.rt.ManifoldTemplates;
+import manifold.templates.rt.TemplateMetrics;
 import manifold.util.ManExceptionUtil;
+import manifold.util.concurrent.ClassLocal;
 import manifold.rt.api.util.StreamUtil;
-import manifold.util.concurrent.LocklessLazyVar;
 
 
 import static java.nio.charset.StandardCharsets.UTF_8;
@@ -33,20 +34,13 @@ import static java.nio.charset.StandardCharsets.UTF_8;
  */
 public abstract class BaseTemplate
 {
+  // the template text is read once per template class and shared by its instances
+  private static final ClassLocal<TemplateText> TEMPLATE_TEXT = new ClassLocal<>( type -> new TemplateText() );
+
+  // start time of a render that is not timed
+  private static final long UNTIMED = Long.MIN_VALUE;
+
   private ILayout _explicitLayout = null;
-  private LocklessLazyVar<String> _templateText = LocklessLazyVar.make(
-    () -> {
-      try
-      {
-        InputStreamReader reader = new InputStreamReader( getTemplateResourceAsStream(), UTF_8 );
-        return StreamUtil.getContent( reader ).replace( "\r\n", "\n" );
-      }
-      catch( Exception e )
-      {
-        throw ManExceptionUtil.unchecked( e );
-      }
-    }
-  );
 
   /**
    * Open an {@link InputStream} for the template resource file in the classpath/module-path.
@@ -63,7 +57,42 @@ public abstract class BaseTemplate
    */
   protected String getTemplateText()
   {
-    return _templateText.get();
+    TemplateText templateText = TEMPLATE_TEXT.get( getClass() );
+    String text = templateText._text;
+    if( text == null )
+    {
+      // racing renders read the same text
+      templateText._text = text = readTemplateText();
+    }
+    return text;
+  }
+
+  /**
+   * Returns the static text segments of this template class, the generated template appends them in place of
+   * {@link #getTemplateText()} ranges.
+   */
+  protected TemplateSegments getTemplateSegments()
+  {
+    TemplateText templateText = TEMPLATE_TEXT.get( getClass() );
+    TemplateSegments segments = templateText._segments;
+    if( segments == null )
+    {
+      templateText._segments = segments = new TemplateSegments( getTemplateText() );
+    }
+    return segments;
+  }
+
+  private String readTemplateText()
+  {
+    try
+    {
+      InputStreamReader reader = new InputStreamReader( getTemplateResourceAsStream(), UTF_8 );
+      return StreamUtil.getContent( reader ).replace( "\r\n", "\n" );
+    }
+    catch( Exception e )
+    {
+      throw ManExceptionUtil.unchecked( e );
+    }
   }
 
   protected void setLayout( ILayout layout )
@@ -97,6 +126,41 @@ public abstract class BaseTemplate
     }
   }
 
+  /**
+   * Called by the generated template before rendering its content.
+   *
+   * @return The start time to pass to {@link #stopTiming(long)}, reads the clock only if
+   * {@link ManifoldTemplates#isTimed()}
+   */
+  protected long startTiming()
+  {
+    return ManifoldTemplates.isTimed() ? System.nanoTime() : UNTIMED;
+  }
+
+  /**
+   * Called by the generated template after rendering its content, records the render in the enabled
+   * {@link TemplateMetrics}.
+   *
+   * @return The render time in milliseconds or -1 if the render was not timed
+   */
+  protected long stopTiming( long startTime )
+  {
+    if( startTime == UNTIMED )
+    {
+      return -1;
+    }
+    long nanos = System.nanoTime() - startTime;
+    TemplateMetrics metrics = ManifoldTemplates.getMetrics();
+    if( metrics != null )
+    {
+      metrics.record( getClass(), nanos );
+    }
+    return nanos / 1000000;
+  }
+
+  /**
+   * @param renderTime The render time in milliseconds, or -1 if the template was not timed
+   */
   @SuppressWarnings("unused")
   protected void afterRender( Appendable buffer, ILayout override, boolean topLevelTemplate, long renderTime ) throws IOException
   {
@@ -110,7 +174,10 @@ public abstract class BaseTemplate
       // E.g., to trigger indentation for the `nest` directive
       ((WrapAppendable)buffer).complete();
     }
-    ManifoldTemplates.getTracer().trace( this.getClass(), renderTime );
+    if( renderTime >= 0 )
+    {
+      ManifoldTemplates.getTracer().trace( this.getClass(), renderTime );
+    }
   }
 
   @SuppressWarnings("unused")
@@ -179,4 +246,10 @@ public abstract class BaseTemplate
   {
     return o == null ? "" : o.toString();
   }
+
+  private static class TemplateText
+  {
+    private volatile String _text;
+    private volatile TemplateSegments _segments;
+  }
 }
@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2023 - Manifold Systems LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package manifold.templates.rt.runtime;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * The static text segments of a template, shared by all renders of the template class. A segment is extracted from the
+ * template text the first time it renders, thereafter rendering it appends the same {@code String}. Likewise a segment
+ * is encoded to UTF-8 once for rendering to a {@link Utf8Appendable}.
+ */
+public final class TemplateSegments
+{
+  private final String _text;
+  private volatile String[] _segments;
+  private volatile byte[][] _encoded;
+
+  TemplateSegments( String text )
+  {
+    _text = text;
+    _segments = new String[0];
+    _encoded = new byte[0][];
+  }
+
+  public String getText()
+  {
+    return _text;
+  }
+
+  /**
+   * Appends a segment to {@code appendable}. If the target is a {@link Utf8Appendable} the segment is written from its
+   * cached UTF-8 bytes.
+   *
+   * @param index The index of the segment in the template class
+   * @param start The start offset of the segment in the template text
+   * @param end   The end offset of the segment in the template text
+   */
+  public void appendTo( Appendable appendable, int index, int start, int end ) throws IOException
+  {
+    if( appendable instanceof WrapAppendable )
+    {
+      ((WrapAppendable)appendable).appendSegment( this, index, start, end );
+    }
+    else if( appendable instanceof Utf8Appendable )
+    {
+      ((Utf8Appendable)appendable).write( getBytes( index, start, end ) );
+    }
+    else
+    {
+      appendable.append( get( index, start, end ) );
+    }
+  }
+
+  /**
+   * @param index The index of the segment in the template class
+   * @param start The start offset of the segment in the template text
+   * @param end   The end offset of the segment in the template text
+   * @return The text of the segment
+   */
+  public String get( int index, int start, int end )
+  {
+    String[] segments = _segments;
+    if( index < segments.length )
+    {
+      // an element may be set after the array was published, reading it racily is safe since String is immutable
+      String segment = segments[index];
+      if( segment != null )
+      {
+        return segment;
+      }
+    }
+    return add( index, start, end );
+  }
+
+  private synchronized String add( int index, int start, int end )
+  {
+    String segment = _text.substring( start, end );
+    String[] segments = _segments;
+    if( index < segments.length )
+    {
+      segments[index] = segment;
+    }
+    else
+    {
+      segments = Arrays.copyOf( segments, Math.max( index + 1, segments.length * 2 ) );
+      segments[index] = segment;
+      _segments = segments;
+    }
+    return segment;
+  }
+
+  /**
+   * @param index The index of the segment in the template class
+   * @param start The start offset of the segment in the template text
+   * @param end   The end offset of the segment in the template text
+   * @return The UTF-8 encoded text of the segment, callers must not modify the array
+   */
+  public byte[] getBytes( int index, int start, int end )
+  {
+    byte[][] encoded = _encoded;
+    if( index < encoded.length )
+    {
+      byte[] bytes = encoded[index];
+      if( bytes != null )
+      {
+        return bytes;
+      }
+    }
+    return encode( index, start, end );
+  }
+
+  private synchronized byte[] encode( int index, int start, int end )
+  {
+    byte[] bytes = get( index, start, end ).getBytes( UTF_8 );
+    // an array's contents are not safely published by a racy read as a String's are, so the new element is published
+    // with a copy of the array through the volatile field, never written into an array readers may already have
+    byte[][] encoded = _encoded;
+    encoded = Arrays.copyOf( encoded, Math.max( index + 1, encoded.length ) );
+    encoded[index] = bytes;
+    _encoded = encoded;
+    return bytes;
+  }
+}
@@ -0,0 +1,237 @@
+/*
+ * Copyright (c) 2023 - Manifold Systems LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package manifold.templates.rt.runtime;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * An {@link Appendable} that renders a template as UTF-8 bytes to an {@link OutputStream} or a {@link ByteBuffer}.
+ * Static template text is written from bytes encoded once per template class, only the results of expressions are
+ * encoded as they render.
+ * <p>
+ * Output is buffered, call {@link #flush()} after rendering. The generated {@code renderBytesInto(OutputStream, ...)}
+ * methods do that for you.
+ */
+public class Utf8Appendable implements Appendable, Flushable
+{
+  private static final int DEFAULT_BUFFER_SIZE = 8192;
+  private static final byte REPLACEMENT = '?';
+
+  private final OutputStream _out;
+  private final byte[] _buf;
+  private int _pos;
+  private char _pendingHighSurrogate;
+
+  public Utf8Appendable( OutputStream out )
+  {
+    this( out, DEFAULT_BUFFER_SIZE );
+  }
+
+  public Utf8Appendable( OutputStream out, int bufferSize )
+  {
+    if( bufferSize < 4 )
+    {
+      throw new IllegalArgumentException( "Buffer size must be at least 4" );
+    }
+    _out = out;
+    _buf = new byte[bufferSize];
+  }
+
+  /**
+   * Renders into {@code buffer} starting at its position, a {@link java.nio.BufferOverflowException} is thrown if
+   * the content does not fit.
+   */
+  public Utf8Appendable( ByteBuffer buffer )
+  {
+    this( new ByteBufferOutputStream( buffer ) );
+  }
+
+  @Override
+  public Utf8Appendable append( CharSequence csq ) throws IOException
+  {
+    if( csq == null )
+    {
+      csq = "null";
+    }
+    return append( csq, 0, csq.length() );
+  }
+
+  @Override
+  public Utf8Appendable append( CharSequence csq, int start, int end ) throws IOException
+  {
+    if( csq == null )
+    {
+      csq = "null";
+    }
+    for( int i = start; i < end; i++ )
+    {
+      char c = csq.charAt( i );
+      if( c < 0x80 && _pendingHighSurrogate == 0 )
+      {
+        // ascii run
+        if( _pos == _buf.length )
+        {
+          flushBuffer();
+        }
+        _buf[_pos++] = (byte)c;
+      }
+      else
+      {
+        encode( c );
+      }
+    }
+    return this;
+  }
+
+  @Override
+  public Utf8Appendable append( char c ) throws IOException
+  {
+    encode( c );
+    return this;
+  }
+
+  /**
+   * Writes already UTF-8 encoded bytes, such as a template's static text.
+   */
+  public void write( byte[] bytes ) throws IOException
+  {
+    if( _pendingHighSurrogate != 0 )
+    {
+      _pendingHighSurrogate = 0;
+      writeByte( REPLACEMENT );
+    }
+    if( bytes.length > _buf.length - _pos )
+    {
+      flushBuffer();
+      if( bytes.length >= _buf.length )
+      {
+        _out.write( bytes );
+        return;
+      }
+    }
+    System.arraycopy( bytes, 0, _buf, _pos, bytes.length );
+    _pos += bytes.length;
+  }
+
+  /**
+   * Writes buffered bytes and flushes the underlying stream. A trailing unpaired high surrogate is written as '?'.
+   */
+  @Override
+  public void flush() throws IOException
+  {
+    if( _pendingHighSurrogate != 0 )
+    {
+      _pendingHighSurrogate = 0;
+      writeByte( REPLACEMENT );
+    }
+    flushBuffer();
+    _out.flush();
+  }
+
+  private void encode( char c ) throws IOException
+  {
+    if( _buf.length - _pos < 4 )
+    {
+      flushBuffer();
+    }
+
+    if( _pendingHighSurrogate != 0 )
+    {
+      char high = _pendingHighSurrogate;
+      _pendingHighSurrogate = 0;
+      if( Character.isLowSurrogate( c ) )
+      {
+        int cp = Character.toCodePoint( high, c );
+        _buf[_pos++] = (byte)(0xF0 | (cp >> 18));
+        _buf[_pos++] = (byte)(0x80 | ((cp >> 12) & 0x3F));
+        _buf[_pos++] = (byte)(0x80 | ((cp >> 6) & 0x3F));
+        _buf[_pos++] = (byte)(0x80 | (cp & 0x3F));
+        return;
+      }
+      _buf[_pos++] = REPLACEMENT;
+    }
+
+    if( c < 0x80 )
+    {
+      _buf[_pos++] = (byte)c;
+    }
+    else if( c < 0x800 )
+    {
+      _buf[_pos++] = (byte)(0xC0 | (c >> 6));
+      _buf[_pos++] = (byte)(0x80 | (c & 0x3F));
+    }
+    else if( Character.isHighSurrogate( c ) )
+    {
+      // may be completed by the next append
+      _pendingHighSurrogate = c;
+    }
+    else if( Character.isLowSurrogate( c ) )
+    {
+      _buf[_pos++] = REPLACEMENT;
+    }
+    else
+    {
+      _buf[_pos++] = (byte)(0xE0 | (c >> 12));
+      _buf[_pos++] = (byte)(0x80 | ((c >> 6) & 0x3F));
+      _buf[_pos++] = (byte)(0x80 | (c & 0x3F));
+    }
+  }
+
+  private void writeByte( byte b ) throws IOException
+  {
+    if( _pos == _buf.length )
+    {
+      flushBuffer();
+    }
+    _buf[_pos++] = b;
+  }
+
+  private void flushBuffer() throws IOException
+  {
+    if( _pos > 0 )
+    {
+      _out.write( _buf, 0, _pos );
+      _pos = 0;
+    }
+  }
+
+  private static class ByteBufferOutputStream extends OutputStream
+  {
+    private final ByteBuffer _buffer;
+
+    ByteBufferOutputStream( ByteBuffer buffer )
+    {
+      _buffer = buffer;
+    }
+
+    @Override
+    public void write( int b )
+    {
+      _buffer.put( (byte)b );
+    }
+
+    @Override
+    public void write( byte[] b, int off, int len )
+    {
+      _buffer.put( b, off, len );
+    }
+  }
+}
@@ -76,6 +76,25 @@ public class WrapAppendable implements Appendable
     }
   }
 
+  void appendSegment( TemplateSegments segments, int index, int start, int end )
+  {
+    try
+    {
+      if( _indentation.length() == 0 )
+      {
+        segments.appendTo( _appendable, index, start, end );
+      }
+      else
+      {
+        _indentHolder.append( segments.get( index, start, end ) );
+      }
+    }
+    catch( IOException e )
+    {
+      throw ManExceptionUtil.unchecked( e );
+    }
+  }
+
   void complete()
   {
     if( _indentation.length() > 0 )
@@ -99,15 +118,20 @@ public class WrapAppendable implements Appendable
   {
     try
     {
+      String text = csq.toString();
       _appendable.append( _indentation );
-      for( int i = 0; i < csq.length(); i++ )
+      int lineStart = 0;
+      int length = text.length();
+      for( int i = text.indexOf( '\n' ); i >= 0; i = text.indexOf( '\n', lineStart ) )
+      {
+        // append whole lines, not chars
+        _appendable.append( text, lineStart, i + 1 );
+        _appendable.append( _indentation );
+        lineStart = i + 1;
+      }
+      if( lineStart < length )
       {
-        char c = csq.charAt( i );
-        _appendable.append( c );
-        if( c == '\n' )
-        {
-          _appendable.append( _indentation );
-        }
+        _appendable.append( text, lineStart, length );
       }
     }
     catch( IOException ioe )
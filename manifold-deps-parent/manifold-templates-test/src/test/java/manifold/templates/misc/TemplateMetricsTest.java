@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2023 - Manifold Systems LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *   
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package manifold.templates.misc;
+
+import directives.nest.Outer;
+import java.util.ArrayList;
+import java.util.List;
+import manifold.templates.codegen.TemplateGen;
+import manifold.templates.rt.ManifoldTemplates;
+import manifold.templates.rt.TemplateMetrics;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TemplateMetricsTest
+{
+  @Test
+  public void testUntimedByDefault()
+  {
+    assertFalse( ManifoldTemplates.isTimed() );
+    assertNull( ManifoldTemplates.getMetrics() );
+  }
+
+  @Test
+  public void testMetrics()
+  {
+    TemplateMetrics metrics = ManifoldTemplates.enableMetrics();
+    try
+    {
+      assertTrue( ManifoldTemplates.isTimed() );
+      for( int i = 0; i < 3; i++ )
+      {
+        Outer.render();
+      }
+      TemplateMetrics.Stats stats = metrics.get( Outer.class );
+      assertEquals( 3, stats.getCount() );
+      long sum = 0;
+      for( long count : stats.getHistogram() )
+      {
+        sum += count;
+      }
+      assertEquals( 3, sum );
+      assertTrue( metrics.getTemplates().size() > 1 ); // includes nested templates
+    }
+    finally
+    {
+      ManifoldTemplates.disableMetrics();
+    }
+    assertFalse( ManifoldTemplates.isTimed() );
+  }
+
+  @Test
+  public void testTracer()
+  {
+    List<Class> traced = new ArrayList<>();
+    ManifoldTemplates.traceWith( (template, timeToRender) -> traced.add( template ) );
+    try
+    {
+      misc.TestNewLines.render( "x" );
+      assertTrue( traced.contains( misc.TestNewLines.class ) );
+    }
+    finally
+    {
+      ManifoldTemplates.traceWith( null );
+    }
+    assertFalse( ManifoldTemplates.isTimed() );
+  }
+
+  @Test
+  public void testBuckets()
+  {
+    assertEquals( 1000, TemplateMetrics.getBucketLimitNanos( 0 ) );
+    assertEquals( 2000, TemplateMetrics.getBucketLimitNanos( 1 ) );
+    assertEquals( Long.MAX_VALUE, TemplateMetrics.getBucketLimitNanos( TemplateMetrics.BUCKETS - 1 ) );
+  }
+
+  @Test
+  public void testTimingCompiledOut()
+  {
+    String source = "<%@ params(String name) %>Hi \${name}";
+    String timed = new TemplateGen().generateCode( "testing.Timing", source, null, null, "Timing.html.mtl" );
+    assertTrue( timed.contains( "startTiming()" ) );
+
+    System.setProperty( TemplateGen.TIMING_PROPERTY, "false" );
+    try
+    {
+      String untimed = new TemplateGen().generateCode( "testing.Timing", source, null, null, "Timing.html.mtl" );
+      assertFalse( untimed.contains( "startTiming()" ) );
+      assertFalse( untimed.contains( "nanoTime" ) );
+      assertTrue( untimed.contains( "afterRender(buffer, overrideLayout, true, -1);" ) );
+    }
+    finally
+    {
+      System.clearProperty( TemplateGen.TIMING_PROPERTY );
+    }
+  }
+}
@@ -0,0 +1,45 @@
+package manifold.templates.misc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class TemplateSegmentsTest
+{
+  @Test
+  public void testRendersShareTemplateText()
+  {
+    String first = misc.TestNewLines.render( "alpha" );
+    String second = misc.TestNewLines.render( "alpha2" );
+    assertEquals( first.replace( "alpha", "alpha2" ), second );
+    assertEquals( first, misc.TestNewLines.render( "alpha" ) );
+  }
+
+  @Test
+  public void testConcurrentRenders() throws Exception
+  {
+    String expected = misc.BigassContentChunkTest.render( "hi" );
+    ExecutorService executor = Executors.newFixedThreadPool( 4 );
+    try
+    {
+      List<Future<String>> results = new ArrayList<>();
+      for( int i = 0; i < 100; i++ )
+      {
+        results.add( executor.submit( () -> misc.BigassContentChunkTest.render( "hi" ) ) );
+      }
+      for( Future<String> result : results )
+      {
+        assertEquals( expected, result.get() );
+      }
+    }
+    finally
+    {
+      executor.shutdown();
+    }
+  }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2023 - Manifold Systems LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *   
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package manifold.templates.misc;
+
+import directives.layouts.IsLayout;
+import directives.layouts.PlainFile;
+import directives.nest.Outer;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import manifold.templates.rt.runtime.Utf8Appendable;
+import org.junit.Test;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+
+public class Utf8AppendableTest
+{
+  @Test
+  public void testRenderToOutputStream()
+  {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    misc.Utf8Content.renderBytesInto( out, "Jürgen 😀" );
+    assertEquals( misc.Utf8Content.render( "Jürgen 😀" ), new String( out.toByteArray(), UTF_8 ) );
+    assertEquals( "Grüße, Jürgen 😀 — ½ € 𝄞\ndone\n", new String( out.toByteArray(), UTF_8 ) );
+  }
+
+  @Test
+  public void testNestToOutputStream()
+  {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    Outer.renderBytesInto( out );
+    assertEquals( Outer.render(), new String( out.toByteArray(), UTF_8 ) );
+  }
+
+  @Test
+  public void testLayoutToOutputStream()
+  {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    PlainFile.withLayout( IsLayout.asLayout() ).renderBytesInto( out );
+    assertEquals( "HeaderPlainFooter", new String( out.toByteArray(), UTF_8 ) );
+  }
+
+  @Test
+  public void testPrintStreamIsAppendable() throws Exception
+  {
+    // a PrintStream is both an OutputStream and an Appendable, renderInto() is not ambiguous
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    PrintStream printStream = new PrintStream( out, true, "UTF-8" );
+    misc.Utf8Content.renderInto( printStream, "x" );
+    printStream.flush();
+    assertEquals( misc.Utf8Content.render( "x" ), new String( out.toByteArray(), UTF_8 ) );
+  }
+
+  @Test
+  public void testSmallBufferAndSplitSurrogates() throws Exception
+  {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    Utf8Appendable appendable = new Utf8Appendable( out, 4 );
+    String text = "a€b😀c𝄞";
+    for( int i = 0; i < text.length(); i++ )
+    {
+      appendable.append( text.charAt( i ) );
+    }
+    appendable.append( text, 1, text.length() );
+    appendable.write( "ü".getBytes( UTF_8 ) );
+    appendable.flush();
+    assertEquals( text + text.substring( 1 ) + "ü", new String( out.toByteArray(), UTF_8 ) );
+  }
+
+  @Test
+  public void testUnpairedSurrogates() throws Exception
+  {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    Utf8Appendable appendable = new Utf8Appendable( out );
+    appendable.append( "x\uD83Dy\uDE00z\uD83D" );
+    appendable.flush();
+    assertEquals( "x?y?z?", new String( out.toByteArray(), UTF_8 ) );
+  }
+
+  @Test
+  public void testRenderToByteBuffer() throws Exception
+  {
+    ByteBuffer buffer = ByteBuffer.allocate( 64 );
+    Utf8Appendable appendable = new Utf8Appendable( buffer );
+    misc.Utf8Content.renderInto( appendable, "x" );
+    appendable.flush();
+    assertEquals( misc.Utf8Content.render( "x" ), new String( buffer.array(), 0, buffer.position(), UTF_8 ) );
+  }
+}
@@ -0,0 +1,51 @@
+package manifold.templates.runtime;
+
+import org.junit.Test;
+import runtime.*;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class RuntimeErrorTest
+{
+  @Test
+  public void errorReportsTemplateLine()
+  {
+    try
+    {
+      BasicRuntimeError.mySection.render( null );
+      fail();
+    }
+    catch( NullPointerException e )
+    {
+      assertTemplateLine( e, "BasicRuntimeError.txt.mtl", 9 );
+    }
+  }
+
+  @Test
+  public void errorInLayoutReportsTemplateLine()
+  {
+    try
+    {
+      HasLayoutRuntimeError.render();
+      fail();
+    }
+    catch( NullPointerException e )
+    {
+      assertTemplateLine( e, "LayoutWRuntimeError.txt.mtl", 4 );
+    }
+  }
+
+  private static void assertTemplateLine( Exception e, String fileName, int line )
+  {
+    for( StackTraceElement element: e.getStackTrace() )
+    {
+      if( fileName.equals( element.getFileName() ) )
+      {
+        assertEquals( line, element.getLineNumber() );
+        return;
+      }
+    }
+    fail( "No stack trace element of " + fileName );
+  }
+}
@@ -45,9 +45,18 @@ public class TemplateGen
 {
   private static final String BASE_CLASS_NAME = "BaseTemplate";
   private static final String LAYOUT_INTERFACE = "ILayout";
+  /**
+   * Compiler property to leave out render timing for tracing and metrics, e.g. {@code -Dmanifold.templates.timing=false}
+   */
+  public static final String TIMING_PROPERTY = "manifold.templates.timing";
 
   private List<TemplateIssue> _issues = new ArrayList<>();
 
+  private static boolean isTimed()
+  {
+    return Boolean.parseBoolean( System.getProperty( TIMING_PROPERTY, "true" ) );
+  }
+
   public String generateCode( String fullyQualifiedName, String source, IFile file, URI fileUri, String fileName )
   {
     FileGenerator generator = new FileGenerator( fullyQualifiedName, file, fileUri, fileName, source );
@@ -84,6 +93,7 @@ public class TemplateGen
     Directive layoutDir;
     int contentPos;
     String testSource;
+    int segmentCount;
     private IFile _file;
 
     //only for the outermost class
@@ -638,12 +648,15 @@ public class TemplateGen
       else
       {
         String isOuterTemplate = String.valueOf( _currClass.depth == 0 );
+        boolean timed = isTimed();
         _sb.newLine( "            beforeRender(buffer, overrideLayout, " ).append( isOuterTemplate ).append( ");\n" );
-        _sb.newLine( "            long startTime = System.nanoTime();\n" );
+        if( timed )
+        {
+          _sb.newLine( "            long startTime = startTiming();\n" );
+        }
         makeFuncContent( _currClass.startTokenPos, _currClass.endTokenPos );
-        _sb.newLine( "            long endTime = System.nanoTime();\n" );
-        _sb.newLine( "            long duration = (endTime - startTime)/1000000;\n" );
-        _sb.newLine( "            afterRender(buffer, overrideLayout, " ).append( isOuterTemplate ).append( ", duration);\n" );
+        _sb.newLine( "            afterRender(buffer, overrideLayout, " ).append( isOuterTemplate )
+          .append( timed ? ", stopTiming(startTime));\n" : ", -1);\n" );
       }
 
       if( needsToCatchIO )
@@ -680,6 +693,24 @@ public class TemplateGen
       appendArgs();
       _sb.append( ");\n" )
         .newLine( "    }\n\n" );
+
+      // render UTF-8 bytes, static text is written pre-encoded
+      _sb.newLine( "    public static void renderBytesInto(java.io.OutputStream outputStream" ).append( safeTrailingString( _currClass.params ) ).append( ") {\n" )
+        .newLine( "      Utf8Appendable buffer = new Utf8Appendable(outputStream);" )
+        .newLine( "      renderInto(buffer" );
+      appendArgs();
+      _sb.append( ");" );
+      appendFlush( "buffer" );
+      _sb.newLine( "    }\n\n" );
+    }
+
+    private void appendFlush( String buffer )
+    {
+      _sb.newLine( "      try {" )
+        .newLine( "        " ).append( buffer ).append( ".flush();" )
+        .newLine( "      } catch (IOException e) {" )
+        .newLine( "        throw new RuntimeException(e);" )
+        .newLine( "      }" );
     }
 
     private void addNestInto()
@@ -730,6 +761,14 @@ public class TemplateGen
       appendArgs();
       _sb.append( ");" )
         .newLine( "    }\n" )
+        // renderBytesInto
+        .newLine( "    public void renderBytesInto(java.io.OutputStream outputStream" ).append( safeTrailingString( _currClass.params ) ).append( ") {" )
+        .newLine( "      Utf8Appendable sb = new Utf8Appendable(outputStream);" )
+        .newLine( "      renderImpl(sb, getOverride()" );
+      appendArgs();
+      _sb.append( ");" );
+      appendFlush( "sb" );
+      _sb.newLine( "    }\n" )
         // nestInto
         .newLine( "    public void nestInto(Appendable sb, String indentation" ).append( safeTrailingString( _currClass.params ) ).append( ") {" )
         .newLine( "      renderImpl(sb, indentation, getOverride()" );
@@ -940,8 +979,10 @@ public class TemplateGen
       {
         endPos = _tokens.size() - 1;
       }
-      _sb.newLine( "            int lineStart = Thread.currentThread().getStackTrace()[1].getLineNumber() + 1;" );
+      _sb.newLine( "            TemplateSegments templateSegments = getTemplateSegments();" );
       _sb.newLine( "            try {" );
+      // handleException() maps the lines of the generated code in the try block relative to this line
+      int lineStart = _sb.getLineNumber();
       int lastTokenIndex = -1;
       outerLoop:
       for( int i = startPos; i <= endPos; i++ )
@@ -954,7 +995,7 @@ public class TemplateGen
             int[] loc = makeText( lastTokenIndex, nextTokenType( i + 1, endPos ), token );
             if( loc != null )
             {
-              _sb.newLine( "                buffer.append(getTemplateText(), " + loc[0] + ", " + loc[1] + ");" );
+              _sb.newLine( "                templateSegments.appendTo(buffer, " + _currClass.segmentCount++ + ", " + loc[0] + ", " + loc[1] + ");" );
               // sb.newLine( "                buffer.append(\"" ).append( text.replaceAll( "\"", "\\\\\"" ).replaceAll( "\r", "" ).replaceAll( "\n", "\\\\n" ) + "\");" );
               templateLineNumbers.add( token.getLine() );
             }
@@ -1024,7 +1065,7 @@ public class TemplateGen
 
       _sb.newLine( "            } catch (RuntimeException e) {" );
       _sb.newLine( "                int[] templateLineNumbers = new int[]{" ).append( nums ).append( "};" );
-      _sb.newLine( "                handleException(e, \"" ).append( _currClass.fileName ).append( "\", lineStart, templateLineNumbers);\n            }" );
+      _sb.newLine( "                handleException(e, \"" ).append( _currClass.fileName ).append( "\", " + lineStart + ", templateLineNumbers);\n            }" );
     }
 
     private Token.TokenType nextTokenType( int index, Integer endPos )
@@ -1217,6 +1258,22 @@ public class TemplateGen
         return this;
       }
 
+      /**
+       * @return The number of the line being generated, starting at 1
+       */
+      int getLineNumber()
+      {
+        int line = 1;
+        for( int i = 0; i < sb.length(); i++ )
+        {
+          if( sb.charAt( i ) == '\n' )
+          {
+            line++;
+          }
+        }
+        return line;
+      }
+
       public String toString()
       {
         return sb.toString();
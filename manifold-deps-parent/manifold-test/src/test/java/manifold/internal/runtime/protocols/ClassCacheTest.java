@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2023 - Manifold Systems LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package manifold.internal.runtime.protocols;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import junit.framework.TestCase;
+import manifold.api.util.fingerprint.Fingerprint;
+import manifold.internal.javac.StringJavaFileObject;
+import manifold.internal.runtime.Bootstrap;
+
+public class ClassCacheTest extends TestCase
+{
+  private static final byte[] BYTES = {(byte)0xCA, (byte)0xFE, (byte)0xBA, (byte)0xBE, 1, 2, 3};
+
+  private File _dir;
+  private File _cacheDir;
+
+  @Override
+  protected void setUp() throws Exception
+  {
+    _dir = Files.createTempDirectory( "classcache" ).toFile();
+    _cacheDir = new File( _dir, "cache" );
+  }
+
+  @Override
+  protected void tearDown()
+  {
+    delete( _dir );
+  }
+
+  public void testHit()
+  {
+    Fingerprint fingerprint = fingerprint( "class Foo {}", "cp" );
+    ClassCache.put( _cacheDir, "abc.Foo", fingerprint, BYTES );
+    assertTrue( Arrays.equals( BYTES, ClassCache.get( _cacheDir, "abc.Foo", fingerprint( "class Foo {}", "cp" ) ) ) );
+  }
+
+  public void testMiss()
+  {
+    assertNull( ClassCache.get( _cacheDir, "abc.Foo", fingerprint( "class Foo {}", "cp" ) ) );
+
+    ClassCache.put( _cacheDir, "abc.Foo", fingerprint( "class Foo {}", "cp" ), BYTES );
+    // the generated source changed
+    assertNull( ClassCache.get( _cacheDir, "abc.Foo", fingerprint( "class Foo { int x; }", "cp" ) ) );
+    // another class
+    assertNull( ClassCache.get( _cacheDir, "abc.Bar", fingerprint( "class Foo {}", "cp" ) ) );
+    // no class path fingerprint, not cached
+    assertNull( ClassCache.fingerprint( "abc.Foo", new StringJavaFileObject( "abc.Foo", "class Foo {}" ), null ) );
+  }
+
+  public void testClassPathChangeInvalidates() throws IOException
+  {
+    File resources = new File( _dir, "resources" );
+    File ref = new File( resources, "abc/Ref.json" );
+    write( ref, "{\"name\": \"string\"}" );
+    File jar = new File( _dir, "lib.jar" );
+    write( jar, "jar" );
+
+    String classPath = ClassCache.fingerprintClassPath( Arrays.asList( resources, jar ), _cacheDir );
+    assertNotNull( classPath );
+    assertEquals( classPath, ClassCache.fingerprintClassPath( Arrays.asList( resources, jar ), _cacheDir ) );
+    ClassCache.put( _cacheDir, "abc.Foo", fingerprint( "class Foo extends Ref {}", classPath ), BYTES );
+
+    // a referenced resource file changes, the source of abc.Foo doesn't
+    write( ref, "{\"name\": \"integer\"}" );
+    String changed = ClassCache.fingerprintClassPath( Arrays.asList( resources, jar ), _cacheDir );
+    assertFalse( classPath.equals( changed ) );
+    assertNull( ClassCache.get( _cacheDir, "abc.Foo", fingerprint( "class Foo extends Ref {}", changed ) ) );
+
+    // a file is added to a directory
+    write( new File( resources, "abc/Other.json" ), "{}" );
+    assertFalse( changed.equals( ClassCache.fingerprintClassPath( Arrays.asList( resources, jar ), _cacheDir ) ) );
+    changed = ClassCache.fingerprintClassPath( Arrays.asList( resources, jar ), _cacheDir );
+
+    // a jar changes
+    write( jar, "jar, changed" );
+    assertFalse( changed.equals( ClassCache.fingerprintClassPath( Arrays.asList( resources, jar ), _cacheDir ) ) );
+
+    // the class path order changes
+    assertFalse( ClassCache.fingerprintClassPath( Arrays.asList( resources, jar ), _cacheDir ).equals(
+      ClassCache.fingerprintClassPath( Arrays.asList( jar, resources ), _cacheDir ) ) );
+  }
+
+  public void testCacheDirNotPartOfClassPath()
+  {
+    // a cache directory in a class path directory doesn't invalidate itself
+    String classPath = ClassCache.fingerprintClassPath( Collections.singletonList( _dir ), _cacheDir );
+    ClassCache.put( _cacheDir, "abc.Foo", fingerprint( "class Foo {}", classPath ), BYTES );
+    assertEquals( classPath, ClassCache.fingerprintClassPath( Collections.singletonList( _dir ), _cacheDir ) );
+  }
+
+  public void testHostClassPath()
+  {
+    Bootstrap.init();
+    StringJavaFileObject source = new StringJavaFileObject( "abc.Foo", "class Foo {}" );
+    Fingerprint fingerprint = ClassCache.fingerprint( "abc.Foo", source );
+    assertNotNull( fingerprint );
+    assertEquals( fingerprint.getRawFingerprint(), ClassCache.fingerprint( "abc.Foo", source ).getRawFingerprint() );
+  }
+
+  public void testCorruptFile() throws IOException
+  {
+    Fingerprint fingerprint = fingerprint( "class Foo {}", "cp" );
+    ClassCache.put( _cacheDir, "abc.Foo", fingerprint, BYTES );
+    File file = new File( _cacheDir, "abc.Foo.class" );
+    assertTrue( file.isFile() );
+
+    // truncated
+    byte[] content = Files.readAllBytes( file.toPath() );
+    Files.write( file.toPath(), Arrays.copyOf( content, content.length - 2 ) );
+    assertNull( ClassCache.get( _cacheDir, "abc.Foo", fingerprint ) );
+
+    // not a cache file
+    Files.write( file.toPath(), "garbage".getBytes( StandardCharsets.UTF_8 ) );
+    assertNull( ClassCache.get( _cacheDir, "abc.Foo", fingerprint ) );
+
+    // replaced when compiled again
+    ClassCache.put( _cacheDir, "abc.Foo", fingerprint, BYTES );
+    assertTrue( Arrays.equals( BYTES, ClassCache.get( _cacheDir, "abc.Foo", fingerprint ) ) );
+  }
+
+  private static Fingerprint fingerprint( String source, String classPath )
+  {
+    return ClassCache.fingerprint( "abc.Foo", new StringJavaFileObject( "abc.Foo", source ), classPath );
+  }
+
+  private static void write( File file, String content ) throws IOException
+  {
+    //noinspection ResultOfMethodCallIgnored
+    file.getParentFile().mkdirs();
+    long lastModified = file.lastModified();
+    Files.write( file.toPath(), content.getBytes( StandardCharsets.UTF_8 ) );
+    // the modification time may have a coarse resolution
+    //noinspection ResultOfMethodCallIgnored
+    file.setLastModified( Math.max( System.currentTimeMillis(), lastModified + 2000 ) );
+  }
+
+  private static void delete( File file )
+  {
+    File[] children = file.listFiles();
+    if( children != null )
+    {
+      for( File child: children )
+      {
+        delete( child );
+      }
+    }
+    //noinspection ResultOfMethodCallIgnored
+    file.delete();
+  }
+}
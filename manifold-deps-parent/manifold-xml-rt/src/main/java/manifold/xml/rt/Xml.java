@@ -16,15 +16,14 @@
 
 package manifold.xml.rt;
 
-import java.io.BufferedInputStream;
-import java.io.ByteArrayInputStream;
-import java.io.IOException;
-import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.NoSuchElementException;
 
 import manifold.rt.api.Bindings;
 
@@ -32,10 +31,7 @@ import manifold.json.rt.api.DataBindings;
 import manifold.json.rt.parser.Token;
 import manifold.json.rt.parser.TokenType;
 import manifold.rt.api.util.Pair;
-import manifold.xml.rt.parser.XmlAttribute;
-import manifold.xml.rt.parser.XmlParser;
-import manifold.xml.rt.parser.XmlTerminal;
-import manifold.xml.rt.parser.XmlElement;
+import manifold.xml.rt.parser.XmlScanner;
 
 import static manifold.json.rt.Json.indent;
 import static manifold.json.rt.Json.toBindings;
@@ -237,73 +233,176 @@ public class Xml
   }
   public static Bindings fromXml( String xml, boolean withTokens )
   {
-    try( InputStream inputStream = new BufferedInputStream( new ByteArrayInputStream( xml.getBytes() ) ) )
+    return fromXml( new StringReader( xml ), withTokens );
+  }
+
+  /**
+   * Reads XML from {@code reader} directly into bindings in a single pass, the reader is not closed.
+   */
+  public static Bindings fromXml( Reader reader, boolean withTokens )
+  {
+    XmlScanner scanner = new XmlScanner( reader );
+    DataBindings bindings = new DataBindings();
+    while( scanner.next() != XmlScanner.Event.END_DOCUMENT )
     {
-      XmlElement elem = XmlParser.parse( inputStream );
-      DataBindings bindings = transform( new DataBindings(), elem, withTokens );
-      if( bindings.size() == 1 )
+      if( scanner.getEvent() == XmlScanner.Event.START_ELEMENT )
       {
-        Object root = bindings.get( XML_DEFAULT_ROOT );
-        if( root instanceof DataBindings )
-        {
-          bindings = (DataBindings)bindings.get( XML_DEFAULT_ROOT );
-        }
+        String name = scanner.getName();
+        bindings.put( name, readElement( scanner, withTokens ) );
+        break;
       }
-      return bindings;
     }
-    catch( IOException e )
+    if( bindings.size() == 1 )
     {
-      throw new RuntimeException( e );
+      Object root = bindings.get( XML_DEFAULT_ROOT );
+      if( root instanceof DataBindings )
+      {
+        bindings = (DataBindings)root;
+      }
     }
+    return bindings;
   }
 
-  private static DataBindings transform( DataBindings parent, XmlElement elem, boolean withTokens )
+  /**
+   * Iterates the elements at {@code path} in the XML read from {@code reader}, such as the repeated child elements of
+   * a large document. Only one element is held in memory at a time, elements off the path are skipped. The reader is
+   * not closed.
+   * <pre>
+   *   // iterate the book elements of &lt;catalog&gt;&lt;book .../&gt;&lt;book .../&gt;...&lt;/catalog&gt;
+   *   Iterator&lt;Bindings&gt; books = Xml.iterateXml( reader, "catalog", "book" );
+   * </pre>
+   *
+   * @param path Element names starting with the root element
+   * @return The bindings of each element at {@code path}, as they would appear in the bindings of the document
+   */
+  public static Iterator<Bindings> iterateXml( Reader reader, String... path )
   {
-    // Add to parent
-    DataBindings children = new DataBindings();
-    parent.put( elem.getName().getRawText(), withTokens ? makeTokensValue( elem, children ) : children );
-
-    // Attributes
-    for( Map.Entry<String, XmlAttribute> entry: elem.getAttributes().entrySet() )
+    if( path.length == 0 )
     {
-      children.put( entry.getKey(), withTokens ? makeTokensValue( entry.getValue() ) : entry.getValue().getValue() );
+      throw new IllegalArgumentException( "Expecting a path of element names" );
     }
-    
-    // Element text
-    if( elem.getRawContent() != null )
+    XmlScanner scanner = new XmlScanner( reader );
+    return new Iterator<Bindings>()
     {
-      children.put( XML_ELEM_CONTENT, elem.getRawContent().getRawText().trim() );
-    }
+      private Bindings _next;
+      private boolean _done;
 
-    // Child Elements
-    Map<String, List<DataBindings>> map = new LinkedHashMap<>();
-    for( XmlElement child: elem.getChildren() )
-    {
-      map.computeIfAbsent( child.getName().getRawText(), k -> new ArrayList<>() )
-        .add( transform( new DataBindings(), child, withTokens ) );
-    }
-    for( Map.Entry<String, List<DataBindings>> entry: map.entrySet() )
-    {
-      List<DataBindings> list = entry.getValue();
-      if( list.size() == 1 )
+      @Override
+      public boolean hasNext()
       {
-        children.putAll( list.get( 0 ) );
+        if( _next == null && !_done )
+        {
+          _next = advance();
+          _done = _next == null;
+        }
+        return _next != null;
       }
-      else
+
+      @Override
+      public Bindings next()
       {
-        // Duplicates are put into a list and indirectly exposed through it
-        List<Object> listValues = list.stream().map( e -> e.get( entry.getKey() ) ).collect( Collectors.toList() );
-        children.put( entry.getKey(), withTokens ? makeTokensValue( listValues )  : listValues );
+        if( !hasNext() )
+        {
+          throw new NoSuchElementException();
+        }
+        Bindings next = _next;
+        _next = null;
+        return next;
       }
-    }
-    return parent;
-  }
 
+      private Bindings advance()
+      {
+        while( true )
+        {
+          switch( scanner.next() )
+          {
+            case START_ELEMENT:
+              int depth = scanner.getDepth();
+              if( !path[depth - 1].equals( scanner.getName() ) )
+              {
+                scanner.skipElement();
+              }
+              else if( depth == path.length )
+              {
+                return (Bindings)readElement( scanner, false );
+              }
+              break;
+            case END_DOCUMENT:
+              return null;
+          }
+        }
+      }
+    };
+  }
 
-  private static Object makeTokensValue( XmlElement elem, Bindings value )
+  /**
+   * Reads the element of the current {@link XmlScanner.Event#START_ELEMENT} through its end.
+   *
+   * @return The element's bindings, paired with source tokens if {@code withTokens}
+   */
+  private static Object readElement( XmlScanner scanner, boolean withTokens )
   {
-    Token keyToken = makeToken( elem.getName() );
-    return new Pair<>( new Token[]{keyToken, null}, value );
+    DataBindings children = new DataBindings();
+    Object value = withTokens
+                   ? new Pair<>( new Token[]{makeToken( scanner.getName(), scanner.getOffset(), scanner.getLine() ), null}, children )
+                   : children;
+
+    // Attributes
+    for( int i = 0; i < scanner.getAttributeCount(); i++ )
+    {
+      String attrValue = scanner.getAttributeValue( i );
+      children.put( scanner.getAttributeName( i ), withTokens
+        ? new Pair<>( new Token[]{
+            makeToken( scanner.getAttributeName( i ), scanner.getAttributeNameOffset( i ), scanner.getAttributeNameLine( i ) ),
+            makeToken( scanner.getAttributeRawValue( i ), scanner.getAttributeValueOffset( i ), scanner.getAttributeValueLine( i ) )},
+          attrValue )
+        : attrValue );
+    }
+
+    // Element text and child elements, the last text of the element is its content
+    String content = null;
+    Map<String, List<Object>> map = null;
+    while( true )
+    {
+      switch( scanner.next() )
+      {
+        case START_ELEMENT:
+          String name = scanner.getName();
+          if( map == null )
+          {
+            map = new LinkedHashMap<>();
+          }
+          map.computeIfAbsent( name, k -> new ArrayList<>() ).add( readElement( scanner, withTokens ) );
+          break;
+        case CONTENT:
+          content = scanner.getText();
+          break;
+        case END_ELEMENT:
+          if( content != null )
+          {
+            children.put( XML_ELEM_CONTENT, content.trim() );
+          }
+          if( map != null )
+          {
+            for( Map.Entry<String, List<Object>> entry: map.entrySet() )
+            {
+              List<Object> list = entry.getValue();
+              if( list.size() == 1 )
+              {
+                children.put( entry.getKey(), list.get( 0 ) );
+              }
+              else
+              {
+                // Duplicates are put into a list and indirectly exposed through it
+                children.put( entry.getKey(), withTokens ? makeTokensValue( list ) : list );
+              }
+            }
+          }
+          return value;
+        default:
+          throw new IllegalStateException( "Unexpected " + scanner.getEvent() );
+      }
+    }
   }
 
   private static Object makeTokensValue( List<Object> value )
@@ -317,17 +416,9 @@ public class Xml
     return value;
   }
 
-  private static Object makeTokensValue( XmlAttribute attr )
-  {
-    Token keyToken = makeToken( attr.getName() );
-    XmlTerminal rawValue = attr.getRawValue();
-    Token valueToken = rawValue == null ? null : makeToken( rawValue );
-    return new Pair<>( new Token[]{keyToken, valueToken}, attr.getValue() );
-  }
-
-  private static Token makeToken( XmlTerminal value )
+  private static Token makeToken( String text, int offset, int line )
   {
-    return new Token( TokenType.STRING, value.getRawText(), value.getOffset(), value.getLine(), -1 );
+    return new Token( TokenType.STRING, text, offset, line, -1 );
   }
 
 }
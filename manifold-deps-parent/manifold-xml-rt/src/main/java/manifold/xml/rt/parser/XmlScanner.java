@@ -0,0 +1,634 @@
+/*
+ * Copyright (c) 2023 - Manifold Systems LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package manifold.xml.rt.parser;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import manifold.rt.api.util.ManStringUtil;
+
+/**
+ * A single-pass pull scanner over XML text. Unlike {@link XmlParser} it builds no parse tree, it reports elements and
+ * their content as they are read from the {@link Reader}, so documents of any size scan in constant memory.
+ * <p>
+ * Text is reported as {@link XmlParser} sees it: content is raw, CDATA sections keep their delimiters, entity and
+ * character references are not expanded and separate text runs, whitespace-only runs are not reported. Comments,
+ * processing instructions, the XML declaration and DTDs are skipped. Offsets count code points from the start of the
+ * text and lines start at 1.
+ */
+public class XmlScanner
+{
+  public enum Event
+  {
+    START_ELEMENT,
+    CONTENT,
+    END_ELEMENT,
+    END_DOCUMENT
+  }
+
+  private static final String COMMENT_START = "<!--";
+  private static final String CDATA_START = "<![CDATA[";
+
+  private final Reader _reader;
+  private final char[] _buf;
+  private int _pos;
+  private int _limit;
+  private int _offset;
+  private int _line;
+
+  private final List<String> _openElements;
+  private boolean _pendingEnd;
+  private boolean _skipContent;
+
+  private Event _event;
+  private String _name;
+  private String _text;
+  private int _tokenOffset;
+  private int _tokenLine;
+  private final List<Attribute> _attributes;
+  private int _attributeCount;
+
+  public XmlScanner( Reader reader )
+  {
+    _reader = reader;
+    _buf = new char[8192];
+    _line = 1;
+    _openElements = new ArrayList<>();
+    _attributes = new ArrayList<>();
+  }
+
+  /**
+   * Advances to the next event.
+   *
+   * @throws RuntimeException if the XML is malformed or reading fails
+   */
+  public Event next()
+  {
+    try
+    {
+      return _event = scan();
+    }
+    catch( IOException e )
+    {
+      throw new RuntimeException( e );
+    }
+  }
+
+  /**
+   * @return The current event, null before the first call to {@link #next()}
+   */
+  public Event getEvent()
+  {
+    return _event;
+  }
+
+  /**
+   * @return The number of elements enclosing the current position, 1 within the root element
+   */
+  public int getDepth()
+  {
+    return _openElements.size();
+  }
+
+  /**
+   * @return The element name of a {@link Event#START_ELEMENT} or {@link Event#END_ELEMENT}
+   */
+  public String getName()
+  {
+    return _name;
+  }
+
+  /**
+   * @return The raw text of a {@link Event#CONTENT}
+   */
+  public String getText()
+  {
+    return _text;
+  }
+
+  /**
+   * @return The offset of the element name or the content
+   */
+  public int getOffset()
+  {
+    return _tokenOffset;
+  }
+
+  /**
+   * @return The line of the element name or the content
+   */
+  public int getLine()
+  {
+    return _tokenLine;
+  }
+
+  /**
+   * @return The number of attributes of a {@link Event#START_ELEMENT}
+   */
+  public int getAttributeCount()
+  {
+    return _attributeCount;
+  }
+
+  public String getAttributeName( int i )
+  {
+    return attribute( i )._name;
+  }
+
+  /**
+   * @return The attribute value without quotes
+   */
+  public String getAttributeValue( int i )
+  {
+    return ManStringUtil.unquote( attribute( i )._rawValue );
+  }
+
+  /**
+   * @return The attribute value as it appears in the XML, including quotes
+   */
+  public String getAttributeRawValue( int i )
+  {
+    return attribute( i )._rawValue;
+  }
+
+  public int getAttributeNameOffset( int i )
+  {
+    return attribute( i )._nameOffset;
+  }
+
+  public int getAttributeNameLine( int i )
+  {
+    return attribute( i )._nameLine;
+  }
+
+  public int getAttributeValueOffset( int i )
+  {
+    return attribute( i )._valueOffset;
+  }
+
+  public int getAttributeValueLine( int i )
+  {
+    return attribute( i )._valueLine;
+  }
+
+  /**
+   * Skips to the {@link Event#END_ELEMENT} of the current {@link Event#START_ELEMENT} without reading its content.
+   */
+  public void skipElement()
+  {
+    if( _event != Event.START_ELEMENT )
+    {
+      throw new IllegalStateException( "Expecting " + Event.START_ELEMENT + ", but the current event is " + _event );
+    }
+    int depth = getDepth();
+    _skipContent = true;
+    try
+    {
+      while( next() != Event.END_ELEMENT || getDepth() >= depth )
+      {
+        // skip
+      }
+    }
+    finally
+    {
+      _skipContent = false;
+    }
+  }
+
+  private Attribute attribute( int i )
+  {
+    if( i >= _attributeCount )
+    {
+      throw new IndexOutOfBoundsException( "Attribute index: " + i + ", count: " + _attributeCount );
+    }
+    return _attributes.get( i );
+  }
+
+  private Event scan() throws IOException
+  {
+    _text = null;
+    _attributeCount = 0;
+    if( _pendingEnd )
+    {
+      // the end of an empty element, <foo/>
+      _pendingEnd = false;
+      _openElements.remove( _openElements.size() - 1 );
+      return Event.END_ELEMENT;
+    }
+
+    while( true )
+    {
+      int c = peek( 0 );
+      if( c < 0 )
+      {
+        if( !_openElements.isEmpty() )
+        {
+          throw error( "Unexpected end of XML, expecting '</" + _openElements.get( _openElements.size() - 1 ) + ">'" );
+        }
+        _name = null;
+        return Event.END_DOCUMENT;
+      }
+
+      if( c == '<' )
+      {
+        if( lookingAt( COMMENT_START ) )
+        {
+          skipPast( "-->" );
+        }
+        else if( lookingAt( CDATA_START ) )
+        {
+          if( scanCData() )
+          {
+            return Event.CONTENT;
+          }
+        }
+        else if( lookingAt( "<!" ) )
+        {
+          // DTD
+          skipPast( ">" );
+        }
+        else if( lookingAt( "<?" ) )
+        {
+          // XML declaration or processing instruction
+          skipPast( "?>" );
+        }
+        else if( lookingAt( "</" ) )
+        {
+          scanEndTag();
+          return Event.END_ELEMENT;
+        }
+        else
+        {
+          scanStartTag();
+          return Event.START_ELEMENT;
+        }
+      }
+      else if( c == '&' )
+      {
+        skipReference();
+      }
+      else if( scanText() )
+      {
+        return Event.CONTENT;
+      }
+    }
+  }
+
+  private void scanStartTag() throws IOException
+  {
+    consume(); // <
+    _tokenOffset = _offset;
+    _tokenLine = _line;
+    _name = scanName();
+    while( true )
+    {
+      skipWhitespace();
+      int c = peek( 0 );
+      if( c == '>' )
+      {
+        consume();
+        break;
+      }
+      if( c == '/' && peek( 1 ) == '>' )
+      {
+        consume();
+        consume();
+        _pendingEnd = true;
+        break;
+      }
+      scanAttribute();
+    }
+    _openElements.add( _name );
+  }
+
+  private void scanAttribute() throws IOException
+  {
+    Attribute attr;
+    if( _attributeCount < _attributes.size() )
+    {
+      attr = _attributes.get( _attributeCount );
+    }
+    else
+    {
+      _attributes.add( attr = new Attribute() );
+    }
+    int nameOffset = _offset;
+    int nameLine = _line;
+    attr._name = scanName();
+    attr._nameOffset = nameOffset;
+    attr._nameLine = nameLine;
+    skipWhitespace();
+    expect( '=' );
+    skipWhitespace();
+    attr._valueOffset = _offset;
+    attr._valueLine = _line;
+    int quote = peek( 0 );
+    if( quote != '"' && quote != '\'' )
+    {
+      throw error( "Expecting a quoted value for attribute '" + attr._name + "'" );
+    }
+    StringBuilder value = new StringBuilder();
+    value.append( consume() );
+    while( true )
+    {
+      int c = peek( 0 );
+      if( c < 0 || c == '<' )
+      {
+        throw error( "Unterminated value for attribute '" + attr._name + "'" );
+      }
+      value.append( consume() );
+      if( c == quote )
+      {
+        break;
+      }
+    }
+    attr._rawValue = value.toString();
+    _attributeCount++;
+  }
+
+  private void scanEndTag() throws IOException
+  {
+    consume(); // <
+    consume(); // /
+    _tokenOffset = _offset;
+    _tokenLine = _line;
+    String name = scanName();
+    skipWhitespace();
+    expect( '>' );
+    if( _openElements.isEmpty() || !_openElements.get( _openElements.size() - 1 ).equals( name ) )
+    {
+      throw error( _openElements.isEmpty()
+                   ? "Unexpected '</" + name + ">'"
+                   : "Unbalanced elements, expecting '</" + _openElements.get( _openElements.size() - 1 ) +
+                     ">' but found '</" + name + ">'" );
+    }
+    _openElements.remove( _openElements.size() - 1 );
+    _name = name;
+  }
+
+  private String scanName() throws IOException
+  {
+    StringBuilder name = new StringBuilder();
+    while( true )
+    {
+      int c = peek( 0 );
+      if( c < 0 || Character.isWhitespace( c ) || "<>/=\"'?!&".indexOf( c ) >= 0 )
+      {
+        break;
+      }
+      name.append( consume() );
+    }
+    if( name.length() == 0 )
+    {
+      throw error( "Expecting a name" );
+    }
+    return name.toString();
+  }
+
+  /**
+   * @return True if the CDATA section is content of an element
+   */
+  private boolean scanCData() throws IOException
+  {
+    boolean content = !_openElements.isEmpty() && !_skipContent;
+    int offset = _offset;
+    int line = _line;
+    StringBuilder text = content ? new StringBuilder() : null;
+    for( int i = 0; i < CDATA_START.length(); i++ )
+    {
+      append( text, consume() );
+    }
+    while( !lookingAt( "]]>" ) )
+    {
+      if( peek( 0 ) < 0 )
+      {
+        throw error( "Unterminated CDATA section" );
+      }
+      append( text, consume() );
+    }
+    for( int i = 0; i < 3; i++ )
+    {
+      append( text, consume() );
+    }
+    if( content )
+    {
+      _text = text.toString();
+      _tokenOffset = offset;
+      _tokenLine = line;
+    }
+    return content;
+  }
+
+  /**
+   * Scans text up to the next markup or reference.
+   *
+   * @return True if the text is content of an element. Whitespace-only text is not content.
+   */
+  private boolean scanText() throws IOException
+  {
+    boolean inElement = !_openElements.isEmpty() && !_skipContent;
+    int offset = _offset;
+    int line = _line;
+    StringBuilder text = inElement ? new StringBuilder() : null;
+    boolean whitespace = true;
+    while( true )
+    {
+      int c = peek( 0 );
+      if( c < 0 || c == '<' || c == '&' )
+      {
+        break;
+      }
+      if( whitespace && c != ' ' && c != '\t' && c != '\n' && !(c == '\r' && peek( 1 ) == '\n') )
+      {
+        whitespace = false;
+      }
+      append( text, consume() );
+    }
+    if( inElement && !whitespace )
+    {
+      _text = text.toString();
+      _tokenOffset = offset;
+      _tokenLine = line;
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Skips an entity or character reference. As with {@link XmlParser} a '&' that does not begin a reference is
+   * dropped.
+   */
+  private void skipReference() throws IOException
+  {
+    int length = referenceLength();
+    for( int i = 0; i < Math.max( 1, length ); i++ )
+    {
+      consume();
+    }
+  }
+
+  private int referenceLength() throws IOException
+  {
+    int i = 1;
+    if( peek( i ) == '#' )
+    {
+      i++;
+      boolean hex = peek( i ) == 'x';
+      if( hex )
+      {
+        i++;
+      }
+      int start = i;
+      while( hex ? Character.digit( peek( i ), 16 ) >= 0 : Character.isDigit( peek( i ) ) )
+      {
+        i++;
+      }
+      return i > start && peek( i ) == ';' ? i + 1 : 0;
+    }
+    int start = i;
+    for( int c = peek( i ); c >= 0 && c != ';' && i < _buf.length - 1; c = peek( ++i ) )
+    {
+      if( Character.isWhitespace( c ) || "<>/=\"'?!&".indexOf( c ) >= 0 )
+      {
+        return 0;
+      }
+    }
+    return i > start && peek( i ) == ';' ? i + 1 : 0;
+  }
+
+  private void skipWhitespace() throws IOException
+  {
+    while( peek( 0 ) >= 0 && Character.isWhitespace( peek( 0 ) ) )
+    {
+      consume();
+    }
+  }
+
+  private void skipPast( String end ) throws IOException
+  {
+    while( !lookingAt( end ) )
+    {
+      if( peek( 0 ) < 0 )
+      {
+        throw error( "Expecting '" + end + "'" );
+      }
+      consume();
+    }
+    for( int i = 0; i < end.length(); i++ )
+    {
+      consume();
+    }
+  }
+
+  private void expect( char expected ) throws IOException
+  {
+    if( peek( 0 ) != expected )
+    {
+      throw error( "Expecting '" + expected + "'" );
+    }
+    consume();
+  }
+
+  private boolean lookingAt( String s ) throws IOException
+  {
+    for( int i = 0; i < s.length(); i++ )
+    {
+      if( peek( i ) != s.charAt( i ) )
+      {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static void append( StringBuilder sb, char c )
+  {
+    if( sb != null )
+    {
+      sb.append( c );
+    }
+  }
+
+  /**
+   * @return The char {@code ahead} chars from the current position or -1 at the end of the text
+   */
+  private int peek( int ahead ) throws IOException
+  {
+    if( _pos + ahead >= _limit && !fill( ahead + 1 ) )
+    {
+      return -1;
+    }
+    return _buf[_pos + ahead];
+  }
+
+  private boolean fill( int needed ) throws IOException
+  {
+    if( needed > _buf.length )
+    {
+      return false;
+    }
+    if( _pos > 0 )
+    {
+      System.arraycopy( _buf, _pos, _buf, 0, _limit - _pos );
+      _limit -= _pos;
+      _pos = 0;
+    }
+    while( _limit < needed )
+    {
+      int read = _reader.read( _buf, _limit, _buf.length - _limit );
+      if( read < 0 )
+      {
+        return false;
+      }
+      _limit += read;
+    }
+    return true;
+  }
+
+  private char consume() throws IOException
+  {
+    peek( 0 );
+    char c = _buf[_pos++];
+    if( c == '\n' )
+    {
+      _line++;
+    }
+    if( !Character.isLowSurrogate( c ) )
+    {
+      // offsets count code points
+      _offset++;
+    }
+    return c;
+  }
+
+  private RuntimeException error( String message )
+  {
+    return new RuntimeException( "Malformed XML at line " + _line + ": " + message );
+  }
+
+  private static class Attribute
+  {
+    private String _name;
+    private String _rawValue;
+    private int _nameOffset;
+    private int _nameLine;
+    private int _valueOffset;
+    private int _valueLine;
+  }
+}
@@ -16,8 +16,12 @@
 
 package manifold.xml.rt;
 
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
 import manifold.rt.api.Bindings;
 
 import manifold.api.yaml.rt.Yaml;
@@ -26,7 +30,9 @@ import org.junit.Test;
 import abc.xml.Catelog;
 import abc.xml.Stuff;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
 
 public class XmlTest
 {
@@ -164,4 +170,35 @@ public class XmlTest
     assertEquals(Arrays.asList("Joe's", "Squarepants"), brands);
   }
 
+  @Test
+  public void testIterateXml() throws Exception
+  {
+    ArrayList<String> brands = new ArrayList<>();
+    try( Reader reader = new InputStreamReader( getClass().getResourceAsStream( "/abc/xml/Catelog.xml" ), UTF_8 ) )
+    {
+      Iterator<Bindings> products = Xml.iterateXml( reader, "ProductListing", "Product" );
+      while( products.hasNext() )
+      {
+        Catelog.ProductListing.Product.ProductItem p = (Catelog.ProductListing.Product.ProductItem)products.next();
+        brands.add( p.getBrand() );
+      }
+    }
+    assertEquals( Arrays.asList( "Joe's", "Squarepants", "RiteTwice" ), brands );
+  }
+
+  @Test
+  public void testIterateXmlElementsMatchDocument()
+  {
+    String xml =
+      "<feed>\n" +
+      "  <item id=\"1\">one<tag>a</tag><tag>b</tag></item>\n" +
+      "  <other><item id=\"x\"/></other>\n" +
+      "  <item id=\"2\"/>\n" +
+      "</feed>";
+    Bindings feed = (Bindings)Xml.fromXml( xml ).get( "feed" );
+    ArrayList<Object> items = new ArrayList<>();
+    Xml.iterateXml( new StringReader( xml ), "feed", "item" ).forEachRemaining( items::add );
+    assertEquals( feed.get( "item" ), items );
+    assertFalse( Xml.iterateXml( new StringReader( xml ), "nope", "item" ).hasNext() );
+  }
 }
@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2023 - Manifold Systems LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package manifold.xml.rt.parser;
+
+import java.io.StringReader;
+import junit.framework.TestCase;
+
+import static manifold.xml.rt.parser.XmlScanner.Event.*;
+
+public class XmlScannerTest extends TestCase
+{
+  public void testEvents()
+  {
+    String xml =
+      "<?xml version=\"1.0\"?>\n" +
+      "<!-- comment -->\n" +
+      "<stuff one='hello'>\n" +
+      "  my &amp; stuff\n" +
+      "  <things two=\"bye\"/>\n" +
+      "  <![CDATA[<raw>]]>\n" +
+      "</stuff>\n";
+    XmlScanner scanner = new XmlScanner( new StringReader( xml ) );
+
+    assertEquals( START_ELEMENT, scanner.next() );
+    assertEquals( "stuff", scanner.getName() );
+    assertPart( xml, "stuff", scanner.getOffset() );
+    assertEquals( 3, scanner.getLine() );
+    assertEquals( 1, scanner.getAttributeCount() );
+    assertEquals( "one", scanner.getAttributeName( 0 ) );
+    assertEquals( "hello", scanner.getAttributeValue( 0 ) );
+    assertEquals( "'hello'", scanner.getAttributeRawValue( 0 ) );
+    assertPart( xml, "'hello'", scanner.getAttributeValueOffset( 0 ) );
+
+    // references separate text like the ANTLR lexer
+    assertEquals( CONTENT, scanner.next() );
+    assertEquals( "\n  my ", scanner.getText() );
+    assertEquals( CONTENT, scanner.next() );
+    assertEquals( " stuff\n  ", scanner.getText() );
+    assertEquals( 4, scanner.getLine() );
+
+    assertEquals( START_ELEMENT, scanner.next() );
+    assertEquals( "things", scanner.getName() );
+    assertEquals( 2, scanner.getDepth() );
+    assertEquals( "bye", scanner.getAttributeValue( 0 ) );
+    assertEquals( END_ELEMENT, scanner.next() );
+    assertEquals( 1, scanner.getDepth() );
+
+    assertEquals( CONTENT, scanner.next() );
+    assertEquals( "<![CDATA[<raw>]]>", scanner.getText() );
+    assertPart( xml, "<![CDATA[", scanner.getOffset() );
+
+    assertEquals( END_ELEMENT, scanner.next() );
+    assertEquals( "stuff", scanner.getName() );
+    assertEquals( END_DOCUMENT, scanner.next() );
+  }
+
+  public void testSkipElement()
+  {
+    XmlScanner scanner = new XmlScanner( new StringReader( "<a><b><b>x</b><c/></b><d/></a>" ) );
+    assertEquals( START_ELEMENT, scanner.next() );
+    assertEquals( START_ELEMENT, scanner.next() );
+    scanner.skipElement();
+    assertEquals( "b", scanner.getName() );
+    assertEquals( START_ELEMENT, scanner.next() );
+    assertEquals( "d", scanner.getName() );
+  }
+
+  public void testUnbalanced()
+  {
+    XmlScanner scanner = new XmlScanner( new StringReader( "<a>\n<b></a>" ) );
+    scanner.next();
+    scanner.next();
+    try
+    {
+      scanner.next();
+      fail();
+    }
+    catch( RuntimeException e )
+    {
+      assertEquals( "Malformed XML at line 2: Unbalanced elements, expecting '</b>' but found '</a>'", e.getMessage() );
+    }
+  }
+
+  private void assertPart( String xml, String text, int offset )
+  {
+    assertEquals( text, xml.substring( offset, offset + text.length() ) );
+  }
+}
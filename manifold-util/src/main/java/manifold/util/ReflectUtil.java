@@ -60,6 +60,13 @@ public class ReflectUtil
   private static final ConcurrentWeakHashMap<Class, ConcurrentMap<String, Field>> _fieldsByName = new ConcurrentWeakHashMap<>();
   private static final ConcurrentWeakHashMap<Class, Set<Constructor>> _constructorsByClass = new ConcurrentWeakHashMap<>();
   private static final ConcurrentWeakHashMap<Method, ConcurrentMap<Class, Method>> _structuralCall = new ConcurrentWeakHashMap<>();
+  /** Results of {@link #method(Class, String, Class[])} by signature, {@link #NOT_FOUND} if there is no such method */
+  private static final ConcurrentWeakHashMap<Class, ConcurrentMap<Signature, Object>> _methodsBySignature = new ConcurrentWeakHashMap<>();
+  /** Results of {@link #field(Class, String)} by name, {@link #NOT_FOUND} if there is no such field */
+  private static final ConcurrentWeakHashMap<Class, ConcurrentMap<String, Object>> _fieldRefsByName = new ConcurrentWeakHashMap<>();
+  /** Results of {@link #constructor(Class, Class[])} by signature, {@link #NOT_FOUND} if there is no such constructor */
+  private static final ConcurrentWeakHashMap<Class, ConcurrentMap<Signature, Object>> _constructorsBySignature = new ConcurrentWeakHashMap<>();
+  private static final Object NOT_FOUND = new Object();
   private static final LocklessLazyVar<ClassContextSecurityManager> _sm = LocklessLazyVar.make( () -> new ClassContextSecurityManager() );
   private static final String LAMBDA_METHOD = "lambda method";
   private static final Object UNHANDLED = new Object() {};
@@ -317,6 +324,22 @@ public class ReflectUtil
     return _method( cls, name, params );
   }
   private static MethodRef _method( Class<?> cls, String name, Class... params )
+  {
+    ConcurrentMap<Signature, Object> methods = _methodsBySignature.computeIfAbsent( cls, c -> new ConcurrentHashMap<>() );
+    Signature signature = new Signature( name, params );
+    Object cached = methods.get( signature );
+    if( cached == null )
+    {
+      MethodRef mr = findMethod( cls, name, params );
+      if( isCacheable( cls, params ) )
+      {
+        methods.put( signature.copy(), mr == null ? NOT_FOUND : mr );
+      }
+      return mr;
+    }
+    return cached == NOT_FOUND ? null : (MethodRef)cached;
+  }
+  private static MethodRef findMethod( Class<?> cls, String name, Class... params )
   {
     MethodRef match = matchFirstMethod( cls, name, params );
     if( match != null )
@@ -661,6 +684,18 @@ public class ReflectUtil
     return _field( cls, name );
   }
   private static FieldRef _field( Class<?> cls, String name )
+  {
+    ConcurrentMap<String, Object> fields = _fieldRefsByName.computeIfAbsent( cls, c -> new ConcurrentHashMap<>() );
+    Object cached = fields.get( name );
+    if( cached == null )
+    {
+      FieldRef fr = findField( cls, name );
+      fields.put( name, fr == null ? NOT_FOUND : fr );
+      return fr;
+    }
+    return cached == NOT_FOUND ? null : (FieldRef)cached;
+  }
+  private static FieldRef findField( Class<?> cls, String name )
   {
     FieldRef match = matchFirstField( cls, name );
     if( match != null )
@@ -830,6 +865,22 @@ public class ReflectUtil
    * @return A reference to the constructor or null if not found
    */
   public static ConstructorRef constructor( Class<?> cls, Class<?>... params )
+  {
+    ConcurrentMap<Signature, Object> constructors = _constructorsBySignature.computeIfAbsent( cls, c -> new ConcurrentHashMap<>() );
+    Signature signature = new Signature( null, params );
+    Object cached = constructors.get( signature );
+    if( cached == null )
+    {
+      ConstructorRef mr = findConstructor( cls, params );
+      if( isCacheable( cls, params ) )
+      {
+        constructors.put( signature.copy(), mr == null ? NOT_FOUND : mr );
+      }
+      return mr;
+    }
+    return cached == NOT_FOUND ? null : (ConstructorRef)cached;
+  }
+  private static ConstructorRef findConstructor( Class<?> cls, Class<?>... params )
   {
     ConstructorRef mr = getConstructorFromCache( cls, params );
     if( mr != null )
@@ -925,6 +976,86 @@ public class ReflectUtil
     boolean override;
   }
 
+  /**
+   * A signature is cached with {@code cls} only if its parameter types are from the class loader of {@code cls} or a
+   * parent of it. Otherwise, e.g. a miss looking up a JDK class with a type from an application loader, the entry would
+   * keep that loader reachable for as long as {@code cls}.
+   */
+  private static boolean isCacheable( Class<?> cls, Class[] params )
+  {
+    if( params == null || params.length == 0 )
+    {
+      return true;
+    }
+    ClassLoader loader = cls.getClassLoader();
+    for( Class param: params )
+    {
+      ClassLoader paramLoader = param == null ? null : param.getClassLoader();
+      if( paramLoader != null && !isParentOrSelf( paramLoader, loader ) )
+      {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean isParentOrSelf( ClassLoader parent, ClassLoader loader )
+  {
+    for( ClassLoader l = loader; l != null; l = l.getParent() )
+    {
+      if( l == parent )
+      {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * A member name and parameter types. Lookups wrap the caller's array, {@link #copy()} makes a key safe to keep.
+   */
+  private static final class Signature
+  {
+    private static final Class[] NO_PARAMS = new Class[0];
+
+    private final String _name;
+    private final Class[] _params;
+    private final int _hash;
+
+    private Signature( String name, Class[] params )
+    {
+      _name = name;
+      _params = params == null ? NO_PARAMS : params;
+      _hash = (name == null ? 0 : name.hashCode()) * 31 + Arrays.hashCode( _params );
+    }
+
+    private Signature copy()
+    {
+      return _params.length == 0 ? this : new Signature( _name, _params.clone() );
+    }
+
+    @Override
+    public boolean equals( Object o )
+    {
+      if( this == o )
+      {
+        return true;
+      }
+      if( !(o instanceof Signature) )
+      {
+        return false;
+      }
+      Signature that = (Signature)o;
+      return _hash == that._hash && Objects.equals( _name, that._name ) && Arrays.equals( _params, that._params );
+    }
+
+    @Override
+    public int hashCode()
+    {
+      return _hash;
+    }
+  }
+
   public static class MethodRef
   {
     private final Method _method;
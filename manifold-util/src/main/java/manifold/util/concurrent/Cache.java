@@ -16,39 +16,53 @@
 
 package manifold.util.concurrent;
 
-import java.io.Serializable;
 import java.math.BigDecimal;
-import java.util.AbstractMap;
-import java.util.AbstractSet;
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.Iterator;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
 import manifold.util.ILogger;
 
 /**
- * static var MY_CACHE = new Cache<Foo, Bar>( 1000, \ foo -> getBar( foo ) )
+ * A bounded cache of values produced by a {@link Loader}, e.g.:
+ * <pre>
+ * static final Cache&lt;Foo, Bar&gt; MY_CACHE = Cache.make( "Bars", 1000, foo -> getBar( foo ) );
+ * </pre>
+ * Concurrent misses on the same key call the loader once, the other callers wait for its value. A null value is not
+ * cached.
+ * <p/>
+ * When the cache is full, a new value replaces the least valuable entry only if its key is requested more often. A
+ * second-chance sweep picks the entry, and a compact frequency sketch of recent requests decides admission, similar to
+ * TinyLFU. So a burst of one-off keys doesn't flush frequently used entries. A hit doesn't update the sketch, it only
+ * counts itself and samples its key in a buffer striped by thread, the buffered keys are counted in the sketch when a
+ * value is loaded.
+ * <p/>
+ * Entries optionally expire a fixed time after they are written, see {@link #expireAfterWrite(long, TimeUnit)}.
  */
 public class Cache<K, V>
 {
-  private ConcurrentLinkedHashMap<K, V> _cacheImlp;
+  /** the load each thread waits for, across all caches, guarded by itself */
+  private static final Map<Thread, Loading<?>> WAITING = new HashMap<>();
+
+  private volatile Store<K, V> _store;
   private final Loader<K, V> _loader;
   private final String _name;
   private final int _size;
+  private volatile long _expireAfterWriteNanos;
 
   //statistics
-  private final AtomicInteger _requests = new AtomicInteger();
-  private final AtomicInteger _misses = new AtomicInteger();
-  private final AtomicInteger _hits = new AtomicInteger();
+  private final LongAdder _misses = new LongAdder();
+  /** hits before the store counts them in its read buffer */
+  private final LongAdder _hits = new LongAdder();
 
   private ScheduledFuture<?> _loggingTask;
 
@@ -69,7 +83,23 @@ public class Cache<K, V>
 
   private void clearCacheImpl()
   {
-    _cacheImlp = new ConcurrentLinkedHashMap<K, V>( ConcurrentLinkedHashMap.EvictionPolicy.SECOND_CHANCE, _size );
+    // loads in progress complete into the discarded store
+    _store = new Store<>( _size );
+  }
+
+  /**
+   * Entries expire after the given duration since they were loaded or put. By default, entries don't expire. Call this
+   * before using the cache, entries cached before expiry is enabled expire on their next request.
+   *
+   * @param duration how long an entry is valid, zero or less for no expiry
+   * @param unit     the unit of the duration
+   *
+   * @return this
+   */
+  public Cache<K, V> expireAfterWrite( long duration, TimeUnit unit )
+  {
+    _expireAfterWriteNanos = Math.max( 0, unit.toNanos( duration ) );
+    return this;
   }
 
   /**
@@ -81,7 +111,7 @@ public class Cache<K, V>
    */
   public V evict( K key )
   {
-    return _cacheImlp.remove( key );
+    return _store.remove( key );
   }
 
   /**
@@ -94,7 +124,12 @@ public class Cache<K, V>
    */
   public V put( K key, V value )
   {
-    return _cacheImlp.put( key, value );
+    Store<K, V> store = _store;
+    if( value == null )
+    {
+      return store.remove( key );
+    }
+    return store.put( key, newNode( key, value ) );
   }
 
   /**
@@ -106,24 +141,116 @@ public class Cache<K, V>
    */
   public V get( K key )
   {
-    V value = _cacheImlp.get( key );
-    _requests.incrementAndGet();
-    if( value == null )
+    Store<K, V> store = _store;
+    Object entry = store._data.get( key );
+    if( entry instanceof Node && !isExpired( (Node)entry ) )
     {
-      value = _loader.load( key );
-      _cacheImlp.put( key, value );
-      _misses.incrementAndGet();
+      Node<K, V> node = (Node<K, V>)entry;
+      if( !node._referenced )
+      {
+        node._referenced = true;
+      }
+      if( !store.recordHit( key ) )
+      {
+        _hits.increment();
+      }
+      return node._value;
     }
-    else
+    _misses.increment();
+    return load( store, key, entry );
+  }
+
+  /**
+   * @param entry The entry for the key when the get missed
+   */
+  private V load( Store<K, V> store, K key, Object entry )
+  {
+    while( true )
     {
-      _hits.incrementAndGet();
+      if( entry instanceof Node )
+      {
+        Node<K, V> node = (Node<K, V>)entry;
+        if( !isExpired( node ) )
+        {
+          return node._value;
+        }
+        store.remove( key, node );
+        entry = store._data.get( key );
+        continue;
+      }
+
+      if( entry instanceof Loading )
+      {
+        Loading<V> loading = (Loading<V>)entry;
+        if( !loading.startWaiting() )
+        {
+          // the load waits for this thread, directly or through other loads e.g., a loader requesting its own key or
+          // the loaders of two caches requesting each other's keys, so load without caching
+          return _loader.load( key );
+        }
+        try
+        {
+          return loading.await();
+        }
+        finally
+        {
+          Loading.stopWaiting();
+        }
+      }
+
+      Loading<V> loading = new Loading<>();
+      entry = store._data.putIfAbsent( key, loading );
+      if( entry != null )
+      {
+        continue;
+      }
+
+      V value;
+      try
+      {
+        value = _loader.load( key );
+      }
+      catch( RuntimeException | Error e )
+      {
+        store._data.remove( key, loading );
+        loading.fail( e );
+        throw e;
+      }
+      if( value == null )
+      {
+        store._data.remove( key, loading );
+      }
+      else
+      {
+        store.add( key, loading, newNode( key, value ) );
+      }
+      loading.complete( value );
+      return value;
     }
-    return value;
+  }
+
+  private Node<K, V> newNode( K key, V value )
+  {
+    return new Node<>( key, value, _expireAfterWriteNanos > 0 ? System.nanoTime() : 0 );
+  }
+
+  private boolean isExpired( Node<K, V> node )
+  {
+    long expireAfterWrite = _expireAfterWriteNanos;
+    return expireAfterWrite > 0 && System.nanoTime() - node._writeTime >= expireAfterWrite;
   }
 
   public Iterable<V> getCachedValues()
   {
-    return _cacheImlp.values();
+    List<V> values = new ArrayList<>();
+    for( Object entry: _store._data.values() )
+    {
+      if( entry instanceof Node )
+      {
+        values.add( ((Node<K, V>)entry)._value );
+      }
+    }
+    return values;
   }
 
   public int getConfiguredSize()
@@ -133,28 +260,34 @@ public class Cache<K, V>
 
   public int getUtilizedSize()
   {
-    return _cacheImlp.size();
+    return _store._count;
   }
 
   public int getRequests()
   {
-    return _requests.get();
+    return (int)(hits() + _misses.sum());
   }
 
   public int getMisses()
   {
-    return _misses.get();
+    return (int)_misses.sum();
   }
 
   public int getHits()
   {
-    return _hits.get();
+    return (int)hits();
+  }
+
+  private long hits()
+  {
+    ReadBuffer reads = _store._reads;
+    return _hits.sum() + (reads == null ? 0 : reads.count());
   }
 
   public double getHitRate()
   {
-    int requests = getRequests();
-    int hits = getHits();
+    long hits = hits();
+    long requests = hits + _misses.sum();
     if( requests == 0 )
     {
       return 0.0;
@@ -211,9 +344,8 @@ public class Cache<K, V>
   public void clear()
   {
     clearCacheImpl();
-    _hits.set( 0 );
-    _misses.set( 0 );
-    _requests.set( 0 );
+    _hits.reset();
+    _misses.reset();
   }
 
   @Override
@@ -228,870 +360,499 @@ public class Cache<K, V>
   }
 
   /**
-   * A {@link ConcurrentMap} with a doubly-linked list running through its entries.
-   * <p/>
-   * This class provides the same semantics as a {@link ConcurrentHashMap} in terms of
-   * iterators, acceptable keys, and concurrency characteristics, but perform slightly
-   * worse due to the added expense of maintaining the linked list. It differs from
-   * {@link java.util.LinkedHashMap} in that it does not provide predictable iteration
-   * order.
-   * <p/>
-   * This map is intended to be used for caches and provides the following eviction policies:
-   * <ul>
-   * <li> First-in, First-out: Also known as insertion order. This policy has excellent
-   * concurrency characteristics and an adequate hit rate.
-   * <li> Second-chance: An enhanced FIFO policy that marks entries that have been retrieved
-   * and saves them from being evicted until the next pass. This enhances the FIFO policy
-   * by making it aware of "hot" entries, which increases its hit rate to be equal to an
-   * LRU's under normal workloads. In the worst case, where all entries have been saved,
-   * this policy degrades to a FIFO.
-   * <li> Least Recently Used: An eviction policy based on the observation that entries that
-   * have been used recently will likely be used again soon. This policy provides a good
-   * approximation of an optimal algorithm, but suffers by being expensive to maintain.
-   * The cost of reordering entries on the list during every access operation reduces
-   * the concurrency and performance characteristics of this policy.
-   * </ul>
-   * <p/>
-   * The <i>Second Chance</i> eviction policy is recommended for common use cases as it provides
-   * the best mix of performance and efficiency of the supported replacement policies.
-   * <p/>
-   * If the <i>Least Recently Used</i> policy is chosen then the sizing should compensate for the
-   * proliferation of dead nodes on the linked list. While the values are removed immediately, the
-   * nodes are evicted only when they reach the head of the list. Under FIFO-based policies, dead
-   * nodes occur when explicit removals are requested and does not normally produce a noticeable
-   * impact on the map's hit rate. The LRU policy creates a dead node on every successful retrieval
-   * and a new node is placed at the tail of the list. For this reason, the LRU's efficiency cannot
-   * be compared directly to a {@link java.util.LinkedHashMap} evicting in access order.
-   * <p>
-   * <a href="mailto:ben.manes@reardencommerce.com">Ben Manes</a>
+   * The entries of a cache. Lookups don't lock, adding and removing entries synchronize on the store to keep the
+   * eviction queue and the count consistent with the map.
    */
-  static class ConcurrentLinkedHashMap<K, V> extends AbstractMap<K, V> implements ConcurrentMap<K, V>, Serializable
+  private static final class Store<K, V>
   {
-    private static final long serialVersionUID = 8350170357874293408L;
-    final List<EvictionListener<K, V>> listeners;
-    final ConcurrentMap<K, Node<K, V>> data;
-    final AtomicInteger capacity;
-    final EvictionPolicy policy;
-    final AtomicInteger length;
-    final Node<K, V> head;
-    final Node<K, V> tail;
+    /** a {@link Node} or a {@link Loading} per key */
+    private final ConcurrentHashMap<K, Object> _data;
+    private final int _capacity;
+    /** nodes in insertion order for the second-chance sweep, may contain removed nodes */
+    private final ArrayDeque<Node<K, V>> _queue;
+    private volatile int _count;
+    /** created when the store is half full, a small store of a large capacity doesn't need it, guarded by the store */
+    private FrequencySketch _sketch;
+    /** hits to count in the sketch, created with it */
+    private volatile ReadBuffer _reads;
 
-    /**
-     * Creates a new, empty, unbounded map with the specified maximum capacity and the default
-     * concurrencyLevel.
-     *
-     * @param policy          The eviction policy to apply when the size exceeds the maximum capacity.
-     * @param maximumCapacity The maximum capacity to coerces to. The size may exceed it temporarily.
-     * @param listeners       The listeners registered for notification when an entry is evicted.
-     */
-    public ConcurrentLinkedHashMap( EvictionPolicy policy, int maximumCapacity, EvictionListener<K, V>... listeners )
+    private Store( int capacity )
     {
-      this( policy, maximumCapacity, 16, listeners );
+      _capacity = capacity;
+      _data = new ConcurrentHashMap<>();
+      _queue = new ArrayDeque<>();
     }
 
     /**
-     * Creates a new, empty, unbounded map with the specified maximum capacity and concurrency level.
-     *
-     * @param policy           The eviction policy to apply when the size exceeds the maximum capacity.
-     * @param maximumCapacity  The maximum capacity to coerces to. The size may exceed it temporarily.
-     * @param concurrencyLevel The estimated number of concurrently updating threads. The implementation
-     *                         performs internal sizing to try to accommodate this many threads.
-     * @param listeners        The listeners registered for notification when an entry is evicted.
+     * @return True if the hit is counted in the read buffer
      */
-    public ConcurrentLinkedHashMap( EvictionPolicy policy, int maximumCapacity, int concurrencyLevel, EvictionListener<K, V>... listeners )
+    private boolean recordHit( Object key )
     {
-      if( (policy == null) || (maximumCapacity < 0) || (concurrencyLevel <= 0) )
+      ReadBuffer reads = _reads;
+      if( reads == null )
       {
-        throw new IllegalArgumentException();
+        return false;
       }
-      this.listeners = (listeners == null) ? Collections.<EvictionListener<K, V>>emptyList() : Arrays.asList( listeners );
-      this.data = new ConcurrentHashMap<K, Node<K, V>>( maximumCapacity, 0.75f, concurrencyLevel );
-      this.capacity = new AtomicInteger( maximumCapacity );
-      this.length = new AtomicInteger();
-      this.head = new Node<K, V>();
-      this.tail = new Node<K, V>();
-      this.policy = policy;
-
-      head.setPrev( head );
-      head.setNext( tail );
-      tail.setPrev( head );
-      tail.setNext( tail );
+      reads.offer( key );
+      return true;
     }
 
     /**
-     * Determines whether the map has exceeded its capacity.
-     *
-     * @return Whether the map has overflowed and an entry should be evicted.
+     * Replaces {@code loading} with {@code node} if the store has room, or if the key is requested more often than the
+     * entry it would replace. Otherwise the value is not cached.
      */
-    private boolean isOverflow()
+    private synchronized void add( K key, Loading<V> loading, Node<K, V> node )
     {
-      return length.get() > capacity();
-    }
-
-    /**
-     * Sets the maximum capacity of the map and eagerly evicts entries until the
-     * it shrinks to the appropriate size.
-     *
-     * @param capacity The maximum capacity of the map.
-     */
-    public void setCapacity( int capacity )
-    {
-      if( capacity < 0 )
+      if( _capacity <= 0 )
       {
-        throw new IllegalArgumentException();
+        _data.remove( key, loading );
+        return;
       }
-      this.capacity.set( capacity );
-      while( isOverflow() )
+      if( _sketch != null )
       {
-        evict();
+        _reads.drainTo( _sketch );
+        _sketch.increment( key );
       }
-    }
-
-    /**
-     * Retrieves the maximum capacity of the map.
-     *
-     * @return The maximum capacity.
-     */
-    public int capacity()
-    {
-      return capacity.get();
-    }
-
-    /**
-     * {@inheritDoc}
-     */
-    @Override
-    public int size()
-    {
-      return data.size();
-    }
-
-    /**
-     * {@inheritDoc}
-     */
-    @Override
-    public void clear()
-    {
-      for( K key : keySet() )
-      {
-        remove( key );
-      }
-    }
-
-    /**
-     * {@inheritDoc}
-     */
-    @Override
-    public boolean containsKey( Object key )
-    {
-      return data.containsKey( key );
-    }
-
-    /**
-     * {@inheritDoc}
-     */
-    @Override
-    public boolean containsValue( Object value )
-    {
-      return data.containsValue( new Node<Object, Object>( null, value ) );
-    }
-
-    /**
-     * Evicts a single entry if the map exceeds the maximum capacity.
-     */
-    private void evict()
-    {
-      while( isOverflow() )
+      Node<K, V> victim = null;
+      if( _count >= _capacity )
       {
-        Node<K, V> node = poll();
-        if( node == null )
-        {
-          return;
-        }
-        else if( policy.onEvict( this, node ) )
+        victim = findVictim();
+        if( victim == null || _sketch == null ||
+            _sketch.frequency( key ) <= _sketch.frequency( victim._key ) )
         {
-          V value = node.getValue();
-          if( value != null )
+          if( victim != null )
           {
-            K key = node.getKey();
-            data.remove( key );
-            notifyEviction( key, value );
+            _queue.addFirst( victim );
           }
-          length.decrementAndGet();
+          _data.remove( key, loading );
           return;
         }
-        offer( node );
       }
-    }
-
-    /**
-     * Notifies the listeners that an entry was evicted from the map.
-     *
-     * @param key   The entry's key.
-     * @param value The entry's value.
-     */
-    private void notifyEviction( K key, V value )
-    {
-      for( int i = 0; i < listeners.size(); i++ )
-      {
-        EvictionListener<K, V> listener = listeners.get( i );
-        listener.onEviction( key, value );
-      }
-    }
-
-
-    /**
-     * Retrieves and removes the first node on the list or <tt>null</tt> if empty.
-     *
-     * @return The first node on the list or <tt>null</tt> if empty.
-     */
-    private Node<K, V> poll()
-    {
-      for( ; ; )
+      if( !_data.replace( key, loading, node ) )
       {
-        Node<K, V> node = head.getNext();
-        if( head.casNext( node, node.getNext() ) )
+        // removed or replaced while loading
+        if( victim != null )
         {
-          for( ; ; )
-          {
-            if( node.casState( Node.State.LINKED, Node.State.UNLINKING ) )
-            {
-              node.getNext().setPrev( head );
-              node.setState( Node.State.UNLINKED );
-              return node;
-            }
-            Node.State state = node.getState();
-            if( state == Node.State.SENTINEL )
-            {
-              return null;
-            }
-          }
+          _queue.addFirst( victim );
         }
+        return;
       }
+      if( victim != null )
+      {
+        unlink( victim );
+      }
+      link( node );
     }
 
-    /**
-     * Inserts the specified node on to the tail of the list.
-     *
-     * @param node An unlinked node to append to the tail of the list.
-     */
-    private void offer( Node<K, V> node )
+    private synchronized V put( K key, Node<K, V> node )
     {
-      node.setState( Node.State.LINKING );
-      node.setNext( tail );
-      for( ; ; )
+      Object old = _data.put( key, node );
+      if( old instanceof Node )
       {
-        Node<K, V> prev = tail.getPrev();
-        node.setPrev( prev );
-        if( prev.casNext( tail, node ) )
+        unlink( (Node<K, V>)old );
+      }
+      if( _count >= _capacity )
+      {
+        Node<K, V> victim = findVictim();
+        if( victim != null )
         {
-          Node<K, V> next = tail;
-          for( ; ; )
-          {
-            if( next.casPrev( prev, node ) )
-            {
-              node.setState( Node.State.LINKED );
-              return;
-            }
-            // walk up the list until a node can be linked
-            next = next.getPrev();
-          }
+          unlink( victim );
         }
       }
-    }
-
-    /**
-     * Adds a node to the list and data store if it does not already exist.
-     *
-     * @param node An unlinked node to add.
-     *
-     * @return The previous value in the data store.
-     */
-    private Node<K, V> putIfAbsent( Node<K, V> node )
-    {
-      Node<K, V> old = data.putIfAbsent( node.getKey(), node );
-      if( old == null )
+      if( _capacity > 0 )
       {
-        length.incrementAndGet();
-        offer( node );
-        evict();
+        link( node );
       }
-      return old;
+      else
+      {
+        _data.remove( key, node );
+      }
+      return old instanceof Node ? ((Node<K, V>)old)._value : null;
     }
 
-    /**
-     * {@inheritDoc}
-     */
-    @Override
-    public V get( Object key )
+    private synchronized V remove( Object key )
     {
-      Node<K, V> node = data.get( key );
-      if( node != null )
+      Object old = _data.remove( key );
+      if( old instanceof Node )
       {
-        V value = node.getValue();
-        policy.onGet( this, node );
-        return value;
+        Node<K, V> node = (Node<K, V>)old;
+        node._removed = true;
+        _count--;
+        return node._value;
       }
       return null;
     }
 
-    /**
-     * {@inheritDoc}
-     */
-    public V put( K key, V value )
+    private synchronized void remove( Object key, Node<K, V> node )
     {
-      if( value == null )
+      if( _data.remove( key, node ) )
       {
-        throw new IllegalArgumentException();
+        node._removed = true;
+        _count--;
       }
-      Node<K, V> old = putIfAbsent( new Node<K, V>( key, value ) );
-      return (old == null) ? null : old.getAndSetValue( value );
     }
 
-    /**
-     * {@inheritDoc}
-     */
-    public V putIfAbsent( K key, V value )
+    private void link( Node<K, V> node )
     {
-      if( value == null )
+      if( _queue.size() > 2 * _count + 16 )
       {
-        throw new IllegalArgumentException();
+        // drop nodes removed by key or replaced
+        _queue.removeIf( e -> e._removed );
       }
-      Node<K, V> old = putIfAbsent( new Node<K, V>( key, value ) );
-      return (old == null) ? null : old.getValue();
-    }
-
-    /**
-     * {@inheritDoc}
-     */
-    public V remove( Object key )
-    {
-      Node<K, V> node = data.remove( key );
-      if( node != null )
+      _queue.addLast( node );
+      _count++;
+      if( _sketch == null && _count >= _capacity / 2 )
       {
-        V value = node.getValue();
-        policy.onRemove( this, node );
-        return value;
+        _sketch = new FrequencySketch( _capacity );
+        _reads = new ReadBuffer();
       }
-      return null;
     }
 
-    /**
-     * {@inheritDoc}
-     */
-    public boolean remove( Object key, Object value )
+    private void unlink( Node<K, V> node )
     {
-      Node<K, V> node = data.get( key );
-      if( (node != null) && node.value.equals( value ) && data.remove( key, node ) )
+      if( !node._removed )
       {
-        policy.onRemove( this, node );
-        return true;
+        node._removed = true;
+        _data.remove( node._key, node );
+        _count--;
       }
-      return false;
     }
 
     /**
-     * {@inheritDoc}
+     * Takes the oldest entry not requested since the sweep last passed it, giving referenced entries a second chance.
      */
-    public V replace( K key, V value )
+    private Node<K, V> findVictim()
     {
-      if( value == null )
+      for( int i = 0, max = _queue.size() * 2; i < max; i++ )
       {
-        throw new IllegalArgumentException();
+        Node<K, V> node = _queue.pollFirst();
+        if( node == null )
+        {
+          return null;
+        }
+        if( node._removed )
+        {
+          continue;
+        }
+        if( node._referenced )
+        {
+          node._referenced = false;
+          _queue.addLast( node );
+          continue;
+        }
+        return node;
       }
-      Node<K, V> node = data.get( key );
-      return (node == null) ? null : node.getAndSetValue( value );
+      return null;
     }
+  }
 
-    /**
-     * {@inheritDoc}
-     */
-    public boolean replace( K key, V oldValue, V newValue )
+  private static final class Node<K, V>
+  {
+    private final K _key;
+    private final V _value;
+    /** the time of the write if entries expire, otherwise zero */
+    private final long _writeTime;
+    /** set on each hit, cleared as the second-chance sweep passes, racy updates are harmless */
+    private boolean _referenced;
+    /** guarded by the store */
+    private boolean _removed;
+
+    private Node( K key, V value, long writeTime )
     {
-      if( newValue == null )
-      {
-        throw new IllegalArgumentException();
-      }
-      Node<K, V> node = data.get( key );
-      return (node != null) && node.casValue( oldValue, newValue );
+      _key = key;
+      _value = value;
+      _writeTime = writeTime;
     }
+  }
 
-    /**
-     * {@inheritDoc}
-     */
-    public Set<Entry<K, V>> entrySet()
+  /**
+   * Placeholder for a value being loaded, other threads requesting the key wait for it.
+   */
+  private static final class Loading<V>
+  {
+    private final Thread _owner = Thread.currentThread();
+    private boolean _done;
+    private V _value;
+    private Throwable _failure;
+    /** usually no other thread waits, notifying only if one does avoids inflating the monitor */
+    private boolean _waiting;
+
+    private synchronized void complete( V value )
     {
-      return new EntrySetAdapter();
+      _value = value;
+      done();
     }
 
-    /**
-     * A listener registered for notification when an entry is evicted.
-     */
-    public interface EvictionListener<K, V>
+    private synchronized void fail( Throwable failure )
     {
-
-      /**
-       * A call-back notification that the entry was evicted.
-       *
-       * @param key   The evicted key.
-       * @param value The evicted value.
-       */
-      void onEviction( K key, V value );
+      _failure = failure;
+      done();
     }
 
-    /**
-     * The replacement policy to apply to determine which entry to discard to when the capacity has been reached.
-     */
-    public enum EvictionPolicy
+    private void done()
     {
-
-      /**
-       * Evicts entries based on insertion order.
-       */
-      FIFO()
-        {
-          <K, V> void onGet( ConcurrentLinkedHashMap<K, V> map, Node<K, V> node )
-          {
-            // do nothing
-          }
-
-          <K, V> boolean onEvict( ConcurrentLinkedHashMap<K, V> map, Node<K, V> node )
-          {
-            return true;
-          }
-        },
-
-      /**
-       * Evicts entries based on insertion order, but gives an entry a "second chance" if it has been requested recently.
-       */
-      SECOND_CHANCE()
-        {
-          <K, V> void onGet( ConcurrentLinkedHashMap<K, V> map, Node<K, V> node )
-          {
-            node.setMarked( true );
-          }
-
-          <K, V> void onRemove( ConcurrentLinkedHashMap<K, V> map, Node<K, V> node )
-          {
-            super.onRemove( map, node );
-            node.setMarked( false );
-          }
-
-          <K, V> boolean onEvict( ConcurrentLinkedHashMap<K, V> map, Node<K, V> node )
-          {
-            if( node.isMarked() )
-            {
-              node.setMarked( false );
-              return false;
-            }
-            return true;
-          }
-        },
-
-
-      /**
-       * Evicts entries based on how recently they are used, with the least recent evicted first.
-       */
-      LRU()
-        {
-          <K, V> void onGet( ConcurrentLinkedHashMap<K, V> map, Node<K, V> node )
-          {
-            Node<K, V> newNode = new Node<K, V>( node.getKey(), node.getValue() );
-            if( map.data.replace( node.getKey(), node, newNode ) )
-            {
-              map.length.incrementAndGet();
-              onRemove( map, node );
-              map.offer( newNode );
-              map.evict();
-            }
-          }
-
-          <K, V> boolean onEvict( ConcurrentLinkedHashMap<K, V> map, Node<K, V> node )
-          {
-            return true;
-          }
-        };
-
-      /**
-       * Performs any operations required by the policy after a node was successfully retrieved.
-       *
-       * @param map  the map to for this listener
-       * @param node the specific node
-       */
-      abstract <K, V> void onGet( ConcurrentLinkedHashMap<K, V> map, Node<K, V> node );
-
-      /**
-       * Expires a node so that, for all intents and purposes, it is a dead on the list. The
-       * caller of this method should have already removed the node from the mapping so that
-       * no key can look it up. When the node reaches the head of the list it will be evicted.
-       *
-       * @param map  the map to for this listener
-       * @param node the specific node
-       */
-      <K, V> void onRemove( ConcurrentLinkedHashMap<K, V> map, Node<K, V> node )
+      _done = true;
+      if( _waiting )
       {
-        node.setValue( null );
+        notifyAll();
       }
-
-      /**
-       * Determines whether to evict the node at the head of the list. If false, the node is offered
-       * to the tail.
-       *
-       * @param map  the map to for this listener
-       * @param node the specific node
-       *
-       * @return whether this node is to be evicted
-       */
-      abstract <K, V> boolean onEvict( ConcurrentLinkedHashMap<K, V> map, Node<K, V> node );
     }
 
     /**
-     * A node on the double-linked list. This list cross-cuts the data store.
+     * Registers the current thread as waiting for this load, unless the thread loading it waits for the current thread,
+     * directly or through other loads.
+     *
+     * @return False if waiting would deadlock
      */
-    @SuppressWarnings("unchecked")
-    static final class Node<K, V> implements Serializable
+    private boolean startWaiting()
     {
-      private static final long serialVersionUID = 1461281468985304519L;
-      private static final AtomicReferenceFieldUpdater<Node, Object> valueUpdater =
-        AtomicReferenceFieldUpdater.newUpdater( Node.class, Object.class, "value" );
-      private static final AtomicReferenceFieldUpdater<Node, State> stateUpdater =
-        AtomicReferenceFieldUpdater.newUpdater( Node.class, State.class, "state" );
-      private static final AtomicReferenceFieldUpdater<Node, Node> prevUpdater =
-        AtomicReferenceFieldUpdater.newUpdater( Node.class, Node.class, "prev" );
-      private static final AtomicReferenceFieldUpdater<Node, Node> nextUpdater =
-        AtomicReferenceFieldUpdater.newUpdater( Node.class, Node.class, "next" );
-
-      public static enum State
+      Thread current = Thread.currentThread();
+      synchronized( WAITING )
       {
-        SENTINEL, UNLINKED, UNLINKING, LINKING, LINKED
-      }
-
-      private final K key;
-      private volatile V value;
-      private volatile State state;
-      private volatile boolean marked;
-      private volatile Node<K, V> prev = null;
-      private volatile Node<K, V> next = null;
-
-      /**
-       * Creates a sentinel node.
-       */
-      public Node()
-      {
-        this.key = null;
-        this.state = State.SENTINEL;
-      }
-
-      /**
-       * Creates a new, unlinked node.
-       *
-       * @param key   the key
-       * @param value the value
-       */
-      public Node( K key, V value )
-      {
-        this.key = key;
-        this.value = value;
-        this.state = State.UNLINKED;
-      }
-
-      public K getKey()
-      {
-        return key;
-      }
-
-      public V getValue()
-      {
-        return value;
-      }
-
-      public void setValue( V value )
-      {
-        valueUpdater.set( this, value );
-      }
-
-      public V getAndSetValue( V value )
-      {
-        return (V)valueUpdater.getAndSet( this, value );
-      }
-
-      public boolean casValue( V expect, V update )
-      {
-        return valueUpdater.compareAndSet( this, expect, update );
-      }
-
-      public Node<K, V> getPrev()
-      {
-        return prev;
-      }
-
-      public void setPrev( Node<K, V> node )
-      {
-        prevUpdater.set( this, node );
+        for( Loading<?> loading = this; loading != null; loading = WAITING.get( loading._owner ) )
+        {
+          if( loading._owner == current )
+          {
+            return false;
+          }
+        }
+        WAITING.put( current, this );
+        return true;
       }
+    }
 
-      public boolean casPrev( Node<K, V> expect, Node<K, V> update )
+    private static void stopWaiting()
+    {
+      synchronized( WAITING )
       {
-        return prevUpdater.compareAndSet( this, expect, update );
+        WAITING.remove( Thread.currentThread() );
       }
+    }
 
-      public Node<K, V> getNext()
+    private synchronized V await()
+    {
+      boolean interrupted = false;
+      _waiting = true;
+      while( !_done )
       {
-        return next;
+        try
+        {
+          wait();
+        }
+        catch( InterruptedException e )
+        {
+          interrupted = true;
+        }
       }
-
-      public void setNext( Node<K, V> node )
+      if( interrupted )
       {
-        nextUpdater.set( this, node );
+        Thread.currentThread().interrupt();
       }
-
-      public boolean casNext( Node<K, V> expect, Node<K, V> update )
+      if( _failure instanceof RuntimeException )
       {
-        return nextUpdater.compareAndSet( this, expect, update );
+        throw (RuntimeException)_failure;
       }
-
-      public boolean isMarked()
+      if( _failure instanceof Error )
       {
-        return marked;
+        throw (Error)_failure;
       }
+      return _value;
+    }
+  }
 
-      public void setMarked( boolean marked )
-      {
-        this.marked = marked;
-      }
+  /**
+   * Counts hits and samples their keys for the frequency sketch. A thread uses one of several stripes chosen by the
+   * thread, so threads rarely write to the same stripe. Every {@link #SAMPLE_RATE}th hit of a stripe is sampled, its key
+   * is written to the stripe's next slot and counts as {@link #SAMPLE_WEIGHT} requests in the sketch. The buffer is drained
+   * under the store's lock before a loaded value is added, so a hit never takes the lock. The buffer is lossy, a stripe
+   * keeps its latest samples and overwrites older ones not drained yet, which only makes the estimate a little lower.
+   */
+  private static final class ReadBuffer
+  {
+    private static final int SAMPLE_RATE = 16;
+    /** less than the sample rate, so a single sample doesn't make a key as frequent as the 4-bit counters allow */
+    private static final int SAMPLE_WEIGHT = 4;
+    private static final int STRIPE_SIZE = 16;
+    private static final int STRIPES =
+      Integer.highestOneBit( Math.min( 16, Runtime.getRuntime().availableProcessors() ) * 2 - 1 );
 
-      public State getState()
-      {
-        return state;
-      }
+    private final Stripe[] _stripes;
 
-      public void setState( State state )
+    private ReadBuffer()
+    {
+      _stripes = new Stripe[STRIPES];
+      for( int i = 0; i < STRIPES; i++ )
       {
-        stateUpdater.set( this, state );
+        _stripes[i] = new Stripe();
       }
+    }
 
-      public boolean casState( State expect, State update )
+    private void offer( Object key )
+    {
+      long id = Thread.currentThread().getId();
+      Stripe stripe = _stripes[(int)(id ^ (id >>> 16)) & (STRIPES - 1)];
+      long hit = stripe._hits.getAndIncrement();
+      if( (hit & (SAMPLE_RATE - 1)) == 0 )
       {
-        return stateUpdater.compareAndSet( this, expect, update );
+        stripe._keys.lazySet( (int)(hit / SAMPLE_RATE) & (STRIPE_SIZE - 1), key );
       }
+    }
 
-      /**
-       * Only ensures that the values are equal, as the key may be <tt>null</tt> for look-ups.
-       */
-      @Override
-      public boolean equals( Object obj )
+    /**
+     * Counts the buffered keys in the sketch. Called with the store's lock held.
+     */
+    private void drainTo( FrequencySketch sketch )
+    {
+      for( Stripe stripe: _stripes )
       {
-        if( obj == this )
+        // the hits numbered 0, SAMPLE_RATE, 2 * SAMPLE_RATE... are sampled
+        long sampled = (stripe._hits.get() + SAMPLE_RATE - 1) / SAMPLE_RATE;
+        for( long sample = Math.max( stripe._drained, sampled - STRIPE_SIZE ); sample < sampled; sample++ )
         {
-          return true;
-        }
-        else if( !(obj instanceof Node) )
-        {
-          return false;
+          int slot = (int)sample & (STRIPE_SIZE - 1);
+          Object key = stripe._keys.get( slot );
+          if( key != null )
+          {
+            stripe._keys.lazySet( slot, null );
+            sketch.increment( key, SAMPLE_WEIGHT );
+          }
         }
-        V value = getValue();
-        Node<?, ?> node = (Node<?, ?>)obj;
-        return (value == null) ? (node.getValue() == null) : value.equals( node.getValue() );
-      }
-
-      /**
-       * {@inheritDoc}
-       */
-      @Override
-      public int hashCode()
-      {
-        return ((key == null) ? 0 : key.hashCode()) ^
-               ((value == null) ? 0 : value.hashCode());
-      }
-
-      @Override
-      public String toString()
-      {
-        return String.format( "Node[state=%s, marked=%b, key=%s, value=%s]", getState(), isMarked(), getKey(), getValue() );
+        stripe._drained = sampled;
       }
     }
 
     /**
-     * An adapter to represent the data store's entry set in the external type.
+     * @return The number of hits offered
      */
-    private final class EntrySetAdapter extends AbstractSet<Entry<K, V>>
+    private long count()
     {
-      private final ConcurrentLinkedHashMap<K, V> map = ConcurrentLinkedHashMap.this;
-
-      /**
-       * {@inheritDoc}
-       */
-      @Override
-      public void clear()
+      long count = 0;
+      for( Stripe stripe: _stripes )
       {
-        map.clear();
+        count += stripe._hits.get();
       }
+      return count;
+    }
 
-      /**
-       * {@inheritDoc}
-       */
-      public int size()
-      {
-        return map.size();
-      }
+    private static final class Stripe
+    {
+      private final AtomicReferenceArray<Object> _keys = new AtomicReferenceArray<>( STRIPE_SIZE );
+      private final AtomicLong _hits = new AtomicLong();
+      /** the number of samples drained, guarded by the store */
+      private long _drained;
+    }
+  }
 
-      /**
-       * {@inheritDoc}
-       */
-      public Iterator<Entry<K, V>> iterator()
-      {
-        return new EntryIteratorAdapter( map.data.entrySet().iterator() );
-      }
+  /**
+   * A count-min sketch of 4-bit counters estimating how often keys are requested. The counters are halved periodically
+   * so the estimate favors recent requests. Not thread-safe, the store updates it under its lock.
+   */
+  static final class FrequencySketch
+  {
+    private static final long RESET_MASK = 0x7777777777777777L;
+    /** a seed per depth, so a key's counters are at independent positions */
+    private static final long[] SEEDS = {0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL,
+                                         0xcbf29ce484222325L};
 
-      /**
-       * {@inheritDoc}
-       */
-      @Override
-      public boolean contains( Object obj )
-      {
-        if( !(obj instanceof Entry) )
-        {
-          return false;
-        }
-        Entry<?, ?> entry = (Entry<?, ?>)obj;
-        Node<K, V> node = map.data.get( entry.getKey() );
-        return (node != null) && (node.value.equals( entry.getValue() ));
-      }
+    /** 16 counters per element, a key's counter at depth i is the i-th counter of a group of four in its element */
+    private final long[] _table;
+    private final int _tableMask;
+    private final int _sampleSize;
+    private int _additions;
 
+    FrequencySketch( int capacity )
+    {
+      int size = Integer.highestOneBit( Math.max( 16, Math.min( capacity, 1 << 24 ) ) - 1 ) << 1;
+      _table = new long[size];
+      _tableMask = size - 1;
+      _sampleSize = 10 * size;
+    }
 
-      /**
-       * {@inheritDoc}
-       */
-      @Override
-      public boolean add( Entry<K, V> entry )
-      {
-        return (map.putIfAbsent( entry.getKey(), entry.getValue() ) == null);
-      }
+    int frequency( Object key )
+    {
+      int hash = spread( key.hashCode() );
+      int start = (hash & 3) << 2;
+      return Math.min( Math.min( counter( indexOf( hash, 0 ), start ), counter( indexOf( hash, 1 ), start + 1 ) ),
+                       Math.min( counter( indexOf( hash, 2 ), start + 2 ), counter( indexOf( hash, 3 ), start + 3 ) ) );
+    }
 
-      /**
-       * {@inheritDoc}
-       */
-      @Override
-      public boolean remove( Object obj )
-      {
-        if( !(obj instanceof Entry) )
-        {
-          return false;
-        }
-        Entry<?, ?> entry = (Entry<?, ?>)obj;
-        return map.remove( entry.getKey(), entry.getValue() );
-      }
+    void increment( Object key )
+    {
+      increment( key, 1 );
     }
 
     /**
-     * An adapter to represent the data store's entry iterator in the external type.
+     * Counts {@code weight} requests of the key
      */
-    private final class EntryIteratorAdapter implements Iterator<Entry<K, V>>
+    void increment( Object key, int weight )
     {
-      private final Iterator<Entry<K, Node<K, V>>> iterator;
-      private Entry<K, Node<K, V>> current;
-
-      public EntryIteratorAdapter( Iterator<Entry<K, Node<K, V>>> iterator )
-      {
-        this.iterator = iterator;
-      }
-
-      /**
-       * {@inheritDoc}
-       */
-      public boolean hasNext()
-      {
-        return iterator.hasNext();
-      }
-
-      /**
-       * {@inheritDoc}
-       */
-      public Entry<K, V> next()
+      int hash = spread( key.hashCode() );
+      int start = (hash & 3) << 2;
+      int index0 = indexOf( hash, 0 );
+      int index1 = indexOf( hash, 1 );
+      int index2 = indexOf( hash, 2 );
+      int index3 = indexOf( hash, 3 );
+      int frequency = Math.min( Math.min( counter( index0, start ), counter( index1, start + 1 ) ),
+                                Math.min( counter( index2, start + 2 ), counter( index3, start + 3 ) ) );
+      if( frequency == 15 )
       {
-        current = iterator.next();
-        K key = current.getKey();
-        Node<K, V> node = current.getValue();
-        V value = node == null ? null : node.getValue();
-        return new SimpleEntry<K, V>( key, value );
+        return;
       }
 
-      /**
-       * {@inheritDoc}
-       */
-      public void remove()
+      // conservative update, only the counters below the new estimate are raised to it
+      int estimate = Math.min( 15, frequency + weight );
+      raise( index0, start, estimate );
+      raise( index1, start + 1, estimate );
+      raise( index2, start + 2, estimate );
+      raise( index3, start + 3, estimate );
+      _additions += weight;
+      if( _additions >= _sampleSize )
       {
-        if( current == null )
-        {
-          throw new IllegalStateException();
-        }
-        ConcurrentLinkedHashMap.this.remove( current.getKey(), current.getValue() );
-        current = null;
+        reset();
       }
     }
 
     /**
-     * This duplicates {@link AbstractMap.SimpleEntry} until the class is made accessible.
-     * Update: SimpleEntry is public in JDK 6.
+     * @return The {@code n}-th counter of the element at {@code index}
      */
-    private static final class SimpleEntry<K, V> implements Entry<K, V>
+    private int counter( int index, int n )
     {
-      private final K key;
-      private V value;
-
-      public SimpleEntry( K key, V value )
-      {
-        this.key = key;
-        this.value = value;
-      }
-
-      public K getKey()
-      {
-        return key;
-      }
-
-      public V getValue()
-      {
-        return value;
-      }
+      return (int)(_table[index] >>> (n << 2)) & 0xf;
+    }
 
-      public V setValue( V value )
+    private void raise( int index, int n, int estimate )
+    {
+      int counter = counter( index, n );
+      if( counter < estimate )
       {
-        V oldValue = this.value;
-        this.value = value;
-        return oldValue;
-      }
-
-      public boolean equals( Object obj )
-      {
-        if( obj == this )
-        {
-          return true;
-        }
-        else if( !(obj instanceof Entry) )
-        {
-          return false;
-        }
-        Entry<?, ?> entry = (Entry<?, ?>)obj;
-        return eq( key, entry.getKey() ) && eq( value, entry.getValue() );
+        _table[index] += (long)(estimate - counter) << (n << 2);
       }
+    }
 
-      public int hashCode()
+    private void reset()
+    {
+      for( int i = 0; i < _table.length; i++ )
       {
-        return ((key == null) ? 0 : key.hashCode()) ^
-               ((value == null) ? 0 : value.hashCode());
+        _table[i] = (_table[i] >>> 1) & RESET_MASK;
       }
+      _additions = _additions / 2;
+    }
 
-      public String toString()
-      {
-        return key + "=" + value;
-      }
+    /**
+     * @return The index of the element holding the key's counter at {@code depth}
+     */
+    private int indexOf( int hash, int depth )
+    {
+      long h = (hash + SEEDS[depth]) * SEEDS[depth];
+      h += h >>> 32;
+      return (int)h & _tableMask;
+    }
 
-      private static boolean eq( Object o1, Object o2 )
-      {
-        return (o1 == null) ? (o2 == null) : o1.equals( o2 );
-      }
+    private static int spread( int x )
+    {
+      x = ((x >>> 16) ^ x) * 0x45d9f3b;
+      x = ((x >>> 16) ^ x) * 0x45d9f3b;
+      return (x >>> 16) ^ x;
     }
   }
-
 }
@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2023 - Manifold Systems LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package manifold.util.concurrent;
+
+import java.util.function.Function;
+
+/**
+ * Lazily associates a value with a class, like {@code java.lang.ClassValue}.
+ * <p/>
+ * Where {@code ClassValue} exists the value is attached to the class, so a value referencing its class, or other classes
+ * from its loader, doesn't keep that loader reachable. Android before API level 34 has no {@code ClassValue}, there the
+ * values are kept in a {@link ConcurrentWeakHashMap} keyed by the class. Nothing referencing {@code ClassValue} is loaded
+ * in that case.
+ */
+public class ClassLocal<T>
+{
+  private static final boolean HAS_CLASS_VALUE = hasClassValue();
+
+  private final Store<T> _store;
+
+  /**
+   * @param computeValue Computes the value for a class the first time it is requested. It may be called more than once
+   *                     for the same class by concurrent threads, only one of the results is kept.
+   */
+  public ClassLocal( Function<Class<?>, ? extends T> computeValue )
+  {
+    _store = HAS_CLASS_VALUE
+      ? new ClassValueStore<>( computeValue )
+      : new WeakMapStore<>( computeValue );
+  }
+
+  /**
+   * @return The value for {@code cls}, computed if necessary
+   */
+  public T get( Class<?> cls )
+  {
+    return _store.get( cls );
+  }
+
+  private static boolean hasClassValue()
+  {
+    try
+    {
+      Class.forName( "java.lang.ClassValue" );
+      return true;
+    }
+    catch( ClassNotFoundException | LinkageError e )
+    {
+      return false;
+    }
+  }
+
+  private interface Store<T>
+  {
+    T get( Class<?> cls );
+  }
+
+  private static class ClassValueStore<T> extends ClassValue<T> implements Store<T>
+  {
+    private final Function<Class<?>, ? extends T> _computeValue;
+
+    private ClassValueStore( Function<Class<?>, ? extends T> computeValue )
+    {
+      _computeValue = computeValue;
+    }
+
+    @Override
+    protected T computeValue( Class<?> type )
+    {
+      return _computeValue.apply( type );
+    }
+  }
+
+  private static class WeakMapStore<T> implements Store<T>
+  {
+    private final Function<Class<?>, ? extends T> _computeValue;
+    private final ConcurrentWeakHashMap<Class<?>, T> _values;
+
+    private WeakMapStore( Function<Class<?>, ? extends T> computeValue )
+    {
+      _computeValue = computeValue;
+      _values = new ConcurrentWeakHashMap<>();
+    }
+
+    @Override
+    public T get( Class<?> cls )
+    {
+      T value = _values.get( cls );
+      if( value == null )
+      {
+        value = _computeValue.apply( cls );
+        T existing = _values.putIfAbsent( cls, value );
+        if( existing != null )
+        {
+          value = existing;
+        }
+      }
+      return value;
+    }
+  }
+}
@@ -1,6 +1,10 @@
 package manifold.util;
 
+import java.io.File;
+import java.lang.ref.WeakReference;
 import java.lang.reflect.AccessibleObject;
+import java.net.URL;
+import java.net.URLClassLoader;
 import junit.framework.TestCase;
 
 public class ReflectUtilTest extends TestCase
@@ -39,6 +43,58 @@ public class ReflectUtilTest extends TestCase
     assertEquals( actualOffset, approximateOffset );
   }
 
+  public void testMemberCache()
+  {
+    // overloads are distinct entries, repeated lookups return the cached ref
+    ReflectUtil.MethodRef callMeInt = ReflectUtil.method( Foo.class, "callMe", int.class );
+    ReflectUtil.MethodRef callMeCharSequence = ReflectUtil.method( Foo.class, "callMe", CharSequence.class );
+    assertEquals( int.class, callMeInt.getMethod().getParameterTypes()[0] );
+    assertEquals( CharSequence.class, callMeCharSequence.getMethod().getParameterTypes()[0] );
+    assertSame( callMeInt, ReflectUtil.method( Foo.class, "callMe", int.class ) );
+
+    // the key does not share the caller's array
+    Class[] params = {int.class};
+    assertSame( callMeInt, ReflectUtil.method( Foo.class, "callMe", params ) );
+    params[0] = String.class;
+    assertSame( callMeInt, ReflectUtil.method( Foo.class, "callMe", int.class ) );
+
+    // misses are cached too
+    assertNull( ReflectUtil.method( Foo.class, "callMe", boolean.class ) );
+    assertNull( ReflectUtil.method( Foo.class, "callMe", boolean.class ) );
+    assertNull( ReflectUtil.method( Foo.class, "noSuchMethod" ) );
+    assertNull( ReflectUtil.field( Foo.class, "noSuchField" ) );
+    assertNull( ReflectUtil.field( Foo.class, "noSuchField" ) );
+
+    // members of supertypes
+    assertSame( ReflectUtil.method( Three.class, "toString" ), ReflectUtil.method( Three.class, "toString" ) );
+    assertNotNull( ReflectUtil.field( Integer.class, "value" ) );
+    assertSame( ReflectUtil.field( Integer.class, "value" ), ReflectUtil.field( Integer.class, "value" ) );
+    assertSame( ReflectUtil.constructor( Three.class ), ReflectUtil.constructor( Three.class ) );
+    assertNull( ReflectUtil.constructor( Three.class, int.class ) );
+  }
+
+  public void testMemberCacheReleasesParameterLoader() throws Exception
+  {
+    // a miss on a JDK class with a parameter type from a discarded loader doesn't keep the loader reachable
+    WeakReference<ClassLoader> loader = lookUpWithDiscardedLoader();
+    for( int i = 0; i < 50 && loader.get() != null; i++ )
+    {
+      System.gc();
+      Thread.sleep( 20 );
+    }
+    assertNull( loader.get() );
+  }
+
+  private static WeakReference<ClassLoader> lookUpWithDiscardedLoader() throws Exception
+  {
+    URL testClasses = new File( ReflectUtilTest.class.getProtectionDomain().getCodeSource().getLocation().toURI() ).toURI().toURL();
+    ClassLoader loader = new URLClassLoader( new URL[]{testClasses}, null );
+    Class<?> param = Class.forName( "manifold.util.testClasses.TestClass1", false, loader );
+    assertNull( ReflectUtil.method( String.class, "noSuchMethod", param ) );
+    assertNull( ReflectUtil.constructor( String.class, param ) );
+    return new WeakReference<>( loader );
+  }
+
   public void testStructuralCall()
   {
     Object res = ReflectUtil.structuralCall( ReflectUtil.method( IFoo.class, "callMe", CharSequence.class ).getMethod(), new Foo(), "hi" );
@@ -0,0 +1,349 @@
+/*
+ * Copyright (c) 2023 - Manifold Systems LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package manifold.util.concurrent;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import junit.framework.TestCase;
+
+public class CacheTest extends TestCase
+{
+  public void testLoadAndStatistics()
+  {
+    AtomicInteger loads = new AtomicInteger();
+    Cache<Integer, String> cache = Cache.make( "test", 10, key -> {
+      loads.incrementAndGet();
+      return "v" + key;
+    } );
+
+    assertEquals( "v1", cache.get( 1 ) );
+    assertEquals( "v1", cache.get( 1 ) );
+    assertEquals( "v2", cache.get( 2 ) );
+    assertEquals( 2, loads.get() );
+    assertEquals( 3, cache.getRequests() );
+    assertEquals( 1, cache.getHits() );
+    assertEquals( 2, cache.getMisses() );
+    assertEquals( 2, cache.getUtilizedSize() );
+
+    cache.clear();
+    assertEquals( 0, cache.getRequests() );
+    assertEquals( 0, cache.getUtilizedSize() );
+    assertEquals( "v1", cache.get( 1 ) );
+    assertEquals( 3, loads.get() );
+  }
+
+  public void testConcurrentHitsCounted() throws InterruptedException
+  {
+    // hits are counted in the read buffer once the cache is half full
+    Cache<Integer, Integer> cache = Cache.make( "test", 10, key -> key );
+    for( int i = 0; i < 8; i++ )
+    {
+      cache.get( i );
+    }
+    List<Thread> threads = new ArrayList<>();
+    for( int t = 0; t < 4; t++ )
+    {
+      Thread thread = new Thread( () -> {
+        for( int i = 0; i < 10_000; i++ )
+        {
+          cache.get( i & 7 );
+        }
+      } );
+      threads.add( thread );
+      thread.start();
+    }
+    for( Thread thread: threads )
+    {
+      thread.join();
+    }
+    assertEquals( 40_000, cache.getHits() );
+    assertEquals( 8, cache.getMisses() );
+    assertEquals( 8, cache.getUtilizedSize() );
+  }
+
+  public void testNullNotCached()
+  {
+    AtomicInteger loads = new AtomicInteger();
+    Cache<Integer, String> cache = Cache.make( "test", 10, key -> {
+      loads.incrementAndGet();
+      return null;
+    } );
+    assertNull( cache.get( 1 ) );
+    assertNull( cache.get( 1 ) );
+    assertEquals( 2, loads.get() );
+    assertEquals( 0, cache.getUtilizedSize() );
+  }
+
+  public void testPutAndEvict()
+  {
+    Cache<Integer, String> cache = Cache.make( "test", 10, key -> "loaded" );
+    assertNull( cache.put( 1, "put" ) );
+    assertEquals( "put", cache.get( 1 ) );
+    assertEquals( "put", cache.put( 1, "again" ) );
+    assertEquals( "again", cache.evict( 1 ) );
+    assertEquals( 0, cache.getUtilizedSize() );
+    assertEquals( "loaded", cache.get( 1 ) );
+  }
+
+  public void testBounded()
+  {
+    Cache<Integer, Integer> cache = Cache.make( "test", 100, key -> key );
+    for( int i = 0; i < 10_000; i++ )
+    {
+      assertEquals( (Integer)i, cache.get( i ) );
+      assertTrue( cache.getUtilizedSize() <= 100 );
+    }
+    for( int i = 0; i < 10_000; i++ )
+    {
+      cache.put( i, i );
+      assertTrue( cache.getUtilizedSize() <= 100 );
+    }
+    int count = 0;
+    for( Integer ignore: cache.getCachedValues() )
+    {
+      count++;
+    }
+    assertEquals( cache.getUtilizedSize(), count );
+  }
+
+  public void testFrequentKeysSurviveScan()
+  {
+    Cache<Integer, Integer> cache = Cache.make( "test", 100, key -> key );
+    for( int round = 0; round < 20; round++ )
+    {
+      for( int i = 0; i < 50; i++ )
+      {
+        cache.get( i );
+      }
+    }
+    // fill the cache, then a scan of one-off keys
+    for( int i = 1000; i < 1050; i++ )
+    {
+      cache.get( i );
+    }
+    for( int i = 10_000; i < 11_000; i++ )
+    {
+      cache.get( i );
+    }
+
+    int hits = cache.getHits();
+    for( int i = 0; i < 50; i++ )
+    {
+      cache.get( i );
+    }
+    assertEquals( 50, cache.getHits() - hits );
+  }
+
+  public void testSingleFlight() throws InterruptedException
+  {
+    AtomicInteger loads = new AtomicInteger();
+    CountDownLatch loading = new CountDownLatch( 1 );
+    CountDownLatch release = new CountDownLatch( 1 );
+    Cache<String, String> cache = Cache.make( "test", 10, key -> {
+      loads.incrementAndGet();
+      loading.countDown();
+      try
+      {
+        release.await();
+      }
+      catch( InterruptedException e )
+      {
+        throw new RuntimeException( e );
+      }
+      return key.toUpperCase();
+    } );
+
+    List<Thread> threads = new ArrayList<>();
+    Set<String> results = new HashSet<>();
+    for( int i = 0; i < 8; i++ )
+    {
+      Thread thread = new Thread( () -> {
+        String value = cache.get( "key" );
+        synchronized( results )
+        {
+          results.add( value );
+        }
+      } );
+      threads.add( thread );
+      thread.start();
+    }
+    loading.await();
+    // give the other threads time to miss
+    Thread.sleep( 100 );
+    release.countDown();
+    for( Thread thread: threads )
+    {
+      thread.join();
+    }
+
+    assertEquals( 1, loads.get() );
+    assertEquals( 1, results.size() );
+    assertTrue( results.contains( "KEY" ) );
+  }
+
+  public void testLoaderFailure()
+  {
+    AtomicInteger loads = new AtomicInteger();
+    Cache<Integer, String> cache = Cache.make( "test", 10, key -> {
+      if( loads.incrementAndGet() == 1 )
+      {
+        throw new IllegalStateException( "first" );
+      }
+      return "ok";
+    } );
+    try
+    {
+      cache.get( 1 );
+      fail();
+    }
+    catch( IllegalStateException e )
+    {
+      assertEquals( "first", e.getMessage() );
+    }
+    assertEquals( "ok", cache.get( 1 ) );
+  }
+
+  public void testNestedLoadOfSameKey()
+  {
+    // a loader requesting its own key must not wait for itself
+    AtomicInteger depth = new AtomicInteger();
+    Cache<Integer, String>[] cache = new Cache[1];
+    cache[0] = Cache.make( "test", 10, key -> depth.getAndIncrement() == 0 ? "outer:" + cache[0].get( key ) : "inner" );
+    assertEquals( "outer:inner", cache[0].get( 1 ) );
+    assertEquals( "outer:inner", cache[0].get( 1 ) );
+  }
+
+  public void testLoadFromAnotherCacheIsSingleFlight() throws InterruptedException
+  {
+    // a loader reading another cache doesn't bypass that cache's single-flight loading
+    AtomicInteger loads = new AtomicInteger();
+    CountDownLatch loading = new CountDownLatch( 1 );
+    CountDownLatch release = new CountDownLatch( 1 );
+    Cache<String, String> inner = Cache.make( "inner", 10, key -> {
+      loads.incrementAndGet();
+      loading.countDown();
+      try
+      {
+        release.await();
+      }
+      catch( InterruptedException e )
+      {
+        throw new RuntimeException( e );
+      }
+      return key.toUpperCase();
+    } );
+    Cache<Integer, String> outer = Cache.make( "outer", 10, key -> inner.get( "key" ) + key );
+
+    Thread thread = new Thread( () -> inner.get( "key" ) );
+    thread.start();
+    loading.await();
+    Thread nested = new Thread( () -> outer.get( 1 ) );
+    nested.start();
+    // give the nested load time to miss
+    Thread.sleep( 100 );
+    release.countDown();
+    thread.join();
+    nested.join();
+
+    assertEquals( 1, loads.get() );
+    assertEquals( "KEY1", outer.get( 1 ) );
+  }
+
+  public void testLoadersOfTwoCachesRequestingEachOthersKeys() throws InterruptedException
+  {
+    // thread a loads x in one cache, its loader requests y from the other cache while thread b loads y there and its
+    // loader requests x, one thread must load without waiting for the other
+    CountDownLatch bothLoading = new CountDownLatch( 2 );
+    AtomicInteger loads = new AtomicInteger();
+    Cache<String, String>[] caches = new Cache[2];
+    caches[0] = Cache.make( "first", 10, key -> {
+      if( loads.incrementAndGet() > 2 )
+      {
+        return key;
+      }
+      awaitAll( bothLoading );
+      return key + caches[1].get( "y" );
+    } );
+    caches[1] = Cache.make( "second", 10, key -> {
+      if( loads.incrementAndGet() > 2 )
+      {
+        return key;
+      }
+      awaitAll( bothLoading );
+      return key + caches[0].get( "x" );
+    } );
+
+    String[] results = new String[2];
+    Thread a = new Thread( () -> results[0] = caches[0].get( "x" ) );
+    Thread b = new Thread( () -> results[1] = caches[1].get( "y" ) );
+    a.start();
+    b.start();
+    a.join( 10_000 );
+    b.join( 10_000 );
+
+    assertFalse( "deadlocked", a.isAlive() || b.isAlive() );
+    assertEquals( 3, loads.get() );
+    assertTrue( results[0].equals( "xy" ) || results[0].equals( "xyx" ) );
+    assertTrue( results[1].equals( "yx" ) || results[1].equals( "yxy" ) );
+  }
+
+  private static void awaitAll( CountDownLatch latch )
+  {
+    latch.countDown();
+    try
+    {
+      latch.await();
+    }
+    catch( InterruptedException e )
+    {
+      throw new RuntimeException( e );
+    }
+  }
+
+  public void testSketchCollisions()
+  {
+    // a frequent key doesn't raise the estimates of keys sharing some of its counters
+    Cache.FrequencySketch sketch = new Cache.FrequencySketch( 16 );
+    for( int i = 0; i < 15; i++ )
+    {
+      sketch.increment( 0 );
+    }
+    assertEquals( 15, sketch.frequency( 0 ) );
+    for( int key = 1; key < 1000; key++ )
+    {
+      assertTrue( "key " + key, sketch.frequency( key ) < 15 );
+    }
+  }
+
+  public void testExpireAfterWrite() throws InterruptedException
+  {
+    AtomicInteger loads = new AtomicInteger();
+    Cache<Integer, Integer> cache = Cache.<Integer, Integer>make( "test", 10, key -> loads.incrementAndGet() )
+      .expireAfterWrite( 50, TimeUnit.MILLISECONDS );
+    assertEquals( (Integer)1, cache.get( 1 ) );
+    assertEquals( (Integer)1, cache.get( 1 ) );
+    Thread.sleep( 100 );
+    assertEquals( (Integer)2, cache.get( 1 ) );
+    assertEquals( 1, cache.getUtilizedSize() );
+  }
+}
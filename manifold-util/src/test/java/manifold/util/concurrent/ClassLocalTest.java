@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) 2023 - Manifold Systems LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package manifold.util.concurrent;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import junit.framework.TestCase;
+
+public class ClassLocalTest extends TestCase
+{
+  public void testValuePerClass()
+  {
+    AtomicInteger computed = new AtomicInteger();
+    ClassLocal<String> names = new ClassLocal<>( cls -> {
+      computed.incrementAndGet();
+      return cls.getSimpleName();
+    } );
+
+    assertEquals( "String", names.get( String.class ) );
+    assertEquals( "Integer", names.get( Integer.class ) );
+    assertSame( names.get( String.class ), names.get( String.class ) );
+    assertEquals( 2, computed.get() );
+  }
+}